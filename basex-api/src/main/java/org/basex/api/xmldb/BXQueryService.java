@@ -6,6 +6,8 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.item.*;
 import org.xmldb.api.base.*;
 import org.xmldb.api.base.Collection;
 import org.xmldb.api.modules.*;
@@ -123,7 +125,14 @@ final class BXQueryService implements XPathQueryService, BXXMLDBText {
           qp.sc.ns.add(token(n), token(ns.get(n)), null);
         }
         // perform query and return result
-        return new BXResourceSet(qp.execute(), coll);
+        Result res = qp.execute();
+        // swapped results will be deleted when the processor is closed
+        if(res instanceof SpillBuilder) {
+          final ValueBuilder vb = new ValueBuilder();
+          for(final Item it : (SpillBuilder) res) vb.add(it);
+          res = vb;
+        }
+        return new BXResourceSet(res, coll);
       } finally {
         qp.close();
         coll.ctx.unregister(qp);
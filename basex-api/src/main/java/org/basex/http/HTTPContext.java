@@ -8,6 +8,7 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.zip.*;
 
 import javax.servlet.*;
 import javax.servlet.http.*;
@@ -137,6 +138,85 @@ public final class HTTPContext {
     res.setContentType(new TokenBuilder(ct).add(CHARSET).add(enc).toString());
   }
 
+  /**
+   * Assigns the validators of a resource to the response and checks if the client
+   * already has an up-to-date copy of the resource. If this is the case, the status
+   * code 304 (Not Modified) is set, and no output must be written.
+   * @param etag entity tag
+   * @param time modification time
+   * @return {@code true} if the resource has not been modified
+   */
+  public boolean notModified(final String etag, final long time) {
+    res.setHeader(ETAG, etag);
+    res.setDateHeader(LAST_MODIFIED, time);
+
+    boolean nm = false;
+    final String inm = req.getHeader(IF_NONE_MATCH);
+    if(inm != null) {
+      // entity tags take precedence over modification dates
+      for(final String tag : inm.split(",")) {
+        final String t = tag.trim().replaceFirst("^W/", "");
+        nm |= t.equals("*") || t.equals(etag);
+      }
+    } else {
+      try {
+        // dates are compared with a resolution of seconds
+        final long ims = req.getDateHeader(IF_MODIFIED_SINCE);
+        nm = ims != -1 && time / 1000 <= ims / 1000;
+      } catch(final IllegalArgumentException ex) {
+        Util.debug(ex);
+      }
+    }
+    if(nm) res.setStatus(SC_NOT_MODIFIED);
+    return nm;
+  }
+
+  /**
+   * Returns the output stream of the response. If the client accepts compressed
+   * content, the output will be compressed with gzip or deflate.
+   * The stream must be closed after all output has been written. As the response itself
+   * will not be closed, an error can still be sent if the output has not been committed.
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  public OutputStream output() throws IOException {
+    // closing the returned stream will not close or commit the response
+    final OutputStream os = new FilterOutputStream(res.getOutputStream()) {
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+      }
+      @Override
+      public void close() { }
+    };
+    final String enc = encoding();
+    if(enc == null) return os;
+
+    res.setHeader(VARY, ACCEPT_ENCODING);
+    res.setHeader(CONTENT_ENCODING, enc);
+    return enc.equals(GZIP) ? new GZIPOutputStream(os) : new DeflaterOutputStream(os);
+  }
+
+  /**
+   * Returns the preferred content coding accepted by the client.
+   * @return content coding ({@link HTTPText#GZIP}, {@link HTTPText#DEFLATE}),
+   * or {@code null} if the output will not be compressed
+   */
+  private String encoding() {
+    final String ae = req.getHeader(ACCEPT_ENCODING);
+    if(ae == null) return null;
+    String enc = null;
+    for(final String coding : ae.split(",")) {
+      final String[] parts = coding.split(";");
+      final String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+      // skip codings that have explicitly been rejected
+      if(parts.length > 1 && parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?")) continue;
+      if(name.equals(GZIP)) return GZIP;
+      if(name.equals(DEFLATE)) enc = DEFLATE;
+    }
+    return enc;
+  }
+
   /**
    * Returns the media type defined in the specified serialization parameters.
    * @param sopts serialization parameters
@@ -223,7 +303,9 @@ public final class HTTPContext {
   public void status(final int code, final String message, final boolean error) throws IOException {
     try {
       log(message, code);
-      res.resetBuffer();
+      // discard compressed output, as the message will be sent uncompressed
+      if(res.containsHeader(CONTENT_ENCODING)) res.reset();
+      else res.resetBuffer();
       if(code == SC_UNAUTHORIZED) res.setHeader(WWW_AUTHENTICATE, BASIC);
 
       if(error && code >= SC_BAD_REQUEST) {
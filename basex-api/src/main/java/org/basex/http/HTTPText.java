@@ -15,6 +15,24 @@ public interface HTTPText {
   String BASIC = "Basic";
   /** Location string. */
   String LOCATION = "location";
+  /** HTTP header: ETag. */
+  String ETAG = "ETag";
+  /** HTTP header: Last-Modified. */
+  String LAST_MODIFIED = "Last-Modified";
+  /** HTTP header: If-None-Match. */
+  String IF_NONE_MATCH = "If-None-Match";
+  /** HTTP header: If-Modified-Since. */
+  String IF_MODIFIED_SINCE = "If-Modified-Since";
+  /** HTTP header: Accept-Encoding. */
+  String ACCEPT_ENCODING = "Accept-Encoding";
+  /** HTTP header: Content-Encoding. */
+  String CONTENT_ENCODING = "Content-Encoding";
+  /** HTTP header: Vary. */
+  String VARY = "Vary";
+  /** Content coding: gzip. */
+  String GZIP = "gzip";
+  /** Content coding: deflate. */
+  String DEFLATE = "deflate";
 
   /** HTTP String. */
   String HTTP = "HTTP";
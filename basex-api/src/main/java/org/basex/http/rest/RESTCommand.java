@@ -30,7 +30,12 @@ public final class RESTCommand extends RESTCmd {
     http.serialization.set(SerializerOptions.METHOD, SerialMethod.TEXT);
     http.initResponse();
 
-    for(final Command c : cmds) run(c, http.res.getOutputStream());
+    final OutputStream out = http.output();
+    try {
+      for(final Command c : cmds) run(c, out);
+    } finally {
+      out.close();
+    }
   }
 
   /**
@@ -34,8 +34,13 @@ final class RESTList extends RESTCmd {
 
     final HTTPContext http = session.http;
     http.initResponse();
-    final Serializer ser = Serializer.get(http.res.getOutputStream(), http.serialization);
-    ser.serialize(el);
-    ser.close();
+    final OutputStream out = http.output();
+    try {
+      final Serializer ser = Serializer.get(out, http.serialization);
+      ser.serialize(el);
+      ser.close();
+    } finally {
+      out.close();
+    }
   }
 }
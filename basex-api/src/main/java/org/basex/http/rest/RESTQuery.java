@@ -70,7 +70,12 @@ class RESTQuery extends RESTCmd {
     http.serialization.parse(xq.parameters(context).toString());
     http.initResponse();
     // run query
-    run(xq, http.res.getOutputStream());
+    final OutputStream out = http.output();
+    try {
+      run(xq, out);
+    } finally {
+      out.close();
+    }
   }
 
   /**
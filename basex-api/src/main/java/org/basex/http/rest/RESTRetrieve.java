@@ -4,14 +4,18 @@ import static org.basex.query.func.Function.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.core.cmd.List;
+import org.basex.data.*;
 import org.basex.http.*;
+import org.basex.index.resource.*;
+import org.basex.io.*;
 import org.basex.io.serial.*;
 import org.basex.query.func.*;
 import org.basex.query.value.node.*;
-import org.basex.util.*;
 
 /**
  * Retrieve resources via REST.
@@ -37,26 +41,60 @@ final class RESTRetrieve extends RESTCmd {
     if(run(query(_DB_EXISTS)).equals(Text.TRUE)) {
       // return database resource
       final boolean raw = run(query(_DB_IS_RAW)).equals(Text.TRUE);
+      final SerializerOptions sopts = serial(http);
+
+      // skip serialization if the client has an up-to-date copy of the resource
+      final Data data = context.data();
+      final long time;
+      final String tag;
       if(raw) {
-        http.serialization.set(SerializerOptions.METHOD, SerialMethod.RAW);
-        http.serialization.set(SerializerOptions.MEDIA_TYPE, run(query(_DB_CONTENT_TYPE)));
+        final IOFile file = data.meta.binary(http.dbpath());
+        time = file.timeStamp();
+        tag = Long.toHexString(time) + '-' + Long.toHexString(file.length());
+      } else {
+        // modification time of the document
+        time = data.resources.time(data.resources.doc(http.dbpath()));
+        tag = Long.toHexString(time);
       }
-      http.initResponse();
+      final String etag = "\"" + tag + '-' + Integer.toHexString(sopts.toString().hashCode()) + '"';
+      if(http.notModified(etag, time)) return;
 
-      context.options.set(MainOptions.SERIALIZER, serial(http));
-      run(query(raw ? _DB_RETRIEVE : _DB_OPEN), http.res.getOutputStream());
+      if(raw) {
+        sopts.set(SerializerOptions.METHOD, SerialMethod.RAW);
+        sopts.set(SerializerOptions.MEDIA_TYPE, run(query(_DB_CONTENT_TYPE)));
+      }
+      http.initResponse();
+      context.options.set(MainOptions.SERIALIZER, sopts);
+      final OutputStream out = http.output();
+      try {
+        run(query(raw ? _DB_RETRIEVE : _DB_OPEN), out);
+      } finally {
+        out.close();
+      }
 
     } else {
       // list database resources
-      final Table table = new Table(run(new List(http.db(), http.dbpath())));
+      final List list = new List(http.db(), http.dbpath());
+      run(list);
+      final ArrayList<ResourceInfo> res = list.resources();
       final FElem el = new FElem(RESTText.Q_DATABASE).declareNS();
-      el.add(RESTText.NAME, http.db()).add(RESTText.RESOURCES, token(table.contents.size()));
-      list(table, el, RESTText.Q_RESOURCE, 0);
+      el.add(RESTText.NAME, http.db()).add(RESTText.RESOURCES, token(res.size()));
+      for(final ResourceInfo ri : res) {
+        final FElem re = new FElem(RESTText.Q_RESOURCE);
+        re.add(RESTText.TYPE, (ri.raw ? SerialMethod.RAW : SerialMethod.XML).toString());
+        re.add(RESTText.CONTENT_TYPE, ri.type).add(RESTText.SIZE, token(ri.size));
+        el.add(re.add(ri.path));
+      }
 
       http.initResponse();
-      final Serializer ser = Serializer.get(http.res.getOutputStream(), http.serialization);
-      ser.serialize(el);
-      ser.close();
+      final OutputStream out = http.output();
+      try {
+        final Serializer ser = Serializer.get(out, http.serialization);
+        ser.serialize(el);
+        ser.close();
+      } finally {
+        out.close();
+      }
     }
   }
 
@@ -26,6 +26,12 @@ public interface RESTText {
   String RESOURCES = "resources";
   /** Attribute. */
   String NAME = "name";
+  /** Attribute. */
+  String TYPE = "type";
+  /** Attribute. */
+  String CONTENT_TYPE = "content-type";
+  /** Attribute. */
+  String SIZE = "size";
 
   /** Command operation. */
   String COMMAND = "command";
@@ -6,17 +6,11 @@ import java.io.*;
 import java.util.*;
 
 import org.basex.http.webdav.impl.ResourceMetaData;
+import org.basex.http.webdav.impl.WebDAVLock;
 import org.basex.http.webdav.impl.WebDAVService;
-import org.basex.util.*;
 
 import com.bradmcevoy.http.*;
 import com.bradmcevoy.http.exceptions.*;
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.DefaultHandler;
-import org.xml.sax.helpers.XMLReaderFactory;
 
 /**
  * WebDAV resource representing an abstract folder within a collection database.
@@ -259,11 +253,8 @@ public abstract class BXAbstractResource implements
    * @param timeout lock timeout
    * @param lockInfo lock info
    * @return lock result
-   * @throws IOException I/O exception
    */
-  LockResult lockResource(final LockTimeout timeout, final LockInfo lockInfo)
-      throws IOException {
-
+  LockResult lockResource(final LockTimeout timeout, final LockInfo lockInfo) {
     final String tokenId = service.locking.lock(meta.db, meta.path,
       lockInfo.scope.name().toLowerCase(Locale.ENGLISH),
       lockInfo.type.name().toLowerCase(Locale.ENGLISH),
@@ -271,89 +262,42 @@ public abstract class BXAbstractResource implements
       lockInfo.lockedByUser,
       timeout.getSeconds());
 
-    // TODO failed(failureReason);
-    return success(new LockToken(tokenId, lockInfo, timeout));
+    return tokenId == null ? failed(FailureReason.ALREADY_LOCKED) :
+      success(new LockToken(tokenId, lockInfo, timeout));
   }
 
   /**
    * Get the active lock on the current resource.
    * @return the token of the active lock or {@code null} if resource is not locked
-   * @throws IOException I/O exception
    */
-  LockToken getCurrentActiveLock() throws IOException {
-    final String lockInfoStr = service.locking.lock(meta.db, meta.path);
-    return lockInfoStr == null ? null : parseLockInfo(lockInfoStr);
+  LockToken getCurrentActiveLock() {
+    return lockToken(service.locking.lock(meta.db, meta.path));
   }
 
   /**
    * Renew a lock with the given token.
    * @param token lock token
    * @return lock result
-   * @throws IOException I/O exception
    */
-  LockResult refresh(final String token) throws IOException {
+  LockResult refresh(final String token) {
     service.locking.refreshLock(token);
-    final String lockInfoStr = service.locking.lock(token);
-    final LockToken lockToken = lockInfoStr == null ? null : parseLockInfo(lockInfoStr);
-    // TODO failed(failureReason);
-    return success(lockToken);
+    final LockToken lockToken = lockToken(service.locking.lock(token));
+    return lockToken == null ? failed(FailureReason.PRECONDITION_FAILED) :
+      success(lockToken);
   }
 
   /**
-   * Parse the lock info.
-   * @param lockInfo lock info as a string
-   * @return parsed lock info bean
-   * @throws IOException I/O exception
+   * Converts a lock to a lock token.
+   * @param lock lock (can be {@code null})
+   * @return lock token, or {@code null}
    */
-  private static LockToken parseLockInfo(final String lockInfo) throws IOException {
-    try {
-      final XMLReader reader = XMLReaderFactory.createXMLReader();
-      final LockTokenSaxHandler handler = new LockTokenSaxHandler();
-      reader.setContentHandler(handler);
-      reader.parse(new InputSource(new StringReader(lockInfo)));
-      return handler.lockToken;
-    } catch(final SAXException ex) {
-      Util.err("Error while parsing lock info", ex);
-      return null;
-    }
-  }
-
-  /** SAX handler for lock token. */
-  private static final class LockTokenSaxHandler extends DefaultHandler {
-    /** Parsed lock token. */
-    public final LockToken lockToken = new LockToken(null, new LockInfo(), null);
-    /** Current element name. */
-    private String elementName;
-
-    @Override
-    public void startElement(final String uri, final String localName, final String name,
-        final Attributes attributes) throws SAXException {
-      elementName = localName;
-      super.startElement(uri, localName, name, attributes);
-    }
-
-    @Override
-    public void endElement(final String uri, final String localName, final String qName)
-        throws SAXException {
-      elementName = null;
-      super.endElement(uri, localName, qName);
-    }
-
-    @Override
-    public void characters(final char[] ch, final int start, final int length) {
-      final String v = String.valueOf(ch, start, length);
-      if("token".equals(elementName))
-        lockToken.tokenId = v;
-      else if("scope".equals(elementName))
-        lockToken.info.scope = LockInfo.LockScope.valueOf(v.toUpperCase(Locale.ENGLISH));
-      else if("type".equals(elementName))
-        lockToken.info.type = LockInfo.LockType.valueOf(v.toUpperCase(Locale.ENGLISH));
-      else if("depth".equals(elementName))
-        lockToken.info.depth = LockInfo.LockDepth.valueOf(v.toUpperCase(Locale.ENGLISH));
-      else if("owner".equals(elementName))
-        lockToken.info.lockedByUser = v;
-      else if("timeout".equals(elementName))
-        lockToken.timeout = LockTimeout.parseTimeout(v);
-    }
+  private static LockToken lockToken(final WebDAVLock lock) {
+    if(lock == null) return null;
+    final LockInfo info = new LockInfo();
+    info.scope = LockInfo.LockScope.valueOf(lock.scope.toUpperCase(Locale.ENGLISH));
+    info.type = LockInfo.LockType.valueOf(lock.type.toUpperCase(Locale.ENGLISH));
+    info.depth = LockInfo.LockDepth.valueOf(lock.depth.toUpperCase(Locale.ENGLISH));
+    info.lockedByUser = lock.owner;
+    return new LockToken(lock.token, info, new LockTimeout(lock.timeout));
   }
 }
@@ -0,0 +1,114 @@
+package org.basex.http.webdav.impl;
+
+import static org.basex.http.webdav.impl.Utils.*;
+
+/**
+ * WebDAV lock.
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class WebDAVLock {
+  /** Infinite timeout. */
+  static final long INFINITE = Long.MAX_VALUE;
+
+  /** Locked path (database and resource path). */
+  public final String path;
+  /** Lock token. */
+  public final String token;
+  /** Lock scope ("exclusive", "shared"). */
+  public final String scope;
+  /** Lock type ("write"). */
+  public final String type;
+  /** Lock depth ("zero", "infinity"). */
+  public final String depth;
+  /** Lock owner ({@code null} if the owner is unknown). */
+  public final String owner;
+  /** Timeout in seconds, or {@link #INFINITE}. */
+  public final long timeout;
+  /** Path segments. */
+  private final String[] segments;
+  /** Expiration time in milliseconds. */
+  private volatile long expiry;
+
+  /**
+   * Constructor.
+   * @param p locked path
+   * @param tk lock token
+   * @param s lock scope
+   * @param tp lock type
+   * @param d lock depth
+   * @param o lock owner
+   * @param t timeout in seconds, or {@code null}
+   */
+  WebDAVLock(final String p, final String tk, final String s, final String tp,
+      final String d, final String o, final Long t) {
+    path = p;
+    token = tk;
+    scope = s;
+    type = tp;
+    depth = d;
+    owner = o;
+    timeout = t == null || t < 0 ? INFINITE : t;
+    segments = segments(p);
+    refresh();
+  }
+
+  /**
+   * Renews the lock.
+   */
+  void refresh() {
+    final long now = System.currentTimeMillis();
+    expiry = timeout >= (INFINITE - now) / 1000 ? INFINITE : now + timeout * 1000;
+  }
+
+  /**
+   * Checks if the lock has expired.
+   * @param now current time in milliseconds
+   * @return result of check
+   */
+  boolean expired(final long now) {
+    return expiry <= now;
+  }
+
+  /**
+   * Checks if the lock is exclusive.
+   * @return result of check
+   */
+  boolean exclusive() {
+    return "exclusive".equals(scope);
+  }
+
+  /**
+   * Checks if the specified path is covered by this lock.
+   * A lock with depth zero covers only the locked path itself.
+   * @param segs segments of the path to be checked
+   * @return result of check
+   */
+  boolean covers(final String[] segs) {
+    final int sl = segments.length, dl = segs.length - sl;
+    if(dl < 0 || dl > 0 && ("zero".equals(depth) || "0".equals(depth))) return false;
+    for(int s = 0; s < sl; s++) if(!segments[s].equals(segs[s])) return false;
+    return true;
+  }
+
+  /**
+   * Checks if the lock is in conflict with the specified lock.
+   * Locks of unknown owners are in conflict with all other overlapping locks.
+   * @param lock lock to be checked
+   * @return result of check
+   */
+  boolean conflicts(final WebDAVLock lock) {
+    return (exclusive() || lock.exclusive()) && (owner == null || !owner.equals(lock.owner)) &&
+        (covers(lock.segments) || lock.covers(segments));
+  }
+
+  /**
+   * Decomposes a path into non-empty segments.
+   * @param path path
+   * @return segments
+   */
+  static String[] segments(final String path) {
+    final String p = stripLeadingSlash(path);
+    return p.isEmpty() ? new String[0] : p.split(String.valueOf(SEP) + '+');
+  }
+}
@@ -1,33 +1,24 @@
 package org.basex.http.webdav.impl;
 
-import org.basex.core.BaseXException;
-import org.basex.data.Result;
-import org.basex.http.HTTPContext;
-import org.basex.io.IOStream;
-import org.basex.io.out.ArrayOutput;
-import org.basex.io.serial.Serializer;
-import org.basex.query.QueryException;
-import org.basex.query.QueryProcessor;
-import org.basex.util.Util;
-import org.basex.util.list.StringList;
+import static org.basex.http.webdav.impl.Utils.*;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.UUID;
+import java.util.*;
 
-import static org.basex.http.webdav.impl.Utils.SEP;
-import static org.basex.util.Token.string;
+import org.basex.http.*;
 
 /**
  * Service managing the WebDAV locks.
+ * The locks are kept in a main-memory table, which is shared by all requests.
+ * Expired locks are removed whenever the table is accessed.
  * @author BaseX Team 2005-13, BSD License
  * @author Dimitar Popov
  */
 public final class WebDAVLockService {
-  /** Path to WebDAV module. */
-  private static final String FILE = "xquery/webdav.xqm";
-  /** Name of the database with the WebDAV locks. */
+  /** Name of the database in which older versions stored the WebDAV locks (hidden). */
   static final String WEBDAV_LOCKS_DB = "~webdav";
+  /** Active locks, indexed by their tokens. */
+  private static final HashMap<String, WebDAVLock> LOCKS =
+      new HashMap<String, WebDAVLock>();
   /** HTTP context. */
   private final HTTPContext http;
 
@@ -42,23 +33,20 @@ public final class WebDAVLockService {
   /**
    * Releases the lock for the given token.
    * @param token lock token
-   * @throws IOException I/O exception
    */
-  public void unlock(final String token) throws IOException {
-    new LockQuery(http, "w:delete-lock($lock-token)").
-      bind("lock-token", token).
-      execute();
+  public void unlock(final String token) {
+    synchronized(LOCKS) {
+      LOCKS.remove(token);
+    }
   }
 
   /**
    * Renews the lock with the given token.
    * @param token lock token
-   * @throws IOException I/O exception
    */
-  public void refreshLock(final String token) throws IOException {
-    new LockQuery(http, "w:refresh-lock($lock-token)").
-      bind("lock-token", token).
-      execute();
+  public void refreshLock(final String token) {
+    final WebDAVLock lock = lock(token);
+    if(lock != null) lock.refresh();
   }
 
   /**
@@ -69,60 +57,47 @@ public final class WebDAVLockService {
    * @param type lock type
    * @param depth lock depth
    * @param user lock user
-   * @param timeout lock timeout
-   * @return lock token
-   * @throws IOException I/O exception
+   * @param timeout lock timeout in seconds, or {@code null}
+   * @return lock token, or {@code null} if the resource has a conflicting lock
    */
   public String lock(final String db, final String p, final String scope,
-      final String type, final String depth, final String user, final Long timeout)
-      throws IOException {
+      final String type, final String depth, final String user, final Long timeout) {
 
-    initLockDb();
-    final String token = UUID.randomUUID().toString();
-    new LockQuery(http, "w:create-lock(" +
-      "$path," +
-      "$lock-token," +
-      "$lock-scope," +
-      "$lock-type," +
-      "$lock-depth," +
-      "$lock-owner," +
-      "$lock-timeout)").
-      bind("path", db + SEP + p).
-      bind("lock-token", token).
-      bind("lock-scope", scope).
-      bind("lock-type", type).
-      bind("lock-depth", depth).
-      bind("lock-owner", user).
-      bind("lock-timeout", timeout == null ? Long.MAX_VALUE : timeout).
-      execute();
-    return token;
+    final WebDAVLock lock = new WebDAVLock(db + SEP + p, UUID.randomUUID().toString(),
+        scope, type, depth, user, timeout);
+    synchronized(LOCKS) {
+      for(final WebDAVLock l : active()) if(l.conflicts(lock)) return null;
+      LOCKS.put(lock.token, lock);
+    }
+    return lock.token;
   }
 
   /**
-   * Gets lock with given token.
+   * Returns the lock with the given token.
    * @param token lock token
-   * @return lock
-   * @throws IOException I/O exception
+   * @return lock, or {@code null}
    */
-  public String lock(final String token) throws IOException {
-    final StringList locks = new LockQuery(http, "w:lock($lock-token)").
-      bind("$lock-token", token).
-      execute();
-    return locks.isEmpty() ? null : locks.get(0);
+  public WebDAVLock lock(final String token) {
+    synchronized(LOCKS) {
+      final WebDAVLock lock = LOCKS.get(token);
+      if(lock == null || !lock.expired(System.currentTimeMillis())) return lock;
+      LOCKS.remove(token);
+      return null;
+    }
   }
 
   /**
-   * Gets active locks for the given resource.
+   * Returns an active lock for the given resource.
    * @param db database
    * @param p path
-   * @return locks
-   * @throws IOException I/O exception
+   * @return lock, or {@code null}
    */
-  public String lock(final String db, final String p) throws IOException {
-    final StringList locks = new LockQuery(http, "w:locks-on($path)").
-      bind("path", db + SEP + p).
-      execute();
-    return locks.isEmpty() ? null : locks.get(0);
+  public WebDAVLock lock(final String db, final String p) {
+    final String[] segs = WebDAVLock.segments(db + SEP + p);
+    synchronized(LOCKS) {
+      for(final WebDAVLock l : active()) if(l.covers(segs)) return l;
+    }
+    return null;
   }
 
   /**
@@ -130,109 +105,25 @@ public final class WebDAVLockService {
    * @param db database
    * @param p path
    * @return {@code true} if there active conflicting locks
-   * @throws IOException I/O exception
    */
-  public boolean conflictingLocks(final String db, final String p) throws IOException {
-    return !new LockQuery(http,
-      "w:conflicting-locks(" +
-        "<w:lockinfo>" +
-        "<w:path>{ $path }</w:path>" +
-        "<w:scope>exclusive</w:scope>" +
-        "<w:depth>infinite</w:depth>" +
-        "<w:owner>{ $owner }</w:owner>" +
-        "</w:lockinfo>)").
-      bind("path", db + SEP + p).
-      bind("owner", http.user).
-      execute().isEmpty();
+  public boolean conflictingLocks(final String db, final String p) {
+    final WebDAVLock lock = new WebDAVLock(db + SEP + p, null, "exclusive", null,
+        "infinity", http.user, null);
+    synchronized(LOCKS) {
+      for(final WebDAVLock l : active()) if(l.conflicts(lock)) return true;
+    }
+    return false;
   }
 
   /**
-   * Creates the lock database, if it does not exist.
-   * @throws IOException I/O exception
+   * Removes expired locks and returns all active locks.
+   * Must be called while holding the monitor of the lock table.
+   * @return active locks
    */
-  private void initLockDb() throws IOException {
-    new LockQuery(http, "w:init-lock-db()").execute();
-  }
-
-  /** Class abstracting the underlying query mechanism. */
-  private static final class LockQuery {
-    /** Query processor. */
-    private final QueryProcessor p;
-
-    /**
-     * Constructor.
-     * @param h HTTP context
-     * @param q query  text
-     */
-    LockQuery(final HTTPContext h, final String q) {
-      p = new QueryProcessor(q, h.context());
-    }
-
-    /**
-     * Binds a new query parameter.
-     * @param n parameter name
-     * @param v parameter value
-     * @return {@code this}
-     * @throws IOException error during binding
-     */
-    LockQuery bind(final String n, final Object v) throws IOException {
-      try {
-        p.bind(n, v);
-      } catch(final QueryException ex) {
-        throw new BaseXException(ex);
-      }
-      return this;
-    }
-
-    /**
-     * Executes the query.
-     * @return list of serialized result items
-     * @throws IOException error during query execution
-     */
-    StringList execute() throws IOException {
-      registerModule();
-      try {
-        final Result r = p.execute();
-        final int n = (int) r.size();
-        final StringList items = new StringList(n);
-        for(int i = 0; i < n; i++) {
-          final ArrayOutput o = new ArrayOutput();
-          r.serialize(Serializer.get(o), 0);
-          items.add(o.toString());
-        }
-        return items;
-      } catch(final QueryException ex) {
-        throw new BaseXException(ex);
-      } catch(final Exception ex) {
-        Util.debug(ex);
-        throw new BaseXException(ex);
-      } finally {
-        p.close();
-      }
-    }
-
-    /**
-     * Registers the WebDAV XQuery module.
-     * @throws IOException error during parsing the module
-     */
-    private void registerModule() throws IOException {
-      try {
-        p.ctx.parseLibrary(string(readModule()), FILE, p.sc);
-      } catch(final QueryException ex) {
-        throw new BaseXException(ex);
-      }
-    }
-
-    /**
-     * Reads the WebDAV XQuery module from the classpath.
-     * @return the content of the module
-     * @throws IOException error during reading the module
-     */
-    private byte[] readModule() throws IOException {
-      final ClassLoader cl = getClass().getClassLoader();
-      final InputStream s = cl.getResourceAsStream(FILE);
-      if(s == null) throw new IOException("WebDAV module not found");
-      return new IOStream(s).read();
-    }
+  private static Collection<WebDAVLock> active() {
+    final long now = System.currentTimeMillis();
+    final Iterator<WebDAVLock> it = LOCKS.values().iterator();
+    while(it.hasNext()) if(it.next().expired(now)) it.remove();
+    return LOCKS.values();
   }
 }
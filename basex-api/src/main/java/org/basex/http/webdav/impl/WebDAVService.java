@@ -4,18 +4,19 @@ import static org.basex.http.webdav.impl.Utils.*;
 import static org.basex.http.webdav.impl.WebDAVLockService.*;
 import static org.basex.io.MimeTypes.*;
 import static org.basex.query.func.Function.*;
+import static org.basex.util.Token.*;
 
 import java.io.*;
-import java.text.*;
 import java.util.*;
 import java.util.List;
 
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.cmd.Set;
+import org.basex.data.*;
 import org.basex.http.*;
+import org.basex.index.resource.*;
 import org.basex.io.in.*;
-import org.basex.query.func.*;
 import org.basex.server.*;
 import org.basex.util.*;
 
@@ -32,6 +33,10 @@ public final class WebDAVService<T> {
   private final ResourceMetaDataFactory<T> factory;
   /** Locking service. */
   public final WebDAVLockService locking;
+  /** Client context. */
+  private Context ctx;
+  /** Local session. */
+  private LocalSession local;
 
   /**
    * Constructor.
@@ -70,12 +75,64 @@ public final class WebDAVService<T> {
   }
 
   /**
-   * Returns an HTTP session.
+   * Returns the client context of this service. The context is created on first access
+   * and reused for all subsequent operations of the request.
+   * @return context
+   * @throws LoginException login exception
+   */
+  private Context context() throws LoginException {
+    if(ctx == null) ctx = http.authenticate();
+    return ctx;
+  }
+
+  /**
+   * Returns the session of this service. The session is created on first access
+   * and reused for all subsequent operations of the request.
    * @return session
    * @throws LoginException login exception
    */
   private LocalSession session() throws LoginException {
-    return new LocalSession(http.authenticate(), http.user, http.pass);
+    if(local == null) local = new LocalSession(context());
+    return local;
+  }
+
+  /**
+   * Returns information on all resources starting with the specified path.
+   * The resources are retrieved in a single read transaction.
+   * @param db database
+   * @param path path
+   * @return resources, sorted by their paths
+   * @throws IOException I/O exception
+   */
+  private ArrayList<ResourceInfo> resources(final String db, final String path)
+      throws IOException {
+    final org.basex.core.cmd.List list = new org.basex.core.cmd.List(db, path);
+    list.execute(context());
+    return list.resources();
+  }
+
+  /**
+   * Looks up a single resource or directory in a single read transaction.
+   * @param db database
+   * @param path path
+   * @return lookup
+   * @throws IOException I/O exception
+   */
+  private Lookup lookup(final String db, final String path) throws IOException {
+    final Lookup lookup = new Lookup(db, path);
+    lookup.execute(context());
+    return lookup;
+  }
+
+  /**
+   * Returns the meta data of the specified resource.
+   * @param db database
+   * @param ri resource
+   * @return resource meta data
+   */
+  private static ResourceMetaData metaData(final String db, final ResourceInfo ri) {
+    return new ResourceMetaData(db, stripLeadingSlash(string(ri.path)), ri.time, ri.raw,
+        ri.type, ri.raw ? Long.valueOf(ri.size) : null);
   }
 
   /**
@@ -101,9 +158,7 @@ public final class WebDAVService<T> {
    * @throws IOException I/O exception
    */
   public boolean dbExists(final String db) throws IOException {
-    final Query q = session().query(_DB_LIST.args() + "[. = $db]");
-    q.bind("db", db);
-    return !q.execute().isEmpty();
+    return context().globalopts.dbexists(db);
   }
 
   /**
@@ -113,16 +168,7 @@ public final class WebDAVService<T> {
    * @throws IOException I/O exception
    */
   public long timestamp(final String db) throws IOException {
-    final Query q = session().query(DATA.args(_DB_INFO.args("$p") +
-        "/descendant::" + FNDb.toName(Text.TIMESTAMP) + "[1]"));
-    q.bind("p", db);
-    try {
-      // retrieve and parse timestamp
-      return DateTime.parse(q.execute(), DateTime.DATETIME).getTime();
-    } catch(final ParseException ex) {
-      Util.errln(ex);
-      return 0L;
-    }
+    return context().globalopts.dbpath(db).timeStamp();
   }
 
   /**
@@ -133,26 +179,9 @@ public final class WebDAVService<T> {
    * @throws IOException I/O exception
    */
   ResourceMetaData metaData(final String db, final String path) throws IOException {
-    final Query q = session().query(
-        "let $a := " + _DB_LIST_DETAILS.args("$d", "$p") +
-        "return (" +
-        "$a/@raw/data()," +
-        "$a/@content-type/data()," +
-        "$a/@modified-date/data()," +
-        "$a/@size/data()," +
-        "$a/text())");
-    q.bind("d", db);
-    q.bind("p", path);
-    try {
-      final boolean raw = Boolean.parseBoolean(q.next());
-      final String ctype = q.next();
-      final long mod = DateTime.parse(q.next());
-      final Long size = raw ? Long.valueOf(q.next()) : null;
-      final String pth = stripLeadingSlash(q.next());
-      return new ResourceMetaData(db, pth, mod, raw, ctype, size);
-    } finally {
-      q.close();
-    }
+    final ResourceInfo ri = lookup(db, path).info;
+    if(ri == null) throw new BaseXException(Text.RES_NOT_FOUND_X, path);
+    return metaData(db, ri);
   }
 
   /**
@@ -253,12 +282,21 @@ public final class WebDAVService<T> {
 
     final Session session = session();
     session.setOutputStream(out);
-    final Query q = session.query("declare option output:" + (raw ?
-      "method 'raw'; " + _DB_RETRIEVE.args("$db", "$path") :
-      "use-character-maps 'webdav'; " + _DB_OPEN.args("$db", "$path")));
-    q.bind("db", db);
-    q.bind("path", path);
-    q.execute();
+    try {
+      if(raw) {
+        // stream raw file
+        session.execute(new Open(db));
+        session.execute(new Retrieve(path));
+      } else {
+        final Query q = session.query("declare option output:use-character-maps 'webdav'; " +
+            _DB_OPEN.args("$db", "$path"));
+        q.bind("db", db);
+        q.bind("path", path);
+        q.execute();
+      }
+    } finally {
+      session.setOutputStream(null);
+    }
   }
 
   /**
@@ -311,34 +349,22 @@ public final class WebDAVService<T> {
   public List<T> list(final String db, final String path) throws IOException {
     final List<T> ch = new ArrayList<T>();
     final HashSet<String> paths = new HashSet<String>();
-    final Query q = session().query(
-        "for $a in " + _DB_LIST_DETAILS.args("$d", "$p") +
-        "return ($a/@raw/data()," +
-        "$a/@content-type/data()," +
-        "$a/@modified-date/data()," +
-        "$a/@size/data()," +
-        SUBSTRING_AFTER.args("$a/text()", "$p") + ')');
-    q.bind("d", db);
-    q.bind("p", path);
-    while(q.more()) {
-      final boolean raw = Boolean.parseBoolean(q.next());
-      final String ctype = q.next();
-      final long mod = DateTime.parse(q.next());
-      final Long size = raw ? Long.valueOf(q.next()) : null;
-      final String pth = stripLeadingSlash(q.next());
+    final String np = MetaData.normPath(path);
+    if(np == null) return ch;
+    for(final ResourceInfo ri : resources(db, path)) {
+      final String pth = stripLeadingSlash(string(ri.path).substring(np.length()));
       final int ix = pth.indexOf(SEP);
       // check if document or folder
       if(ix < 0) {
         if(!pth.equals(DUMMY))
-          ch.add(factory.file(this, new ResourceMetaData(db, path + SEP + pth, mod,
-            raw, ctype, size)));
+          ch.add(factory.file(this, new ResourceMetaData(db, path + SEP + pth, ri.time,
+            ri.raw, ri.type, ri.raw ? Long.valueOf(ri.size) : null)));
       } else {
         final String dir = path + SEP + pth.substring(0, ix);
         if(paths.add(dir))
-          ch.add(factory.folder(this, new ResourceMetaData(db, dir, mod)));
+          ch.add(factory.folder(this, new ResourceMetaData(db, dir, ri.time)));
       }
     }
-    q.close();
     return ch;
   }
 
@@ -349,20 +375,9 @@ public final class WebDAVService<T> {
    */
   public List<T> listDbs() throws IOException {
     final List<T> dbs = new ArrayList<T>();
-    final Query q = session().query(
-        "for $d in " + _DB_LIST_DETAILS.args() +
-        "where not($d/text() eq '" + WEBDAV_LOCKS_DB + "') " +
-        "return ($d/text(), $d/@modified-date/data())");
-    try {
-      while(q.more()) {
-        final String name = q.next();
-        final long mod = DateTime.parse(q.next());
-        dbs.add(factory.database(this, new ResourceMetaData(name, mod)));
-      }
-    } catch(final Exception ex) {
-      Util.errln(ex);
-    } finally {
-      q.close();
+    for(final String name : context().databases.listDBs()) {
+      if(WEBDAV_LOCKS_DB.equals(name)) continue;
+      dbs.add(factory.database(this, new ResourceMetaData(name, timestamp(name))));
     }
     return dbs;
   }
@@ -390,11 +405,10 @@ public final class WebDAVService<T> {
    * @throws IOException I/O exception
    */
   public T resource(final String db, final String path) throws IOException {
-    return exists(db, path) ?
-      factory.file(this, metaData(db, path)) :
-      pathExists(db, path) ?
-        factory.folder(this, new ResourceMetaData(db, path, timestamp(db))) :
-        null;
+    final Lookup lookup = lookup(db, path);
+    return lookup.info != null ? factory.file(this, metaData(db, lookup.info)) :
+      lookup.dir ? factory.folder(this, new ResourceMetaData(db, path, timestamp(db))) :
+      null;
   }
 
   /**
@@ -441,24 +455,8 @@ public final class WebDAVService<T> {
    * @throws IOException I/O exception
    */
   private boolean pathExists(final String db, final String path) throws IOException {
-    final Query q = session().query(EXISTS.args(_DB_LIST.args("$d", "$p")));
-    q.bind("d", db);
-    q.bind("p", path);
-    return q.execute().equals(Text.TRUE);
-  }
-
-  /**
-   * Checks if any resource with the specified name exists.
-   * @param db name of database
-   * @param path resource path
-   * @return {@code true} if there are resources with the name
-   * @throws IOException I/O exception
-   */
-  private boolean exists(final String db, final String path) throws IOException {
-    final Query q = session().query(_DB_EXISTS.args("$d", "$p"));
-    q.bind("d", db);
-    q.bind("p", path);
-    return q.execute().equals(Text.TRUE);
+    final Lookup lookup = lookup(db, path);
+    return lookup.info != null || lookup.dir;
   }
 
   /**
@@ -560,4 +558,42 @@ public final class WebDAVService<T> {
     session.execute(new Open(db));
     session.store(path + SEP + DUMMY, new ArrayInput(Token.EMPTY));
   }
+
+  /**
+   * Command for looking up a single resource or directory. In contrast to listing the
+   * resources of a path, descendants of directories are not visited.
+   */
+  private static final class Lookup extends Command {
+    /** Resource with the specified path ({@code null} if it does not exist). */
+    ResourceInfo info;
+    /** Indicates if a directory exists with the specified path. */
+    boolean dir;
+
+    /**
+     * Constructor.
+     * @param db database
+     * @param path path
+     */
+    Lookup(final String db, final String path) {
+      super(Perm.NONE, db, path);
+    }
+
+    @Override
+    protected boolean run() throws IOException {
+      final Data data = Open.open(args[0], context);
+      try {
+        // the empty path addresses the root directory of the database
+        info = data.resources.info(args[1]);
+        dir = info == null && (args[1].isEmpty() || data.resources.isDir(token(args[1])));
+      } finally {
+        Close.close(data, context);
+      }
+      return true;
+    }
+
+    @Override
+    public void databases(final LockResult lr) {
+      lr.read.add(args[0]);
+    }
+  }
 }
@@ -6,6 +6,7 @@ import static org.junit.Assert.*;
 
 import java.io.*;
 import java.net.*;
+import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.http.*;
@@ -87,6 +88,109 @@ public class RESTTest extends HTTPTest {
     delete(NAME);
   }
 
+  /**
+   * GET Test: conditional requests.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void getConditional() throws IOException {
+    final String text = new String(new char[100]).replace('\0', 'x');
+    put(ROOT + NAME, new ArrayInput("<a>" + text + "</a>"));
+    final URL url = new URL(ROOT + NAME + '/' + NAME + ".xml");
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    final String etag;
+    try {
+      assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+      etag = conn.getHeaderField(HTTPText.ETAG);
+      assertNotNull(etag);
+      assertNotNull(conn.getHeaderField(HTTPText.LAST_MODIFIED));
+      // uncompressed output
+      assertNull(conn.getHeaderField(HTTPText.VARY));
+    } finally {
+      conn.disconnect();
+    }
+
+    conn = (HttpURLConnection) url.openConnection();
+    conn.setRequestProperty(HTTPText.IF_NONE_MATCH, etag);
+    try {
+      assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, conn.getResponseCode());
+    } finally {
+      conn.disconnect();
+    }
+
+    // other document in the same database
+    put(ROOT + NAME + "/b.xml", new ArrayInput("<b/>"));
+    conn = (HttpURLConnection) url.openConnection();
+    conn.setRequestProperty(HTTPText.IF_NONE_MATCH, etag);
+    try {
+      assertEquals(HttpURLConnection.HTTP_NOT_MODIFIED, conn.getResponseCode());
+    } finally {
+      conn.disconnect();
+    }
+
+    // updated resource (the text is changed after its first 100 characters)
+    get(NAME + "?query=replace+value+of+node+/a+with+concat(/a,'y')");
+    conn = (HttpURLConnection) url.openConnection();
+    conn.setRequestProperty(HTTPText.IF_NONE_MATCH, etag);
+    try {
+      assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+      assertEquals("<a>" + text + "y</a>", read(conn.getInputStream()));
+    } finally {
+      conn.disconnect();
+    }
+
+    // modified resource
+    put(ROOT + NAME, new ArrayInput("<b><c/></b>"));
+    conn = (HttpURLConnection) url.openConnection();
+    conn.setRequestProperty(HTTPText.IF_NONE_MATCH, etag);
+    try {
+      assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+      assertEquals("<b><c/></b>", read(conn.getInputStream()).replaceAll("\\s+", ""));
+    } finally {
+      conn.disconnect();
+    }
+    delete(NAME);
+  }
+
+  /**
+   * GET Test: compressed resources.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void getCompressed() throws IOException {
+    put(ROOT + NAME, new ArrayInput("<a/>"));
+    final URL url = new URL(ROOT + NAME + '/' + NAME + ".xml");
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    conn.setRequestProperty(HTTPText.ACCEPT_ENCODING, "deflate;q=0.5, gzip");
+    try {
+      assertEquals(HTTPText.GZIP, conn.getHeaderField(HTTPText.CONTENT_ENCODING));
+      assertEquals("<a/>", read(new GZIPInputStream(conn.getInputStream())));
+    } finally {
+      conn.disconnect();
+    }
+    delete(NAME);
+
+    // query results
+    conn = (HttpURLConnection) new URL(ROOT + "?query=1+to+3").openConnection();
+    conn.setRequestProperty(HTTPText.ACCEPT_ENCODING, HTTPText.GZIP);
+    try {
+      assertEquals(HTTPText.GZIP, conn.getHeaderField(HTTPText.CONTENT_ENCODING));
+      assertEquals("1 2 3", read(new GZIPInputStream(conn.getInputStream())));
+    } finally {
+      conn.disconnect();
+    }
+
+    // errors are sent uncompressed
+    conn = (HttpURLConnection) new URL(ROOT + "?query=error()").openConnection();
+    conn.setRequestProperty(HTTPText.ACCEPT_ENCODING, HTTPText.GZIP);
+    try {
+      assertEquals(HttpURLConnection.HTTP_BAD_REQUEST, conn.getResponseCode());
+      assertNull(conn.getHeaderField(HTTPText.CONTENT_ENCODING));
+    } finally {
+      conn.disconnect();
+    }
+  }
+
   /**
    * GET Test.
    * @throws Exception exception
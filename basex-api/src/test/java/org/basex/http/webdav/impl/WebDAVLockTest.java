@@ -0,0 +1,105 @@
+package org.basex.http.webdav.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+/**
+ * This class tests the main-memory table of WebDAV locks.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class WebDAVLockTest {
+  /** Database name. */
+  private static final String DB = "WebDAVLockTest";
+  /** Lock service. */
+  private final WebDAVLockService locking = new WebDAVLockService(null);
+
+  /** Paths covered by locks. */
+  @Test
+  public void covers() {
+    final WebDAVLock lock = lock("db/a", "exclusive", "infinity", "u");
+    assertTrue(lock.covers(WebDAVLock.segments("db/a")));
+    assertTrue(lock.covers(WebDAVLock.segments("/db//a/")));
+    assertTrue(lock.covers(WebDAVLock.segments("db/a/b/c")));
+    assertFalse(lock.covers(WebDAVLock.segments("db")));
+    assertFalse(lock.covers(WebDAVLock.segments("db/ab")));
+    assertFalse(lock.covers(WebDAVLock.segments("dc/a")));
+
+    final WebDAVLock zero = lock("db/a", "exclusive", "0", "u");
+    assertTrue(zero.covers(WebDAVLock.segments("db/a")));
+    assertFalse(zero.covers(WebDAVLock.segments("db/a/b")));
+  }
+
+  /** Conflicting locks. */
+  @Test
+  public void conflicts() {
+    final WebDAVLock ex = lock("db/a", "exclusive", "infinity", "u");
+    // same owner
+    assertFalse(ex.conflicts(lock("db/a", "exclusive", "infinity", "u")));
+    // other owner: shared, exclusive, parent and descendant paths
+    assertTrue(ex.conflicts(lock("db/a", "shared", "infinity", "v")));
+    assertTrue(ex.conflicts(lock("db", "exclusive", "infinity", "v")));
+    assertTrue(ex.conflicts(lock("db/a/b", "exclusive", "0", "v")));
+    assertFalse(ex.conflicts(lock("db/b", "exclusive", "infinity", "v")));
+    // lock with depth zero on a parent path
+    assertFalse(ex.conflicts(lock("db", "exclusive", "0", "v")));
+    // shared locks
+    final WebDAVLock sh = lock("db/a", "shared", "infinity", "u");
+    assertFalse(sh.conflicts(lock("db/a", "shared", "infinity", "v")));
+    // unknown owners
+    final WebDAVLock anon = lock("db/a", "exclusive", "infinity", null);
+    assertTrue(anon.conflicts(lock("db/a", "exclusive", "infinity", null)));
+    assertTrue(lock("db/a", "exclusive", "infinity", "u").conflicts(anon));
+  }
+
+  /** Locks in the lock table. */
+  @Test
+  public void table() {
+    final String token = locking.lock(DB, "a", "exclusive", "write", "infinity", "u", null);
+    assertNotNull(token);
+    try {
+      assertEquals(DB + "/a", locking.lock(token).path);
+      assertEquals(token, locking.lock(DB, "a/b").token);
+      assertNull(locking.lock(DB, "b"));
+      // conflicting and compatible locks
+      assertNull(locking.lock(DB, "a/b", "shared", "write", "infinity", "v", null));
+      assertNull(locking.lock(DB, "a", "exclusive", "write", "infinity", null, null));
+      final String other = locking.lock(DB, "b", "exclusive", "write", "infinity", "v", null);
+      assertNotNull(other);
+      locking.unlock(other);
+      assertNull(locking.lock(other));
+    } finally {
+      locking.unlock(token);
+    }
+    assertNull(locking.lock(token));
+    assertNull(locking.lock(DB, "a"));
+  }
+
+  /** Expired locks. */
+  @Test
+  public void expired() {
+    final String token = locking.lock(DB, "a", "exclusive", "write", "infinity", "u", 0L);
+    assertNull(locking.lock(token));
+    // expired locks are not in conflict with new locks
+    final String other = locking.lock(DB, "a", "exclusive", "write", "infinity", "v", 60L);
+    assertNotNull(other);
+    locking.refreshLock(other);
+    assertNotNull(locking.lock(other));
+    locking.unlock(other);
+  }
+
+  /**
+   * Creates a lock.
+   * @param path path
+   * @param scope scope
+   * @param depth depth
+   * @param owner owner
+   * @return lock
+   */
+  private static WebDAVLock lock(final String path, final String scope, final String depth,
+      final String owner) {
+    return new WebDAVLock(path, null, scope, "write", depth, owner, null);
+  }
+}
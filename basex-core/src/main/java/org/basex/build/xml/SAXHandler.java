@@ -70,7 +70,13 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler {
       for(int a = 0; a < as; ++a) {
         final byte[] an = token(at.getQName(a));
         final byte[] av = token(at.getValue(a));
-        atts.add(stripNS ? local(an) : an, av);
+        if(startsWith(an, XMLNS) && (an.length == 5 || an[5] == ':')) {
+          // namespace declarations may be passed on as attributes by some SAX sources
+          final byte[] pref = an.length == 5 ? EMPTY : substring(an, 6);
+          if(!stripNS && nsp.get(pref) == -1) nsp.add(pref, av);
+        } else {
+          atts.add(stripNS ? local(an) : an, av);
+        }
       }
       final byte[] en = token(qn);
       builder.openElem(stripNS ? local(en) : en, atts, nsp);
@@ -40,6 +40,8 @@ public final class Context {
   public final Repo repo;
   /** Databases list. */
   public final Databases databases;
+  /** Query result cache. */
+  public final QueryCache cache;
 
   /** User reference. */
   public User user;
@@ -89,6 +91,7 @@ public final class Context {
     events = ctx.events;
     sessions = ctx.sessions;
     databases = ctx.databases;
+    cache = ctx.cache;
     blocker = ctx.blocker;
     locks = ctx.locks;
     users = ctx.users;
@@ -107,6 +110,7 @@ public final class Context {
     sessions = new Sessions();
     blocker = new ClientBlocker();
     databases = new Databases(this);
+    cache = new QueryCache(gopts);
     locks = gopts.get(GlobalOptions.GLOBALLOCK) ? new ProcLocking(this) : new DBLocking(gopts);
     users = new Users(this);
     repo = new Repo(this);
@@ -237,6 +241,8 @@ public final class Context {
     final StringList read = prepareLock(lr.read, lr.readAll);
     final StringList write = prepareLock(lr.write, lr.writeAll);
     locks.acquire(pr, read, write);
+    // invalidate cached query results that depend on databases to be updated
+    cache.invalidate(write);
   }
 
   /**
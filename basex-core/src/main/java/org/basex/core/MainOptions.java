@@ -82,6 +82,8 @@ public final class MainOptions extends Options {
   public static final NumberOption MAXCATS = new NumberOption("MAXCATS", 100);
   /** Flag for automatic index update. */
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
+  /** Flag for evaluating descendant steps with an element name index. */
+  public static final BooleanOption NAMEINDEX = new BooleanOption("NAMEINDEX", false);
 
   // Full-Text
 
@@ -120,6 +122,11 @@ public final class MainOptions extends Options {
   public static final BooleanOption CHECKSTRINGS = new BooleanOption("CHECKSTRINGS", true);
   /** Levenshtein default error. */
   public static final NumberOption LSERROR = new NumberOption("LSERROR", 0);
+  /** Maximum number of bytes of materialized sequences and sort keys kept in main memory
+   *  before they are swapped to disk (0: no limit). */
+  public static final NumberOption SPILLSIZE = new NumberOption("SPILLSIZE", 0);
+  /** Number of threads for evaluating parallelizable expressions (1: sequential). */
+  public static final NumberOption THREADS = new NumberOption("THREADS", 1);
   /** Number of query executions. */
   public static final NumberOption RUNS = new NumberOption("RUNS", 1);
 
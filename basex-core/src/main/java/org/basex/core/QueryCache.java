@@ -0,0 +1,156 @@
+package org.basex.core;
+
+import static org.basex.core.Text.*;
+
+import java.util.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Cache for the serialized results of deterministic queries. Entries are kept in
+ * LRU order and evicted when the size of all cached results exceeds the budget
+ * specified by {@link GlobalOptions#QUERYCACHE}. An entry is invalidated as soon as
+ * a process acquires a write lock on one of the databases it depends on.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached results, ordered by access. */
+  private final LinkedHashMap<String, Result> results =
+      new LinkedHashMap<String, Result>(16, 0.75f, true);
+  /** Global options. */
+  private final GlobalOptions gopts;
+
+  /** Total size of the cached results. */
+  private long size;
+  /** Number of cache hits. */
+  private long hits;
+  /** Number of cache misses. */
+  private long misses;
+  /** Number of entries invalidated by updates. */
+  private long invalidated;
+  /** Number of entries evicted from the cache. */
+  private long evicted;
+
+  /**
+   * Constructor.
+   * @param gopt global options
+   */
+  QueryCache(final GlobalOptions gopt) {
+    gopts = gopt;
+  }
+
+  /**
+   * Returns the maximum size of all cached results.
+   * @return size in bytes ({@code 0} if the cache is disabled)
+   */
+  public long max() {
+    return Math.max(0, gopts.get(GlobalOptions.QUERYCACHE)) << 10;
+  }
+
+  /**
+   * Returns a cached result.
+   * @param key query key
+   * @return serialized result, or {@code null}
+   */
+  public synchronized byte[] get(final String key) {
+    final Result r = results.get(key);
+    if(r == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return r.value;
+  }
+
+  /**
+   * Caches a result.
+   * @param key query key
+   * @param value serialized result
+   * @param dbs names of the databases the result depends on ({@code null}: all databases)
+   */
+  public synchronized void put(final String key, final byte[] value, final StringList dbs) {
+    final long max = max();
+    if(value.length > max) return;
+
+    final Result old = results.put(key, new Result(value,
+        dbs == null ? null : new StringList().add(dbs).unique()));
+    if(old != null) size -= old.value.length;
+    size += value.length;
+
+    // remove least recently used entries
+    final Iterator<Result> it = results.values().iterator();
+    while(size > max) {
+      size -= it.next().value.length;
+      it.remove();
+      evicted++;
+    }
+  }
+
+  /**
+   * Invalidates all results that depend on the specified databases.
+   * @param dbs names of the databases that will be updated ({@code null}: all databases)
+   */
+  public synchronized void invalidate(final StringList dbs) {
+    if(results.isEmpty() || dbs != null && dbs.isEmpty()) return;
+
+    // administrative and repository operations may affect all results
+    final boolean all = dbs == null || dbs.contains(DBLocking.ADMIN) ||
+        dbs.contains(DBLocking.REPO);
+    final Iterator<Result> it = results.values().iterator();
+    while(it.hasNext()) {
+      final Result r = it.next();
+      if(all || r.dbs == null || r.depends(dbs)) {
+        size -= r.value.length;
+        it.remove();
+        invalidated++;
+      }
+    }
+  }
+
+  /**
+   * Returns information on the cache.
+   * @return info string
+   */
+  public synchronized String info() {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("Query cache: ").add(max() == 0 ? "disabled" : Performance.format(max()));
+    tb.add(NL).add(LI).add("Entries: " + results.size());
+    tb.add(NL).add(LI).add("Size: ").add(Performance.format(size));
+    tb.add(NL).add(LI).add("Hits: " + hits);
+    tb.add(NL).add(LI).add("Misses: " + misses);
+    tb.add(NL).add(LI).add("Invalidated: " + invalidated);
+    tb.add(NL).add(LI).add("Evicted: " + evicted);
+    return tb.toString();
+  }
+
+  /** Cached result. */
+  private static final class Result {
+    /** Serialized result. */
+    final byte[] value;
+    /** Databases the result depends on ({@code null}: all databases). */
+    final StringList dbs;
+
+    /**
+     * Constructor.
+     * @param v serialized result
+     * @param d databases
+     */
+    Result(final byte[] v, final StringList d) {
+      value = v;
+      dbs = d;
+    }
+
+    /**
+     * Checks if the result depends on one of the specified databases.
+     * @param names database names
+     * @return result of check
+     */
+    boolean depends(final StringList names) {
+      for(final String db : dbs) if(names.contains(db)) return true;
+      return false;
+    }
+  }
+}
@@ -359,14 +359,15 @@ public interface Text {
   };
   /** Command help. */
   String[] HELPSHOW = {
-    "[" + CmdShow.BACKUPS + '|' + CmdShow.EVENTS +
+    "[" + CmdShow.BACKUPS + '|' + CmdShow.CACHE + '|' + CmdShow.EVENTS +
     '|' + CmdShow.SESSIONS + '|' + CmdShow.USERS + ']',
     lang("c_show1"),
     lang("c_show21") + NL +
     LI + CmdShow.EVENTS + ": " + lang("c_show26") + NL +
     LI + CmdShow.SESSIONS + ": " + lang("c_show23") + NL +
     LI + CmdShow.USERS + " (" + ON + " [database]): " + lang("c_show24") + NL +
-    LI + CmdShow.BACKUPS + ": " + lang("c_show25")
+    LI + CmdShow.BACKUPS + ": " + lang("c_show25") + NL +
+    LI + CmdShow.CACHE + ": " + lang("c_show27")
   };
   /** Command help. */
   String[] HELPGRANT = {
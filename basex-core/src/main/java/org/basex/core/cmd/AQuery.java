@@ -17,6 +17,7 @@ import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Abstract class for database queries.
@@ -75,12 +76,26 @@ public abstract class AQuery extends Command {
           }
           qp.parse();
           qi.pars += p.time();
+
+          // return cached result
+          final String key = r == 0 && serial ? key(query) : null;
+          if(key != null) {
+            final byte[] cached = context.cache.get(key);
+            if(cached != null) {
+              out.write(cached);
+              out.flush();
+              qi.srlz += p.time();
+              return info(qi.toString(qp, out, 0, false));
+            }
+          }
+
           if(r == 0) plan(false);
           qp.compile();
           qi.cmpl += p.time();
           if(r == 0) plan(true);
 
-          final PrintOutput po = r == 0 && serial ? out : new NullOutput();
+          final CopyOutput co = key != null ? new CopyOutput(out, context.cache.max()) : null;
+          final PrintOutput po = co != null ? co : r == 0 && serial ? out : new NullOutput();
           final Serializer ser;
 
           if(options.get(MainOptions.CACHEQUERY)) {
@@ -103,6 +118,9 @@ public abstract class AQuery extends Command {
             }
           }
           ser.close();
+          // cache result if it only depends on the query and the accessed databases
+          if(co != null && co.copy() != null && qp.ctx.deterministic())
+            context.cache.put(key, co.copy(), qi.readLocked);
           qp.close();
           qi.srlz += p.time();
         }
@@ -135,6 +153,42 @@ public abstract class AQuery extends Command {
     return extError(err);
   }
 
+  /**
+   * Returns a key for caching the result of the query. All information is included
+   * that may influence the result: the query string, bound variables, the current user,
+   * the opened database, the local options (including serialization parameters),
+   * the existence of an HTTP context, and the paths, timestamps and sizes of all
+   * imported library modules. Results of queries that access the HTTP context
+   * are rejected by {@link QueryContext#deterministic()}.
+   * @param query query
+   * @return key, or {@code null} if the result will not be cached
+   */
+  private String key(final String query) {
+    // skip queries with multiple runs, query plans or access to a subset of a database
+    if(context.cache.max() == 0 || qi.runs != 1 ||
+        options.get(MainOptions.CACHEQUERY) || options.get(MainOptions.QUERYINFO) ||
+        options.get(MainOptions.XMLPLAN) || options.get(MainOptions.DOTPLAN) ||
+        context.data() != null && !context.root() || !qp.ctx.deterministic()) return null;
+
+    final StringList bindings = new StringList();
+    for(final Map.Entry<String, String[]> var : vars.entrySet()) {
+      final String[] value = var.getValue();
+      bindings.add(var.getKey() + '\0' + value[0] + '\0' + value[1]);
+    }
+    final StringBuilder sb = new StringBuilder(query).append('\0').append(context.user.name);
+    sb.append('\0').append(context.data() != null ? context.data().meta.name : "");
+    sb.append('\0').append(options).append('\0').append(http != null);
+    for(final String b : bindings.sort(true)) sb.append('\0').append(b);
+    // library modules may be modified without database updates
+    for(final byte[] path : qp.ctx.modulePaths()) {
+      final IO io = IO.get(Token.string(path));
+      if(!(io instanceof IOFile)) return null;
+      sb.append('\0').append(io.path()).append('\0').append(io.timeStamp());
+      sb.append('\0').append(io.length());
+    }
+    return sb.toString();
+  }
+
   /**
    * Checks if the query might perform updates.
    * @param ctx database context
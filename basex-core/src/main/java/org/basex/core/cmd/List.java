@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -21,6 +22,9 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class List extends Command {
+  /** Resources (assigned if the resources of a database are listed). */
+  private ArrayList<ResourceInfo> resources;
+
   /**
    * Default constructor.
    */
@@ -121,29 +125,22 @@ public final class List extends Command {
     table.header.add(SIZE);
 
     try {
-      // add xml documents
+      // add xml documents and binary resources
       final Data data = Open.open(db, context);
-      final Resources res = data.resources;
-      final IntList il = res.docs(path);
-      final int ds = il.size();
-      for(int i = 0; i < ds; i++) {
-        final int pre = il.get(i);
-        final TokenList tl = new TokenList(3);
-        final byte[] file = data.text(pre, true);
-        tl.add(file);
-        tl.add(SerialMethod.XML.toString());
-        tl.add(MimeTypes.APP_XML);
-        tl.add(data.size(pre, Data.DOC));
-        table.contents.add(tl);
-      }
-      // add binary resources
-      for(final byte[] file : res.binaries(path)) {
-        final String f = string(file);
-        final TokenList tl = new TokenList(3);
-        tl.add(file);
-        tl.add(SerialMethod.RAW.toString());
-        tl.add(MimeTypes.get(f));
-        tl.add(data.meta.binary(f).length());
+      // sort resources by their paths, in the order of the table entries
+      resources = data.resources.list(path);
+      Collections.sort(resources, new Comparator<ResourceInfo>() {
+        @Override
+        public int compare(final ResourceInfo r1, final ResourceInfo r2) {
+          return diff(lc(r1.path), lc(r2.path));
+        }
+      });
+      for(final ResourceInfo ri : resources) {
+        final TokenList tl = new TokenList(4);
+        tl.add(ri.path);
+        tl.add((ri.raw ? SerialMethod.RAW : SerialMethod.XML).toString());
+        tl.add(ri.type);
+        tl.add(ri.size);
         table.contents.add(tl);
       }
       Close.close(data, context);
@@ -154,6 +151,15 @@ public final class List extends Command {
     return true;
   }
 
+  /**
+   * Returns information on the resources that have been found when listing the
+   * resources of a database.
+   * @return resources, or {@code null} if no resources have been listed
+   */
+  public ArrayList<ResourceInfo> resources() {
+    return resources;
+  }
+
   /**
    * Returns a list of all databases.
    * @param ctx database context
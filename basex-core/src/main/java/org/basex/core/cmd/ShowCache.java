@@ -0,0 +1,38 @@
+package org.basex.core.cmd;
+
+import java.io.*;
+
+import org.basex.core.*;
+import org.basex.core.parse.*;
+import org.basex.core.parse.Commands.*;
+
+/**
+ * Evaluates the 'show cache' command and shows statistics on the query result cache.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ShowCache extends Command {
+  /**
+   * Default constructor.
+   */
+  public ShowCache() {
+    super(Perm.ADMIN);
+  }
+
+  @Override
+  protected boolean run() throws IOException {
+    out.println(context.cache.info());
+    return true;
+  }
+
+  @Override
+  public void databases(final LockResult lr) {
+    // No locks needed
+  }
+
+  @Override
+  public void build(final CmdBuilder cb) {
+    cb.init(Cmd.SHOW + " " + CmdShow.CACHE);
+  }
+}
@@ -107,6 +107,8 @@ public interface Commands {
   String SET = "set";
   /** Command string: "show-backups". */
   String SHOW_BACKUPS = "show-backups";
+  /** Command string: "show-cache". */
+  String SHOW_CACHE = "show-cache";
   /** Command string: "show-events". */
   String SHOW_EVENTS = "show-events";
   /** Command string: "show-sessions". */
@@ -156,7 +158,7 @@ public interface Commands {
   /** Optimize commands. */
   enum CmdOptimize { NULL, ALL }
   /** Show commands. */
-  enum CmdShow { SESSIONS, USERS, BACKUPS, EVENTS }
+  enum CmdShow { SESSIONS, USERS, BACKUPS, EVENTS, CACHE }
   /** Permission commands. */
   enum CmdPerm { NONE, READ, WRITE, CREATE, ADMIN }
   /** Index types. */
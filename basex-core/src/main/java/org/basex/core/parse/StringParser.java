@@ -197,6 +197,8 @@ public final class StringParser extends CmdParser {
             return new ShowBackups();
           case EVENTS:
             return new ShowEvents();
+          case CACHE:
+            return new ShowCache();
         }
         break;
       case GRANT:
@@ -158,6 +158,8 @@ final class XMLParser extends CmdParser {
       return new Set(value(root, OPTION), value(root));
     if(e.equals(SHOW_BACKUPS) && check(root))
       return new ShowBackups();
+    if(e.equals(SHOW_CACHE) && check(root))
+      return new ShowCache();
     if(e.equals(SHOW_EVENTS) && check(root))
       return new ShowEvents();
     if(e.equals(SHOW_SESSIONS) && check(root))
@@ -102,10 +102,14 @@ public abstract class Data {
 
   /** Table access file. */
   TableAccess table;
-  /** ID->PRE mapping. */
-  IdPreMap idmap;
+  /** ID->PRE mapping (created on demand). */
+  volatile IdPreMap idmap;
+  /** Element name index (created on demand). */
+  volatile NameIndex nameindex;
   /** States if distance caching is active. */
   public boolean cache;
+  /** Pre values of nodes that are deleted in a batch of structural updates. */
+  private IntSet batch;
 
   /**
    * Closes the database.
@@ -137,6 +141,33 @@ public abstract class Data {
    */
   public abstract void finishUpdate();
 
+  /**
+   * Starts a batch of structural updates, which must be applied back-to-front.
+   * The table entries are rewritten in a single pass when the batch is finished.
+   * If the indexes are updated, the index entries of the nodes to be deleted are
+   * removed in a single pass, and the entries of inserted nodes will be added when
+   * the batch is finished.
+   * @param pres pre values of the nodes that will be deleted via {@link #delete(int)}
+   */
+  public final void startBatch(final int... pres) {
+    table.startBatch();
+    if(!meta.updindex) return;
+    indexDelete(pres);
+    batch = new IntSet(pres.length);
+    for(final int pre : pres) batch.add(pre);
+    indexBegin();
+  }
+
+  /**
+   * Finishes a batch of structural updates (see {@link #startBatch}).
+   */
+  public final void finishBatch() {
+    table.finishBatch();
+    if(!meta.updindex) return;
+    batch = null;
+    indexEnd();
+  }
+
   /**
    * Returns the indexed pre references for the specified token.
    * @param token index token reference
@@ -223,30 +254,16 @@ public abstract class Data {
 
   // RETRIEVING VALUES ========================================================
 
-  /**
-   * Returns a pre value.
-   * @param id unique node id
-   * @return pre value or -1 if id was not found
-   */
-  final int preold(final int id) {
-    // find pre value in table
-    for(int p = Math.max(0, id); p < meta.size; ++p)
-      if(id == id(p)) return p;
-    final int ps = Math.min(meta.size, id);
-    for(int p = 0; p < ps; ++p)
-      if(id == id(p)) return p;
-
-    // id not found
-    return -1;
-  }
-
   /**
    * Returns a pre value.
    * @param id unique node id
    * @return pre value or -1 if id was not found
    */
   public final int pre(final int id) {
-    return meta.updindex ? idmap.pre(id) : preold(id);
+    final IdPreMap map = idmap;
+    if(map != null) return map.pre(id);
+    // shortcut for nodes that have not been moved by updates
+    return id >= 0 && id < meta.size && id(id) == id ? id : idmap().pre(id);
   }
 
   /**
@@ -257,11 +274,27 @@ public abstract class Data {
    * @return sorted pre values
    */
   public final int[] pre(final int[] ids, final int off, final int len) {
-    if(meta.updindex) return idmap.pre(ids, off, len);
+    return idmap().pre(ids, off, len);
+  }
 
-    final IntList p = new IntList(ids.length);
-    for(int i = off; i < len; ++i) p.add(preold(ids[i]));
-    return p.sort().toArray();
+  /**
+   * Returns the ID -> PRE mapping. If no mapping exists yet, it is created from the
+   * table and maintained by subsequent updates.
+   * @return mapping
+   */
+  private synchronized IdPreMap idmap() {
+    if(idmap == null) idmap = new IdPreMap(this);
+    return idmap;
+  }
+
+  /**
+   * Returns the element name index. If no index exists yet, it is created from the
+   * table and maintained by subsequent updates.
+   * @return name index
+   */
+  public final synchronized NameIndex nameIndex() {
+    if(nameindex == null) nameindex = new NameIndex(this);
+    return nameindex;
   }
 
   /**
@@ -465,7 +498,11 @@ public abstract class Data {
    */
   public final void update(final int pre, final int kind, final byte[] name, final byte[] uri) {
     meta.update();
+    resources.modified(pre);
 
+    final int size = size(pre, kind);
+    paths.delete(this, pre, size);
+    if(nameindex != null) nameindex.delete(pre, 1);
     if(kind == PI) {
       updateText(pre, trim(concat(name, SPACE, atom(pre))), PI);
     } else {
@@ -484,6 +521,8 @@ public abstract class Data {
       // write namespace flag
       table.write2(npre, 1, (ne || nsFlag(npre) ? 1 << 15 : 0) | name(npre));
     }
+    paths.insert(this, pre, size);
+    if(nameindex != null) nameindex.insert(pre, 1);
   }
 
   /**
@@ -498,7 +537,10 @@ public abstract class Data {
     if(eq(v, text(pre, kind != ATTR))) return;
 
     meta.update();
+    resources.modified(pre);
+    paths.delete(this, pre, 1);
     updateText(pre, v, kind);
+    paths.insert(this, pre, 1);
     if(kind == DOC) resources.rename(pre, value);
   }
 
@@ -510,6 +552,7 @@ public abstract class Data {
    */
   public final void replace(final int tpre, final DataClip source) {
     meta.update();
+    resources.modified(tpre);
 
     final int size = source.size();
     final Data data = source.data;
@@ -518,12 +561,14 @@ public abstract class Data {
     final int tsize = size(tpre, tkind);
     final int tpar = parent(tpre, tkind);
     final int diff = size - tsize;
+    paths.delete(this, tpre, tsize);
+    if(nameindex != null) nameindex.delete(tpre, tsize);
     buffer(size);
     resources.replace(tpre, tsize, source);
 
     if(meta.updindex) {
       // update index
-      indexDelete(tpre, tsize);
+      indexDelete(tpre);
       indexBegin();
     }
 
@@ -573,8 +618,8 @@ public abstract class Data {
       }
     }
 
-    if(meta.updindex) {
-      indexEnd();
+    if(meta.updindex) indexEnd();
+    if(idmap != null) {
       // update ID -> PRE map:
       idmap.delete(tpre, id(tpre), -tsize);
       idmap.insert(tpre, meta.lastid - size + 1, size);
@@ -583,6 +628,8 @@ public abstract class Data {
     // update table:
     table.replace(tpre, buffer(), tsize);
     buffer(1);
+    paths.insert(this, tpre, size);
+    if(nameindex != null) nameindex.insert(tpre, size);
 
     // no distance/size update if the two subtrees are of equal size
     if(diff == 0) return;
@@ -614,15 +661,18 @@ public abstract class Data {
    */
   public final void delete(final int pre) {
     meta.update();
+    resources.modified(pre);
 
     // size of the subtree to delete
     int k = kind(pre);
     final int s = size(pre, k);
     resources.delete(pre, s);
+    paths.delete(this, pre, s);
+    if(nameindex != null) nameindex.delete(pre, s);
 
-    if(meta.updindex) {
+    if(meta.updindex && (batch == null || !batch.contains(pre))) {
       // delete child records from indexes
-      indexDelete(pre, s);
+      indexDelete(pre);
     }
 
     /// explicitly delete text or attribute value
@@ -648,7 +698,7 @@ public abstract class Data {
     // preserve empty root node
     if(kind(pre) == DOC) --meta.ndocs;
 
-    if(meta.updindex) {
+    if(idmap != null) {
       // delete node and descendants from ID -> PRE map:
       idmap.delete(pre, id(pre), -s);
     }
@@ -682,6 +732,7 @@ public abstract class Data {
    */
   public final void insert(final int tpre, final int tpar, final DataClip source) {
     meta.update();
+    if(tpar != -1) resources.modified(tpar);
 
     // update value and document indexes
     if(meta.updindex) indexBegin();
@@ -810,11 +861,12 @@ public abstract class Data {
       p = parent(p, k);
     }
 
-    if(meta.updindex) {
-      // add the entries to the ID -> PRE mapping:
-      idmap.insert(tpre, id(tpre), size);
-      indexEnd();
-    }
+    paths.insert(this, tpre, size);
+    if(nameindex != null) nameindex.insert(tpre, size);
+
+    // add the entries to the ID -> PRE mapping:
+    if(idmap != null) idmap.insert(tpre, id(tpre), size);
+    if(meta.updindex) indexEnd();
 
     if(!cache) updateDist(tpre + size, size);
 
@@ -1050,18 +1102,22 @@ public abstract class Data {
    */
   protected abstract long index(final int pre, final int id, final byte[] value, final int kind);
 
-  /** Notify the index structures that an update operation is started. */
+  /**
+   * Notify the index structures that an update operation is started.
+   * Operations can be nested: all index updates will be collected and applied in
+   * a single pass when the outermost operation is finished.
+   */
   void indexBegin() { }
 
   /** Notify the index structures that an update operation is finished. */
   void indexEnd() { }
 
   /**
-   * Delete a node and its descendants from the corresponding indexes.
-   * @param pre pre value of the node to delete
-   * @param size number of descendants
+   * Deletes the specified nodes and their descendants from the value indexes
+   * in a single pass.
+   * @param pres pre values of the nodes to delete
    */
-  protected abstract void indexDelete(final int pre, final int size);
+  protected abstract void indexDelete(final int... pres);
 
   // HELPER FUNCTIONS ===================================================================
 
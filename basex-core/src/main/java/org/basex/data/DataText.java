@@ -244,5 +244,9 @@ public interface DataText {
   /** Table kinds. */
   byte[][] TABLEKINDS = tokens("DOC ", "ELEM", "TEXT", "ATTR", "COMM", "PI  ");
   /** Database - ID->PRE mapping. */
-  String DATAIDP = "idp";
+  String DATAIDP = "idr";
+  /** Database - Document paths. */
+  String DATAPTH = "pth";
+  /** Database - Element name index. */
+  String DATANAM = "nam";
 }
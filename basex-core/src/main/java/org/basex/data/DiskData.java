@@ -47,6 +47,8 @@ public final class DiskData extends Data {
   private TokenObjMap<IntList> txts;
   /** Attribute values buffered for subsequent index updates. */
   private TokenObjMap<IntList> atvs;
+  /** Number of started index update operations. */
+  private int iops;
   /** Closed flag. */
   private boolean closed;
 
@@ -80,8 +82,10 @@ public final class DiskData extends Data {
     }
 
     // open data and indexes
+    // mappings of older versions will be recreated from the table
+    final IOFile idp = meta.dbfile(DATAIDP);
+    if(idp.exists()) idmap = new IdPreMap(idp);
     if(meta.updindex) {
-      idmap = new IdPreMap(meta.dbfile(DATAIDP));
       if(meta.textindex) txtindex = new UpdatableDiskValues(this, true);
       if(meta.attrindex) atvindex = new UpdatableDiskValues(this, false);
     } else {
@@ -110,7 +114,7 @@ public final class DiskData extends Data {
     paths = ps;
     paths.data(this);
     nspaces = n;
-    if(meta.updindex) idmap = new IdPreMap(meta.lastid);
+    idmap = new IdPreMap(meta.lastid);
     init();
   }
 
@@ -157,6 +161,8 @@ public final class DiskData extends Data {
     closed = true;
     try {
       write();
+      resources.write(meta.dbfile(DATAPTH));
+      if(nameindex != null) nameindex.write(meta.dbfile(DATANAM));
       table.close();
       texts.close();
       values.close();
@@ -346,12 +352,14 @@ public final class DiskData extends Data {
 
   @Override
   protected void indexBegin() {
+    if(iops++ != 0) return;
     txts = new TokenObjMap<IntList>();
     atvs = new TokenObjMap<IntList>();
   }
 
   @Override
   protected void indexEnd() {
+    if(--iops != 0) return;
     if(!txts.isEmpty()) ((DiskValues) txtindex).index(txts);
     if(!atvs.isEmpty()) ((DiskValues) atvindex).index(atvs);
   }
@@ -393,33 +401,35 @@ public final class DiskData extends Data {
   }
 
   @Override
-  protected void indexDelete(final int pre, final int size) {
+  protected void indexDelete(final int... pres) {
     if(!(meta.textindex || meta.attrindex)) return;
 
     // collect all keys and ids
-    txts = new TokenObjMap<IntList>();
-    atvs = new TokenObjMap<IntList>();
-    final int l = pre + size;
-    for(int p = pre; p < l; ++p) {
-      final int k = kind(p);
-      final boolean isAttr = k == ATTR;
-      // consider nodes which are attribute, text, comment, or proc. instruction
-      if(meta.attrindex && isAttr ||
-         meta.textindex && (k == TEXT || k == COMM || k == PI)) {
-        final byte[] key = text(p, !isAttr);
-        if(key.length <= meta.maxlen) {
-          final TokenObjMap<IntList> m = isAttr ? atvs : txts;
-          IntList ids = m.get(key);
-          if(ids == null) {
-            ids = new IntList(1);
-            m.put(key, ids);
+    final TokenObjMap<IntList> dtxts = new TokenObjMap<IntList>();
+    final TokenObjMap<IntList> datvs = new TokenObjMap<IntList>();
+    for(final int pre : pres) {
+      final int l = pre + size(pre, kind(pre));
+      for(int p = pre; p < l; ++p) {
+        final int k = kind(p);
+        final boolean isAttr = k == ATTR;
+        // consider nodes which are attribute, text, comment, or proc. instruction
+        if(meta.attrindex && isAttr ||
+           meta.textindex && (k == TEXT || k == COMM || k == PI)) {
+          final byte[] key = text(p, !isAttr);
+          if(key.length <= meta.maxlen) {
+            final TokenObjMap<IntList> m = isAttr ? datvs : dtxts;
+            IntList ids = m.get(key);
+            if(ids == null) {
+              ids = new IntList(1);
+              m.put(key, ids);
+            }
+            ids.add(id(p));
           }
-          ids.add(id(p));
         }
       }
     }
-    if(!txts.isEmpty()) ((DiskValues) txtindex).delete(txts);
-    if(!atvs.isEmpty()) ((DiskValues) atvindex).delete(atvs);
+    if(!dtxts.isEmpty()) ((DiskValues) txtindex).delete(dtxts);
+    if(!datvs.isEmpty()) ((DiskValues) atvindex).delete(datvs);
   }
 
   @Override
@@ -44,7 +44,6 @@ public final class MemData extends Data {
     meta = new MetaData(opts);
     table = new TableMemAccess(meta);
     if(meta.updindex) {
-      idmap = new IdPreMap(meta.lastid);
       txtindex = txt == null ? new UpdatableMemValues(this) : txt;
       atvindex = atv == null ? new UpdatableMemValues(this) : atv;
     } else {
@@ -131,15 +130,17 @@ public final class MemData extends Data {
   }
 
   @Override
-  protected void indexDelete(final int pre, final int size) {
-    final int l = pre + size;
-    for(int p = pre; p < l; ++p) {
-      final int k = kind(p);
-      final boolean isAttr = k == ATTR;
-      // skip nodes which are not attribute, text, comment, or proc. instruction
-      if(isAttr || k == TEXT || k == COMM || k == PI) {
-        final byte[] key = text(p, !isAttr);
-        ((MemValues) (isAttr ? atvindex : txtindex)).delete(key, id(p));
+  protected void indexDelete(final int... pres) {
+    for(final int pre : pres) {
+      final int l = pre + size(pre, kind(pre));
+      for(int p = pre; p < l; ++p) {
+        final int k = kind(p);
+        final boolean isAttr = k == ATTR;
+        // skip nodes which are not attribute, text, comment, or proc. instruction
+        if(isAttr || k == TEXT || k == COMM || k == PI) {
+          final byte[] key = text(p, !isAttr);
+          ((MemValues) (isAttr ? atvindex : txtindex)).delete(key, id(p));
+        }
       }
     }
   }
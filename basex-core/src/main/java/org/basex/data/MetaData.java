@@ -366,11 +366,11 @@ public final class MetaData {
 
   /**
    * Notifies the meta structures of an update and invalidates the indexes.
+   * The path summary and the statistics are updated by the {@link Data} instance.
    */
   public void update() {
-    // update database timestamp
-    time = System.currentTimeMillis();
-    uptodate = false;
+    // update database timestamp (always changed, as it invalidates stored structures)
+    time = Math.max(System.currentTimeMillis(), time + 1);
     dirty = true;
     if(!updindex) {
       textindex = false;
@@ -5,6 +5,7 @@ import java.util.*;
 import org.basex.data.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Implementation of the Atomic Update Cache (AUC).
@@ -294,9 +295,17 @@ public final class AtomicUpdateCache {
     // value updates applied front-to-back, doens't matter as there are no row shifts
     for(final BasicUpdate u : val)
       u.apply(data);
-    // structural updates are applied back-to-front
-    for(int i = struct.size() - 1; i >= 0; i--)
-      struct.get(i).apply(data);
+    // structural updates are applied back-to-front; their value index updates
+    // are collected and applied in a single pass
+    final IntList pres = new IntList();
+    for(final StructuralUpdate u : struct) if(u instanceof Delete) pres.add(u.location);
+    data.startBatch(pres.toArray());
+    try {
+      for(int i = struct.size() - 1; i >= 0; i--)
+        struct.get(i).apply(data);
+    } finally {
+      data.finishBatch();
+    }
   }
 
   /**
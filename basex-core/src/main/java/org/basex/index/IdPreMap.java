@@ -3,6 +3,7 @@ package org.basex.index;
 import java.io.*;
 import java.util.*;
 
+import org.basex.data.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
@@ -12,39 +13,77 @@ import org.basex.util.list.*;
 /**
  * ID -> PRE mapping.
  *
+ * The table is represented as a sequence of runs, each of which contains records with
+ * consecutive ids and pre values. The runs are organized in two randomized search trees
+ * (treaps) sharing the same nodes: the first one is ordered by the pre values and stores
+ * the number of records of each subtree, and the second one is ordered by the first ids
+ * of the runs. Lookups and updates take logarithmic time in the number of runs,
+ * independently of the number of past updates.
+ *
  * @author BaseX Team 2005-13, BSD License
  * @author Dimitar Popov
  */
 public class IdPreMap {
-  /** Invalid id-value. */
-  private static final int INV = -1;
-  /** Base ID value. */
-  private int baseid;
-  /** PRE values of the inserted/deleted IDs. */
-  private int[] pres;
-  /** Inserted first ID values. */
+  /** Missing node reference. */
+  private static final int NONE = -1;
+
+  /** First ids of the runs. */
   private int[] fids;
-  /** Inserted last ID values. */
-  private int[] nids;
-  /** Increments showing how the PRE values have been modified. */
-  private int[] incs;
-  /** ID values for the PRE, before inserting/deleting a record. */
-  private int[] oids;
-
-  /** Number of records in the table. */
+  /** Number of records of the runs. */
+  private int[] lens;
+  /** Priorities of the nodes. */
+  private int[] prios;
+  /** Number of records in the subtrees (pre tree). */
+  private int[] sizes;
+  /** Left children (pre tree). */
+  private int[] lefts;
+  /** Right children (pre tree). */
+  private int[] rights;
+  /** Parents (pre tree). */
+  private int[] pars;
+  /** Left children (id tree). */
+  private int[] ileft;
+  /** Right children (id tree). */
+  private int[] iright;
+
+  /** Root of the pre tree. */
+  private int root = NONE;
+  /** Root of the id tree. */
+  private int iroot = NONE;
+  /** Number of allocated nodes. */
+  private int nodes;
+  /** Released nodes. */
+  private final IntList free = new IntList();
+  /** Number of runs. */
   private int rows;
+  /** Seed for the node priorities. */
+  private int seed = 0x2545F491;
+  /** Right result of the last split operation. */
+  private int split;
 
   /**
    * Constructor.
    * @param id last inserted ID
    */
   public IdPreMap(final int id) {
-    baseid = id;
-    pres = new int[1];
-    fids = new int[pres.length];
-    nids = new int[pres.length];
-    incs = new int[pres.length];
-    oids = new int[pres.length];
+    init(1);
+    if(id >= 0) root = append(root, 0, id + 1);
+  }
+
+  /**
+   * Constructor, creating the mapping from the table of the specified database.
+   * @param data data reference
+   */
+  public IdPreMap(final Data data) {
+    init(Array.CAPACITY);
+    final int size = data.meta.size;
+    for(int pre = 0; pre < size;) {
+      final int id = data.id(pre);
+      int l = 1;
+      while(pre + l < size && data.id(pre + l) == id + l) l++;
+      root = append(root, id, l);
+      pre += l;
+    }
   }
 
   /**
@@ -55,13 +94,9 @@ public class IdPreMap {
   public IdPreMap(final IOFile f) throws IOException {
     final DataInput in = new DataInput(f);
     try {
-      baseid = in.readNum();
-      rows = in.readNum();
-      pres = in.readNums();
-      fids = in.readNums();
-      nids = in.readNums();
-      incs = in.readNums();
-      oids = in.readNums();
+      final int[] fs = in.readNums(), ls = in.readNums();
+      init(Math.max(1, fs.length));
+      for(int r = 0; r < fs.length; r++) root = append(root, fs[r], ls[r]);
     } finally {
       in.close();
     }
@@ -73,15 +108,15 @@ public class IdPreMap {
    * @throws IOException I/O error while writing to the file
    */
   public void write(final IOFile f) throws IOException {
+    final IntList fs = new IntList(rows), ls = new IntList(rows);
+    for(int n = first(root); n != NONE; n = next(n)) {
+      fs.add(fids[n]);
+      ls.add(lens[n]);
+    }
     final DataOutput out = new DataOutput(f);
     try {
-      out.writeNum(baseid);
-      out.writeNum(rows);
-      out.writeNums(pres);
-      out.writeNums(fids);
-      out.writeNums(nids);
-      out.writeNums(incs);
-      out.writeNums(oids);
+      out.writeNums(fs.toArray());
+      out.writeNums(ls.toArray());
     } finally {
       out.close();
     }
@@ -93,21 +128,24 @@ public class IdPreMap {
    * @return PRE or -1 if the ID is already deleted
    */
   public int pre(final int id) {
-    // no updates or id is not affected by updates
-    if(rows == 0 || id < pres[0]) return id;
-
-    if(id > baseid) {
-      // id was inserted by update
-      for(int i = 0; i < rows; ++i) {
-        // if(fids[i] == id) return pres[i]; // is this optimization?
-        if(fids[i] <= id && id <= nids[i]) return pres[i] + id - fids[i];
+    // find the run with the largest first id that is smaller than or equal to the id
+    int f = NONE;
+    for(int n = iroot; n != NONE;) {
+      if(fids[n] <= id) {
+        f = n;
+        n = iright[n];
+      } else {
+        n = ileft[n];
       }
-    } else {
-      // id is affected by updates
-      final int i = sortedLastIndexOf(oids, id);
-      return id + incs[i < 0 ? -i - 2 : i];
     }
-    return -1;
+    if(f == NONE || id - fids[f] >= lens[f]) return -1;
+
+    // compute the pre value of the first record of the run
+    int pre = size(lefts[f]);
+    for(int c = f, p = pars[c]; p != NONE; c = p, p = pars[p]) {
+      if(rights[p] == c) pre += size(lefts[p]) + lens[p];
+    }
+    return pre + id - fids[f];
   }
 
   /**
@@ -130,277 +168,364 @@ public class IdPreMap {
    * @param c number of inserted records
    */
   public void insert(final int pre, final int id, final int c) {
-    if(rows == 0 && pre == id && id == baseid + 1) {
-      // no mapping and we append at the end => nothing to do
-      baseid += c;
-      return;
-    }
-
-    int pos = 0;
-    int inc = c;
-    int oid = pre;
-
-    if(rows > 0) {
-      pos = Arrays.binarySearch(pres, 0, rows, pre);
-      if(pos < 0) {
-        pos = -pos - 1;
-        if(pos != 0) {
-          // check if inserting into an existing id interval
-          final int prev = pos - 1;
-          final int prevcnt = nids[prev] - fids[prev] + 1;
-          final int prevpre = pres[prev];
-
-          if(pre < prevpre + prevcnt) {
-            // split the id interval
-            final int split = pre - prevpre;
-            final int fid = fids[prev] + split;
-
-            // add a new next interval
-            add(pos, pre, fid, nids[prev], incs[prev], oids[prev]);
-
-            // shrink the previous interval
-            nids[prev] = fid - 1;
-            incs[prev] -= prevcnt - split;
-
-            oid = oids[prev];
-            inc += incs[prev];
-          } else {
-            oid = pre - incs[prev];
-            inc += incs[prev];
-          }
-        }
-      } else if(pos > 0) {
-        oid = oids[pos];
-        inc += incs[pos - 1];
-      }
-
-      increment(pos, c);
-    }
-
-    // add the new interval
-    add(pos, pre, id, id + c - 1, inc, oid);
+    final int l = split(root, pre), r = split;
+    final int n = node(id, c);
+    iroot = insertId(iroot, n);
+    setRoot(join(join(l, n), r));
   }
 
   /**
    * Delete records.
    * @param pre PRE of the first record
    * @param id ID of the first deleted record
-   * @param c number of deleted records
+   * @param c number of deleted records (negative number)
    */
   public void delete(final int pre, final int id, final int c) {
-    if(rows == 0 && pre == id && id - c == baseid + 1) {
-      // no mapping and we delete at the end => nothing to do
-      baseid += c;
-      return;
-    }
+    final int l = split(root, pre), m = split(split, -c), r = split;
+    release(m);
+    setRoot(join(l, r));
+  }
 
-    if(rows == 0) {
-      // no previous updates: add a new record
-      add(0, pre, INV, INV, c, id);
-      return;
+  @Override
+  public String toString() {
+    final StringBuilder b = new StringBuilder();
+    b.append("pres, fids, nids");
+    int pre = 0;
+    for(int n = first(root); n != NONE; n = next(n)) {
+      b.append('\n');
+      b.append(pre); b.append(", ");
+      b.append(fids[n]); b.append(", ");
+      b.append(fids[n] + lens[n] - 1);
+      pre += lens[n];
     }
+    return b.toString();
+  }
 
-    final int end = pre - c - 1;
-    final int startIndex = findPre(pre);
+  /**
+   * Size of the map.
+   * @return number of stored tuples.
+   */
+  public int size() {
+    return rows;
+  }
 
-    // remove all updates which has affected records which now have to be deleted
-    final int removeStart = startIndex < rows && pres[startIndex] < pre ?
-         startIndex + 1 : startIndex;
-    int removeEnd = -1;
-    for(int i = startIndex; i < rows; ++i) {
-      if(end < pres[i] + nids[i] - fids[i]) break;
-      removeEnd = i;
-    }
+  // PRIVATE METHODS ==========================================================
 
-    final int inc;
-    final int oid;
-    int endIndex;
-    if(removeEnd >= 0) {
-      inc = incs[removeEnd];
-      oid = oids[removeEnd];
-      endIndex = removeStart;
-      remove(removeStart, removeEnd);
-    } else {
-      inc = startIndex > 0 ? incs[startIndex - 1] : 0;
-      oid = id;
-      endIndex = startIndex;
-    }
+  /**
+   * Initializes the arrays.
+   * @param s initial capacity
+   */
+  private void init(final int s) {
+    fids = new int[s];
+    lens = new int[s];
+    prios = new int[s];
+    sizes = new int[s];
+    lefts = new int[s];
+    rights = new int[s];
+    pars = new int[s];
+    ileft = new int[s];
+    iright = new int[s];
+  }
 
-    if(rows <= startIndex) {
-      // the delete does not affect previous updates
-      add(startIndex, pre, INV, INV, inc + c, oid);
-      return;
-    }
+  /**
+   * Appends a run to the end of the table.
+   * @param t root of the pre tree
+   * @param fid first id
+   * @param len number of records
+   * @return new root
+   */
+  private int append(final int t, final int fid, final int len) {
+    final int n = node(fid, len);
+    iroot = insertId(iroot, n);
+    final int r = join(t, n);
+    pars[r] = NONE;
+    return r;
+  }
 
-    final int min = pres[startIndex];
-    if(startIndex < endIndex) {
-      if(endIndex < rows && pres[endIndex] <= end) {
-        shrinkFromStart(endIndex, pre, c);
-        shrinkFromEnd(startIndex, pre, inc + c);
-      } else {
-        --endIndex;     // endIndex is not processed, so we let the increment do that
-        shrinkFromEnd(startIndex, pre, inc + c);
+  /**
+   * Creates a new node.
+   * @param fid first id
+   * @param len number of records
+   * @return node
+   */
+  private int node(final int fid, final int len) {
+    final int n;
+    if(free.isEmpty()) {
+      if(nodes == fids.length) {
+        final int s = Array.newSize(nodes);
+        fids = Arrays.copyOf(fids, s);
+        lens = Arrays.copyOf(lens, s);
+        prios = Arrays.copyOf(prios, s);
+        sizes = Arrays.copyOf(sizes, s);
+        lefts = Arrays.copyOf(lefts, s);
+        rights = Arrays.copyOf(rights, s);
+        pars = Arrays.copyOf(pars, s);
+        ileft = Arrays.copyOf(ileft, s);
+        iright = Arrays.copyOf(iright, s);
       }
-    } else if(min < pre) {
-      add(++endIndex, pres[startIndex], fids[startIndex], nids[startIndex],
-          incs[startIndex], oids[startIndex]);
-      shrinkFromStart(endIndex, pre, c);
-      shrinkFromEnd(startIndex, pre, inc + c);
-    } else if(end < min) {
-      add(endIndex, pre, INV, INV, inc + c, oid);
+      n = nodes++;
     } else {
-      shrinkFromStart(startIndex, pre, c);
+      n = free.pop();
     }
+    // xorshift random numbers
+    seed ^= seed << 13;
+    seed ^= seed >>> 17;
+    seed ^= seed << 5;
+    fids[n] = fid;
+    lens[n] = len;
+    sizes[n] = len;
+    prios[n] = seed;
+    lefts[n] = NONE;
+    rights[n] = NONE;
+    pars[n] = NONE;
+    ileft[n] = NONE;
+    iright[n] = NONE;
+    rows++;
+    return n;
+  }
 
-    increment(endIndex + 1, c);
+  /**
+   * Assigns a new root to the pre tree.
+   * @param t root
+   */
+  private void setRoot(final int t) {
+    root = t;
+    if(t != NONE) pars[t] = NONE;
   }
 
   /**
-   * Shrink the given tuple from the start.
-   * @param i index of the tuple
-   * @param pre pre-value
-   * @param c number of deleted records (negative number)
+   * Returns the number of records of the specified subtree.
+   * @param t root of the subtree
+   * @return number of records
    */
-  private void shrinkFromStart(final int i, final int pre, final int c) {
-    incs[i] += c;
-    fids[i] += pre - c - pres[i];
-    pres[i] = pre;
+  private int size(final int t) {
+    return t == NONE ? 0 : sizes[t];
   }
 
   /**
-   * Shrink the given tuple from the end.
-   * @param i index of the tuple
-   * @param pre pre-value
-   * @param inc new inc-value
+   * Recomputes the size of the specified node and updates the parent references of its
+   * children.
+   * @param t node
    */
-  private void shrinkFromEnd(final int i, final int pre, final int inc) {
-    nids[i] = fids[i] + pre - pres[i] - 1;
-    incs[i] = inc;
+  private void update(final int t) {
+    final int l = lefts[t], r = rights[t];
+    int s = lens[t];
+    if(l != NONE) {
+      s += sizes[l];
+      pars[l] = t;
+    }
+    if(r != NONE) {
+      s += sizes[r];
+      pars[r] = t;
+    }
+    sizes[t] = s;
   }
 
   /**
-   * Increment the pre- and inc-values of all tuples starting from the given index.
-   * @param from start index
-   * @param with increment value
+   * Splits the pre tree after the specified number of records. A run is split in two
+   * if it contains records of both parts. The root of the left part is returned,
+   * and the root of the right part is assigned to {@link #split}.
+   * @param t root of the subtree
+   * @param k number of records in the left part
+   * @return root of the left part
    */
-  private void increment(final int from, final int with) {
-    for(int i = from; i < rows; ++i) {
-      pres[i] += with;
-      incs[i] += with;
+  private int split(final int t, final int k) {
+    if(t == NONE) {
+      split = NONE;
+      return NONE;
+    }
+    // arrays may be resized by recursive calls: assign results after the calls
+    final int ls = size(lefts[t]);
+    if(k <= ls) {
+      final int l = split(lefts[t], k);
+      lefts[t] = split;
+      update(t);
+      split = t;
+      return l;
     }
+    if(k >= ls + lens[t]) {
+      final int r = split(rights[t], k - ls - lens[t]);
+      rights[t] = r;
+      update(t);
+      return t;
+    }
+    // split run: the second part is merged with the right subtree
+    final int o = k - ls, n = node(fids[t] + o, lens[t] - o);
+    final int r = rights[t];
+    lens[t] = o;
+    rights[t] = NONE;
+    update(t);
+    iroot = insertId(iroot, n);
+    split = merge(n, r);
+    return t;
   }
 
-  @Override
-  public String toString() {
-    final StringBuilder b = new StringBuilder();
+  /**
+   * Merges two pre trees.
+   * @param a root of the left tree
+   * @param b root of the right tree
+   * @return new root
+   */
+  private int merge(final int a, final int b) {
+    if(a == NONE) return b;
+    if(b == NONE) return a;
+    if(prios[a] >= prios[b]) {
+      rights[a] = merge(rights[a], b);
+      update(a);
+      return a;
+    }
+    lefts[b] = merge(a, lefts[b]);
+    update(b);
+    return b;
+  }
 
-    b.append("pres, fids, nids, incs, oids");
-    for(int i = 0; i < rows; i++) {
-      b.append('\n');
-      b.append(pres[i]); b.append(", ");
-      b.append(fids[i]); b.append(", ");
-      b.append(nids[i]); b.append(", ");
-      b.append(incs[i]); b.append(", ");
-      b.append(oids[i]);
+  /**
+   * Merges two pre trees. The last run of the left and the first run of the right tree
+   * are combined if their ids are consecutive.
+   * @param a root of the left tree
+   * @param b root of the right tree
+   * @return new root
+   */
+  private int join(final int a, final int b) {
+    if(a == NONE || b == NONE) return a == NONE ? b : a;
+    int x = a;
+    while(rights[x] != NONE) x = rights[x];
+    final int y = first(b);
+    if(fids[x] + lens[x] != fids[y]) return merge(a, b);
+
+    // extend last run of the left tree
+    final int l = lens[y];
+    lens[x] += l;
+    for(int p = x;; p = pars[p]) {
+      sizes[p] += l;
+      if(p == a) break;
     }
+    // remove first run of the right tree
+    final int r = removeFirst(b);
+    iroot = deleteId(iroot, fids[y]);
+    free.add(y);
+    rows--;
+    return merge(a, r);
+  }
 
-    return b.toString();
+  /**
+   * Removes the first node from the specified pre tree.
+   * @param t root
+   * @return new root
+   */
+  private int removeFirst(final int t) {
+    if(lefts[t] == NONE) return rights[t];
+    lefts[t] = removeFirst(lefts[t]);
+    update(t);
+    return t;
   }
 
   /**
-   * Size of the map.
-   * @return number of stored tuples.
+   * Releases all nodes of the specified pre tree.
+   * @param t root
    */
-  public int size() {
-    return rows;
+  private void release(final int t) {
+    if(t == NONE) return;
+    release(lefts[t]);
+    release(rights[t]);
+    iroot = deleteId(iroot, fids[t]);
+    free.add(t);
+    rows--;
+  }
+
+  /**
+   * Returns the first node of the specified pre tree.
+   * @param t root
+   * @return first node, or {@link #NONE}
+   */
+  private int first(final int t) {
+    int n = t;
+    if(n != NONE) while(lefts[n] != NONE) n = lefts[n];
+    return n;
   }
 
   /**
-   * Search for a given pre value.
-   * @param pre pre value
-   * @return index of the record where the pre is found, or the insertion point, if not
-   * found
+   * Returns the successor of the specified node in the pre tree.
+   * @param t node
+   * @return successor, or {@link #NONE}
    */
-  private int findPre(final int pre) {
-    int low = 0;
-    int high = rows - 1;
-    while(low <= high) {
-      final int mid = low + high >>> 1;
-      final int midValMin = pres[mid];
-      final int midValMax = midValMin + nids[mid] - fids[mid];
-      if(midValMax < pre) low = mid + 1;
-      else if(midValMin > pre) high = mid - 1;
-      else return mid; // key found
+  private int next(final int t) {
+    if(rights[t] != NONE) return first(rights[t]);
+    int c = t, p = pars[c];
+    while(p != NONE && rights[p] == c) {
+      c = p;
+      p = pars[p];
     }
-    return low; // key not found.
+    return p;
   }
 
   /**
-   * Binary search of a key in a list. If there are several hits the last one is returned.
-   * @param a array to search into
-   * @param e key to search for
-   * @return index of the found hit or where the key ought to be inserted
+   * Inserts a node into the id tree.
+   * @param t root of the subtree
+   * @param n node to be inserted
+   * @return new root
    */
-  private int sortedLastIndexOf(final int[] a, final int e) {
-    int i = Arrays.binarySearch(a, 0, rows, e);
-    if(i >= 0) {
-      while(++i < rows && a[i] == e);
-      return i - 1;
+  private int insertId(final int t, final int n) {
+    if(t == NONE) return n;
+    if(prios[n] > prios[t]) {
+      ileft[n] = splitId(t, fids[n]);
+      iright[n] = split;
+      return n;
     }
-    return i;
+    if(fids[n] < fids[t]) ileft[t] = insertId(ileft[t], n);
+    else iright[t] = insertId(iright[t], n);
+    return t;
   }
 
   /**
-   * Add a record to the table and the ID index.
-   * @param i index in the table where the record should be inserted
-   * @param pre pre value
-   * @param fid first ID value
-   * @param nid last ID value
-   * @param inc increment value
-   * @param oid original ID value
+   * Splits the id tree into nodes with smaller and with larger or equal first ids.
+   * The root of the right part is assigned to {@link #split}.
+   * @param t root of the subtree
+   * @param id first id
+   * @return root of the left part
    */
-  private void add(final int i, final int pre, final int fid, final int nid,
-      final int inc, final int oid) {
-    if(rows == pres.length) {
-      final int s = Array.newSize(rows);
-      pres = Arrays.copyOf(pres, s);
-      fids = Arrays.copyOf(fids, s);
-      nids = Arrays.copyOf(nids, s);
-      incs = Arrays.copyOf(incs, s);
-      oids = Arrays.copyOf(oids, s);
+  private int splitId(final int t, final int id) {
+    if(t == NONE) {
+      split = NONE;
+      return NONE;
     }
-    if(i < rows) {
-      final int destPos = i + 1;
-      final int length = rows - i;
-      System.arraycopy(pres, i, pres, destPos, length);
-      System.arraycopy(fids, i, fids, destPos, length);
-      System.arraycopy(nids, i, nids, destPos, length);
-      System.arraycopy(incs, i, incs, destPos, length);
-      System.arraycopy(oids, i, oids, destPos, length);
+    if(fids[t] < id) {
+      iright[t] = splitId(iright[t], id);
+      return t;
     }
-    pres[i] = pre;
-    fids[i] = fid;
-    nids[i] = nid;
-    incs[i] = inc;
-    oids[i] = oid;
-    ++rows;
+    final int l = splitId(ileft[t], id);
+    ileft[t] = split;
+    split = t;
+    return l;
+  }
+
+  /**
+   * Deletes the node with the specified first id from the id tree.
+   * @param t root of the subtree
+   * @param id first id
+   * @return new root
+   */
+  private int deleteId(final int t, final int id) {
+    if(fids[t] == id) return mergeId(ileft[t], iright[t]);
+    if(id < fids[t]) ileft[t] = deleteId(ileft[t], id);
+    else iright[t] = deleteId(iright[t], id);
+    return t;
   }
 
   /**
-   * Remove a records from the table and the ID index.
-   * @param s start index of records in the table (inclusive)
-   * @param e end index of records in the table (inclusive)
+   * Merges two id trees.
+   * @param a root of the tree with smaller ids
+   * @param b root of the tree with larger ids
+   * @return new root
    */
-  private void remove(final int s, final int e) {
-    if(s <= e) {
-      final int last = e + 1;
-      final int length = rows - last;
-      System.arraycopy(pres, last, pres, s, length);
-      System.arraycopy(fids, last, fids, s, length);
-      System.arraycopy(nids, last, nids, s, length);
-      System.arraycopy(incs, last, incs, s, length);
-      System.arraycopy(oids, last, oids, s, length);
-      rows -= last - s;
+  private int mergeId(final int a, final int b) {
+    if(a == NONE) return b;
+    if(b == NONE) return a;
+    if(prios[a] >= prios[b]) {
+      iright[a] = mergeId(iright[a], b);
+      return a;
     }
+    ileft[b] = mergeId(a, ileft[b]);
+    return b;
   }
 }
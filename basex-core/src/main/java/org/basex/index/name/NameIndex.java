@@ -0,0 +1,159 @@
+package org.basex.index.name;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * This class indexes the elements of a database by their names.
+ * For each name, the ids of the elements are stored in a compressed {@link Bitmap}.
+ * As ids are not affected by updates, only the inserted and deleted nodes need to be
+ * added or removed. The ids are mapped to sorted pre values on demand, and the pre values
+ * are cached until the next update.
+ * In disk-based databases, the index is stored in a separate file when the database is
+ * closed. The file is only read again if the timestamp of the database has not changed
+ * in the meantime; otherwise, the index is recreated from the table.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class NameIndex {
+  /** Data reference. */
+  private final Data data;
+  /** Element ids, indexed by name ids. */
+  private Bitmap[] ids = new Bitmap[Array.CAPACITY];
+  /** Cached pre values, indexed by name ids. */
+  private int[][] pres = new int[Array.CAPACITY][];
+  /** Indicates if the index has been changed since it was stored. */
+  private boolean modified;
+
+  /**
+   * Constructor. Reads the stored index or indexes all elements of the specified database.
+   * @param d data reference
+   */
+  public NameIndex(final Data d) {
+    data = d;
+    if(!read()) insert(0, d.meta.size);
+  }
+
+  /**
+   * Writes the index to the specified file if it has been changed.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  public synchronized void write(final IOFile file) throws IOException {
+    if(!modified) return;
+    final DataOutput out = new DataOutput(file);
+    try {
+      out.writeToken(token(data.meta.time));
+      final int is = ids.length;
+      out.writeNum(is);
+      for(int i = 0; i < is; i++) {
+        final Bitmap bm = ids[i];
+        out.writeBool(bm != null);
+        if(bm != null) bm.write(out);
+      }
+    } finally {
+      out.close();
+    }
+    modified = false;
+  }
+
+  /**
+   * Tries to read the stored index.
+   * @return success flag
+   */
+  private boolean read() {
+    if(data.inMemory()) return false;
+    final IOFile file = data.meta.dbfile(DataText.DATANAM);
+    if(!file.exists()) return false;
+    try {
+      final DataInput in = new DataInput(file);
+      try {
+        // skip outdated files (timestamp is changed by each update)
+        if(toLong(in.readToken()) != data.meta.time) return false;
+        final int is = in.readNum();
+        final Bitmap[] bms = new Bitmap[Math.max(Array.CAPACITY, is)];
+        for(int i = 0; i < is; i++) {
+          if(in.readBool()) bms[i] = new Bitmap(in);
+        }
+        ids = bms;
+        pres = new int[bms.length][];
+        return true;
+      } finally {
+        in.close();
+      }
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return false;
+    }
+  }
+
+  /**
+   * Returns the sorted pre values of all elements with the specified name.
+   * @param name name id
+   * @return pre values (must not be modified)
+   */
+  public synchronized int[] pres(final int name) {
+    if(name >= ids.length || ids[name] == null) return new int[0];
+    int[] p = pres[name];
+    if(p == null) {
+      final int[] i = ids[name].toArray();
+      p = data.pre(i, 0, i.length);
+      pres[name] = p;
+    }
+    return p;
+  }
+
+  /**
+   * Adds the elements of the specified nodes.
+   * Must be called after the nodes have been inserted.
+   * @param pre pre value of the first node
+   * @param size number of nodes
+   */
+  public synchronized void insert(final int pre, final int size) {
+    final int end = pre + size;
+    for(int p = pre; p < end; p++) {
+      if(data.kind(p) != Data.ELEM) continue;
+      final int name = data.name(p);
+      if(name >= ids.length) {
+        final int ns = Math.max(name + 1, Array.newSize(ids.length));
+        ids = Arrays.copyOf(ids, ns);
+        pres = Arrays.copyOf(pres, ns);
+      }
+      if(ids[name] == null) ids[name] = new Bitmap();
+      ids[name].add(data.id(p));
+    }
+    Arrays.fill(pres, null);
+    modified = true;
+  }
+
+  /**
+   * Removes the elements of the specified nodes.
+   * Must be called before the nodes are deleted.
+   * @param pre pre value of the first node
+   * @param size number of nodes
+   */
+  public synchronized void delete(final int pre, final int size) {
+    final Bitmap[] del = new Bitmap[ids.length];
+    final int end = pre + size;
+    for(int p = pre; p < end; p++) {
+      if(data.kind(p) != Data.ELEM) continue;
+      final int name = data.name(p);
+      if(del[name] == null) del[name] = new Bitmap();
+      del[name].add(data.id(p));
+    }
+    for(int name = 0; name < del.length; name++) {
+      if(del[name] != null) ids[name] = ids[name].andNot(del[name]);
+    }
+    Arrays.fill(pres, null);
+    modified = true;
+  }
+}
@@ -81,6 +81,30 @@ public final class Names extends TokenSet implements Index {
     stats[n].add(v, meta);
   }
 
+  /**
+   * Adds an occurrence of the specified key id and its value to the statistics.
+   * @param n name id
+   * @param v value, added to statistics (can be {@code null})
+   */
+  public void add(final int n, final byte[] v) {
+    if(stats[n] == null) stats[n] = new Stats();
+    final Stats stat = stats[n];
+    if(v != null) stat.add(v, meta);
+    stat.count++;
+  }
+
+  /**
+   * Removes an occurrence of the specified key id and its value from the statistics.
+   * @param n name id
+   * @param v value, removed from statistics (can be {@code null})
+   * @param st remove occurrence
+   */
+  public void delete(final int n, final byte[] v, final boolean st) {
+    final Stats stat = stats[n];
+    if(v != null) stat.delete(v, meta);
+    if(st) stat.count--;
+  }
+
   @Override
   public void write(final DataOutput out) throws IOException {
     super.write(out);
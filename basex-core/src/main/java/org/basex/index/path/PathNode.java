@@ -95,12 +95,14 @@ public final class PathNode {
    * @return node reference
    */
   PathNode index(final int n, final byte k, final byte[] v, final MetaData md) {
-    for(final PathNode c : ch) {
-      if(c.kind == k && c.name == n) {
-        if(v != null) c.stats.add(v, md);
-        c.stats.count++;
-        return c;
-      }
+    // update leaf flag
+    if(k != Data.TEXT && k != Data.ATTR && stats.isLeaf()) stats.setLeaf(false);
+
+    final PathNode c = get(n, k);
+    if(c != null) {
+      if(v != null) c.stats.add(v, md);
+      c.stats.count++;
+      return c;
     }
 
     final PathNode pn = new PathNode(n, k, this);
@@ -114,6 +116,34 @@ public final class PathNode {
     return pn;
   }
 
+  /**
+   * Returns the child node with the specified name and kind.
+   * @param n name id
+   * @param k node kind
+   * @return node reference, or {@code null}
+   */
+  PathNode get(final int n, final byte k) {
+    for(final PathNode c : ch) if(c.kind == k && c.name == n) return c;
+    return null;
+  }
+
+  /**
+   * Removes an occurrence of the node along with its value.
+   * The node is removed from the summary if no occurrences are left.
+   * @param v value (can be {@code null})
+   * @param md meta data
+   */
+  void delete(final byte[] v, final MetaData md) {
+    if(v != null) stats.delete(v, md);
+    if(--stats.count > 0 || par == null) return;
+
+    final PathNode[] pch = par.ch;
+    final int cs = pch.length;
+    final PathNode[] tmp = new PathNode[cs - 1];
+    for(int c = 0, t = 0; c < cs; c++) if(pch[c] != this) tmp[t++] = pch[c];
+    par.ch = tmp;
+  }
+
   /**
    * Writes the node to the specified output stream.
    * @param out output stream
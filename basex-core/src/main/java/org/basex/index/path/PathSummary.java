@@ -7,7 +7,9 @@ import java.util.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.name.*;
 import org.basex.index.query.*;
+import org.basex.index.stats.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
@@ -114,6 +116,123 @@ public final class PathSummary implements Index {
     }
   }
 
+  // Update Index =============================================================
+
+  /**
+   * Adds the specified database nodes to the summary and the name statistics.
+   * Must be called after the nodes have been inserted.
+   * @param d data reference
+   * @param pre pre value of the first node
+   * @param size number of nodes
+   */
+  public void insert(final Data d, final int pre, final int size) {
+    update(d, pre, size, true);
+  }
+
+  /**
+   * Removes the specified database nodes from the summary and the name statistics.
+   * Must be called before the nodes are deleted.
+   * @param d data reference
+   * @param pre pre value of the first node
+   * @param size number of nodes
+   */
+  public void delete(final Data d, final int pre, final int size) {
+    update(d, pre, size, false);
+  }
+
+  /**
+   * Adds or removes the specified database nodes. The structures will be invalidated
+   * if they are out-of-date, or if they do not match the database nodes.
+   * @param d data reference
+   * @param pre pre value of the first node
+   * @param size number of nodes
+   * @param add add or remove nodes
+   */
+  private void update(final Data d, final int pre, final int size, final boolean add) {
+    final MetaData md = d.meta;
+    if(!md.uptodate) return;
+
+    // collect ancestors
+    final IntList anc = new IntList();
+    for(int p = d.parent(pre, d.kind(pre)); p != -1; p = d.parent(p, d.kind(p))) {
+      anc.push(p);
+    }
+
+    // find summary nodes of ancestors, starting from the root
+    final IntList pres = new IntList(), tags = new IntList();
+    final ArrayList<PathNode> nodes = new ArrayList<PathNode>();
+    while(!anc.isEmpty()) {
+      final int p = anc.pop();
+      final byte k = (byte) d.kind(p);
+      final int n = k == Data.ELEM ? d.name(p) : 0;
+      final PathNode pn = nodes.isEmpty() ? root : nodes.get(nodes.size() - 1).get(n, k);
+      if(pn == null) {
+        md.uptodate = false;
+        return;
+      }
+      pres.push(p);
+      tags.push(n);
+      nodes.add(pn);
+    }
+
+    final Names tagindex = d.tagindex, atnindex = d.atnindex;
+    final int end = pre + size;
+    for(int p = pre; p < end; p++) {
+      final byte k = (byte) d.kind(p);
+      final int par = d.parent(p, k);
+      while(!pres.isEmpty() && pres.peek() != par) {
+        pres.pop();
+        tags.pop();
+        nodes.remove(nodes.size() - 1);
+      }
+      final boolean elem = k == Data.ELEM, attr = k == Data.ATTR;
+      final int n = elem || attr ? d.name(p) : 0;
+      final int tag = tags.isEmpty() ? 0 : tags.peek();
+      final PathNode parent = nodes.isEmpty() ? null : nodes.get(nodes.size() - 1);
+      final boolean value = !elem && k != Data.DOC;
+
+      PathNode pn = parent == null ? root : parent.get(n, k);
+      byte[] v = null;
+      if(add) {
+        if(value) v = d.text(p, !attr);
+        if(parent == null) {
+          if(v != null) root.stats.add(v, md);
+          root.stats.count++;
+        } else {
+          pn = parent.index(n, k, v, md);
+        }
+        if(elem) tagindex.add(n, null);
+        else if(attr) atnindex.add(n, v);
+        if(tag != 0 && !attr) {
+          // update statistics of parent element
+          if(k == Data.TEXT) tagindex.index(tag, v);
+          else tagindex.stat(tag).setLeaf(false);
+        }
+      } else {
+        if(pn == null) {
+          md.uptodate = false;
+          return;
+        }
+        // only retrieve values that are required for updating the statistics
+        final Stats st = attr ? atnindex.stat(n) : k == Data.TEXT && tag != 0 ?
+          tagindex.stat(tag) : null;
+        if(value && (pn.stats.values(md) || st != null && st.values(md))) {
+          v = d.text(p, !attr);
+        }
+        pn.delete(v, md);
+        if(elem) tagindex.delete(n, null, true);
+        else if(attr) atnindex.delete(n, v, true);
+        else if(st != null) tagindex.delete(tag, v, false);
+      }
+
+      if(elem || k == Data.DOC) {
+        pres.push(p);
+        tags.push(n);
+        nodes.add(pn);
+      }
+    }
+  }
+
   // Traverse Index ===========================================================
 
   /**
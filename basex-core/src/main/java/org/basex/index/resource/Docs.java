@@ -3,9 +3,11 @@ package org.basex.index.resource;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.data.atomic.*;
+import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
@@ -16,16 +18,23 @@ import org.basex.util.list.*;
  * <p>This data structure contains references to all document nodes in a
  * database. The document nodes are incrementally updated.</p>
  *
- * <p>If updates are performed, the path order is discarded, as its continuous
- * update would be more expensive in some cases (e.g. when bulk insertions of
- * new documents are performed). A tree structure could be introduced to
- * offer better general performance.</p>
+ * <p>The document paths and their sort order form a dictionary, which allows for
+ * binary searches of exact and prefix paths. The dictionary is incrementally updated.
+ * In disk-based databases, it is stored in a separate file when the database is closed,
+ * so it only needs to be recreated from the table if the file is missing or outdated. If many updates are
+ * performed in a row (e.g. bulk insertions of new documents), the path order is
+ * discarded and sorted again when it is requested next time.</p>
+ *
+ * <p>The modification time of each document is stored along with its path. It is
+ * updated whenever the document is changed.</p>
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  * @author Lukas Kircher
  */
 final class Docs {
+  /** Maximum number of updates before the path order is discarded. */
+  private static final int MAXCHANGES = 32;
   /** Data reference. */
   private final Data data;
   /** Pre values of document nodes (can be {@code null}).
@@ -36,7 +45,16 @@ final class Docs {
   private TokenList pathList;
   /** Ordered path indexes (can be {@code null}).
    * This variable should always be requested via {@link #order()}. */
-  private int[] pathOrder;
+  private IntList pathOrder;
+  /** Modification times of the documents (can be {@code null}).
+   * This variable should always be requested via {@link #times()}. */
+  private long[] timeList;
+  /** Number of updates of the path order since it was last requested. */
+  private int changes;
+  /** Indicates if the paths have been changed since they were stored. */
+  private boolean modified;
+  /** Indicates if stored paths are outdated. */
+  private boolean outdated;
 
   /**
    * Constructor.
@@ -64,6 +82,36 @@ final class Docs {
     out.writeDiffs(docs());
   }
 
+  /**
+   * Writes the document paths and their order to the specified file.
+   * The file will only be written if the paths have been changed.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  synchronized void write(final IOFile file) throws IOException {
+    if(outdated) {
+      file.delete();
+      outdated = false;
+    }
+    if(!modified) return;
+
+    final TokenList paths = pathList;
+    final IntList order = order();
+    final long[] times = times();
+    final int ps = paths.size();
+    final DataOutput out = new DataOutput(file);
+    try {
+      out.writeToken(token(data.meta.time));
+      out.writeNum(ps);
+      for(int p = 0; p < ps; p++) out.writeToken(paths.get(p));
+      for(int p = 0; p < ps; p++) out.writeNum(order.get(p));
+      for(int p = 0; p < ps; p++) out.writeToken(token(times[p]));
+    } finally {
+      out.close();
+    }
+    modified = false;
+  }
+
   /**
    * Initializes the document index. Currently, will only be called if the database is
    * optimized, and the resource index will be rebuilt.
@@ -71,6 +119,10 @@ final class Docs {
   synchronized void init() {
     docList = null;
     pathList = null;
+    pathOrder = null;
+    timeList = null;
+    modified = false;
+    outdated = true;
     docs();
   }
 
@@ -98,7 +150,7 @@ final class Docs {
    * @return document paths
    */
   private synchronized TokenList paths() {
-    if(pathList == null) {
+    if(pathList == null && !read()) {
       final IntList docs = docs();
       final int ds = docs.size();
       final TokenList paths = new TokenList(ds);
@@ -106,27 +158,152 @@ final class Docs {
         paths.add(normalize(data.text(docs.get(d), true)));
       }
       pathList = paths;
+      modified = true;
     }
     return pathList;
   }
 
+  /**
+   * Tries to read the stored document paths and their order.
+   * @return success flag
+   */
+  private boolean read() {
+    if(data.inMemory() || outdated) return false;
+    final IOFile file = data.meta.dbfile(DataText.DATAPTH);
+    if(!file.exists()) return false;
+    try {
+      final DataInput in = new DataInput(file);
+      try {
+        // skip outdated files (timestamp is changed by each update)
+        final int ds = docs().size();
+        if(toLong(in.readToken()) != data.meta.time || in.readNum() != ds) return false;
+        final TokenList paths = new TokenList(ds);
+        for(int d = 0; d < ds; d++) paths.add(in.readToken());
+        final IntList order = new IntList(ds);
+        for(int d = 0; d < ds; d++) order.add(in.readNum());
+        final long[] times = new long[ds];
+        for(int d = 0; d < ds; d++) times[d] = toLong(in.readToken());
+        pathList = paths;
+        pathOrder = order;
+        timeList = times;
+        return true;
+      } finally {
+        in.close();
+      }
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return false;
+    }
+  }
+
+  /**
+   * Returns the modification times of the documents, and initializes them if necessary.
+   * If no times have been stored, the timestamp of the database is assigned.
+   * @return modification times
+   */
+  private synchronized long[] times() {
+    paths();
+    if(timeList == null) {
+      final long[] times = new long[docs().size()];
+      Arrays.fill(times, data.meta.time);
+      timeList = times;
+    }
+    return timeList;
+  }
+
+  /**
+   * Returns the modification time of the specified document.
+   * @param pre pre value of the document node
+   * @return modification time
+   */
+  synchronized long time(final int pre) {
+    final int i = docs().sortedIndexOf(pre);
+    return i < 0 ? data.meta.time : times()[i];
+  }
+
+  /**
+   * Assigns the timestamp of the database to the document containing the specified node.
+   * Must be called before the node is updated.
+   * @param pre pre value of the updated node
+   */
+  synchronized void modified(final int pre) {
+    int i = docs().sortedIndexOf(pre);
+    if(i < 0) i = -i - 2;
+    if(i < 0) return;
+    times()[i] = data.meta.time;
+    modified = true;
+  }
+
   /**
    * Returns the document path order, and initialize the array if necessary.
    * @return path order
    */
-  private synchronized int[] order() {
+  private synchronized IntList order() {
+    final TokenList paths = paths();
     if(pathOrder == null) {
-      pathOrder = Array.createOrder(paths().toArray(), false, true);
+      pathOrder = new IntList(Array.createOrder(paths.toArray(), false, true));
     }
+    changes = 0;
     return pathOrder;
   }
 
+  /**
+   * Updates the path order after documents have been inserted or deleted.
+   * Entries referencing subsequent documents are moved, and the order of the
+   * specified documents is removed or added.
+   * If many updates are performed without requesting the order, it will be discarded.
+   * @param i index of the first document
+   * @param n number of inserted (positive) or deleted (negative) documents
+   */
+  private void order(final int i, final int n) {
+    final IntList order = pathOrder;
+    if(order == null) return;
+    if(++changes > MAXCHANGES) {
+      pathOrder = null;
+      return;
+    }
+
+    if(n < 0) {
+      // delete entries
+      for(int d = i; d < i - n; d++) {
+        order.deleteAt(position(pathList.get(d), d));
+      }
+    }
+    // skip shifting if documents have been appended or deleted at the end
+    final int os = order.size();
+    if(n > 0 ? i + n < pathList.size() : i < os) {
+      for(int o = 0; o < os; o++) {
+        final int v = order.get(o);
+        if(v >= i) order.set(o, v + n);
+      }
+    }
+    if(n > 0) {
+      // add entries
+      for(int d = i; d < i + n; d++) {
+        order.insert(find(pathList.get(d)), new int[] { d });
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the specified document in the path order.
+   * @param path path of the document
+   * @param d index of the document
+   * @return position
+   */
+  private int position(final byte[] path, final int d) {
+    final IntList order = pathOrder;
+    int p = find(path);
+    while(order.get(p) != d) p++;
+    return p;
+  }
+
   /**
    * Adds entries to the index and updates subsequent nodes.
    * @param pre insertion position
    * @param clip data clip
    */
-  void insert(final int pre, final DataClip clip) {
+  synchronized void insert(final int pre, final DataClip clip) {
     // find all document nodes in the given data instance
     final IntList pres = new IntList();
     for(int dpre = clip.start; dpre < clip.end;) {
@@ -139,6 +316,7 @@ final class Docs {
     final int[] presA = pres.toArray();
     final IntList docs = docs();
     final TokenList paths = paths();
+    final long[] times = times();
 
     int i = docs.sortedIndexOf(pre);
     if(i < 0) i = -i - 1;
@@ -151,7 +329,16 @@ final class Docs {
       t[j] = normalize(clip.data.text(presA[j] - pre, true));
     }
     paths.insert(i, t);
-    pathOrder = null;
+    order(i, t.length);
+
+    // assign current timestamp to new documents
+    final int ts = times.length, nt = t.length;
+    final long[] tms = new long[ts + nt];
+    System.arraycopy(times, 0, tms, 0, i);
+    Arrays.fill(tms, i, i + nt, data.meta.time);
+    System.arraycopy(times, i, tms, i + nt, ts - i);
+    timeList = tms;
+    modified = true;
   }
 
   /**
@@ -159,9 +346,10 @@ final class Docs {
    * @param pre pre value
    * @param size number of deleted nodes
    */
-  void delete(final int pre, final int size) {
+  synchronized void delete(final int pre, final int size) {
     final IntList docs = docs();
     final TokenList paths = paths();
+    final long[] times = times();
 
     int i = docs.sortedIndexOf(pre);
     final boolean found = i >= 0;
@@ -170,8 +358,13 @@ final class Docs {
     docs.move(-size, i);
 
     if(!found) return;
+    order(i, -1);
     paths.deleteAt(i);
-    pathOrder = null;
+    final long[] tms = new long[times.length - 1];
+    System.arraycopy(times, 0, tms, 0, i);
+    System.arraycopy(times, i + 1, tms, i, tms.length - i);
+    timeList = tms;
+    modified = true;
   }
 
   /**
@@ -179,11 +372,15 @@ final class Docs {
    * @param pre pre value of updated document
    * @param value new name
    */
-  void rename(final int pre, final byte[] value) {
+  synchronized void rename(final int pre, final byte[] value) {
     final IntList docs = docs();
     final TokenList paths = paths();
-    paths.set(docs.sortedIndexOf(pre), normalize(value));
-    pathOrder = null;
+    final int i = docs.sortedIndexOf(pre);
+    final IntList order = pathOrder;
+    if(order != null) order.deleteAt(position(paths.get(i), i));
+    paths.set(i, normalize(value));
+    if(order != null) order.insert(find(paths.get(i)), new int[] { i });
+    modified = true;
   }
 
   /**
@@ -192,7 +389,7 @@ final class Docs {
    * @param size number of deleted nodes
    * @param clip data clip
    */
-  void replace(final int pre, final int size, final DataClip clip) {
+  synchronized void replace(final int pre, final int size, final DataClip clip) {
     delete(pre, size);
     insert(pre, clip);
   }
@@ -223,26 +420,29 @@ final class Docs {
 
     // relevant paths: exact hits and prefixes
     final IntList il = new IntList();
-    /* could be optimized for future access by sorting the paths first
-     * and then accessing only the relevant paths. Sorting might slow down
-     * bulk operations like insert/delete/replace though. */
     final TokenList paths = paths();
-    for(int p = 0; p < paths.size(); p++) {
-      final byte[] b = paths.get(p);
-      if(eq(b, exct) || !exact && startsWith(b, pref)) il.add(docs.get(p));
+    final IntList order = order();
+    final int os = order.size();
+    if(exct.length != 0) {
+      for(int p = find(exct); p < os && eq(paths.get(order.get(p)), exct); p++) {
+        il.add(docs.get(order.get(p)));
+      }
+    }
+    if(!exact) {
+      for(int p = find(pref); p < os && startsWith(paths.get(order.get(p)), pref); p++) {
+        il.add(docs.get(order.get(p)));
+      }
     }
     return il.sort();
   }
 
   /**
    * Returns the pre value of the document node matching the specified path.
-   * Exact match! Document paths can be sorted for faster future access or
-   * sorting can be disabled as it slows down bulk inserts/deletes/replaces.
+   * Exact match!
    * @param path input path
-   * @param sort sort paths before access
    * @return pre value of document node
    */
-  synchronized int doc(final String path, final boolean sort) {
+  synchronized int doc(final String path) {
     // invalid or empty path, or no documents: return -1
     final String pth = MetaData.normPath(path);
     if(pth == null || pth.isEmpty()) return -1;
@@ -253,17 +453,10 @@ final class Docs {
     // relevant paths: exact match
     final IntList docs = docs();
     final TokenList paths = paths();
-    final int ts = paths.size();
-
-    if(sort) {
-      final int[] order = order();
-      final int p = find(exct);
-      return p > -1 && p < ts && eq(paths.get(order[p]), exct) ? docs.get(order[p]) : -1;
-    }
-    for(int t = 0; t < ts; t++) {
-      if(eq(paths.get(t), exct)) return docs.get(t);
-    }
-    return -1;
+    final IntList order = order();
+    final int p = find(exct);
+    return p < order.size() && eq(paths.get(order.get(p)), exct) ?
+      docs.get(order.get(p)) : -1;
   }
 
   /**
@@ -272,9 +465,14 @@ final class Docs {
    * @return path to a directory or not
    */
   synchronized boolean isDir(final byte[] path) {
-    final byte[] pa = concat(path, SLASH);
-    for(final byte[] b : paths()) if(startsWith(b, pa)) return true;
-    return false;
+    final String pth = MetaData.normPath(string(path));
+    if(pth == null) return false;
+    byte[] pref = normalize(token(pth));
+    if(!endsWith(pref, '/')) pref = concat(pref, SLASH);
+    final TokenList paths = paths();
+    final IntList order = order();
+    final int p = find(pref);
+    return p < order.size() && startsWith(paths.get(order.get(p)), pref);
   }
 
   /**
@@ -291,10 +489,14 @@ final class Docs {
     byte[] root = token(pth);
     if(root.length != 0) root = concat(root, SLASH);
 
+    // only visit documents with matching prefix
+    final byte[] pref = normalize(root);
     final IntList docs = docs();
-    final int ds = docs.size();
-    for(int d = 0; d < ds; d++) {
-      byte[] np = data.text(docs.get(d), true);
+    final TokenList paths = paths();
+    final IntList order = order();
+    final int os = order.size();
+    for(int p = find(pref); p < os && startsWith(paths.get(order.get(p)), pref); p++) {
+      byte[] np = data.text(docs.get(order.get(p)), true);
       if(startsWith(np, root)) {
         np = substring(np, root.length, np.length);
         final int i = indexOf(np, SLASH);
@@ -313,18 +515,12 @@ final class Docs {
    */
   private int find(final byte[] v) {
     // binary search
-    final TokenList paths = paths();
-    final int[] po = pathOrder;
-    int l = 0, h = po.length - 1;
+    final TokenList paths = pathList;
+    final IntList po = pathOrder;
+    int l = 0, h = po.size() - 1;
     while(l <= h) {
-      int m = l + h >>> 1;
-      final int c = diff(paths.get(po[m]), v);
-      if(c == 0) {
-        // find first entry
-        while(m > 0 && eq(paths.get(po[m - 1]), v)) --m;
-        return m;
-      }
-      if(c < 0) l = m + 1;
+      final int m = l + h >>> 1;
+      if(diff(paths.get(po.get(m)), v) < 0) l = m + 1;
       else h = m - 1;
     }
     return l;
@@ -0,0 +1,37 @@
+package org.basex.index.resource;
+
+/**
+ * <p>This class contains information on a single database resource.</p>
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ResourceInfo {
+  /** Database path. */
+  public final byte[] path;
+  /** Raw file flag. */
+  public final boolean raw;
+  /** Content type. */
+  public final String type;
+  /** Size (number of nodes for XML documents, number of bytes for raw files). */
+  public final long size;
+  /** Modification time (timestamp of the database for XML documents). */
+  public final long time;
+
+  /**
+   * Constructor.
+   * @param pt database path
+   * @param rw raw file flag
+   * @param tp content type
+   * @param sz size
+   * @param tm modification time
+   */
+  ResourceInfo(final byte[] pt, final boolean rw, final String tp, final long sz,
+      final long tm) {
+    path = pt;
+    raw = rw;
+    type = tp;
+    size = sz;
+    time = tm;
+  }
+}
@@ -1,11 +1,13 @@
 package org.basex.index.resource;
 
 import java.io.*;
+import java.util.*;
 
 import org.basex.data.*;
 import org.basex.data.atomic.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
+import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
@@ -19,6 +21,8 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class Resources implements Index {
+  /** Data reference. */
+  private final Data data;
   /** Document references. */
   private final Docs docs;
   /** Binary files. */
@@ -29,6 +33,7 @@ public final class Resources implements Index {
    * @param d data reference
    */
   public Resources(final Data d) {
+    data = d;
     docs = new Docs(d);
     bins = new Binaries(d);
   }
@@ -51,6 +56,15 @@ public final class Resources implements Index {
     docs.write(out);
   }
 
+  /**
+   * Writes the document paths to the specified file.
+   * @param file file
+   * @throws IOException I/O exception
+   */
+  public void write(final IOFile file) throws IOException {
+    docs.write(file);
+  }
+
   /**
    * Returns the {@code pre} values of all document nodes.
    * @return document nodes
@@ -82,6 +96,24 @@ public final class Resources implements Index {
     docs.delete(pre, size);
   }
 
+  /**
+   * Updates the modification time of the document containing the specified node.
+   * @param pre pre value of the updated node
+   */
+  public void modified(final int pre) {
+    docs.modified(pre);
+  }
+
+  /**
+   * Returns the modification time of the specified document. It is updated
+   * whenever the document is changed.
+   * @param pre pre value of the document node
+   * @return modification time
+   */
+  public long time(final int pre) {
+    return docs.time(pre);
+  }
+
   /**
    * Updates the index after a document has been renamed.
    * @param pre pre value of updated document
@@ -126,7 +158,7 @@ public final class Resources implements Index {
    * @return pre value
    */
   public int doc(final String path) {
-    return docs.doc(path, true);
+    return docs.doc(path);
   }
 
   /**
@@ -139,6 +171,56 @@ public final class Resources implements Index {
     return bins.bins(path);
   }
 
+  /**
+   * Returns information on all resources starting with the specified path.
+   * XML documents are returned first, followed by raw files.
+   * @param path input path
+   * @return resources
+   */
+  public synchronized ArrayList<ResourceInfo> list(final String path) {
+    final ArrayList<ResourceInfo> list = new ArrayList<ResourceInfo>();
+    final IntList il = docs.docs(path, false);
+    final int is = il.size();
+    for(int i = 0; i < is; i++) list.add(doc(il.get(i)));
+    for(final byte[] file : bins.bins(path)) list.add(binary(file));
+    return list;
+  }
+
+  /**
+   * Returns information on the XML document or raw file with the specified path.
+   * @param path input path
+   * @return resource, or {@code null} if no resource exists with this path
+   */
+  public synchronized ResourceInfo info(final String path) {
+    final int pre = docs.doc(path);
+    if(pre != -1) return doc(pre);
+    final String np = MetaData.normPath(path);
+    if(np == null || np.isEmpty() || data.inMemory()) return null;
+    final IOFile io = data.meta.binary(np);
+    return io.exists() && !io.isDir() ? binary(Token.token(np)) : null;
+  }
+
+  /**
+   * Returns information on an XML document.
+   * @param pre pre value of the document node
+   * @return resource
+   */
+  private ResourceInfo doc(final int pre) {
+    return new ResourceInfo(data.text(pre, true), false, MimeTypes.APP_XML,
+        data.size(pre, Data.DOC), data.meta.time);
+  }
+
+  /**
+   * Returns information on a raw file.
+   * @param path database path of the file
+   * @return resource
+   */
+  private ResourceInfo binary(final byte[] path) {
+    final IOFile io = data.meta.binary(Token.string(path));
+    return new ResourceInfo(path, true, MimeTypes.get(io.path()), io.length(),
+        io.timeStamp());
+  }
+
   /**
    * Determines whether the given path is the path to a directory.
    * @param path given path
@@ -121,7 +121,7 @@ public final class Stats {
     StatsType t = type;
     if(t == StatsType.NONE) t = StatsType.INTEGER;
 
-    if(cats != null && cats.size() <= meta.maxcats) {
+    if(values(meta)) {
       if(val.length > meta.maxlen) {
         t = StatsType.TEXT;
         cats = null;
@@ -141,7 +141,7 @@ public final class Stats {
     if(t == StatsType.DOUBLE) {
       final double d = toDouble(val);
       if(Double.isNaN(d)) {
-        t = cats.size() <= meta.maxcats ? StatsType.CATEGORY : StatsType.TEXT;
+        t = values(meta) ? StatsType.CATEGORY : StatsType.TEXT;
       } else {
         if(min > d) min = d;
         if(max < d) max = d;
@@ -155,6 +155,39 @@ public final class Stats {
     type = t;
   }
 
+  /**
+   * Removes a value. Only the cached values are updated; the numeric bounds are
+   * retained, as they will still include all remaining values.
+   * @param val value to be removed
+   * @param meta meta data
+   */
+  public void delete(final byte[] val, final MetaData meta) {
+    if(!values(meta) || val.length == 0 || ws(val)) return;
+
+    final int c = cats.get(val);
+    if(c > 1) {
+      cats.put(val, c - 1);
+    } else if(c == 1) {
+      final TokenIntMap map = new TokenIntMap();
+      for(final byte[] v : cats) if(!eq(v, val)) map.put(v, cats.get(v));
+      cats = map;
+    } else if(type == StatsType.CATEGORY) {
+      // number of occurrences is unknown (format prior to Version 7.1)
+      type = StatsType.TEXT;
+      cats = null;
+    }
+  }
+
+  /**
+   * Checks if all values are cached, and if removed values need to be passed on
+   * to {@link #delete}.
+   * @param meta meta data
+   * @return result of check
+   */
+  public boolean values(final MetaData meta) {
+    return cats != null && cats.size() <= meta.maxcats;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(count + "x");
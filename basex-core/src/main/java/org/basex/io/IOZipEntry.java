@@ -0,0 +1,122 @@
+package org.basex.io;
+
+import java.io.*;
+import java.util.zip.*;
+
+import javax.xml.transform.stream.*;
+
+import org.basex.io.in.*;
+import org.basex.util.*;
+import org.xml.sax.*;
+
+/**
+ * {@link IO} reference, representing an entry of an opened ZIP file.
+ * The contents of the entry are decompressed whenever they are requested.
+ * If the ZIP file has been closed in the meantime, it will be reopened from its path.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class IOZipEntry extends IO {
+  /** ZIP file. */
+  private final ZipFile zip;
+  /** ZIP entry. */
+  private final ZipEntry entry;
+
+  /**
+   * Constructor.
+   * @param zf ZIP file
+   * @param ze ZIP entry
+   */
+  public IOZipEntry(final ZipFile zf, final ZipEntry ze) {
+    super(zf.getName() + '!' + '/' + ze.getName());
+    zip = zf;
+    entry = ze;
+    len = ze.getSize();
+  }
+
+  @Override
+  public byte[] read() throws IOException {
+    return new BufferInput(this).content();
+  }
+
+  @Override
+  public InputSource inputSource() {
+    final InputSource is = new InputSource(new LazyInput());
+    is.setSystemId(path);
+    return is;
+  }
+
+  @Override
+  public StreamSource streamSource() {
+    return new StreamSource(new LazyInput(), path);
+  }
+
+  @Override
+  public InputStream inputStream() throws IOException {
+    try {
+      return zip.getInputStream(entry);
+    } catch(final IllegalStateException ex) {
+      // ZIP file has been closed: reopen it
+      Util.debug(ex);
+    }
+    final ZipFile zf = new ZipFile(zip.getName());
+    try {
+      final ZipEntry ze = zf.getEntry(entry.getName());
+      if(ze == null) throw new FileNotFoundException(path);
+      return new FilterInputStream(zf.getInputStream(ze)) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            zf.close();
+          }
+        }
+      };
+    } catch(final IOException ex) {
+      zf.close();
+      throw ex;
+    }
+  }
+
+  @Override
+  public long timeStamp() {
+    final long time = entry.getTime();
+    return time == -1 ? super.timeStamp() : time;
+  }
+
+  /**
+   * Input stream, which opens the entry when it is read for the first time.
+   * Errors are raised by the read operations, as it is done for sources of local files.
+   */
+  private final class LazyInput extends InputStream {
+    /** Input stream of the entry. */
+    private InputStream in;
+
+    @Override
+    public int read() throws IOException {
+      return input().read();
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int l) throws IOException {
+      return input().read(b, off, l);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if(in != null) in.close();
+    }
+
+    /**
+     * Returns the input stream of the entry.
+     * @return input stream
+     * @throws IOException I/O exception
+     */
+    private InputStream input() throws IOException {
+      if(in == null) in = inputStream();
+      return in;
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package org.basex.io.out;
+
+import java.io.*;
+
+/**
+ * This class passes on all bytes to another output stream and keeps a copy of them.
+ * The copy is discarded if it exceeds the specified maximum size.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class CopyOutput extends PrintOutput {
+  /** Output stream. */
+  private final PrintOutput out;
+  /** Maximum size of the copy. */
+  private final long limit;
+  /** Copy ({@code null} if the maximum size has been exceeded). */
+  private ArrayOutput copy = new ArrayOutput();
+
+  /**
+   * Constructor.
+   * @param o output stream
+   * @param l maximum size of the copy
+   */
+  public CopyOutput(final PrintOutput o, final long l) {
+    out = o;
+    limit = l;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    out.write(b);
+    if(copy != null) {
+      if(size++ < limit) copy.write(b);
+      else copy = null;
+    }
+  }
+
+  @Override
+  public boolean finished() {
+    return out.finished();
+  }
+
+  /**
+   * Returns the copied bytes.
+   * @return bytes, or {@code null} if the maximum size has been exceeded
+   */
+  public byte[] copy() {
+    return copy == null ? null : copy.toArray();
+  }
+}
@@ -171,4 +171,15 @@ public abstract class TableAccess {
    * @param entries array of bytes containing the entries to insert
    */
   public abstract void insert(int pre, byte[] entries);
+
+  /**
+   * Starts a batch of structural updates. Until the batch is finished, inserted and
+   * deleted entries may be cached and written in a single pass.
+   */
+  public abstract void startBatch();
+
+  /**
+   * Finishes a batch of structural updates (see {@link #startBatch}).
+   */
+  public abstract void finishBatch();
 }
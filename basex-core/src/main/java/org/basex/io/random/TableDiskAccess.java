@@ -12,6 +12,7 @@ import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class stores the table on disk and reads it block-wise.
@@ -48,6 +49,23 @@ public final class TableDiskAccess extends TableAccess {
   private int blocks;
   /** Number of used blocks. */
   private int used;
+  /** Array of the entry that has been addressed by the last cursor call. */
+  private byte[] array;
+
+  /** Batch mode: base pre values of the pending changes ({@code null} otherwise). */
+  private IntList bpres;
+  /** Batch mode: number of inserted (positive) or deleted (negative) entries. */
+  private IntList bsizes;
+  /** Batch mode: accumulated sizes of the changes that have been recorded before. */
+  private IntList bshifts;
+  /** Batch mode: inserted entries ({@code null} for deletions). */
+  private ArrayList<byte[]> bentries;
+  /** Batch mode: accumulated sizes of all pending changes. */
+  private int bshift;
+  /** Batch mode: number of entries before the pending changes. */
+  private int bsize;
+  /** Batch mode: index of the change that has been addressed by the last cursor call. */
+  private int bcur;
 
   /**
    * Constructor.
@@ -117,6 +135,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void flush() throws IOException {
+    apply();
     for(final Buffer b : bm.all()) if(b.dirty) writeBlock(b);
     if(!dirty) return;
 
@@ -192,21 +211,21 @@ public final class TableDiskAccess extends TableAccess {
   @Override
   public synchronized int read1(final int pre, final int off) {
     final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+    final byte[] b = array;
     return b[o] & 0xFF;
   }
 
   @Override
   public synchronized int read2(final int pre, final int off) {
     final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+    final byte[] b = array;
     return ((b[o] & 0xFF) << 8) + (b[o + 1] & 0xFF);
   }
 
   @Override
   public synchronized int read4(final int pre, final int off) {
     final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+    final byte[] b = array;
     return ((b[o] & 0xFF) << 24) + ((b[o + 1] & 0xFF) << 16) +
       ((b[o + 2] & 0xFF) << 8) + (b[o + 3] & 0xFF);
   }
@@ -214,7 +233,7 @@ public final class TableDiskAccess extends TableAccess {
   @Override
   public synchronized long read5(final int pre, final int off) {
     final int o = off + cursor(pre);
-    final byte[] b = bm.current().data;
+    final byte[] b = array;
     return ((long) (b[o] & 0xFF) << 32) + ((long) (b[o + 1] & 0xFF) << 24) +
       ((b[o + 2] & 0xFF) << 16) + ((b[o + 3] & 0xFF) << 8) + (b[o + 4] & 0xFF);
   }
@@ -223,7 +242,7 @@ public final class TableDiskAccess extends TableAccess {
   public void write1(final int pre, final int off, final int v) {
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
-    final byte[] b = bf.data;
+    final byte[] b = array;
     b[o] = (byte) v;
     bf.dirty = true;
   }
@@ -232,7 +251,7 @@ public final class TableDiskAccess extends TableAccess {
   public void write2(final int pre, final int off, final int v) {
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
-    final byte[] b = bf.data;
+    final byte[] b = array;
     b[o] = (byte) (v >>> 8);
     b[o + 1] = (byte) v;
     bf.dirty = true;
@@ -242,7 +261,7 @@ public final class TableDiskAccess extends TableAccess {
   public void write4(final int pre, final int off, final int v) {
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
-    final byte[] b = bf.data;
+    final byte[] b = array;
     b[o]     = (byte) (v >>> 24);
     b[o + 1] = (byte) (v >>> 16);
     b[o + 2] = (byte) (v >>> 8);
@@ -254,7 +273,7 @@ public final class TableDiskAccess extends TableAccess {
   public void write5(final int pre, final int off, final long v) {
     final int o = off + cursor(pre);
     final Buffer bf = bm.current();
-    final byte[] b = bf.data;
+    final byte[] b = array;
     b[o]     = (byte) (v >>> 32);
     b[o + 1] = (byte) (v >>> 24);
     b[o + 2] = (byte) (v >>> 16);
@@ -268,7 +287,7 @@ public final class TableDiskAccess extends TableAccess {
     for(int o = 0, i = pre; i < last; ++i, o += IO.NODESIZE) {
       final int off = cursor(i);
       final Buffer bf = bm.current();
-      System.arraycopy(entries, o, bf.data, off, IO.NODESIZE);
+      System.arraycopy(entries, o, array, off, IO.NODESIZE);
       bf.dirty = true;
     }
   }
@@ -278,6 +297,23 @@ public final class TableDiskAccess extends TableAccess {
     if(nr == 0) return;
     dirty();
 
+    if(bpres != null) {
+      final int c = bpres.size() - 1;
+      if(c >= 0 && bsizes.get(c) < 0 && pre + nr == bpres.get(c)) {
+        // merge with the preceding deletion
+        bpres.set(c, pre);
+        bsizes.set(c, bsizes.get(c) - nr);
+        bshift -= nr;
+        meta.size -= nr;
+        return;
+      }
+      if(c >= 0 && pre + nr > bpres.get(c)) apply();
+      if(bpres != null) {
+        record(pre, -nr, null);
+        return;
+      }
+    }
+
     // get first block
     cursor(pre);
 
@@ -356,6 +392,30 @@ public final class TableDiskAccess extends TableAccess {
     // number of records to be inserted
     final int nr = nnew >>> IO.NODEPOWER;
 
+    if(bpres != null) {
+      final int c = bpres.size() - 1;
+      final int cs = c >= 0 ? bsizes.get(c) : 0;
+      if(cs > 0 && pre == bpres.get(c) + cs) {
+        // append entries to the preceding insertion
+        byte[] ent = bentries.get(c);
+        final int o = cs << IO.NODEPOWER;
+        if(o + nnew > ent.length) {
+          ent = Arrays.copyOf(ent, Math.max(ent.length << 1, o + nnew));
+          bentries.set(c, ent);
+        }
+        System.arraycopy(entries, 0, ent, o, nnew);
+        bsizes.set(c, cs + nr);
+        bshift += nr;
+        meta.size += nr;
+        return;
+      }
+      if(c >= 0 && pre > bpres.get(c)) apply();
+      if(bpres != null) {
+        record(pre, nr, entries.clone());
+        return;
+      }
+    }
+
     int split = 0;
     if(used == 0) {
       // special case: insert new data into first block if database is empty
@@ -465,6 +525,26 @@ public final class TableDiskAccess extends TableAccess {
     npre = page + 1 < used && fpres[page + 1] < meta.size ? fpres[page + 1] : meta.size;
   }
 
+  @Override
+  public void startBatch() {
+    if(bpres != null || meta.size == 0) return;
+    bpres = new IntList();
+    bsizes = new IntList();
+    bshifts = new IntList();
+    bentries = new ArrayList<byte[]>();
+    bshift = 0;
+    bsize = meta.size;
+  }
+
+  @Override
+  public void finishBatch() {
+    apply();
+    bpres = null;
+    bsizes = null;
+    bshifts = null;
+    bentries = null;
+  }
+
   @Override
   protected void dirty() {
     // initialize data structures required for performing updates
@@ -483,13 +563,194 @@ public final class TableDiskAccess extends TableAccess {
 
   // PRIVATE METHODS ==========================================================
 
+  /**
+   * Searches for the entry with the specified pre value. If the entry has been inserted
+   * in the current batch, returns its offset in the cached entries. Otherwise, reads the
+   * block and returns the offset inside the block.
+   * @param pre pre of the entry to search for
+   * @return offset of the entry
+   */
+  private int cursor(final int pre) {
+    final int c = bpres == null ? -1 : bpres.size() - 1;
+    // entries before the last recorded change are not affected by the batch
+    if(c == -1 || pre < bpres.get(c)) return block(pre);
+
+    // find first recorded change with a start value smaller than or equal to pre
+    int l = bcur;
+    if(l > c || start(l) > pre || l > 0 && start(l - 1) <= pre) {
+      l = 0;
+      int h = c;
+      while(l < h) {
+        final int m = l + h >>> 1;
+        if(start(m) <= pre) h = m;
+        else l = m + 1;
+      }
+      bcur = l;
+    }
+    final int st = start(l), sz = bsizes.get(l);
+    if(pre < st + sz) {
+      array = bentries.get(l);
+      return pre - st << IO.NODEPOWER;
+    }
+    return block(pre - bshift + bshifts.get(l));
+  }
+
+  /**
+   * Returns the current start value of a recorded change.
+   * @param c index of the change
+   * @return pre value
+   */
+  private int start(final int c) {
+    final int sz = bsizes.get(c);
+    return bpres.get(c) + bshift - bshifts.get(c) - sz;
+  }
+
+  /**
+   * Records a change in batch mode. Its entries precede all changes recorded so far.
+   * @param pre pre value
+   * @param nr number of inserted (positive) or deleted (negative) entries
+   * @param entries inserted entries ({@code null} for deletions)
+   */
+  private void record(final int pre, final int nr, final byte[] entries) {
+    bpres.add(pre);
+    bsizes.add(nr);
+    bshifts.add(bshift);
+    bentries.add(entries);
+    bshift += nr;
+    meta.size += nr;
+  }
+
+  /**
+   * Applies all changes that have been recorded in batch mode. The affected blocks are
+   * rewritten in ascending order, and the block directory is rebuilt in a single pass.
+   */
+  private void apply() {
+    if(bpres == null || bpres.isEmpty()) return;
+
+    final IntList nfpres = new IntList(used + 1), npages = new IntList(used + 1);
+    // changes are recorded in descending order
+    int c = bpres.size() - 1, opre = 0;
+    // trailing entries of an overflowing block, which will be prepended to the next block
+    byte[] rest = null;
+    for(int b = 0; b < used; b++) {
+      final int s = fpres[b], e = b + 1 < used ? fpres[b + 1] : bsize;
+      if((c == -1 || !affects(c, e)) &&
+          (rest == null || rest.length + (e - s << IO.NODEPOWER) > IO.BLOCKSIZE)) {
+        if(rest != null) {
+          opre = put(rest, 0, free(), opre, nfpres, npages);
+          rest = null;
+        }
+        // block is not affected: adopt it with its new first pre value
+        nfpres.add(opre);
+        npages.add(pages[b]);
+        opre += e - s;
+        continue;
+      }
+
+      // build new block contents
+      readBlock(pages[b]);
+      final byte[] old = bm.current().data;
+      final ByteList bl = new ByteList();
+      if(rest != null) bl.add(rest);
+      int p = s;
+      while(c != -1 && affects(c, e)) {
+        final int cp = bpres.get(c), cs = bsizes.get(c);
+        bl.add(old, p - s << IO.NODEPOWER, Math.max(p, cp) - s << IO.NODEPOWER);
+        if(cs > 0) {
+          bl.add(bentries.get(c), 0, cs << IO.NODEPOWER);
+          p = cp;
+        } else {
+          // deletions may span several blocks
+          p = Math.min(cp - cs, e);
+          if(p == e && cp - cs > e) break;
+        }
+        c--;
+      }
+      bl.add(old, p - s << IO.NODEPOWER, e - s << IO.NODEPOWER);
+
+      // distribute contents to the old and to new blocks
+      final byte[] all = bl.toArray();
+      int l = all.length;
+      rest = null;
+      if(l > IO.BLOCKSIZE && b + 1 < used && l % IO.BLOCKSIZE != 0) {
+        rest = Arrays.copyOfRange(all, l - l % IO.BLOCKSIZE, l);
+        l -= rest.length;
+      }
+      if(l == 0) usedPages.clear(pages[b]);
+      for(int o = 0; o < l; o += IO.BLOCKSIZE) {
+        opre = put(all, o, o == 0 ? pages[b] : free(), opre, nfpres, npages);
+      }
+    }
+
+    used = nfpres.size();
+    final int ns = Math.max(blocks, used);
+    fpres = Arrays.copyOf(nfpres.toArray(), ns);
+    pages = Arrays.copyOf(npages.toArray(), ns);
+    page = -1;
+    fpre = -1;
+    npre = -1;
+
+    bpres.reset();
+    bsizes.reset();
+    bshifts.reset();
+    bentries.clear();
+    bshift = 0;
+    bsize = meta.size;
+    // batch mode is only supported for non-empty tables
+    if(meta.size == 0) finishBatch();
+  }
+
+  /**
+   * Writes entries to the specified page and adds it to the specified block directory.
+   * @param all entries
+   * @param o offset of the first entry
+   * @param pg page
+   * @param opre first pre value of the block
+   * @param nfpres first pre values
+   * @param npages pages
+   * @return first pre value of the next block
+   */
+  private int put(final byte[] all, final int o, final int pg, final int opre,
+      final IntList nfpres, final IntList npages) {
+    readBlock(pg);
+    final int l = Math.min(IO.BLOCKSIZE, all.length - o);
+    final Buffer bf = bm.current();
+    System.arraycopy(all, o, bf.data, 0, l);
+    bf.dirty = true;
+    nfpres.add(opre);
+    npages.add(pg);
+    return opre + (l >>> IO.NODEPOWER);
+  }
+
+  /**
+   * Returns the first free page and marks it as used.
+   * @return page
+   */
+  private int free() {
+    final int pg = usedPages.nextFree(0);
+    usedPages.set(pg);
+    return pg;
+  }
+
+  /**
+   * Checks if the specified recorded change affects the block with the specified end.
+   * Insertions at the end of a block are assigned to this block.
+   * @param c index of the change
+   * @param e first pre value of the next block
+   * @return result of check
+   */
+  private boolean affects(final int c, final int e) {
+    final int cp = bpres.get(c);
+    return bsizes.get(c) > 0 ? cp <= e : cp < e;
+  }
+
   /**
    * Searches for the block containing the entry for the specified pre value.
    * Reads the block and returns its offset inside the block.
    * @param pre pre of the entry to search for
    * @return offset of the entry in the block
    */
-  private int cursor(final int pre) {
+  private int block(final int pre) {
     int fp = fpre;
     int np = npre;
     if(pre < fp || pre >= np) {
@@ -503,7 +764,7 @@ public final class TableDiskAccess extends TableAccess {
         else break;
         m = h + l >>> 1;
         fp = fpre(m);
-        np = m == last ? meta.size : fpre(m + 1);
+        np = m == last ? size() : fpre(m + 1);
       }
       if(l > h) throw Util.notExpected(
           "Data Access out of bounds:" +
@@ -513,9 +774,18 @@ public final class TableDiskAccess extends TableAccess {
           "\n- access: " + m + " (" + l + " > " + h + ']');
       readPage(m);
     }
+    array = bm.current().data;
     return pre - fpre << IO.NODEPOWER;
   }
 
+  /**
+   * Returns the number of entries stored in the blocks.
+   * @return number of entries
+   */
+  private int size() {
+    return bpres == null ? meta.size : bsize;
+  }
+
   /**
    * Updates the page pointers.
    * @param p page index
@@ -523,7 +793,7 @@ public final class TableDiskAccess extends TableAccess {
   private void setPage(final int p) {
     page = p;
     fpre = fpre(p);
-    npre = p + 1 >= used ? meta.size : fpre(p + 1);
+    npre = p + 1 >= used ? size() : fpre(p + 1);
   }
 
   /**
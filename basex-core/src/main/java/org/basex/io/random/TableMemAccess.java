@@ -34,6 +34,12 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public void close() { }
 
+  @Override
+  public void startBatch() { }
+
+  @Override
+  public void finishBatch() { }
+
   @Override
   public boolean lock(final boolean lock) {
     return true;
@@ -4,6 +4,7 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 
+import org.basex.query.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
 import org.xml.sax.*;
@@ -18,6 +19,8 @@ import org.xml.sax.helpers.*;
  *   <li>serialize the item</li>
  *   <li>notify endDocument()</li>
  * </ol>
+ * The document locator reports the line and column positions of the events in the
+ * indented XML serialization of the item.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Michael Hedenus
@@ -36,6 +39,13 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   private ErrorHandler errorHandler;
   /** Lexical handler. */
   private LexicalHandler lexicalHandler;
+  /** Document locator. */
+  private final LocatorImpl locator = new LocatorImpl();
+
+  /** Lexical handler property. */
+  private static final String LEXHANDLER = "http://xml.org/sax/properties/lexical-handler";
+  /** Namespaces feature. */
+  private static final String NAMESPACES = "http://xml.org/sax/features/namespaces";
 
   /**
    * Constructor.
@@ -43,6 +53,7 @@ public final class SAXSerializer extends Serializer implements XMLReader {
    */
   public SAXSerializer(final Item it) {
     item = it;
+    indent = true;
   }
 
   // XMLReader ==========================================================================
@@ -54,12 +65,12 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   public boolean getFeature(final String name) {
-    return false;
+    return NAMESPACES.equals(name);
   }
 
   @Override
   public Object getProperty(final String name) {
-    return null;
+    return LEXHANDLER.equals(name) ? lexicalHandler : null;
   }
 
   @Override
@@ -70,6 +81,9 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   @Override
   public void parse(final String id) throws SAXException {
     try {
+      locator.setLineNumber(1);
+      locator.setColumnNumber(1);
+      contentHandler.setDocumentLocator(locator);
       contentHandler.startDocument();
       serialize(item);
       contentHandler.endDocument();
@@ -124,13 +138,15 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   @Override
   public void setFeature(final String name, final boolean value)
       throws SAXNotRecognizedException {
-    throw new SAXNotRecognizedException();
+    if(getFeature(name) != value) throw new SAXNotRecognizedException(name);
   }
 
   @Override
   public void setProperty(final String name, final Object value)
       throws SAXNotRecognizedException {
-    throw new SAXNotRecognizedException();
+    if(!LEXHANDLER.equals(name) || !(value instanceof LexicalHandler))
+      throw new SAXNotRecognizedException(name);
+    lexicalHandler = (LexicalHandler) value;
   }
 
   // Serializer =========================================================================
@@ -139,15 +155,27 @@ public final class SAXSerializer extends Serializer implements XMLReader {
   private final Atts attributes = new Atts();
   /** Map containing all attributes. */
   private NSDecl namespaces;
+  /** Indicates if the next element or node may be indented. */
+  private boolean sep;
+
+  @Override
+  void openDoc(final byte[] name) {
+    sep = false;
+  }
 
   @Override
   protected void startOpen(final byte[] n) {
     namespaces = new NSDecl(namespaces);
     attributes.clear();
+    indentPos();
+    column(1 + len(n));
+    sep = true;
   }
 
   @Override
   protected void attribute(final byte[] n, final byte[] v) {
+    column(len(n) + 4);
+    position(v, true, true);
     byte[] prefix = null;
     if(startsWith(n, XMLNS)) {
       if(n.length == 5) {
@@ -166,18 +194,49 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   protected void finishOpen() throws IOException {
+    column(1);
+    openElem();
+  }
+
+  @Override
+  protected void finishEmpty() throws IOException {
+    column(2);
+    openElem();
+    closeElem();
+  }
+
+  @Override
+  protected void finishClose() throws IOException {
+    indentPos();
+    column(3 + len(tag));
+    closeElem();
+  }
+
+  /**
+   * Notifies the start of an element.
+   * @throws IOException I/O exception
+   */
+  private void openElem() throws IOException {
     try {
       final AttributesImpl attrs = new AttributesImpl();
       final int as = attributes.size();
       for(int a = 0; a < as; a++) {
-        final byte[] name = attributes.name(a);
-        final String uri = string(namespaces.get(prefix(name)));
+        final byte[] name = attributes.name(a), pref = prefix(name);
+        // attributes without prefix have no namespace
+        final String uri = pref.length == 0 ? "" : string(namespaces.get(pref));
         final String lname = string(local(name));
         final String rname = string(name);
         final String value = string(attributes.value(a));
-        attrs.addAttribute(uri, lname, rname, null, value);
+        attrs.addAttribute(uri, lname, rname, "CDATA", value);
       }
 
+      final Atts decls = namespaces.decls;
+      if(decls != null) {
+        final int ds = decls.size();
+        for(int d = 0; d < ds; d++) {
+          contentHandler.startPrefixMapping(string(decls.name(d)), string(decls.value(d)));
+        }
+      }
       final String uri = string(namespaces.get(prefix(tag)));
       final String lname = string(local(tag));
       final String rname = string(tag);
@@ -188,18 +247,21 @@ public final class SAXSerializer extends Serializer implements XMLReader {
     }
   }
 
-  @Override
-  protected void finishEmpty() throws IOException {
-    finishOpen();
-    finishClose();
-  }
-
-  @Override
-  protected void finishClose() throws IOException {
+  /**
+   * Notifies the end of an element.
+   * @throws IOException I/O exception
+   */
+  private void closeElem() throws IOException {
     try {
-      final String name = string(tag);
-      contentHandler.endElement("", name, name);
+      final String uri = string(namespaces.get(prefix(tag)));
+      contentHandler.endElement(uri, string(local(tag)), string(tag));
+      final Atts decls = namespaces.decls;
+      if(decls != null) {
+        final int ds = decls.size();
+        for(int d = 0; d < ds; d++) contentHandler.endPrefixMapping(string(decls.name(d)));
+      }
       namespaces = namespaces.getParent();
+      sep = true;
     } catch(final SAXException ex) {
       throw new IOException(ex);
     }
@@ -207,6 +269,8 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   protected void finishText(final byte[] text) throws IOException {
+    position(text, false, true);
+    sep = false;
     try {
       final String s = string(text);
       final char[] c = s.toCharArray();
@@ -218,6 +282,10 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   protected void finishComment(final byte[] comment) throws IOException {
+    indentPos();
+    column(7);
+    position(comment, false, false);
+    sep = true;
     if(lexicalHandler != null) {
       try {
         final String s = string(comment);
@@ -231,6 +299,10 @@ public final class SAXSerializer extends Serializer implements XMLReader {
 
   @Override
   protected void finishPi(final byte[] n, final byte[] v) throws IOException {
+    indentPos();
+    column(5 + len(n));
+    position(v, false, false);
+    sep = true;
     try {
       contentHandler.processingInstruction(string(n), string(v));
     } catch(final SAXException ex) {
@@ -243,6 +315,53 @@ public final class SAXSerializer extends Serializer implements XMLReader {
     // ignored
   }
 
+  // Locator ============================================================================
+
+  /**
+   * Moves the locator to the next line if the next node is indented.
+   */
+  private void indentPos() {
+    if(!sep || !indent) return;
+    locator.setLineNumber(locator.getLineNumber() + 1);
+    locator.setColumnNumber(1 + level * OPTIONS.get(SerializerOptions.INDENTS));
+  }
+
+  /**
+   * Moves the locator by the specified number of columns.
+   * @param c number of columns
+   */
+  private void column(final int c) {
+    locator.setColumnNumber(locator.getColumnNumber() + c);
+  }
+
+  /**
+   * Moves the locator behind the serialized representation of the specified token.
+   * @param t token
+   * @param att attribute value
+   * @param enc consider entity lengths of characters that will be encoded
+   */
+  private void position(final byte[] t, final boolean att, final boolean enc) {
+    final int tl = t.length;
+    for(int k = 0; k < tl; k += cl(t, k)) {
+      final int ch = cp(t, k);
+      if(ch == '\n' && !att) {
+        locator.setLineNumber(locator.getLineNumber() + 1);
+        locator.setColumnNumber(1);
+      } else if(!enc) {
+        column(1);
+      } else if(ch == '&') {
+        column(5);
+      } else if(ch == '<' || ch == '>' || ch == '"' && att) {
+        column(ch == '"' ? 6 : 4);
+      } else if(ch < ' ' && (att || ch != '\t')) {
+        // hex entity
+        column(ch < 0x10 ? 5 : 6);
+      } else {
+        column(1);
+      }
+    }
+  }
+
   /**
    * Namespace declaration.
    */
@@ -284,6 +403,7 @@ public final class SAXSerializer extends Serializer implements XMLReader {
      * @return namespace uri
      */
     byte[] get(final byte[] prefix) {
+      if(eq(prefix, XML)) return QueryText.XMLURI;
       for(NSDecl c = this; c != null; c = c.parent) {
         if(c.decls != null) {
           final byte[] ns = c.decls.value(prefix);
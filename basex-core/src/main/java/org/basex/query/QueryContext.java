@@ -6,6 +6,7 @@ import static org.basex.util.Token.*;
 
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
 import java.util.regex.*;
 
 import org.basex.build.*;
@@ -24,6 +25,7 @@ import org.basex.query.func.*;
 import org.basex.query.iter.*;
 import org.basex.query.up.*;
 import org.basex.query.util.*;
+import org.basex.query.util.archive.*;
 import org.basex.query.util.pkg.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
@@ -113,11 +115,15 @@ public final class QueryContext extends Proc {
 
   /** Compilation flag: current node has leaves. */
   public boolean leaf;
+  /** Compilation flag: for clauses may be evaluated in parallel threads. */
+  public boolean forkJoin;
 
   /** Number of successive tail calls. */
   public int tailCalls;
   /** Maximum number of successive tail calls (will be set before compilation). */
   public int maxCalls;
+  /** Flag for using the element name index (will be set before compilation). */
+  public boolean nameIndex;
   /** Counter for variable IDs. */
   public int varIDs;
 
@@ -138,6 +144,20 @@ public final class QueryContext extends Proc {
   private JDBCConnections jdbc;
   /** Opened connections to relational databases. */
   private ClientSessions sessions;
+  /** Opened ZIP archives. */
+  private ZIPFiles zips;
+  /** Builders for large sequences. */
+  private ArrayList<SpillBuilder> spills;
+  /** External sorters with temporary files. */
+  private ArrayList<ExternalSort> sorts;
+  /** Statistics on memoized functions (hits, misses). */
+  private LinkedHashMap<String, long[]> memos;
+  /** Thread pool for parallel evaluation. */
+  private ThreadPoolExecutor pool;
+  /** Parent context (assigned if this context is used by a parallel thread). */
+  private QueryContext parent;
+  /** Indicates if the query result depends on files, URIs or the HTTP context. */
+  private boolean external;
   /** Root expression of the query. */
   private MainModule root;
   /** Original query. */
@@ -249,6 +269,7 @@ public final class QueryContext extends Proc {
     }
     // set tail call option after assignment database option
     maxCalls = context.options.get(MainOptions.TAILCALLS);
+    nameIndex = context.options.get(MainOptions.NAMEINDEX);
 
     // bind external variables
     vars.bindExternal(this, bindings);
@@ -425,6 +446,35 @@ public final class QueryContext extends Proc {
     return value != null ? value.data() : null;
   }
 
+  /**
+   * Checks if the query result only depends on the query input and the accessed
+   * databases, and may thus be reused by subsequent evaluations. If the query has
+   * already been evaluated, it is additionally checked that neither the dynamic date and
+   * time nor external resources (see {@link #external()}) have been accessed.
+   * @return result of check
+   */
+  public boolean deterministic() {
+    return root != null && !updating && !root.expr.has(Flag.NDT) && time == null &&
+        !external;
+  }
+
+  /**
+   * Returns the paths of all library modules that have been parsed.
+   * @return paths
+   */
+  public Iterable<byte[]> modulePaths() {
+    return modParsed;
+  }
+
+  /**
+   * Indicates that the query result depends on external resources, which may change
+   * without database updates: files, URIs, or the HTTP context.
+   */
+  public void external() {
+    external = true;
+    if(parent != null) parent.external();
+  }
+
   @Override
   public void databases(final LockResult lr) {
     lr.read.add(readLocks);
@@ -528,6 +578,215 @@ public final class QueryContext extends Proc {
     return sessions;
   }
 
+  /**
+   * Returns opened ZIP archives.
+   * @return ZIP archives
+   */
+  public synchronized ZIPFiles zips() {
+    // archives of parallel threads will be closed with the parent context
+    if(parent != null) return parent.zips();
+    if(zips == null) zips = new ZIPFiles();
+    return zips;
+  }
+
+  /**
+   * Returns a new builder for large sequences. As soon as entries are swapped to disk,
+   * the builder will be registered, and it will be closed with this context.
+   * @return spill builder
+   */
+  public SpillBuilder spill() {
+    return new SpillBuilder(context.options.get(MainOptions.SPILLSIZE), this);
+  }
+
+  /**
+   * Registers a builder with temporary files, which will be closed with this
+   * context if it has not been released before.
+   * @param sb spill builder
+   */
+  public synchronized void register(final SpillBuilder sb) {
+    // builders of parallel threads will be closed with the parent context
+    if(parent != null) {
+      parent.register(sb);
+    } else {
+      if(spills == null) spills = new ArrayList<SpillBuilder>();
+      spills.add(sb);
+    }
+  }
+
+  /**
+   * Releases a builder that has been closed.
+   * @param sb spill builder
+   */
+  public synchronized void release(final SpillBuilder sb) {
+    if(parent != null) parent.release(sb);
+    else if(spills != null) spills.remove(sb);
+  }
+
+  /**
+   * Registers an external sorter with temporary files, which will be closed with this
+   * context if it has not been released before.
+   * @param es sorter
+   */
+  public synchronized void register(final ExternalSort es) {
+    // sorters of parallel threads will be closed with the parent context
+    if(parent != null) {
+      parent.register(es);
+    } else {
+      if(sorts == null) sorts = new ArrayList<ExternalSort>();
+      sorts.add(es);
+    }
+  }
+
+  /**
+   * Releases an external sorter that has been closed.
+   * @param es sorter
+   */
+  public synchronized void release(final ExternalSort es) {
+    if(parent != null) parent.release(es);
+    else if(sorts != null) sorts.remove(es);
+  }
+
+  /**
+   * Returns the statistics for a memoized function, which will be added to the query info
+   * when this context is closed.
+   * @param desc description of the function
+   * @return statistics (hits, misses)
+   */
+  public synchronized long[] memo(final String desc) {
+    // statistics of parallel threads will be reported by the parent context
+    if(parent != null) return parent.memo(desc);
+    if(memos == null) memos = new LinkedHashMap<String, long[]>();
+    long[] stats = memos.get(desc);
+    if(stats == null) {
+      stats = new long[2];
+      memos.put(desc, stats);
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the maximum number of threads that may be used to evaluate an expression.
+   * @return number of threads ({@code 1} if expressions are evaluated sequentially)
+   */
+  public int threads() {
+    return parent != null ? 1 : Math.max(1, context.options.get(MainOptions.THREADS));
+  }
+
+  /**
+   * Evaluates the specified tasks in parallel threads and returns their results in the
+   * original order. The size of the thread pool is determined by {@link #threads()}.
+   * Each task is evaluated with a new context, which shares the static declarations and
+   * the current variable bindings of this context.
+   * @param tasks tasks to be evaluated
+   * @param <T> result type
+   * @return results
+   * @throws QueryException query exception
+   */
+  public <T> ArrayList<T> parallel(final ArrayList<QueryTask<T>> tasks)
+      throws QueryException {
+    return parallel(tasks, threads());
+  }
+
+  /**
+   * Evaluates the specified tasks with the specified maximum number of parallel threads
+   * and returns their results in the original order (see {@link #parallel(ArrayList)}).
+   * @param tasks tasks to be evaluated
+   * @param max maximum number of threads
+   * @param <T> result type
+   * @return results
+   * @throws QueryException query exception
+   */
+  public <T> ArrayList<T> parallel(final ArrayList<QueryTask<T>> tasks, final int max)
+      throws QueryException {
+
+    // assign date and time before the contexts are copied
+    initDateTime();
+    // (re)create thread pool if the number of threads has changed
+    final int threads = parent != null ? 1 : Math.max(1, max);
+    if(pool == null || pool.getCorePoolSize() != threads) {
+      if(pool != null) pool.shutdown();
+      pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+          final Thread th = new Thread(r);
+          th.setDaemon(true);
+          return th;
+        }
+      });
+    }
+
+    final ArrayList<Future<T>> futures = new ArrayList<Future<T>>(tasks.size());
+    for(final QueryTask<T> task : tasks) {
+      futures.add(pool.submit(new Callable<T>() {
+        @Override
+        public T call() throws QueryException {
+          checkStop();
+          final QueryContext qc = fork();
+          try {
+            return task.eval(qc);
+          } finally {
+            // databases opened by the thread will be closed with this context
+            resource.add(qc.resource);
+            qc.close();
+          }
+        }
+      }));
+    }
+
+    final ArrayList<T> results = new ArrayList<T>(tasks.size());
+    try {
+      for(final Future<T> f : futures) results.add(f.get());
+      return results;
+    } catch(final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ProcException();
+    } catch(final ExecutionException ex) {
+      final Throwable th = ex.getCause();
+      if(th instanceof QueryException) throw (QueryException) th;
+      if(th instanceof RuntimeException) throw (RuntimeException) th;
+      if(th instanceof Error) throw (Error) th;
+      throw Util.notExpected(th);
+    } finally {
+      // skip remaining tasks if an error occurred, and wait for running tasks
+      for(final Future<T> f : futures) {
+        if(f.cancel(false)) continue;
+        try {
+          f.get();
+        } catch(final Exception ex) {
+          // ignore subsequent errors
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a context for evaluating expressions in a parallel thread.
+   * @return new context
+   */
+  private QueryContext fork() {
+    final QueryContext qc = new QueryContext(context);
+    qc.parent = this;
+    qc.listen = listen;
+    qc.nodes = nodes;
+    qc.http = http;
+    qc.stop = stop;
+    qc.thes = thes;
+    qc.collations = collations;
+    qc.ftOpt = ftOpt;
+    qc.date = date;
+    qc.dtm = dtm;
+    qc.time = time;
+    qc.zone = zone;
+    qc.maxCalls = maxCalls;
+    qc.nameIndex = nameIndex;
+    qc.value = value;
+    qc.pos = pos;
+    qc.size = size;
+    qc.stack.enterFrame(stack);
+    return qc;
+  }
+
   /**
    * Returns the query-specific or global serialization parameters.
    * @return serialization parameters
@@ -574,12 +833,29 @@ public final class QueryContext extends Proc {
     for(final Entry<Option<?>, Object> e : staticOpts.entrySet())
       context.options.put(e.getKey(), e.getValue());
 
+    // report statistics on memoized functions
+    if(memos != null) {
+      for(final Entry<String, long[]> e : memos.entrySet()) {
+        final long[] stats = e.getValue();
+        evalInfo(Util.info(QueryText.EVALMEMO, e.getKey(), stats[0], stats[1]));
+      }
+    }
     // close database connections
     resource.close();
     // close JDBC connections
     if(jdbc != null) jdbc.close();
     // close client sessions
     if(sessions != null) sessions.close();
+    // close ZIP archives
+    if(zips != null) zips.close();
+    // delete temporary files of spilled sequences
+    if(spills != null) {
+      // closed builders will be released from the list
+      for(final SpillBuilder sb : spills.toArray(new SpillBuilder[spills.size()])) sb.close();
+    }
+    if(sorts != null) for(final ExternalSort es : sorts) es.close();
+    // stop parallel threads
+    if(pool != null) pool.shutdownNow();
     // close dynamically loaded JAR files
     modules.close();
   }
@@ -614,6 +890,9 @@ public final class QueryContext extends Proc {
     // evaluates the query
     final Iter ir = iter();
     final ValueBuilder vb = new ValueBuilder();
+    // large results will be swapped to disk if a memory budget is assigned;
+    // swapped results will be closed with this context
+    final SpillBuilder sb = context.options.get(MainOptions.SPILLSIZE) > 0 ? spill() : null;
     Item it;
 
     // check if all results belong to the database of the input context
@@ -633,16 +912,16 @@ public final class QueryContext extends Proc {
       }
 
       // otherwise, add nodes to standard iterator
-      for(int p = 0; p < ps; ++p) vb.add(new DBNode(nodes.data, pre.get(p)));
-      vb.add(it);
+      for(int p = 0; p < ps; ++p) add(new DBNode(nodes.data, pre.get(p)), vb, sb);
+      add(it, vb, sb);
     }
 
     // use standard iterator
     while((it = ir.next()) != null) {
       checkStop();
-      if(vb.size() < max) vb.add(it.materialize(null));
+      if((sb != null ? sb.size() : vb.size()) < max) add(it.materialize(null), vb, sb);
     }
-    return vb;
+    return sb != null ? sb : vb;
   }
 
   /**
@@ -664,6 +943,17 @@ public final class QueryContext extends Proc {
 
   // PRIVATE METHODS ====================================================================
 
+  /**
+   * Adds an item to the result.
+   * @param it item
+   * @param vb value builder
+   * @param sb spill builder (can be {@code null})
+   */
+  private static void add(final Item it, final ValueBuilder vb, final SpillBuilder sb) {
+    if(sb != null) sb.add(it);
+    else vb.add(it);
+  }
+
   /**
    * Binds an expression to a global variable.
    * @param name name of variable
@@ -1791,6 +1791,8 @@ public class QueryParser extends InputParser {
         final Option<?> opt = ctx.context.options.option(key);
         if(opt == null) throw error(BASX_OPTIONS, key);
         el.add(new DBPragma(name, opt, v));
+      } else if(eq(name.uri(), BASEXURI) && eq(name.local(), token(PARALLEL))) {
+        el.add(new ParallelPragma(name, v));
       }
       pos += 2;
     } while(wsConsumeWs(PRAGMA));
@@ -93,6 +93,8 @@ public final class QueryProcessor extends Proc {
 
   /**
    * Evaluates the specified query and returns the result.
+   * Results that have been swapped to disk can only be accessed until the processor
+   * is closed.
    * @return result of query
    * @throws QueryException query exception
    */
@@ -77,6 +77,16 @@ public final class QueryResources {
     datas = 0;
   }
 
+  /**
+   * Adopts the data references of the specified resources, which will then be
+   * closed with this instance. Called by parallel threads.
+   * @param qr resources
+   */
+  synchronized void add(final QueryResources qr) {
+    for(int d = 0; d < qr.datas; d++) addData(qr.data[d]);
+    qr.datas = 0;
+  }
+
   /**
    * Opens a new database or returns a reference to an already opened database.
    * @param name name of database
@@ -276,6 +286,7 @@ public final class QueryResources {
   private Data create(final QueryInput input, final boolean single, final IO baseIO,
       final InputInfo info) throws QueryException {
 
+    ctx.external();
     try {
       final Data d = CreateDB.create(checkPath(input, baseIO, info), single, ctx.context);
       input.path = "";
@@ -0,0 +1,18 @@
+package org.basex.query;
+
+/**
+ * Task that is evaluated in a parallel thread (see {@link QueryContext#parallel}).
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ * @param <T> result type
+ */
+public interface QueryTask<T> {
+  /**
+   * Evaluates the task.
+   * @param ctx query context of the evaluating thread
+   * @return result
+   * @throws QueryException query exception
+   */
+  T eval(final QueryContext ctx) throws QueryException;
+}
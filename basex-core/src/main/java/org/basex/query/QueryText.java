@@ -169,6 +169,8 @@ public interface QueryText {
   /** Parser token. */
   String MAPSTR = "map";
   /** Parser token. */
+  String MEMOIZE = "memoize";
+  /** Parser token. */
   String MOD = "mod";
   /** Parser token. */
   String MODIFY = "modify";
@@ -213,6 +215,8 @@ public interface QueryText {
   /** Parser token. */
   String PARAGRAPHS = "paragraphs";
   /** Parser token. */
+  String PARALLEL = "parallel";
+  /** Parser token. */
   String PHRASE = "phrase";
   /** Parser token. */
   String PRESERVE = "preserve";
@@ -748,6 +752,8 @@ public interface QueryText {
   /** Optimization info. */
   String OPTATOMIC = "atomic evaluation of %";
   /** Optimization info. */
+  String OPTPARALLEL = "parallel evaluation of %";
+  /** Optimization info. */
   String OPTMERGE = "merging axis paths";
   /** Optimization info. */
   String OPTPRE = "pre-evaluating %";
@@ -774,6 +780,10 @@ public interface QueryText {
   /** Optimization info. */
   String OPTINLINEFN = "inlining function %";
   /** Optimization info. */
+  String OPTMEMO = "memoizing results of %";
+  /** Evaluation info. */
+  String EVALMEMO = "memoized %: % hit(s), % miss(es)";
+  /** Optimization info. */
   String OPTINLINE = "inlining %";
   /** Optimization info. */
   String OPTWHERE2 = "rewriting where clause(s)";
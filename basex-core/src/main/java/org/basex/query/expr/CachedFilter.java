@@ -1,12 +1,17 @@
 package org.basex.query.expr;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Filter expression.
@@ -33,6 +38,9 @@ final class CachedFilter extends Filter {
     final long cp = ctx.pos;
 
     try {
+      // database nodes: filter pre values
+      if(val instanceof DBNodeSeq) return filter((DBNodeSeq) val, ctx).iter();
+
       // evaluate first predicate, based on incoming value
       final ValueBuilder vb = new ValueBuilder();
       Expr p = preds[0];
@@ -74,6 +82,38 @@ final class CachedFilter extends Filter {
     }
   }
 
+  /**
+   * Evaluates all predicates on a sequence of database nodes.
+   * Node instances are only created for the context item; the results are
+   * stored as pre values.
+   * @param seq node sequence
+   * @param ctx query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value filter(final DBNodeSeq seq, final QueryContext ctx)
+      throws QueryException {
+
+    final Data data = seq.data();
+    final IntList pres = new IntList(seq.pres.clone());
+    for(final Expr p : preds) {
+      final int is = pres.size();
+      ctx.size = is;
+      ctx.pos = 1;
+      int c = 0;
+      for(int s = 0; s < is; ++s) {
+        final int pre = pres.get(s);
+        ctx.value = new DBNode(data, pre);
+        if(p.test(ctx, info) != null) pres.set(c++, pre);
+        ctx.pos++;
+      }
+      pres.size(c);
+    }
+    // adopt the node type; all documents are only returned if no node was removed
+    return DBNodeSeq.get(pres, data, seq.type == NodeType.DOC,
+        seq.complete && pres.size() == seq.pres.length);
+  }
+
   @Override
   public Filter addPred(final QueryContext ctx, final VarScope scp, final Expr p) {
     preds = Array.add(preds, new Expr[preds.length + 1], p);
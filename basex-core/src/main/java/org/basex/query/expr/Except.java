@@ -53,9 +53,15 @@ public final class Except extends Set {
   public Expr copy(final QueryContext ctx, final VarScope scp, final IntObjMap<Var> vs) {
     final Except ex = new Except(info, copyAll(ctx, scp, vs, expr));
     ex.iterable = iterable;
+    ex.bitmap = bitmap;
     return copyType(ex);
   }
 
+  @Override
+  protected Bitmap eval(final Bitmap bm1, final Bitmap bm2) {
+    return bm1.andNot(bm2);
+  }
+
   @Override
   protected NodeSeqBuilder eval(final Iter[] iter) throws QueryException {
     final NodeSeqBuilder nc = new NodeSeqBuilder().check();
@@ -2,6 +2,7 @@ package org.basex.query.expr;
 
 import java.util.*;
 
+import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.func.*;
@@ -373,6 +374,66 @@ public abstract class Expr extends ExprInfo {
     });
   }
 
+  /**
+   * Checks if this expression can be evaluated by several threads at the same time.
+   * This is the case if the expression is deterministic, if it creates no nodes and
+   * performs no updates, if it accesses no other databases than the context database,
+   * and if it references no global variables, dynamic function calls or stateful
+   * expressions.
+   * @return result of check
+   */
+  public final boolean parallel() {
+    if(has(Flag.NDT) || has(Flag.UPD) || has(Flag.CNS)) return false;
+    final IdentityHashMap<Scope, Object> funcs = new IdentityHashMap<Scope, Object>();
+    return accept(new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        return false;
+      }
+
+      @Override
+      public boolean dynFuncCall(final DynFuncCall call) {
+        return false;
+      }
+
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        return func(call.func());
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope sub) {
+        return func(sub);
+      }
+
+      @Override
+      public boolean funcItem(final FuncItem func) {
+        return func(func);
+      }
+
+      @Override
+      public boolean lock(final String db) {
+        return db == DBLocking.CTX;
+      }
+
+      @Override
+      public boolean stateful() {
+        return false;
+      }
+
+      /**
+       * Visits a scope.
+       * @param scp scope
+       * @return if more expressions should be visited
+       */
+      private boolean func(final Scope scp) {
+        if(funcs.containsKey(scp)) return true;
+        funcs.put(scp, null);
+        return scp.visit(this);
+      }
+    });
+  }
+
   /**
    * Finds and marks tail calls, enabling TCO.
    * @param ctx query context, {@code null} if the changes should not be reported
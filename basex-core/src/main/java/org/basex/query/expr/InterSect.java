@@ -30,6 +30,11 @@ public final class InterSect extends Set {
     return oneIsEmpty() ? optPre(null, ctx) : this;
   }
 
+  @Override
+  protected Bitmap eval(final Bitmap bm1, final Bitmap bm2) {
+    return bm1.and(bm2);
+  }
+
   @Override
   protected NodeSeqBuilder eval(final Iter[] iter) throws QueryException {
     NodeSeqBuilder nc = new NodeSeqBuilder();
@@ -54,6 +59,7 @@ public final class InterSect extends Set {
   public Expr copy(final QueryContext ctx, final VarScope scp, final IntObjMap<Var> vs) {
     final InterSect is = new InterSect(info, copyAll(ctx, scp, vs, expr));
     is.iterable = iterable;
+    is.bitmap = bitmap;
     return copyType(is);
   }
 
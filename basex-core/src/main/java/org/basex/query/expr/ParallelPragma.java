@@ -0,0 +1,54 @@
+package org.basex.query.expr;
+
+import static org.basex.query.util.Err.*;
+import static org.basex.util.Token.*;
+
+import org.basex.core.*;
+import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * Pragma for evaluating the iterations of {@code for} clauses in parallel threads.
+ * The optional value specifies the maximum number of threads.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelPragma extends Pragma {
+  /** Cached number of threads. */
+  private int old;
+  /** Cached compilation flag. */
+  private boolean forkJoin;
+
+  /**
+   * Constructor.
+   * @param n name of pragma
+   * @param v optional value
+   */
+  public ParallelPragma(final QNm n, final byte[] v) {
+    super(n, v);
+  }
+
+  @Override
+  void init(final QueryContext ctx, final InputInfo info) throws QueryException {
+    old = ctx.context.options.get(MainOptions.THREADS);
+    forkJoin = ctx.forkJoin;
+    final int t = value.length == 0 ? Runtime.getRuntime().availableProcessors() :
+      toInt(value);
+    if(t < 1) throw BASX_VALUE.get(info, MainOptions.THREADS.name(), value);
+    ctx.context.options.set(MainOptions.THREADS, t);
+    ctx.forkJoin = true;
+  }
+
+  @Override
+  void finish(final QueryContext ctx) {
+    ctx.context.options.set(MainOptions.THREADS, old);
+    ctx.forkJoin = forkJoin;
+  }
+
+  @Override
+  public Pragma copy() {
+    return new ParallelPragma(name, value);
+  }
+}
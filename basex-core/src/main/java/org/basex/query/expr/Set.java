@@ -4,6 +4,7 @@ import static org.basex.query.QueryText.*;
 
 import java.util.*;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
@@ -21,6 +22,8 @@ import org.basex.util.*;
 abstract class Set extends Arr {
   /** Iterable flag. */
   boolean iterable = true;
+  /** Bitmap flag: operands will be materialized and merged as bitmaps. */
+  boolean bitmap;
 
   /**
    * Constructor.
@@ -40,6 +43,12 @@ abstract class Set extends Arr {
       iterable = false;
       break;
     }
+    // index results from the same database are merged as bitmaps
+    bitmap = expr.length > 1;
+    for(final Expr e : expr) {
+      bitmap &= e instanceof IndexAccess &&
+          ((IndexAccess) e).ictx.data == ((IndexAccess) expr[0]).ictx.data;
+    }
     return this;
   }
 
@@ -47,9 +56,36 @@ abstract class Set extends Arr {
   public final NodeIter iter(final QueryContext ctx) throws QueryException {
     final Iter[] iter = new Iter[expr.length];
     for(int e = 0; e != expr.length; ++e) iter[e] = ctx.iter(expr[e]);
-    return iterable ? iter(iter) : eval(iter).sort();
+    if(iterable && !bitmap) return iter(iter);
+
+    // materialize operands; database nodes are stored as pre values
+    Data data = null;
+    for(int e = 0; e != iter.length; ++e) {
+      final NodeSeqBuilder nb = new NodeSeqBuilder();
+      for(Item it; (it = iter[e].next()) != null;) nb.add(checkNode(it));
+      iter[e] = nb;
+      if(nb.size() == 0) continue;
+      final Data d = nb.compact();
+      if(d == null || data != null && d != data) return eval(iter).sort();
+      data = d;
+    }
+    if(data == null) return new NodeSeqBuilder();
+
+    // all nodes refer to the same database: merge bitmaps
+    Bitmap bm = ((NodeSeqBuilder) iter[0]).bitmap();
+    for(int e = 1; e != iter.length; ++e) bm = eval(bm, ((NodeSeqBuilder) iter[e]).bitmap());
+    final int[] pres = bm.toArray();
+    return new NodeSeqBuilder(data, pres, pres.length);
   }
 
+  /**
+   * Combines two bitmaps with pre values.
+   * @param bm1 first bitmap
+   * @param bm2 second bitmap
+   * @return resulting bitmap
+   */
+  protected abstract Bitmap eval(final Bitmap bm1, final Bitmap bm2);
+
   /**
    * Evaluates the specified iterators.
    * @param iter iterators
@@ -55,9 +55,15 @@ public final class Union extends Set {
   public Expr copy(final QueryContext ctx, final VarScope scp, final IntObjMap<Var> vs) {
     final Union un = new Union(info, copyAll(ctx, scp, vs, expr));
     un.iterable = iterable;
+    un.bitmap = bitmap;
     return copyType(un);
   }
 
+  @Override
+  protected Bitmap eval(final Bitmap bm1, final Bitmap bm2) {
+    return bm1.or(bm2);
+  }
+
   @Override
   protected NodeSeqBuilder eval(final Iter[] iter) throws QueryException {
     final NodeSeqBuilder nc = new NodeSeqBuilder().check();
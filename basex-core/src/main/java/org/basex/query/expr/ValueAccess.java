@@ -44,17 +44,32 @@ public final class ValueAccess extends IndexAccess {
 
   @Override
   public NodeIter iter(final QueryContext ctx) throws QueryException {
-    NodeIter[] iter = {};
     final Iter ir = ctx.iter(expr);
-    for(Item it; (it = ir.next()) != null;) {
-      final int s = iter.length;
-      final NodeIter[] tmp = new NodeIter[s + 1];
-      System.arraycopy(iter, 0, tmp, 0, s);
-      iter = tmp;
-      iter[s] = index(it.string(info));
+    Item it = ir.next();
+    if(it == null) return AxisMoreIter.EMPTY;
+
+    final Data data = ictx.data;
+    final IndexIterator ii = index(it.string(info));
+    it = ir.next();
+    if(it == null) {
+      return new AxisIter() {
+        final byte kind = itype == IndexType.TEXT ? Data.TEXT : Data.ATTR;
+
+        @Override
+        public ANode next() {
+          return ii.more() ? new DBNode(data, ii.pre(), kind) : null;
+        }
+      };
     }
-    return iter.length == 0 ? AxisMoreIter.EMPTY : iter.length == 1 ? iter[0] :
-      new Union(info, expr).eval(iter);
+
+    // multiple terms: merge pre values of all index results
+    final Bitmap bm = new Bitmap();
+    while(ii.more()) bm.add(ii.pre());
+    do {
+      for(final IndexIterator i = index(it.string(info)); i.more();) bm.add(i.pre());
+    } while((it = ir.next()) != null);
+    final int[] pres = bm.toArray();
+    return new NodeSeqBuilder(data, pres, pres.length);
   }
 
   /**
@@ -62,22 +77,13 @@ public final class ValueAccess extends IndexAccess {
    * @param term term to be found
    * @return iterator
    */
-  private AxisIter index(final byte[] term) {
+  private IndexIterator index(final byte[] term) {
     // access index if term is not too long, and if index exists.
     // otherwise, scan data sequentially
     final Data data = ictx.data;
-    final IndexIterator ii = term.length <= data.meta.maxlen &&
+    return term.length <= data.meta.maxlen &&
       (itype == IndexType.TEXT ? data.meta.textindex : data.meta.attrindex) ?
       data.iter(new StringToken(itype, term)) : scan(term);
-
-    return new AxisIter() {
-      final byte kind = itype == IndexType.TEXT ? Data.TEXT : Data.ATTR;
-
-      @Override
-      public ANode next() {
-        return ii.more() ? new DBNode(data, ii.pre(), kind) : null;
-      }
-    };
   }
 
   /**
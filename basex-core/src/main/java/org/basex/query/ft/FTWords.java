@@ -441,7 +441,7 @@ public final class FTWords extends FTExpr {
 
   @Override
   public boolean accept(final ASTVisitor visitor) {
-    return super.accept(visitor) && query.accept(visitor) &&
+    return visitor.stateful() && super.accept(visitor) && query.accept(visitor) &&
         (occ == null || visitAll(visitor, occ));
   }
 
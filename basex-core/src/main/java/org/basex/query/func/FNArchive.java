@@ -21,7 +21,6 @@ import org.basex.query.value.node.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
-import org.basex.util.list.*;
 import org.basex.util.options.*;
 
 /**
@@ -171,11 +170,10 @@ public final class FNArchive extends StandardFunc {
    * @throws QueryException query exception
    */
   private FElem options(final QueryContext ctx) throws QueryException {
-    final B64 archive = (B64) checkType(checkItem(expr[0], ctx), AtomType.B64);
     String format = null;
     int level = -1;
 
-    final ArchiveIn arch = ArchiveIn.get(archive.input(info), info);
+    final ArchiveIn arch = archive(0, ctx);
     try {
       format = arch.format();
       while(arch.more()) {
@@ -207,10 +205,8 @@ public final class FNArchive extends StandardFunc {
    * @throws QueryException query exception
    */
   private Iter entries(final QueryContext ctx) throws QueryException {
-    final B64 archive = (B64) checkType(checkItem(expr[0], ctx), AtomType.B64);
-
     final ValueBuilder vb = new ValueBuilder();
-    final ArchiveIn in = ArchiveIn.get(archive.input(info), info);
+    final ArchiveIn in = archive(0, ctx);
     try {
       while(in.more()) {
         final ZipEntry ze = in.entry();
@@ -240,10 +236,7 @@ public final class FNArchive extends StandardFunc {
    * @throws QueryException query exception
    */
   private ValueBuilder extractText(final QueryContext ctx) throws QueryException {
-    final String enc = encoding(2, ARCH_ENCODING, ctx);
-    final ValueBuilder vb = new ValueBuilder();
-    for(final byte[] b : extract(ctx)) vb.add(Str.get(encode(b, enc, ctx)));
-    return vb;
+    return extract(true, ctx);
   }
 
   /**
@@ -253,9 +246,7 @@ public final class FNArchive extends StandardFunc {
    * @throws QueryException query exception
    */
   private ValueBuilder extractBinary(final QueryContext ctx) throws QueryException {
-    final ValueBuilder vb = new ValueBuilder();
-    for(final byte[] b : extract(ctx)) vb.add(new B64(b));
-    return vb;
+    return extract(false, ctx);
   }
 
   /**
@@ -265,7 +256,6 @@ public final class FNArchive extends StandardFunc {
    * @throws QueryException query exception
    */
   private B64 update(final QueryContext ctx) throws QueryException {
-    final B64 archive = (B64) checkType(checkItem(expr[0], ctx), AtomType.B64);
     // entries to be updated
     final TokenObjMap<Item[]> hm = new TokenObjMap<Item[]>();
 
@@ -287,7 +277,7 @@ public final class FNArchive extends StandardFunc {
     if(en != null) do e++; while(entr.next() != null);
     if(e != c) throw ARCH_DIFF.get(info, e, c);
 
-    final ArchiveIn in = ArchiveIn.get(archive.input(info), info);
+    final ArchiveIn in = archive(0, ctx);
     final ArchiveOut out = ArchiveOut.get(in.format(), info);
     try {
       if(in instanceof GZIPIn)
@@ -316,17 +306,15 @@ public final class FNArchive extends StandardFunc {
    * @throws QueryException query exception
    */
   private B64 delete(final QueryContext ctx) throws QueryException {
-    final B64 archive = (B64) checkType(checkItem(expr[0], ctx), AtomType.B64);
-    // entries to be deleted
-    final TokenObjMap<Item[]> hm = new TokenObjMap<Item[]>();
-    final Iter names = ctx.iter(expr[1]);
-    for(Item en; (en = names.next()) != null;) {
-      hm.put(checkElmStr(en).string(info), null);
-    }
-
-    final ArchiveIn in = ArchiveIn.get(archive.input(info), info);
+    final ArchiveIn in = archive(0, ctx);
     final ArchiveOut out = ArchiveOut.get(in.format(), info);
     try {
+      // entries to be deleted
+      final TokenObjMap<Item[]> hm = new TokenObjMap<Item[]>();
+      final Iter names = ctx.iter(expr[1]);
+      for(Item en; (en = names.next()) != null;) {
+        hm.put(checkElmStr(en).string(info), null);
+      }
       if(in instanceof GZIPIn)
         throw ARCH_MODIFY.get(info, in.format().toUpperCase(Locale.ENGLISH));
       while(in.more()) if(!hm.contains(token(in.entry().getName()))) out.write(in);
@@ -341,28 +329,30 @@ public final class FNArchive extends StandardFunc {
 
   /**
    * Extracts entries from the archive.
+   * @param text return text or binary items
    * @param ctx query context
-   * @return text entries
+   * @return entries
    * @throws QueryException query exception
    */
-  private TokenList extract(final QueryContext ctx) throws QueryException {
-    final B64 archive = (B64) checkType(checkItem(expr[0], ctx), AtomType.B64);
-    final TokenSet hs = entries(1, ctx);
+  private ValueBuilder extract(final boolean text, final QueryContext ctx)
+      throws QueryException {
 
-    final TokenList tl = new TokenList();
-    final ArchiveIn in = ArchiveIn.get(archive.input(info), info);
+    final String enc = text ? encoding(2, ARCH_ENCODING, ctx) : null;
+    final ArchiveIn in = archive(0, ctx);
+    final ValueBuilder vb = new ValueBuilder();
     try {
+      final TokenSet hs = entries(1, ctx);
       while(in.more()) {
         final ZipEntry ze = in.entry();
         if(!ze.isDirectory() && (hs == null || hs.delete(token(ze.getName())) != 0))
-          tl.add(in.read());
+          vb.add(text ? Str.get(encode(in.read(), enc, ctx)) : in.binary());
       }
     } catch(final IOException ex) {
       throw ARCH_FAIL.get(info, ex);
     } finally {
       in.close();
     }
-    return tl;
+    return vb;
   }
 
   /**
@@ -373,11 +363,9 @@ public final class FNArchive extends StandardFunc {
    */
   private Item write(final QueryContext ctx) throws QueryException {
     final File path = checkFile(0, ctx);
-    final B64 archive = (B64) checkType(checkItem(expr[1], ctx), AtomType.B64);
-    final TokenSet hs = entries(2, ctx);
-
-    final ArchiveIn in = ArchiveIn.get(archive.input(info), info);
+    final ArchiveIn in = archive(1, ctx);
     try {
+      final TokenSet hs = entries(2, ctx);
       while(in.more()) {
         final ZipEntry ze = in.entry();
         final String name = ze.getName();
@@ -399,6 +387,40 @@ public final class FNArchive extends StandardFunc {
     return null;
   }
 
+  /**
+   * Returns a reader for the archive specified by the given argument, which may be
+   * a binary item or a file path. ZIP archives in the file system are accessed via their
+   * central directory, which is only parsed once per query.
+   * @param i argument index
+   * @param ctx query context
+   * @return archive reader
+   * @throws QueryException query exception
+   */
+  private ArchiveIn archive(final int i, final QueryContext ctx) throws QueryException {
+    final Item it = checkItem(expr[i], ctx);
+    final IO io;
+    if(it.type.isStringOrUntyped()) {
+      io = checkPath(it, ctx);
+    } else {
+      final B64 archive = (B64) checkType(it, AtomType.B64);
+      if(!(archive instanceof B64Stream)) return ArchiveIn.get(archive.input(info), info);
+      io = ((B64Stream) archive).io();
+    }
+    try {
+      if(io instanceof IOFile) {
+        try {
+          return new ZIPFileIn(ctx.zips().get((IOFile) io));
+        } catch(final ZipException ex) {
+          // no ZIP file: parse input as stream
+          Util.debug(ex);
+        }
+      }
+      return ArchiveIn.get(new BufferInput(io), info);
+    } catch(final IOException ex) {
+      throw ARCH_FAIL.get(info, ex);
+    }
+  }
+
   /**
    * Returns all archive entries from the specified argument.
    * A {@code null} reference is returned if no entries are specified.
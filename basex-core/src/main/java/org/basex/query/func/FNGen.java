@@ -190,7 +190,11 @@ public final class FNGen extends StandardFunc {
     } catch(final QueryException ex) {
       final Err err = ex.err();
       if(err != null && err.is(ErrType.FODC) &&
-          (err.code.endsWith("0002") || err.code.endsWith("0004"))) return Bln.FALSE;
+          (err.code.endsWith("0002") || err.code.endsWith("0004"))) {
+        // the document may be available in subsequent evaluations
+        ctx.external();
+        return Bln.FALSE;
+      }
       throw ex;
     }
   }
@@ -204,6 +208,7 @@ public final class FNGen extends StandardFunc {
    */
   private Item unparsedText(final QueryContext ctx, final boolean check) throws QueryException {
     checkCreate(ctx);
+    ctx.external();
     final byte[] path = checkStr(expr[0], ctx);
     final IO base = sc.baseIO();
     if(base == null) throw STBASEURI.get(info);
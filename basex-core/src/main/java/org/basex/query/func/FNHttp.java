@@ -1,9 +1,12 @@
 package org.basex.query.func;
 
+import java.util.*;
+
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.util.http.*;
+import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.util.*;
@@ -28,7 +31,16 @@ public final class FNHttp extends StandardFunc {
   @Override
   public Iter iter(final QueryContext ctx) throws QueryException {
     checkCreate(ctx);
+    return sig == Function._HTTP_SEND_REQUESTS ? sendRequests(ctx) : sendRequest(ctx);
+  }
 
+  /**
+   * Sends a single HTTP request.
+   * @param ctx query context
+   * @return response and content items
+   * @throws QueryException query exception
+   */
+  private Iter sendRequest(final QueryContext ctx) throws QueryException {
     // get request node
     final Item req = expr[0].item(ctx, info);
     final ANode request = req == null ? null : checkNode(req);
@@ -47,4 +59,33 @@ public final class FNHttp extends StandardFunc {
     // send HTTP request
     return new HTTPClient(info, ctx.context.options).sendRequest(href, request, cache);
   }
+
+  /**
+   * Sends several HTTP requests in parallel threads. The responses and content items
+   * are returned in the order of the requests.
+   * @param ctx query context
+   * @return responses and content items
+   * @throws QueryException query exception
+   */
+  private Iter sendRequests(final QueryContext ctx) throws QueryException {
+    final ArrayList<QueryTask<Value>> tasks = new ArrayList<QueryTask<Value>>();
+    final Iter ir = expr[0].iter(ctx);
+    for(Item it; (it = ir.next()) != null;) {
+      final ANode request = checkNode(it);
+      tasks.add(new QueryTask<Value>() {
+        @Override
+        public Value eval(final QueryContext qc) throws QueryException {
+          return new HTTPClient(info, qc.context.options).sendRequest(null, request, null).
+              value();
+        }
+      });
+    }
+    // number of concurrent requests (by default, limited by the THREADS option)
+    final long max = expr.length > 1 ? checkItr(expr[1], ctx) : ctx.threads();
+
+    final ValueBuilder vb = new ValueBuilder();
+    if(tasks.isEmpty()) return vb;
+    for(final Value v : ctx.parallel(tasks, (int) Math.min(max, tasks.size()))) vb.add(v);
+    return vb;
+  }
 }
@@ -4,18 +4,20 @@ import static org.basex.query.QueryText.*;
 import static org.basex.query.util.Err.*;
 import static org.basex.util.Token.*;
 
+import java.util.*;
+import java.util.Map.Entry;
 import java.util.regex.*;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
+import org.basex.query.regex.*;
 import org.basex.query.regex.parse.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
 import org.basex.util.*;
-import org.basex.util.hash.*;
 import org.basex.util.list.*;
 
 /**
@@ -25,13 +27,16 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class FNPat extends StandardFunc {
-  /** Pattern cache. */
-  private final TokenObjMap<Pattern> patterns = new TokenObjMap<Pattern>();
-
-  /** Slash pattern. */
-  private static final Pattern SLASH = Pattern.compile("\\$");
-  /** Slash pattern. */
-  private static final Pattern BSLASH = Pattern.compile("\\\\");
+  /** Maximum number of cached expressions. */
+  private static final int MAXCACHE = 1000;
+  /** Compiled regular expressions, shared by all queries and indexed by their modifiers. */
+  private static final LinkedHashMap<String, Regex> CACHE =
+    new LinkedHashMap<String, Regex>(MAXCACHE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Entry<String, Regex> eldest) {
+        return size() > MAXCACHE;
+      }
+    };
 
   /** Module prefix. */
   private static final String PREFIX = "fn";
@@ -92,8 +97,8 @@ public final class FNPat extends StandardFunc {
    * @throws QueryException query exception
    */
   private Item matches(final byte[] val, final QueryContext ctx) throws QueryException {
-    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
-    return Bln.get(p.matcher(string(val)).find());
+    final Regex p = regex(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    return Bln.get(p.matcher(val).find());
   }
 
   /**
@@ -104,45 +109,47 @@ public final class FNPat extends StandardFunc {
    * @throws QueryException query exception
    */
   private Item analyzeString(final byte[] val, final QueryContext ctx) throws QueryException {
-    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
-    if(p.matcher("").matches()) throw REGROUP.get(info);
-    final String str = string(val);
-    final Matcher m = p.matcher(str);
+    final Regex p = regex(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    if(p.matchesEmpty()) throw REGROUP.get(info);
+    final Regex.Matcher m = p.matcher(val);
 
     final FElem root = new FElem(Q_ANALYZE).declareNS();
     int s = 0;
     while(m.find()) {
-      if(s != m.start()) nonmatch(str.substring(s, m.start()), root);
-      match(m, str, root, 0);
-      s = m.end();
+      if(s != m.start(0)) nonmatch(subtoken(val, s, m.start(0)), root);
+      match(m, p.groups(), val, root, 0);
+      s = m.end(0);
     }
-    if(s != str.length()) nonmatch(str.substring(s), root);
+    if(s != val.length) nonmatch(subtoken(val, s), root);
     return root;
   }
 
   /**
    * Processes a match.
    * @param m matcher
-   * @param str string
+   * @param gc number of groups
+   * @param val input value
    * @param par parent
    * @param g group number
    * @return next group number and position in string
    */
-  private static int[] match(final Matcher m, final String str, final FElem par, final int g) {
+  private static int[] match(final Regex.Matcher m, final int gc, final byte[] val,
+      final FElem par, final int g) {
+
     final FElem nd = new FElem(g == 0 ? Q_MATCH : Q_MGROUP);
     if(g > 0) nd.add(NR, token(g));
 
-    final int start = m.start(g), end = m.end(g), gc = m.groupCount();
+    final int start = m.start(g), end = m.end(g);
     int[] pos = { g + 1, start }; // group and position in string
     while(pos[0] <= gc && m.end(pos[0]) <= end) {
       final int st = m.start(pos[0]);
       if(st >= 0) { // group matched
-        if(pos[1] < st) nd.add(str.substring(pos[1], st));
-        pos = match(m, str, nd, pos[0]);
+        if(pos[1] < st) nd.add(subtoken(val, pos[1], st));
+        pos = match(m, gc, val, nd, pos[0]);
       } else pos[0]++; // skip it
     }
     if(pos[1] < end) {
-      nd.add(str.substring(pos[1], end));
+      nd.add(subtoken(val, pos[1], end));
       pos[1] = end;
     }
     par.add(nd);
@@ -154,7 +161,7 @@ public final class FNPat extends StandardFunc {
    * @param text text
    * @param par root node
    */
-  private static void nonmatch(final String text, final FElem par) {
+  private static void nonmatch(final byte[] text, final FElem par) {
     par.add(new FElem(Q_NONMATCH).add(text));
   }
 
@@ -177,19 +184,51 @@ public final class FNPat extends StandardFunc {
         (i + 1 == rep.length || !digit(rep[i + 1]))) throw FUNREPDOL.get(info);
     }
 
-    final Pattern p = pattern(expr[1], expr.length == 4 ? expr[3] : null, ctx);
-    if(p.pattern().isEmpty()) throw REGROUP.get(info);
+    final Regex p = regex(expr[1], expr.length == 4 ? expr[3] : null, ctx);
+    if(p.pattern.pattern().isEmpty()) throw REGROUP.get(info);
+    final boolean literal = (p.pattern.flags() & Pattern.LITERAL) != 0;
 
-    String r = string(rep);
-    if((p.flags() & Pattern.LITERAL) != 0) {
-      r = SLASH.matcher(BSLASH.matcher(r).replaceAll("\\\\\\\\")).replaceAll("\\\\\\$");
+    final Regex.Matcher m = p.matcher(val);
+    final TokenBuilder tb = new TokenBuilder(val.length);
+    int s = 0;
+    while(m.find()) {
+      tb.add(val, s, m.start(0));
+      if(literal) tb.add(rep);
+      else replacement(m, p.groups(), rep, tb);
+      s = m.end(0);
     }
+    return Str.get(tb.add(val, s, val.length).finish());
+  }
 
-    try {
-      return Str.get(p.matcher(string(val)).replaceAll(r));
-    } catch(final Exception ex) {
-      if(ex.getMessage().contains("No group")) throw REGROUP.get(info);
-      throw REGPAT.get(info, ex);
+  /**
+   * Adds a replacement string, in which group references are resolved
+   * in the same way as by {@link Matcher#appendReplacement}.
+   * @param m matcher
+   * @param gc number of groups
+   * @param rep replacement string
+   * @param tb token builder
+   * @throws QueryException query exception
+   */
+  private void replacement(final Regex.Matcher m, final int gc, final byte[] rep,
+      final TokenBuilder tb) throws QueryException {
+
+    final int rl = rep.length;
+    for(int r = 0; r < rl; r++) {
+      final byte b = rep[r];
+      if(b == '\\') {
+        tb.addByte(rep[++r]);
+      } else if(b == '$') {
+        // the first digit is mandatory; more digits are added as long as the group exists
+        int g = rep[++r] - '0';
+        if(g > gc) throw REGROUP.get(info);
+        while(r + 1 < rl && digit(rep[r + 1]) && g * 10 + rep[r + 1] - '0' <= gc) {
+          g = g * 10 + rep[++r] - '0';
+        }
+        final byte[] grp = m.group(g);
+        if(grp != null) tb.add(grp);
+      } else {
+        tb.addByte(b);
+      }
     }
   }
 
@@ -201,44 +240,48 @@ public final class FNPat extends StandardFunc {
    */
   private Value tokenize(final QueryContext ctx) throws QueryException {
     final byte[] val = checkEStr(expr[0], ctx);
-    final Pattern p = pattern(expr[1], expr.length == 3 ? expr[2] : null, ctx);
-    if(p.matcher("").matches()) throw REGROUP.get(info);
+    final Regex p = regex(expr[1], expr.length == 3 ? expr[2] : null, ctx);
+    if(p.matchesEmpty()) throw REGROUP.get(info);
 
     final TokenList tl = new TokenList();
-    final String str = string(val);
-    if(!str.isEmpty()) {
-      final Matcher m = p.matcher(str);
+    if(val.length != 0) {
+      final Regex.Matcher m = p.matcher(val);
       int s = 0;
       while(m.find()) {
-        tl.add(str.substring(s, m.start()));
-        s = m.end();
+        tl.add(subtoken(val, s, m.start(0)));
+        s = m.end(0);
       }
-      tl.add(str.substring(s, str.length()));
+      tl.add(subtoken(val, s));
     }
     return StrSeq.get(tl);
   }
 
   /**
-   * Returns a regular expression pattern.
+   * Returns a compiled regular expression.
    * @param pattern input pattern
    * @param modifier modifier item
    * @param ctx query context
-   * @return pattern modifier
+   * @return regular expression
    * @throws QueryException query exception
    */
-  private Pattern pattern(final Expr pattern, final Expr modifier, final QueryContext ctx)
+  private Regex regex(final Expr pattern, final Expr modifier, final QueryContext ctx)
       throws QueryException {
 
     final byte[] pat = checkStr(pattern, ctx);
     final byte[] mod = modifier != null ? checkStr(modifier, ctx) : null;
-    final TokenBuilder tb = new TokenBuilder(pat);
-    if(mod != null) tb.add(0).add(mod);
-    final byte[] key = tb.finish();
-    Pattern p = patterns.get(key);
-    if(p == null) {
-      p = RegExParser.parse(pat, mod, sc.xquery3(), info);
-      patterns.put(key, p);
+    final boolean ext = sc.xquery3();
+    final TokenBuilder tb = new TokenBuilder(pat).add(0);
+    if(mod != null) tb.add(mod);
+    final String key = tb.add(0).add(ext ? 1 : 0).toString();
+
+    synchronized(CACHE) {
+      final Regex r = CACHE.get(key);
+      if(r != null) return r;
+    }
+    final Regex r = RegExParser.parse(pat, mod, ext, info);
+    synchronized(CACHE) {
+      CACHE.put(key, r);
     }
-    return p;
+    return r;
   }
 }
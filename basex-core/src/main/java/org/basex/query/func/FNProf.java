@@ -5,7 +5,6 @@ import static org.basex.util.Token.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
-import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.util.*;
 
@@ -65,9 +64,9 @@ public final class FNProf extends StandardFunc {
 
     // check caching flag
     if(expr.length > 1 && checkBln(expr[1], ctx)) {
-      final Value v = ctx.value(expr[0]).cache().value();
+      final SpillBuilder sb = ctx.spill().add(ctx.iter(expr[0]));
       dump(min, msg, ctx);
-      return v.iter();
+      return sb.iter(false);
     }
 
     return new Iter() {
@@ -149,9 +148,9 @@ public final class FNProf extends StandardFunc {
 
     // check caching flag
     if(expr.length > 1 && checkBln(expr[1], ctx)) {
-      final Value v = ctx.value(expr[0]).cache().value();
+      final SpillBuilder sb = ctx.spill().add(ctx.iter(expr[0]));
       FNInfo.dump(token(p.getTime()), msg, ctx);
-      return v.iter();
+      return sb.iter(false);
     }
 
     return new Iter() {
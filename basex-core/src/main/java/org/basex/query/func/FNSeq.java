@@ -8,6 +8,7 @@ import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.CmpV.OpV;
 import org.basex.query.expr.*;
+import org.basex.query.gflwor.*;
 import org.basex.query.iter.*;
 import org.basex.query.path.*;
 import org.basex.query.util.*;
@@ -19,6 +20,8 @@ import org.basex.query.value.type.*;
 import org.basex.query.value.type.SeqType.Occ;
 import org.basex.query.var.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Sequence functions.
@@ -95,7 +98,7 @@ public final class FNSeq extends StandardFunc {
       // the first/last node is thus always included in the output
       final DBNode fst = (DBNode) nc.get(outer ? 0 : len - 1);
       final Data data = fst.data;
-      final ANode[] nodes = nc.nodes.clone();
+      final ANode[] nodes = nc.nodes();
 
       if(outer) {
         // skip the subtree of the last added node
@@ -110,19 +113,19 @@ public final class FNSeq extends StandardFunc {
         }
       } else {
         // skip ancestors of the last added node
-        nc.nodes[0] = fst;
-        nc.size(1);
+        final ANodeList list = new ANodeList(fst);
         int before = fst.pre;
         for(int i = len - 1; i-- != 0;) {
           final DBNode nd = (DBNode) nodes[i];
           if(nd.pre + data.size(nd.pre, data.kind(nd.pre)) <= before) {
-            nc.add(nd);
+            list.add(nd);
             before = nd.pre;
           }
         }
 
         // nodes were added in reverse order, correct that
-        Array.reverse(nc.nodes, 0, (int) nc.size());
+        nc.size(0);
+        for(int i = list.size(); i-- != 0;) nc.add(list.get(i));
       }
 
       return nc;
@@ -131,11 +134,11 @@ public final class FNSeq extends StandardFunc {
     // multiple documents and/or constructed fragments
     final NodeSeqBuilder out = new NodeSeqBuilder(new ANode[len], 0);
     OUTER: for(int i = 0; i < len; i++) {
-      final ANode nd = nc.nodes[i];
+      final ANode nd = nc.get(i);
       final AxisIter ax = outer ? nd.ancestor() : nd.descendant();
       for(ANode a; (a = ax.next()) != null;)
         if(nc.indexOf(a, false) != -1) continue OUTER;
-      out.add(nc.nodes[i]);
+      out.add(nd);
     }
 
     return out;
@@ -246,9 +249,51 @@ public final class FNSeq extends StandardFunc {
   private Iter indexOf(final QueryContext ctx) throws QueryException {
     final Item it = checkItem(expr[1], ctx);
     final Collation coll = checkColl(expr.length == 3 ? expr[2] : null, ctx, sc);
+    final Iter iter = ctx.iter(expr[0]);
+
+    // native sequences: compare primitive values
+    if(coll == null && iter instanceof ValueIter) {
+      final Value val = iter.value();
+      if(val instanceof IntSeq && it instanceof Int) {
+        final long[] vals = ((IntSeq) val).values();
+        final long l = it.itr(info);
+        return new Iter() {
+          int c;
+          @Override
+          public Item next() {
+            while(c < vals.length) if(vals[c++] == l) return Int.get(c);
+            return null;
+          }
+        };
+      }
+      if(val instanceof DblSeq && it instanceof Dbl) {
+        final double[] vals = ((DblSeq) val).values();
+        final double d = it.dbl(info);
+        return new Iter() {
+          int c;
+          @Override
+          public Item next() {
+            while(c < vals.length) if(vals[c++] == d) return Int.get(c);
+            return null;
+          }
+        };
+      }
+      if(val instanceof StrSeq && it instanceof Str) {
+        final byte[][] vals = ((StrSeq) val).values();
+        final byte[] t = it.string(info);
+        return new Iter() {
+          int c;
+          @Override
+          public Item next() {
+            while(c < vals.length) if(Token.eq(vals[c++], t)) return Int.get(c);
+            return null;
+          }
+        };
+      }
+    }
 
     return new Iter() {
-      final Iter ir = expr[0].iter(ctx);
+      final Iter ir = iter;
       int c;
 
       @Override
@@ -273,9 +318,66 @@ public final class FNSeq extends StandardFunc {
     final Collation coll = checkColl(expr.length == 2 ? expr[1] : null, ctx, sc);
     if(expr[0] instanceof RangeSeq) return expr[0].iter(ctx);
 
+    final Iter iter = ctx.iter(expr[0]);
+    if(coll == null) {
+      // native sequences: remove duplicates from the primitive values
+      if(iter instanceof ValueIter) {
+        final Value val = iter.value();
+        if(val instanceof IntSeq) return distinct((IntSeq) val).iter();
+        if(val instanceof DblSeq) return distinct((DblSeq) val).iter();
+        if(val instanceof StrSeq) return distinct((StrSeq) val).iter();
+      }
+      // homogeneous input: hash primitive values
+      final Type type = expr[0].type().type;
+      if(type.instanceOf(AtomType.ITR)) {
+        return new Iter() {
+          final LongSet set = new LongSet();
+          // unsigned longs that exceed the range of longs
+          final TokenSet big = new TokenSet();
+          @Override
+          public Item next() throws QueryException {
+            while(true) {
+              final Item i = iter.next();
+              if(i == null) return null;
+              ctx.checkStop();
+              if(Int.fits(i, info) ? set.add(i.itr(info)) : big.add(i.string(info))) return i;
+            }
+          }
+        };
+      }
+      if(type == AtomType.DBL) {
+        return new Iter() {
+          final LongSet set = new LongSet();
+          @Override
+          public Item next() throws QueryException {
+            while(true) {
+              final Item i = iter.next();
+              if(i == null) return null;
+              ctx.checkStop();
+              if(set.add(bits(i.dbl(info)))) return i;
+            }
+          }
+        };
+      }
+      if(type.instanceOf(AtomType.STR)) {
+        return new Iter() {
+          final TokenSet set = new TokenSet();
+          @Override
+          public Item next() throws QueryException {
+            while(true) {
+              final Item i = iter.next();
+              if(i == null) return null;
+              ctx.checkStop();
+              if(set.add(i.string(info))) return i;
+            }
+          }
+        };
+      }
+    }
+
     return new Iter() {
       final ItemSet set = coll == null ? new HashItemSet() : new CollationItemSet(coll);
-      final Iter ir = expr[0].iter(ctx);
+      final Iter ir = iter;
 
       @Override
       public Item next() throws QueryException {
@@ -290,6 +392,55 @@ public final class FNSeq extends StandardFunc {
     };
   }
 
+  /**
+   * Returns the distinct values of an integer sequence.
+   * @param seq sequence
+   * @return distinct values
+   */
+  private static Value distinct(final IntSeq seq) {
+    final long[] vals = seq.values(), tmp = new long[vals.length];
+    final LongSet set = new LongSet();
+    int s = 0;
+    for(final long v : vals) if(set.add(v)) tmp[s++] = v;
+    return s == vals.length ? seq : IntSeq.get(Arrays.copyOf(tmp, s), seq.type);
+  }
+
+  /**
+   * Returns the distinct values of a double sequence.
+   * @param seq sequence
+   * @return distinct values
+   */
+  private static Value distinct(final DblSeq seq) {
+    final double[] vals = seq.values(), tmp = new double[vals.length];
+    final LongSet set = new LongSet();
+    int s = 0;
+    for(final double v : vals) if(set.add(bits(v))) tmp[s++] = v;
+    return s == vals.length ? seq : DblSeq.get(Arrays.copyOf(tmp, s));
+  }
+
+  /**
+   * Returns the distinct values of a string sequence.
+   * @param seq sequence
+   * @return distinct values
+   */
+  private static Value distinct(final StrSeq seq) {
+    final byte[][] vals = seq.values();
+    final TokenSet set = new TokenSet();
+    final TokenList tmp = new TokenList(vals.length);
+    for(final byte[] v : vals) if(set.add(v)) tmp.add(v);
+    return tmp.size() == vals.length ? seq : StrSeq.get(tmp);
+  }
+
+  /**
+   * Returns a bit representation of a double that is identical for all values that are
+   * considered equal by distinct-values: positive and negative zero, and all NaN values.
+   * @param d double
+   * @return bits
+   */
+  private static long bits(final double d) {
+    return d == 0 ? 0 : Double.doubleToLongBits(d);
+  }
+
   /**
    * Inserts items before the specified position.
    * @param ctx query context
@@ -359,7 +510,7 @@ public final class FNSeq extends StandardFunc {
     final boolean li = l == Long.MAX_VALUE;
     if(si) return li ? expr[0].iter(ctx) : Empty.ITER;
 
-    final Iter iter = ctx.iter(expr[0]);
+    final Iter iter = subseq(s, l, ctx);
 
     // optimization: return subsequence
     if(iter instanceof ValueIter) {
@@ -411,6 +562,29 @@ public final class FNSeq extends StandardFunc {
     };
   }
 
+  /**
+   * Returns an iterator for the input of the {@code subsequence} function.
+   * If the input is a FLWOR expression, the number of requested results is passed on,
+   * as the results of an {@code order by} clause need not be completely sorted.
+   * @param start start position
+   * @param length length ({@link Long#MAX_VALUE}: unlimited)
+   * @param ctx query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  private Iter subseq(final long start, final long length, final QueryContext ctx)
+      throws QueryException {
+    if(expr[0] instanceof GFLWOR && start < Integer.MAX_VALUE &&
+        length < Integer.MAX_VALUE) {
+      final long limit = start + length - 1;
+      if(limit > 0 && limit < Integer.MAX_VALUE) {
+        ctx.checkStop();
+        return ((GFLWOR) expr[0]).iter(ctx, (int) limit);
+      }
+    }
+    return ctx.iter(expr[0]);
+  }
+
   /**
    * Evaluates the {@code subsequence} function strictly.
    * @param ctx query context
@@ -433,7 +607,7 @@ public final class FNSeq extends StandardFunc {
     final boolean linf = length == Long.MAX_VALUE;
     if(sinf) return linf ? expr[0].value(ctx) : Empty.SEQ;
 
-    final Iter iter = ctx.iter(expr[0]);
+    final Iter iter = subseq(start, length, ctx);
 
     // optimization: return subsequence
     if(iter instanceof ValueIter) {
@@ -482,11 +656,8 @@ public final class FNSeq extends StandardFunc {
     final Iter iter = ctx.iter(expr[0]);
     final long s = iter.size();
     if(s == -1) {
-      // estimate result size (could be known in the original expression)
-      final ValueBuilder vb = new ValueBuilder(Math.max((int) expr[0].size(), 1));
-      for(Item it; (it = iter.next()) != null;) vb.add(it);
-      Array.reverse(vb.items(), 0, (int) vb.size());
-      return vb;
+      // cache items in a compact representation, which may be swapped to disk
+      return ctx.spill().add(iter).iter(true);
     }
 
     // return iterator if only a single result will be returned
@@ -17,6 +17,7 @@ import org.basex.query.expr.*;
 import org.basex.query.iter.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
@@ -72,6 +73,12 @@ public final class FNSql extends StandardFunc {
   /** Attribute "type" of <sql:parameter/>. */
   private static final byte[] TYPE = token("type");
 
+  /** Statement options. */
+  public static class SqlOptions extends Options {
+    /** Number of rows to be fetched from the database at once (0: driver default). */
+    public static final NumberOption FETCH_SIZE = new NumberOption("fetch-size", 0);
+  }
+
   /**
    * Constructor.
    * @param sctx static context
@@ -201,17 +208,24 @@ public final class FNSql extends StandardFunc {
    * @return result
    * @throws QueryException query exception
    */
-  private NodeSeqBuilder execute(final QueryContext ctx) throws QueryException {
+  private Iter execute(final QueryContext ctx) throws QueryException {
     final int id = (int) checkItr(expr[0], ctx);
     final Object obj = ctx.jdbc().get(id);
     if(!(obj instanceof Connection)) throw BXSQ_CONN.get(info, id);
 
     final String query = string(checkStr(expr[1], ctx));
+    final SqlOptions opts = checkOptions(2, Q_OPTIONS, new SqlOptions(), ctx);
     Statement stmt = null;
     try {
       stmt = ((Connection) obj).createStatement();
-      final boolean result = stmt.execute(query);
-      return result ? buildResult(stmt.getResultSet(), ctx) : new NodeSeqBuilder();
+      fetchSize(stmt, opts);
+      if(stmt.execute(query)) {
+        // statement will be closed by the returned iterator
+        final Iter iter = buildResult(stmt.getResultSet(), stmt, ctx);
+        stmt = null;
+        return iter;
+      }
+      return Empty.ITER;
     } catch(final SQLException ex) {
       throw BXSQ_ERROR.get(info, ex);
     } finally {
@@ -225,7 +239,7 @@ public final class FNSql extends StandardFunc {
    * @return result
    * @throws QueryException query exception
    */
-  private NodeSeqBuilder executePrepared(final QueryContext ctx) throws QueryException {
+  private Iter executePrepared(final QueryContext ctx) throws QueryException {
     final int id = (int) checkItr(expr[0], ctx);
     final Object obj = ctx.jdbc().get(id);
     if(!(obj instanceof PreparedStatement)) throw BXSQ_STATE.get(info, id);
@@ -238,18 +252,35 @@ public final class FNSql extends StandardFunc {
       if(!params.qname().eq(Q_PARAMETERS)) throw INVALIDOPTX.get(info, params.qname().local());
       c = countParams(params);
     }
+    final SqlOptions opts = checkOptions(2, Q_OPTIONS, new SqlOptions(), ctx);
 
     try {
       final PreparedStatement stmt = (PreparedStatement) obj;
       // Check if number of parameters equals number of place holders
       if(c != stmt.getParameterMetaData().getParameterCount()) throw BXSQ_PARAMS.get(info);
       if(params != null) setParameters(params.children(), stmt);
-      return stmt.execute() ? buildResult(stmt.getResultSet(), ctx) : new NodeSeqBuilder();
+      fetchSize(stmt, opts);
+      // prepared statement is kept open and may be executed again before the rows have been
+      // requested, which would close the result set: all rows are cached
+      return stmt.execute() ? buildResult(stmt.getResultSet(), null, ctx).value().iter() :
+        Empty.ITER;
     } catch(final SQLException ex) {
       throw BXSQ_ERROR.get(info, ex);
     }
   }
 
+  /**
+   * Assigns the fetch size to the specified statement.
+   * @param stmt statement
+   * @param opts options
+   * @throws SQLException SQL exception
+   */
+  private static void fetchSize(final Statement stmt, final SqlOptions opts)
+      throws SQLException {
+    final int fs = opts.get(SqlOptions.FETCH_SIZE);
+    if(fs > 0) stmt.setFetchSize(fs);
+  }
+
   /**
    * Counts the numbers of <sql:parameter/> elements.
    * @param params element <sql:parameter/>
@@ -344,55 +375,103 @@ public final class FNSql extends StandardFunc {
   }
 
   /**
-   * Builds a sequence of elements from a query's result set.
+   * Returns an iterator over the rows of a query's result set. Rows are only fetched and
+   * converted to elements when they are requested. The result set and the specified
+   * statement are closed as soon as all rows have been returned, or when the query is closed.
    * @param rs result set
+   * @param stmt statement to be closed (can be {@code null})
    * @param ctx query context
-   * @return sequence of elements <tuple/> each of which represents a row from
+   * @return iterator over elements <tuple/>, each of which represents a row from
    *         the result set
    * @throws QueryException query exception
    */
-  private NodeSeqBuilder buildResult(final ResultSet rs, final QueryContext ctx)
+  private Iter buildResult(final ResultSet rs, final Statement stmt, final QueryContext ctx)
       throws QueryException {
 
     try {
       final ResultSetMetaData metadata = rs.getMetaData();
       final int cc = metadata.getColumnCount();
-      final NodeSeqBuilder rows = new NodeSeqBuilder();
-      while(rs.next()) {
-        final FElem row = new FElem(Q_ROW);
-        rows.add(row);
-        for(int k = 1; k <= cc; k++) {
-          // for each row add column values as children
-          final String name = metadata.getColumnLabel(k);
-          final Object value = rs.getObject(k);
-          // null values are ignored
-          if(value == null) continue;
-
-          // element <sql:column name='...'>...</sql:column>
-          final FElem col = new FElem(Q_COLUMN).add(NAME, name);
-          row.add(col);
-
-          if(value instanceof SQLXML) {
-            // add XML value as child element
-            final String xml = ((SQLXML) value).getString();
-            try {
-              col.add(new DBNode(new IOContent(xml), ctx.context.options).children().next());
-            } catch(final IOException ex) {
-              // fallback: add string representation
-              col.add(xml);
-            }
-          } else {
-            // add string representation of other values
-            col.add(value.toString());
+      final String[] names = new String[cc];
+      for(int k = 0; k < cc; k++) names[k] = metadata.getColumnLabel(k + 1);
+      // register cursor, so that it will be closed with the query
+      final int id = ctx.jdbc().add(stmt != null ? stmt : rs);
+
+      return new Iter() {
+        /** Indicates if all rows have been returned. */
+        private boolean done;
+
+        @Override
+        public Item next() throws QueryException {
+          if(done) return null;
+          try {
+            if(rs.next()) return row(rs, names, ctx);
+            close();
+            return null;
+          } catch(final SQLException ex) {
+            close();
+            throw BXSQ_ERROR.get(info, ex);
           }
         }
-      }
-      return rows;
+
+        /**
+         * Closes the cursor.
+         */
+        private void close() {
+          done = true;
+          ctx.jdbc().remove(id);
+          try {
+            if(stmt != null) stmt.close();
+            else rs.close();
+          } catch(final SQLException ex) {
+            Util.debug(ex);
+          }
+        }
+      };
     } catch(final SQLException ex) {
       throw BXSQ_ERROR.get(info, ex);
     }
   }
 
+  /**
+   * Builds an element for the current row of a result set.
+   * @param rs result set
+   * @param names column names
+   * @param ctx query context
+   * @return element <tuple/>
+   * @throws SQLException SQL exception
+   */
+  private static FElem row(final ResultSet rs, final String[] names, final QueryContext ctx)
+      throws SQLException {
+
+    final FElem row = new FElem(Q_ROW);
+    final int cc = names.length;
+    for(int k = 0; k < cc; k++) {
+      // for each row add column values as children
+      final Object value = rs.getObject(k + 1);
+      // null values are ignored
+      if(value == null) continue;
+
+      // element <sql:column name='...'>...</sql:column>
+      final FElem col = new FElem(Q_COLUMN).add(NAME, names[k]);
+      row.add(col);
+
+      if(value instanceof SQLXML) {
+        // add XML value as child element
+        final String xml = ((SQLXML) value).getString();
+        try {
+          col.add(new DBNode(new IOContent(xml), ctx.context.options).children().next());
+        } catch(final IOException ex) {
+          // fallback: add string representation
+          col.add(xml);
+        }
+      } else {
+        // add string representation of other values
+        col.add(value.toString());
+      }
+    }
+    return row;
+  }
+
   /**
    * Closes a connection to a relational database.
    * @param ctx query context
@@ -5,9 +5,12 @@ import static org.basex.util.Token.*;
 
 import java.io.*;
 import java.net.*;
+import java.util.*;
 
 import javax.xml.*;
 import javax.xml.parsers.*;
+import javax.xml.transform.*;
+import javax.xml.transform.sax.*;
 import javax.xml.transform.stream.*;
 import javax.xml.validation.*;
 
@@ -22,8 +25,10 @@ import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
+import org.w3c.dom.ls.*;
 import org.xml.sax.*;
 import org.xml.sax.helpers.*;
 
@@ -35,6 +40,17 @@ import org.xml.sax.helpers.*;
  * @author Marco Lettere (greedy/verbose validation)
  */
 public final class FNValidate extends StandardFunc {
+  /** Maximum number of cached schemas. */
+  private static final int MAXCACHE = 32;
+  /** Compiled schemas, indexed by their file path or content. */
+  private static final LinkedHashMap<String, CachedSchema> CACHE =
+    new LinkedHashMap<String, CachedSchema>(MAXCACHE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CachedSchema> eldest) {
+        return size() > MAXCACHE;
+      }
+    };
+
   /**
    * Constructor.
    * @param sctx static context
@@ -120,24 +136,14 @@ public final class FNValidate extends StandardFunc {
     return process(new Validate() {
       @Override
       void process(final ErrorHandler handler) throws IOException, SAXException, QueryException {
-        final IO in = read(checkItem(expr[0], ctx), ctx, null);
-        final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        final Schema schema;
-        if(expr.length < 2) {
-          // assume that schema declaration is included in document
-          schema = sf.newSchema();
-        } else {
-          final Item it = checkItem(expr[1], ctx);
-          // schema specified as string
-          IO scio = read(it, ctx, null);
-          tmp = createTmp(scio);
-          if(tmp != null) scio = tmp;
-          schema = sf.newSchema(new URL(scio.url()));
-        }
+        final Item in = checkItem(expr[0], ctx);
+        // assume that schema declaration is included in document
+        final Schema schema = schema(expr.length < 2 ? null : read(checkItem(expr[1], ctx),
+            ctx, null), this);
 
         final Validator v = schema.newValidator();
         v.setErrorHandler(handler);
-        v.validate(new StreamSource(in.inputStream()));
+        v.validate(source(in, ctx));
       }
     });
   }
@@ -232,6 +238,59 @@ public final class FNValidate extends StandardFunc {
     return StrSeq.get(handler.getExceptions());
   }
 
+  /**
+   * Returns a compiled schema for the specified input.
+   * Schemas are cached and reused by subsequent calls, unless the files of the schema
+   * or of its included and imported schemas have been modified. Schemas that are
+   * declared in the document or read from URLs are not cached.
+   * @param in schema input, or {@code null} if the schema is declared in the document
+   * @param v validator
+   * @return schema
+   * @throws IOException I/O exception
+   * @throws SAXException SAX exception
+   */
+  private static Schema schema(final IO in, final Validate v) throws IOException, SAXException {
+    final SchemaFactory sf = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    if(in == null) return sf.newSchema();
+
+    // files are identified by their path, and other contents by their string value
+    final String key = in instanceof IOFile ? in.path() :
+      in instanceof IOContent ? in.path() + '\n' + string(in.read()) : null;
+    CachedSchema cs = null;
+    if(key != null) {
+      synchronized(CACHE) {
+        cs = CACHE.get(key);
+      }
+    }
+    if(cs == null || !cs.valid()) {
+      // schema specified as string
+      v.tmp = createTmp(in);
+      cs = new CachedSchema(sf, in, v.tmp);
+      if(key != null && cs.cache) {
+        synchronized(CACHE) {
+          CACHE.put(key, cs);
+        }
+      }
+    }
+    return cs.schema;
+  }
+
+  /**
+   * Returns a source for the specified input.
+   * Document and element nodes are passed on to the validator as SAX events.
+   * @param it item
+   * @param ctx query context
+   * @return source
+   * @throws QueryException query exception
+   * @throws IOException exception
+   */
+  private Source source(final Item it, final QueryContext ctx)
+      throws QueryException, IOException {
+    if(it.type == NodeType.DOC || it.type == NodeType.ELM)
+      return new SAXSource(new SAXSerializer(it), new InputSource());
+    return new StreamSource(read(it, ctx, null).inputStream());
+  }
+
   /**
    * Creates a temporary file with the contents of the specified IO reference.
    * {@code null} is returned if the IO reference refers to an existing file.
@@ -317,8 +376,12 @@ public final class FNValidate extends StandardFunc {
         final TokenBuilder report = new TokenBuilder();
         final String id = ex.getSystemId();
         if(id != null) report.add(IO.get(id).name()).add(", ");
-        report.addExt(ex.getLineNumber()).add(Text.COL).addExt(ex.getColumnNumber());
-        report.add(": ").add(msg);
+        // no positions are available for streamed nodes
+        if(ex.getLineNumber() != -1) {
+          report.addExt(ex.getLineNumber()).add(Text.COL).addExt(ex.getColumnNumber());
+          report.add(": ");
+        }
+        report.add(msg);
         msg = report.toString();
       }
       exceptions.add(type + Text.COL + msg);
@@ -333,6 +396,61 @@ public final class FNValidate extends StandardFunc {
     }
   }
 
+  /**
+   * Compiled schema. The files of the schema and its included and imported schemas
+   * are recorded with their timestamps.
+   */
+  private static final class CachedSchema implements LSResourceResolver {
+    /** Timestamps of the schema files, indexed by their paths. */
+    private final HashMap<String, Long> files = new HashMap<String, Long>();
+    /** Compiled schema. */
+    final Schema schema;
+    /** Indicates if all schemas were read from files or from the query. */
+    boolean cache = true;
+
+    /**
+     * Constructor.
+     * @param sf schema factory
+     * @param in schema input
+     * @param tmp temporary file with the schema contents (can be {@code null})
+     * @throws IOException I/O exception
+     * @throws SAXException SAX exception
+     */
+    CachedSchema(final SchemaFactory sf, final IO in, final IOFile tmp)
+        throws IOException, SAXException {
+      if(in instanceof IOFile) files.put(in.path(), in.timeStamp());
+      sf.setResourceResolver(this);
+      schema = sf.newSchema(new URL((tmp != null ? tmp : in).url()));
+    }
+
+    /**
+     * Checks if the files of the schema are unchanged.
+     * @return result of check
+     */
+    boolean valid() {
+      for(final Map.Entry<String, Long> file : files.entrySet()) {
+        if(new IOFile(file.getKey()).timeStamp() != file.getValue()) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public LSInput resolveResource(final String type, final String uri, final String pid,
+        final String sid, final String base) {
+      // record included or imported schema; it will be resolved by the factory
+      try {
+        final IO io = sid == null ? null : IO.get(base == null || base.isEmpty() ? sid :
+          new URI(base).resolve(sid).toString());
+        if(io instanceof IOFile) files.put(io.path(), io.timeStamp());
+        else cache = false;
+      } catch(final Exception ex) {
+        Util.debug(ex);
+        cache = false;
+      }
+      return null;
+    }
+  }
+
   /** Abstract validator class. */
   abstract static class Validate {
     /** Temporary file instance. */
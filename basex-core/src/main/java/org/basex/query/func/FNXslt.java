@@ -6,20 +6,28 @@ import static org.basex.util.Reflect.*;
 import static org.basex.util.Token.*;
 
 import java.io.*;
+import java.net.*;
 import java.util.*;
 import java.util.Map.Entry;
 
 import javax.xml.transform.*;
+import javax.xml.transform.sax.*;
 import javax.xml.transform.stream.*;
 
+import org.basex.build.*;
+import org.basex.build.xml.*;
+import org.basex.core.*;
 import org.basex.io.*;
 import org.basex.io.out.*;
+import org.basex.io.serial.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
 import org.basex.util.*;
 import org.basex.util.options.*;
+import org.xml.sax.*;
 
 /**
  * Functions for performing XSLT transformations.
@@ -41,6 +49,17 @@ public final class FNXslt extends StandardFunc {
   /** Implementation offset. */
   private static final int OFFSET;
 
+  /** Maximum number of cached style sheets. */
+  private static final int MAXCACHE = 32;
+  /** Compiled style sheets, indexed by their file path or content. */
+  private static final LinkedHashMap<String, Stylesheet> CACHE =
+    new LinkedHashMap<String, Stylesheet>(MAXCACHE, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Entry<String, Stylesheet> eldest) {
+        return size() > MAXCACHE;
+      }
+    };
+
   static {
     final String fac = TransformerFactory.class.getName();
     final String impl = System.getProperty(fac);
@@ -100,19 +119,27 @@ public final class FNXslt extends StandardFunc {
    */
   private Item transform(final QueryContext ctx, final boolean node) throws QueryException {
     checkCreate(ctx);
-    final IO in = read(expr[0], ctx);
-    final IO xsl = read(expr[1], ctx);
+    final Source in = source(expr[0], ctx);
+    final IO xsl = read(checkItem(expr[1], ctx), ctx);
     final Options opts = checkOptions(2, Q_PARAMETERS, new Options(), ctx);
 
     final PrintStream tmp = System.err;
     final ArrayOutput ao = new ArrayOutput();
     try {
       System.setErr(new PrintStream(ao));
-      final byte[] result = transform(in, xsl, opts.free());
-      return node ? new DBNode(new IOContent(result), ctx.context.options) : Str.get(result);
+      final Transformer tr = transformer(xsl, opts.free());
+      // build result node from the SAX events of the transformer
+      final boolean text = "text".equals(tr.getOutputProperty(OutputKeys.METHOD));
+      if(node && !text) return new DBNode(new XsltParser(tr, in, ctx.context.options));
+      final ArrayOutput result = new ArrayOutput();
+      tr.transform(in, new StreamResult(result));
+      // text output: result must be parsed as XML
+      return node ? new DBNode(new IOContent(result.toArray()), ctx.context.options) :
+        Str.get(result.toArray());
     } catch(final IOException ex) {
       System.setErr(tmp);
-      throw IOERR.get(info, ex);
+      if(!(ex.getCause() instanceof TransformerException)) throw IOERR.get(info, ex);
+      throw BXSL_ERROR.get(info, trim(utf8(ao.toArray(), Prop.ENCODING)));
     } catch(final TransformerException ex) {
       System.setErr(tmp);
       throw BXSL_ERROR.get(info, trim(utf8(ao.toArray(), Prop.ENCODING)));
@@ -121,15 +148,32 @@ public final class FNXslt extends StandardFunc {
     }
   }
 
+  /**
+   * Returns a source for the specified input.
+   * Nodes are passed on to the transformer as SAX events.
+   * @param e expression to be evaluated
+   * @param ctx query context
+   * @return source
+   * @throws QueryException query exception
+   */
+  private Source source(final Expr e, final QueryContext ctx) throws QueryException {
+    final Item it = checkItem(e, ctx);
+    if(it.type != NodeType.DOC && it.type != NodeType.ELM) return read(it, ctx).streamSource();
+
+    final InputSource is = new InputSource();
+    final byte[] uri = ((ANode) it).baseURI();
+    if(uri.length != 0) is.setSystemId(string(uri));
+    return new SAXSource(new SAXSerializer(it), is);
+  }
+
   /**
    * Returns an input reference (possibly cached) to the specified input.
-   * @param e expressio nto be evaluated
+   * @param it item to be evaluated
    * @param ctx query context
    * @return item
    * @throws QueryException query exception
    */
-  private IO read(final Expr e, final QueryContext ctx) throws QueryException {
-    final Item it = checkItem(e, ctx);
+  private IO read(final Item it, final QueryContext ctx) throws QueryException {
     if(it.type.isNode()) {
       try {
         final IO io = new IOContent(it.serialize().toArray());
@@ -146,27 +190,126 @@ public final class FNXslt extends StandardFunc {
   }
 
   /**
-   * Uses Java's XSLT implementation to perform an XSL transformation.
-   * @param in input
+   * Returns a transformer for the specified style sheet.
+   * Compiled style sheets are cached and reused by subsequent calls, unless the files
+   * of the style sheet or of its included and imported modules have been modified.
+   * Style sheets with modules that are not read from files are not cached.
    * @param xsl style sheet
    * @param par parameters
-   * @return transformed result
+   * @return transformer
    * @throws TransformerException transformer exception
+   * @throws IOException I/O exception
    */
-  private static byte[] transform(final IO in, final IO xsl, final HashMap<String, String> par)
-      throws TransformerException {
+  private static Transformer transformer(final IO xsl, final HashMap<String, String> par)
+      throws TransformerException, IOException {
 
-    // create transformer
-    final TransformerFactory tc = TransformerFactory.newInstance();
-    final Transformer tr =  tc.newTransformer(xsl.streamSource());
+    // files are identified by their path, and other contents by their string value
+    final String key = xsl instanceof IOFile ? xsl.path() :
+      xsl instanceof IOContent ? xsl.path() + '\n' + string(xsl.read()) : null;
+    Stylesheet ss = null;
+    if(key != null) {
+      synchronized(CACHE) {
+        ss = CACHE.get(key);
+      }
+    }
+    if(ss == null || !ss.valid()) {
+      ss = new Stylesheet(xsl);
+      if(key != null && ss.cache) {
+        synchronized(CACHE) {
+          CACHE.put(key, ss);
+        }
+      }
+    }
 
-    // bind parameters
+    // create transformer and bind parameters
+    final Transformer tr = ss.templates.newTransformer();
     for(final Entry<String, String> entry : par.entrySet())
       tr.setParameter(entry.getKey(), entry.getValue());
+    return tr;
+  }
 
-    // do transformation and return result
-    final ArrayOutput ao = new ArrayOutput();
-    tr.transform(in.streamSource(), new StreamResult(ao));
-    return ao.toArray();
+  /**
+   * Compiled style sheet. The files of the style sheet and its modules are recorded
+   * with their timestamps.
+   */
+  private static final class Stylesheet implements URIResolver {
+    /** Timestamps of the style sheet and module files, indexed by their paths. */
+    private final HashMap<String, Long> files = new HashMap<String, Long>();
+    /** Compiled style sheet. */
+    final Templates templates;
+    /** Indicates if all modules were read from files or from the query. */
+    boolean cache = true;
+
+    /**
+     * Constructor.
+     * @param xsl style sheet
+     * @throws TransformerException transformer exception
+     */
+    Stylesheet(final IO xsl) throws TransformerException {
+      if(xsl instanceof IOFile) files.put(xsl.path(), xsl.timeStamp());
+      final TransformerFactory tf = TransformerFactory.newInstance();
+      tf.setURIResolver(this);
+      templates = tf.newTemplates(xsl.streamSource());
+    }
+
+    /**
+     * Checks if the files of the style sheet are unchanged.
+     * @return result of check
+     */
+    boolean valid() {
+      for(final Entry<String, Long> file : files.entrySet()) {
+        if(new IOFile(file.getKey()).timeStamp() != file.getValue()) return false;
+      }
+      return true;
+    }
+
+    @Override
+    public Source resolve(final String href, final String base) {
+      // record included or imported module; it will be resolved by the processor
+      try {
+        final String uri = base == null || base.isEmpty() ? href :
+          new URI(base).resolve(href).toString();
+        final IO io = IO.get(uri);
+        if(io instanceof IOFile) files.put(io.path(), io.timeStamp());
+        else cache = false;
+      } catch(final Exception ex) {
+        Util.debug(ex);
+        cache = false;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Parser, building the result of a transformation.
+   */
+  private static final class XsltParser extends SingleParser {
+    /** Transformer. */
+    private final Transformer tr;
+    /** Input. */
+    private final Source in;
+
+    /**
+     * Constructor.
+     * @param t transformer
+     * @param i input
+     * @param opts database options
+     */
+    XsltParser(final Transformer t, final Source i, final MainOptions opts) {
+      super(new IOContent(EMPTY), opts);
+      tr = t;
+      in = i;
+    }
+
+    @Override
+    protected void parse() throws IOException {
+      final SAXHandler sh = new SAXHandler(builder, options.get(MainOptions.CHOP),
+          options.get(MainOptions.STRIPNS));
+      try {
+        tr.transform(in, new SAXResult(sh));
+      } catch(final TransformerException ex) {
+        throw new IOException(Util.message(ex), ex);
+      }
+    }
   }
 }
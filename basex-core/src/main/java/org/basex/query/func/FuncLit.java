@@ -87,7 +87,7 @@ public final class FuncLit extends Single implements Scope {
   @Override
   public Item item(final QueryContext ctx, final InputInfo ii) {
     return new FuncItem(sc, ann == null ? new Ann() : ann, name, args, (FuncType) type.type,
-        expr, false, ctx.value, ctx.pos, ctx.size, scope.stackSize());
+        expr, false, ctx.value, ctx.pos, ctx.size, scope.stackSize(), null);
   }
 
   @Override
@@ -470,22 +470,23 @@ public enum Function {
   _ARCHIVE_CREATE(FNArchive.class, "create(entries,contents[,options])",
       arg(ITEM_ZM, ITEM_ZM, ITEM), B64),
   /** XQuery function. */
-  _ARCHIVE_ENTRIES(FNArchive.class, "entries(archive)", arg(B64), ELM_ZM),
+  _ARCHIVE_ENTRIES(FNArchive.class, "entries(archive)", arg(ITEM), ELM_ZM),
   /** XQuery function. */
   _ARCHIVE_EXTRACT_TEXT(FNArchive.class, "extract-text(archive[,entries[,encoding]])",
-      arg(B64, ITEM_ZM, STR), STR_ZM),
+      arg(ITEM, ITEM_ZM, STR), STR_ZM),
   /** XQuery function. */
   _ARCHIVE_EXTRACT_BINARY(FNArchive.class, "extract-binary(archive[,entries])",
-      arg(B64, ITEM_ZM), B64_ZM),
+      arg(ITEM, ITEM_ZM), B64_ZM),
   /** XQuery function. */
   _ARCHIVE_UPDATE(FNArchive.class, "update(archive,entries,contents)",
-      arg(B64, ITEM_ZM, ITEM_ZM), B64),
+      arg(ITEM, ITEM_ZM, ITEM_ZM), B64),
   /** XQuery function. */
-  _ARCHIVE_DELETE(FNArchive.class, "delete(archive,entries)", arg(B64, ITEM_ZM), B64),
+  _ARCHIVE_DELETE(FNArchive.class, "delete(archive,entries)", arg(ITEM, ITEM_ZM), B64),
   /** XQuery function. */
-  _ARCHIVE_OPTIONS(FNArchive.class, "options(archive)", arg(B64), ELM),
+  _ARCHIVE_OPTIONS(FNArchive.class, "options(archive)", arg(ITEM), ELM),
   /** XQuery function. */
-  _ARCHIVE_WRITE(FNArchive.class, "write(path,archive[,entries])", arg(STR, B64, ITEM_ZM), EMP),
+  _ARCHIVE_WRITE(FNArchive.class, "write(path,archive[,entries])",
+      arg(STR, ITEM, ITEM_ZM), EMP),
 
   /* FNBin functions. */
 
@@ -844,6 +845,9 @@ public enum Function {
   /** XQuery function. */
   _HTTP_SEND_REQUEST(FNHttp.class, "send-request(request[,href,[bodies]])",
       arg(NOD, STR_ZO, ITEM_ZM), ITEM_ZM, flag(NDT)),
+  /** XQuery function. */
+  _HTTP_SEND_REQUESTS(FNHttp.class, "send-requests(requests[,concurrency])",
+      arg(ELM_ZM, ITR), ITEM_ZM, flag(NDT)),
 
   /* FNIndex functions. */
 
@@ -954,10 +958,11 @@ public enum Function {
   /** XQuery function. */
   _SQL_PREPARE(FNSql.class, "prepare(id,statement)", arg(ITR, STR), ITR, flag(NDT)),
   /** XQuery function. */
-  _SQL_EXECUTE(FNSql.class, "execute(id,query)", arg(ITR, STR), ELM_ZM, flag(NDT)),
+  _SQL_EXECUTE(FNSql.class, "execute(id,query[,options])",
+      arg(ITR, STR, NOD_ZO), ELM_ZM, flag(NDT)),
   /** XQuery function. */
-  _SQL_EXECUTE_PREPARED(FNSql.class, "execute-prepared(id[,params])",
-      arg(ITR, ELM), ELM_ZM, flag(NDT)),
+  _SQL_EXECUTE_PREPARED(FNSql.class, "execute-prepared(id[,params[,options]])",
+      arg(ITR, ELM, NOD_ZO), ELM_ZM, flag(NDT)),
   /** XQuery function. */
   _SQL_CLOSE(FNSql.class, "close(id)", arg(ITR), EMP, flag(NDT)),
   /** XQuery function. */
@@ -43,6 +43,8 @@ public final class InlineFunc extends Single implements Scope, XQFunctionExpr {
   private final StaticContext sc;
   /** Compilation flag. */
   private boolean compiled;
+  /** Cache for function results ({@code null} if results are not memoized). */
+  private Memo memo;
 
   /** Local variables in the scope of this function. */
   private final VarScope scope;
@@ -162,8 +164,10 @@ public final class InlineFunc extends Single implements Scope, XQFunctionExpr {
       scope.exit(ctx, fp);
     }
 
+    // memoized functions: cache results of all calls, and skip tail call optimization
+    memo = Memo.get(ann, expr, FUNCTION + '#' + args.length + " (" + info + ')', ctx);
     // convert all function calls in tail position to proper tail calls
-    expr.markTailCalls(ctx);
+    if(memo == null) expr.markTailCalls(ctx);
 
     return optimize(ctx, scp);
   }
@@ -223,14 +227,16 @@ public final class InlineFunc extends Single implements Scope, XQFunctionExpr {
     final Var[] a = args.clone();
     for(int i = 0; i < a.length; i++) a[i] = vs.get(a[i].id);
     final Expr e = expr.copy(cx, v, vs);
-    e.markTailCalls(null);
-    return copyType(new InlineFunc(info, name, ret, a, e, ann, sc, v));
+    if(memo == null) e.markTailCalls(null);
+    final InlineFunc f = new InlineFunc(info, name, ret, a, e, ann, sc, v);
+    f.memo = memo;
+    return copyType(f);
   }
 
   @Override
   public Expr inlineExpr(final Expr[] exprs, final QueryContext ctx, final VarScope scp,
       final InputInfo ii) throws QueryException {
-    if(expr.has(Flag.CTX)) return null;
+    if(memo != null || expr.has(Flag.CTX)) return null;
     ctx.compInfo(OPTINLINEFN, this);
     // create let bindings for all variables
     final Map<Var, Expr> closure = scope.closure();
@@ -272,7 +278,8 @@ public final class InlineFunc extends Single implements Scope, XQFunctionExpr {
       body = expr;
     }
 
-    return new FuncItem(sc, ann, null, args, ft, body, c, scope.stackSize());
+    return new FuncItem(sc, ann, null, args, ft, body, c, null, 0, 0, scope.stackSize(),
+        memo != null ? memo.copy() : null);
   }
 
   @Override
@@ -56,6 +56,8 @@ public final class JavaModuleFunc extends JavaMapping {
       mod.staticContext = sc;
       mod.queryContext = ctx;
     }
+    // functions may access the HTTP context
+    if(ctx.http != null) ctx.external();
 
     final Object[] args = JavaFunc.args(params, vTypes, vals, true);
     if(args != null) {
@@ -0,0 +1,192 @@
+package org.basex.query.func;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.expr.Expr.Flag;
+import org.basex.query.util.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * Cache for the results of a function that has been annotated with
+ * {@link Ann#Q_MEMOIZE}. Results are only cached if all arguments are atomic values.
+ * If the maximum number of results is reached, the least recently used entries are evicted.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class Memo {
+  /** Default maximum number of cached results. */
+  private static final int MAX = 10000;
+
+  /** Cached results. */
+  private final LinkedHashMap<Key, Value> results;
+  /** Maximum number of results. */
+  private final int max;
+  /** Description of the function. */
+  private final String desc;
+  /** Statistics (hits, misses); assigned on first access. */
+  private long[] stats;
+
+  /**
+   * Constructor.
+   * @param m maximum number of results
+   * @param d description of the function
+   */
+  private Memo(final int m, final String d) {
+    max = m;
+    desc = d;
+    results = new LinkedHashMap<Key, Value>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Key, Value> eldest) {
+        return size() > max;
+      }
+    };
+  }
+
+  /**
+   * Returns a cache for the results of a function. Results will only be memoized if the
+   * function body is deterministic, performs no updates and creates no new nodes.
+   * @param ann annotations of the function
+   * @param body function body
+   * @param d description of the function
+   * @param ctx query context (can be {@code null})
+   * @return cache, or {@code null} if results will not be memoized
+   */
+  public static Memo get(final Ann ann, final Expr body, final Object d,
+      final QueryContext ctx) {
+    final Value v = ann.value(Ann.Q_MEMOIZE);
+    if(v == null || body.has(Flag.NDT) || body.has(Flag.CNS) || body.has(Flag.UPD))
+      return null;
+    if(ctx != null) ctx.compInfo(OPTMEMO, d);
+    return new Memo(v.isEmpty() ? MAX : (int) Math.min(Integer.MAX_VALUE,
+        ((Int) v.itemAt(0)).itr()), d.toString());
+  }
+
+  /**
+   * Returns a new, empty cache with the same properties.
+   * @return cache
+   */
+  public Memo copy() {
+    return new Memo(max, desc);
+  }
+
+  /**
+   * Returns a key for the specified arguments.
+   * @param args arguments
+   * @param ii input info
+   * @return key, or {@code null} if the arguments contain nodes, function items or
+   *   Java objects
+   * @throws QueryException query exception
+   */
+  public Key key(final Value[] args, final InputInfo ii) throws QueryException {
+    final int al = args.length;
+    final int[] sizes = new int[al];
+    int n = 0;
+    for(int a = 0; a < al; a++) {
+      sizes[a] = (int) args[a].size();
+      n += sizes[a];
+    }
+    final Type[] types = new Type[n];
+    final byte[][] values = new byte[n][];
+    int h = al, i = 0;
+    for(int a = 0; a < al; a++) {
+      final Value arg = args[a];
+      for(int s = 0; s < sizes[a]; s++) {
+        final Item it = arg.itemAt(s);
+        if(it instanceof ANode || it instanceof FItem || it instanceof Jav) return null;
+        types[i] = it.type;
+        values[i] = value(it.materialize(ii), ii);
+        h = (h << 5) - h + Token.hash(values[i++]);
+      }
+      h = (h << 5) - h + sizes[a];
+    }
+    return new Key(sizes, types, values, h);
+  }
+
+  /**
+   * Returns the lexical representation of an item. In contrast to the comparison of
+   * values, it distinguishes values with different timezones or namespace prefixes.
+   * @param it item
+   * @param ii input info
+   * @return value
+   * @throws QueryException query exception
+   */
+  private static byte[] value(final Item it, final InputInfo ii) throws QueryException {
+    return it instanceof QNm ? Token.concat(it.string(ii), Token.SPACE, ((QNm) it).uri()) :
+      it.string(ii);
+  }
+
+  /**
+   * Returns a cached result.
+   * @param key key
+   * @param ctx query context
+   * @return result, or {@code null}
+   */
+  public synchronized Value get(final Key key, final QueryContext ctx) {
+    if(stats == null) stats = ctx.memo(desc);
+    final Value v = results.get(key);
+    stats[v == null ? 1 : 0]++;
+    return v;
+  }
+
+  /**
+   * Caches a result.
+   * @param key key
+   * @param value result
+   */
+  public synchronized void put(final Key key, final Value value) {
+    results.put(key, value);
+  }
+
+  /** Key, consisting of the types and lexical representations of atomic arguments. */
+  public static final class Key {
+    /** Number of items of the arguments. */
+    private final int[] sizes;
+    /** Types of all items. */
+    private final Type[] types;
+    /** Lexical representations of all items. */
+    private final byte[][] values;
+    /** Hash code. */
+    private final int hash;
+
+    /**
+     * Constructor.
+     * @param s number of items of the arguments
+     * @param t types
+     * @param v lexical representations
+     * @param h hash code
+     */
+    Key(final int[] s, final Type[] t, final byte[][] v, final int h) {
+      sizes = s;
+      types = t;
+      values = v;
+      hash = h;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if(!(obj instanceof Key)) return false;
+      final Key k = (Key) obj;
+      // items must have the same type, as arguments may be promoted
+      if(!Arrays.equals(sizes, k.sizes)) return false;
+      final int vl = values.length;
+      for(int v = 0; v < vl; v++) {
+        if(types[v] != k.types[v] || !Token.eq(values[v], k.values[v])) return false;
+      }
+      return true;
+    }
+  }
+}
@@ -193,6 +193,7 @@ public abstract class StandardFunc extends Arr {
    * @throws QueryException query exception
    */
   public IO checkPath(final Expr path, final QueryContext ctx) throws QueryException {
+    ctx.external();
     return QueryResources.checkPath(new QueryInput(string(checkStr(path, ctx))), sc.baseIO(), info);
   }
 
@@ -38,6 +38,8 @@ public final class StaticFunc extends StaticDecl implements XQFunction {
   private final EnumMap<Flag, Boolean> map = new EnumMap<Flag, Boolean>(Flag.class);
   /** Flag that is turned on during compilation and prevents premature inlining. */
   private boolean compiling;
+  /** Cache for function results ({@code null} if results are not memoized). */
+  private Memo memo;
 
   /**
    * Function constructor.
@@ -80,8 +82,10 @@ public final class StaticFunc extends StaticDecl implements XQFunction {
       ctx.value = cv;
     }
 
+    // memoized functions: cache results of all calls, and skip tail call optimization
+    memo = Memo.get(ann, expr, Token.string(name.string()) + '#' + args.length, ctx);
     // convert all function calls in tail position to proper tail calls
-    expr.markTailCalls(ctx);
+    if(memo == null) expr.markTailCalls(ctx);
 
     if(declType != null) {
       // remove redundant casts
@@ -101,7 +105,7 @@ public final class StaticFunc extends StaticDecl implements XQFunction {
    * @return result of check
    */
   private boolean inline(final QueryContext ctx) {
-    return expr.isValue() ||
+    return expr.isValue() || memo == null &&
         expr.exprSize() < ctx.context.options.get(MainOptions.INLINELIMIT) &&
         !(compiling || has(Flag.CTX) || selfRecursive());
   }
@@ -174,6 +178,9 @@ public final class StaticFunc extends StaticDecl implements XQFunction {
   public Item invItem(final QueryContext ctx, final InputInfo ii, final Value... arg)
       throws QueryException {
 
+    // memoized function: return cached result
+    if(memo != null) return invValue(ctx, ii, arg).item(ctx, ii);
+
     // reset context and evaluate function
     final Value cv = ctx.value;
     ctx.value = null;
@@ -194,6 +201,13 @@ public final class StaticFunc extends StaticDecl implements XQFunction {
   public Value invValue(final QueryContext ctx, final InputInfo ii, final Value... arg)
       throws QueryException {
 
+    // memoized function: return cached result
+    final Memo.Key key = memo != null ? memo.key(arg, ii) : null;
+    if(key != null) {
+      final Value v = memo.get(key, ctx);
+      if(v != null) return v;
+    }
+
     // reset context and evaluate function
     final Value cv = ctx.value;
     ctx.value = null;
@@ -202,7 +216,9 @@ public final class StaticFunc extends StaticDecl implements XQFunction {
       addArgs(ctx, ii, arg);
       final Value v = ctx.value(expr);
       // optionally promote return value to target type
-      return cast ? declType.funcConvert(ctx, sc, info, v, false) : v;
+      final Value res = cast ? declType.funcConvert(ctx, sc, info, v, false) : v;
+      if(key != null) memo.put(key, res);
+      return res;
     } finally {
       scope.exit(ctx, fp);
       ctx.value = cv;
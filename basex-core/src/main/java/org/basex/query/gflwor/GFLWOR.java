@@ -1,6 +1,7 @@
 package org.basex.query.gflwor;
 
 import java.util.*;
+import java.util.List;
 
 import org.basex.query.*;
 import org.basex.query.expr.*;
@@ -29,6 +30,12 @@ public final class GFLWOR extends ParseExpr {
   private Expr ret;
   /** FLWOR clauses. */
   private final LinkedList<Clause> clauses;
+  /** Indicates if for clauses may be evaluated in parallel threads. */
+  private boolean forkJoin;
+  /** Index of the for clause that is evaluated in parallel threads ({@code -1}: none). */
+  private int parallel = -1;
+  /** Global variables referenced by the iterations of the parallel for clause. */
+  private StaticVar[] statics;
 
   /**
    * Constructor.
@@ -43,20 +50,29 @@ public final class GFLWOR extends ParseExpr {
   }
 
   @Override
-  public Iter iter(final QueryContext ctx) {
-    // Start evaluator, doing nothing, once.
-    Eval e = new Eval() {
-      /** First-evaluation flag. */
-      private boolean first = true;
-      @Override
-      public boolean next(final QueryContext c) {
-        if(!first) return false;
-        first = false;
-        return true;
-      }
-    };
+  public Iter iter(final QueryContext ctx) throws QueryException {
+    return iter(ctx, Integer.MAX_VALUE);
+  }
 
-    for(final Clause cls : clauses) e = cls.eval(e);
+  /**
+   * Returns an iterator for the first results of this expression. If the last clause is an
+   * {@code order by} clause and if each iteration yields a single item, only the tuples
+   * that belong to the requested results will be sorted.
+   * @param ctx query context
+   * @param limit maximum number of requested results
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public Iter iter(final QueryContext ctx, final int limit) throws QueryException {
+    if(parallel != -1 && ctx.threads() > 1) return parallel(ctx).iter();
+
+    final Clause last = clauses.getLast();
+    final boolean topk = limit != Integer.MAX_VALUE && last instanceof OrderBy &&
+        ret.size() == 1;
+    Eval e = start();
+    for(final Clause cls : clauses) {
+      e = topk && cls == last ? ((OrderBy) cls).eval(e, limit) : cls.eval(e);
+    }
     final Eval ev = e;
 
     return new Iter() {
@@ -80,8 +96,76 @@ public final class GFLWOR extends ParseExpr {
     };
   }
 
+  /**
+   * Returns a start evaluator, doing nothing, once.
+   * @return evaluator
+   */
+  private static Eval start() {
+    return new Eval() {
+      /** First-evaluation flag. */
+      private boolean first = true;
+      @Override
+      public boolean next(final QueryContext c) {
+        if(!first) return false;
+        first = false;
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Evaluates the iterations of the parallel for clause in parallel threads.
+   * The preceding clauses are evaluated by the calling thread, and the results of
+   * the threads are concatenated in their original order.
+   * @param ctx query context
+   * @return resulting value
+   * @throws QueryException query exception
+   */
+  private Value parallel(final QueryContext ctx) throws QueryException {
+    Eval e = start();
+    for(final Clause cls : clauses.subList(0, parallel)) e = cls.eval(e);
+    if(!e.next(ctx)) return Empty.SEQ;
+    // lazy global variables must not be evaluated by several threads
+    for(final StaticVar sv : statics) sv.value(ctx);
+
+    final For fr = (For) clauses.get(parallel);
+    final List<Clause> cls = clauses.subList(parallel + 1, clauses.size());
+    final Value seq = ctx.value(fr.expr);
+    final long n = seq.size(), chunk = Math.max(1, n / (ctx.threads() * 4));
+    final ArrayList<QueryTask<Value>> tasks = new ArrayList<QueryTask<Value>>();
+    for(long i = 0; i < n; i += chunk) {
+      final long s = i, l = Math.min(n, i + chunk);
+      tasks.add(new QueryTask<Value>() {
+        @Override
+        public Value eval(final QueryContext qc) throws QueryException {
+          // bind the items of the current chunk
+          Eval ev = new Eval() {
+            /** Current position. */
+            private long p = s;
+            @Override
+            public boolean next(final QueryContext c) throws QueryException {
+              if(p == l) return false;
+              c.set(fr.var, seq.itemAt(p++), fr.info);
+              if(fr.pos != null) c.set(fr.pos, Int.get(p), fr.info);
+              return true;
+            }
+          };
+          for(final Clause cl : cls) ev = cl.eval(ev);
+          final ValueBuilder vb = new ValueBuilder();
+          while(ev.next(qc)) vb.add(qc.value(ret));
+          return vb.value();
+        }
+      });
+    }
+
+    final ValueBuilder vb = new ValueBuilder();
+    for(final Value v : ctx.parallel(tasks)) vb.add(v);
+    return vb.value();
+  }
+
   @Override
   public Expr compile(final QueryContext ctx, final VarScope scp) throws QueryException {
+    forkJoin = ctx.forkJoin;
     int i = 0;
     try {
       for(final Clause c : clauses) {
@@ -94,7 +178,9 @@ public final class GFLWOR extends ParseExpr {
     } catch(final QueryException qe) {
       clauseError(qe, i);
     }
-    return optimize(ctx, scp);
+    final Expr ex = optimize(ctx, scp);
+    if(parallel != -1) ctx.compInfo(QueryText.OPTPARALLEL, clauses.get(parallel));
+    return ex;
   }
 
   @Override
@@ -221,13 +307,84 @@ public final class GFLWOR extends ParseExpr {
 
     type = SeqType.get(ret.type().type, size);
 
-    if(clauses.getFirst() instanceof Where) {
-      // where A <...> return B  ===>  if(A) then <...> return B else ()
-      final Where wh = (Where) clauses.removeFirst();
-      return new If(info, wh.pred, clauses.isEmpty() ? ret : this, Empty.SEQ);
+    // where A <...> return B  ===>  if(A) then <...> return B else ()
+    final Where wh = clauses.getFirst() instanceof Where ?
+      (Where) clauses.removeFirst() : null;
+    parallel = forkJoin && !clauses.isEmpty() ? forkJoin() : -1;
+    return wh == null ? this :
+      new If(info, wh.pred, clauses.isEmpty() ? ret : this, Empty.SEQ);
+  }
+
+  /**
+   * Returns the index of the first for clause if its iterations can be evaluated in
+   * parallel threads. This is the case if the clause is only preceded by let and
+   * where clauses and only followed by for, let and where clauses, and if the
+   * subsequent expressions perform no updates and contain no stateful expressions.
+   * Referenced global variables are collected in {@link #statics}.
+   * @return index, or {@code -1}
+   */
+  private int forkJoin() {
+    int p = 0;
+    for(final Clause cl : clauses) {
+      if(cl instanceof For) break;
+      if(!(cl instanceof Let || cl instanceof Where)) return -1;
+      p++;
+    }
+    if(p == clauses.size()) return -1;
+    final For fr = (For) clauses.get(p);
+    if(fr.empty || fr.score != null) return -1;
+
+    final List<Clause> cls = clauses.subList(p + 1, clauses.size());
+    for(final Clause cl : cls) {
+      if(!(cl instanceof For || cl instanceof Let || cl instanceof Where) ||
+          cl.has(Flag.UPD)) return -1;
     }
+    if(ret.has(Flag.UPD)) return -1;
+
+    final ArrayList<StaticVar> vars = new ArrayList<StaticVar>();
+    final IdentityHashMap<Scope, Object> funcs = new IdentityHashMap<Scope, Object>();
+    final ASTVisitor visitor = new ASTVisitor() {
+      @Override
+      public boolean staticVar(final StaticVar var) {
+        if(!vars.contains(var)) vars.add(var);
+        return true;
+      }
+
+      @Override
+      public boolean staticFuncCall(final StaticFuncCall call) {
+        return func(call.func());
+      }
+
+      @Override
+      public boolean inlineFunc(final Scope sub) {
+        return func(sub);
+      }
 
-    return this;
+      @Override
+      public boolean funcItem(final FuncItem func) {
+        return func(func);
+      }
+
+      @Override
+      public boolean stateful() {
+        return false;
+      }
+
+      /**
+       * Visits a scope.
+       * @param scp scope
+       * @return if more expressions should be visited
+       */
+      private boolean func(final Scope scp) {
+        if(funcs.containsKey(scp)) return true;
+        funcs.put(scp, null);
+        return scp.visit(this);
+      }
+    };
+    for(final Clause cl : cls) if(!cl.accept(visitor)) return -1;
+    if(!ret.accept(visitor)) return -1;
+    statics = vars.toArray(new StaticVar[vars.size()]);
+    return p;
   }
 
   /**
@@ -632,7 +789,11 @@ public final class GFLWOR extends ParseExpr {
   public Expr copy(final QueryContext ctx, final VarScope scp, final IntObjMap<Var> vs) {
     final LinkedList<Clause> cls = new LinkedList<Clause>();
     for(final Clause cl : clauses) cls.add(cl.copy(ctx, scp, vs));
-    return copyType(new GFLWOR(info, cls, ret.copy(ctx, scp, vs)));
+    final GFLWOR fl = new GFLWOR(info, cls, ret.copy(ctx, scp, vs));
+    fl.forkJoin = forkJoin;
+    fl.parallel = parallel;
+    fl.statics = statics;
+    return copyType(fl);
   }
 
   /**
@@ -654,6 +815,7 @@ public final class GFLWOR extends ParseExpr {
   @Override
   public void plan(final FElem plan) {
     final FElem e = planElem();
+    if(parallel != -1) e.add(planAttr(Token.token(QueryText.PARALLEL), Token.TRUE));
     for(final Clause cl : clauses) cl.plan(e);
     ret.plan(e);
     plan.add(e);
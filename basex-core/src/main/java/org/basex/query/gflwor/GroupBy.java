@@ -117,6 +117,13 @@ public final class GroupBy extends GFLWOR.Clause {
        * @throws QueryException query exception
        */
       private Group[] init(final QueryContext ctx) throws QueryException {
+        // single integer or double key: group by primitive values
+        if(specs.length == 1 && specs[0].coll == null) {
+          final Type type = specs[0].expr.type().type;
+          if(type.instanceOf(AtomType.ITR) || type == AtomType.DBL)
+            return init(ctx, type == AtomType.DBL);
+        }
+
         final ArrayList<Group> grps = new ArrayList<Group>();
         final IntObjMap<Group> map = new IntObjMap<Group>();
         final Collation[] colls = new Collation[nonOcc];
@@ -153,10 +160,7 @@ public final class GroupBy extends GFLWOR.Clause {
 
           if(grp == null) {
             // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[preExpr.length];
-            for(int i = 0; i < ngs.length; i++) ngs[i] = new ValueBuilder();
-            grp = new Group(key, ngs);
-            grps.add(grp);
+            grp = group(key, grps);
 
             // insert the group into the hash table
             if(fst == null) {
@@ -175,6 +179,73 @@ public final class GroupBy extends GFLWOR.Clause {
         // we're finished, copy the array so the list can be garbage-collected
         return grps.toArray(new Group[grps.size()]);
       }
+
+      /**
+       * Builds up the groups for a single grouping key without collation, whose values
+       * are statically known to be integers or doubles. The groups are looked up by the
+       * primitive values of the keys, so no key arrays need to be created and compared.
+       * @param ctx query context
+       * @param dbl double keys
+       * @return groups
+       * @throws QueryException query exception
+       */
+      private Group[] init(final QueryContext ctx, final boolean dbl) throws QueryException {
+        final Spec spec = specs[0];
+        final ArrayList<Group> grps = new ArrayList<Group>();
+        // groups of the primitive keys and of unsigned longs exceeding the range of longs,
+        // ordered by the ids of their keys
+        final LongSet keys = new LongSet();
+        final TokenSet big = new TokenSet();
+        final ArrayList<Group> kgrps = new ArrayList<Group>(), bgrps = new ArrayList<Group>();
+        Group empty = null;
+
+        while(sub.next(ctx)) {
+          final Item ki = spec.item(ctx, info),
+              atom = ki == null ? null : StandardFunc.atom(ki, info);
+          ctx.set(spec.var, atom == null ? Empty.SEQ : atom, info);
+
+          final Group grp;
+          if(atom == null) {
+            if(empty == null) empty = group(new Item[1], grps);
+            grp = empty;
+          } else {
+            final int id;
+            final ArrayList<Group> list;
+            if(dbl) {
+              // positive and negative zero are equal, NaN values are equal to each other
+              final double d = atom.dbl(info);
+              id = keys.put(d == 0 ? 0 : Double.doubleToLongBits(d));
+              list = kgrps;
+            } else if(Int.fits(atom, info)) {
+              id = keys.put(atom.itr(info));
+              list = kgrps;
+            } else {
+              id = big.put(atom.string(info));
+              list = bgrps;
+            }
+            if(id > list.size()) list.add(group(new Item[] { atom }, grps));
+            grp = list.get(id - 1);
+          }
+
+          // add values of non-grouping variables to the group
+          for(int j = 0; j < preExpr.length; j++) grp.ngv[j].add(preExpr[j].value(ctx));
+        }
+        return grps.toArray(new Group[grps.size()]);
+      }
+
+      /**
+       * Creates a new group and adds it to the list of groups.
+       * @param key grouping key
+       * @param grps list of groups
+       * @return group
+       */
+      private Group group(final Item[] key, final ArrayList<Group> grps) {
+        final ValueBuilder[] ngs = new ValueBuilder[preExpr.length];
+        for(int i = 0; i < ngs.length; i++) ngs[i] = new ValueBuilder();
+        final Group grp = new Group(key, ngs);
+        grps.add(grp);
+        return grp;
+      }
     };
   }
 
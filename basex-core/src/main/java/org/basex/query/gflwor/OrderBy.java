@@ -2,20 +2,24 @@ package org.basex.query.gflwor;
 
 import static org.basex.query.QueryText.*;
 
+import java.io.*;
 import java.util.*;
 import java.util.List;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.gflwor.GFLWOR.Eval;
+import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
-
+import org.basex.util.list.*;
 
 /**
  * FLWOR {@code order by}-expression.
@@ -43,18 +47,55 @@ public final class OrderBy extends GFLWOR.Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns an evaluator for the first tuples in the sorted order. If the number of tuples
+   * is limited, only the best tuples are kept in a bounded heap.
+   * @param sub wrapped evaluator
+   * @param limit maximum number of returned tuples
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final int limit) {
     return new Eval() {
-      /** Sorted output tuples. */
+      /** Cached output tuples. */
       private Value[][] tpls;
-      /** Permutation of the values. */
-      private Integer[] perm;
+      /** Permutation of the tuples ({@code null}: tuples are already sorted). */
+      private int[] perm;
+      /** External sorter ({@code null}: permutation is used). */
+      private ExternalSort sorter;
+      /** Spillable columns with single-item tuples ({@code null}: tuples are used). */
+      private SpillBuilder[] cols;
       /** Current position. */
       int pos;
       @Override
       public boolean next(final QueryContext ctx) throws QueryException {
         if(tpls == null) sort(ctx);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
+        final int p;
+        if(sorter != null) {
+          try {
+            p = sorter.next();
+          } catch(final IOException ex) {
+            throw Err.BASX_SWAP.get(info, ex);
+          }
+          if(p == -1) {
+            // release the sorter and the columns before the query is closed
+            sorter.close();
+            ctx.release(sorter);
+            sorter = null;
+            close();
+            tpls = new Value[0][];
+            return false;
+          }
+          if(cols != null) {
+            for(int i = 0; i < refs.length; i++) ctx.set(refs[i].var, cols[i].get(p), info);
+            return true;
+          }
+        } else {
+          if(pos == tpls.length) return false;
+          p = perm == null ? pos++ : perm[pos++];
+        }
         final Value[] tuple = tpls[p];
         // free the space occupied by the tuple
         tpls[p] = null;
@@ -68,22 +109,101 @@ public final class OrderBy extends GFLWOR.Clause {
        * @throws QueryException evaluation exception
        */
       private void sort(final QueryContext ctx) throws QueryException {
-        // keys are stored at odd positions, values at even ones
+        // normalized keys can be compared if the types of all keys are known
+        final int kl = keys.length;
+        final int[] kinds = new int[kl];
+        boolean norm = true;
+        for(int k = 0; k < kl; k++) {
+          kinds[k] = keys[k].kind();
+          norm &= kinds[k] != 0;
+        }
+        if(limit != Integer.MAX_VALUE) {
+          topk(ctx, norm ? kinds : null);
+        } else if(norm) {
+          sortKeys(ctx, kinds);
+        } else {
+          sortItems(ctx);
+        }
+      }
+
+      /**
+       * Sorts the tuples by their normalized keys.
+       * @param ctx query context
+       * @param kinds kinds of the normalized keys
+       * @throws QueryException evaluation exception
+       */
+      private void sortKeys(final QueryContext ctx, final int[] kinds) throws QueryException {
+        final long spill = ctx.context.options.get(MainOptions.SPILLSIZE);
+        final ExternalSort es = new ExternalSort(spill);
+        // if a memory budget is assigned, single items are cached in spillable columns
+        if(spill > 0) {
+          cols = new SpillBuilder[refs.length];
+          for(int i = 0; i < refs.length; i++) cols[i] = ctx.spill();
+        }
+        final ArrayList<Value[]> tuples = new ArrayList<Value[]>();
+        final ByteList key = new ByteList();
+        boolean ok = false;
+        try {
+          for(int id = 0; sub.next(ctx); id++) {
+            es.add(key(ctx, kinds, key), id);
+            final Value[] vals = values(ctx);
+            if(cols != null) {
+              boolean items = true;
+              for(final Value v : vals) items &= v instanceof Item;
+              if(items) {
+                for(int i = 0; i < vals.length; i++) cols[i].add((Item) vals[i]);
+                continue;
+              }
+              // switch to tuples if a value is no single item
+              for(int t = 0; t < id; t++) {
+                final Value[] tpl = new Value[refs.length];
+                for(int i = 0; i < refs.length; i++) tpl[i] = cols[i].get(t);
+                tuples.add(tpl);
+              }
+              close();
+            }
+            tuples.add(vals);
+          }
+          ok = true;
+        } catch(final IOException ex) {
+          throw Err.BASX_SWAP.get(info, ex);
+        } finally {
+          if(!ok) {
+            es.close();
+            close();
+          }
+        }
+        // sorters and columns with temporary files will be closed with the query context
+        if(es.swapped()) ctx.register(es);
+        sorter = es;
+        tpls = tuples.toArray(new Value[tuples.size()][]);
+      }
+
+      /**
+       * Closes the spillable columns.
+       */
+      private void close() {
+        if(cols == null) return;
+        for(final SpillBuilder sb : cols) sb.close();
+        cols = null;
+      }
+
+      /**
+       * Sorts the tuples by comparing their keys.
+       * @param ctx query context
+       * @throws QueryException evaluation exception
+       */
+      private void sortItems(final QueryContext ctx) throws QueryException {
+        // keys are stored at even positions, values at odd ones
         List<Value[]> tuples = new ArrayList<Value[]>();
         while(sub.next(ctx)) {
-          final Item[] key = new Item[keys.length];
-          for(int i = 0; i < keys.length; i++)
-            key[i] = keys[i].expr.item(ctx, keys[i].info);
-          tuples.add(key);
-
-          final Value[] vals = new Value[refs.length];
-          for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(ctx);
-          tuples.add(vals);
+          tuples.add(items(ctx));
+          tuples.add(values(ctx));
         }
 
         final int len = tuples.size() >>> 1;
         final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
+        perm = new int[len];
         tpls = new Value[len][];
         for(int i = 0; i < len; i++) {
           perm[i] = i;
@@ -92,38 +212,147 @@ public final class OrderBy extends GFLWOR.Clause {
         }
         // be nice to the garbage collector
         tuples = null;
-        try {
-          Arrays.sort(perm, new Comparator<Integer>() {
-            @Override
-            public int compare(final Integer x, final Integer y) {
-              try {
-                final Item[] a = ks[x], b = ks[y];
-                for(int k = 0; k < keys.length; k++) {
-                  final Key or = keys[k];
-                  Item m = a[k], n = b[k];
-                  if(m == Dbl.NAN || m == Flt.NAN) m = null;
-                  if(n == Dbl.NAN || n == Flt.NAN) n = null;
-                  if(m != null && n != null && !m.comparable(n))
-                    throw Err.castError(or.info, m.type, n);
-
-                  final int c = m == null
-                      ? n == null ? 0                 : or.least ? -1 : 1
-                      : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
-                  if(c != 0) return or.desc ? -c : c;
-                }
-                return 0;
-              } catch(final QueryException ex) {
-                throw new QueryRTException(ex);
-              }
+        OrderBy.this.sort(ks, perm, new int[len], 0, len);
+      }
+
+      /**
+       * Keeps the best tuples in a bounded heap.
+       * @param ctx query context
+       * @param kinds kinds of the normalized keys ({@code null}: compare items)
+       * @throws QueryException evaluation exception
+       */
+      private void topk(final QueryContext ctx, final int[] kinds) throws QueryException {
+        final boolean norm = kinds != null;
+        // the worst tuple is stored at the top of the heap
+        final MinHeap<Object[], Value[]> heap = new MinHeap<Object[], Value[]>(
+            Math.min(limit, Array.CAPACITY) + 1, new Comparator<Object[]>() {
+          @Override
+          public int compare(final Object[] a, final Object[] b) {
+            try {
+              final int c = norm ? Token.diff((byte[]) a[0], (byte[]) b[0]) :
+                OrderBy.this.compare((Item[]) a[0], (Item[]) b[0]);
+              return c != 0 ? -c : (Integer) b[1] - (Integer) a[1];
+            } catch(final QueryException ex) {
+              throw new QueryRTException(ex);
             }
-          });
+          }
+        });
+
+        final ByteList key = norm ? new ByteList() : null;
+        try {
+          for(int id = 0; sub.next(ctx); id++) {
+            final Object k = norm ? key(ctx, kinds, key) : items(ctx);
+            heap.insert(new Object[] { k, id }, values(ctx));
+            if(heap.size() > limit) heap.removeMin();
+          }
         } catch(final QueryRTException ex) {
           throw ex.getCause();
         }
+        tpls = new Value[heap.size()][];
+        for(int i = tpls.length; --i >= 0;) tpls[i] = heap.removeMin();
       }
     };
   }
 
+  /**
+   * Returns the sort keys of the current tuple.
+   * @param ctx query context
+   * @return keys
+   * @throws QueryException query exception
+   */
+  Item[] items(final QueryContext ctx) throws QueryException {
+    final Item[] key = new Item[keys.length];
+    for(int i = 0; i < keys.length; i++) key[i] = keys[i].expr.item(ctx, keys[i].info);
+    return key;
+  }
+
+  /**
+   * Returns the normalized sort key of the current tuple.
+   * @param ctx query context
+   * @param kinds kinds of the normalized keys
+   * @param key buffer for the key
+   * @return key
+   * @throws QueryException query exception
+   */
+  byte[] key(final QueryContext ctx, final int[] kinds, final ByteList key)
+      throws QueryException {
+    key.reset();
+    for(int k = 0; k < keys.length; k++) {
+      final Key or = keys[k];
+      or.normalize(or.expr.item(ctx, or.info), kinds[k], key);
+    }
+    return key.toArray();
+  }
+
+  /**
+   * Returns the values of the current tuple.
+   * @param ctx query context
+   * @return values
+   * @throws QueryException query exception
+   */
+  Value[] values(final QueryContext ctx) throws QueryException {
+    final Value[] vals = new Value[refs.length];
+    for(int i = 0; i < refs.length; i++) vals[i] = refs[i].value(ctx);
+    return vals;
+  }
+
+  /**
+   * Compares the keys of two tuples.
+   * @param a keys of the first tuple
+   * @param b keys of the second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  int compare(final Item[] a, final Item[] b) throws QueryException {
+    for(int k = 0; k < keys.length; k++) {
+      final Key or = keys[k];
+      Item m = a[k], n = b[k];
+      if(m == Dbl.NAN || m == Flt.NAN) m = null;
+      if(n == Dbl.NAN || n == Flt.NAN) n = null;
+      if(m != null && n != null && !m.comparable(n))
+        throw Err.castError(or.info, m.type, n);
+
+      final int c = m == null
+          ? n == null ? 0                 : or.least ? -1 : 1
+          : n == null ? or.least ? 1 : -1 : m.diff(n, or.coll, or.info);
+      if(c != 0) return or.desc ? -c : c;
+    }
+    return 0;
+  }
+
+  /**
+   * Sorts the specified range of a permutation with a stable merge sort.
+   * @param ks keys
+   * @param perm permutation
+   * @param tmp temporary array
+   * @param s start position
+   * @param e end position
+   * @throws QueryException query exception
+   */
+  private void sort(final Item[][] ks, final int[] perm, final int[] tmp, final int s,
+      final int e) throws QueryException {
+    if(e - s < 8) {
+      // insertion sort for small ranges
+      for(int i = s + 1; i < e; i++) {
+        final int p = perm[i];
+        int j = i;
+        for(; j > s && compare(ks[perm[j - 1]], ks[p]) > 0; j--) perm[j] = perm[j - 1];
+        perm[j] = p;
+      }
+      return;
+    }
+    final int m = s + e >>> 1;
+    sort(ks, perm, tmp, s, m);
+    sort(ks, perm, tmp, m, e);
+    if(compare(ks[perm[m - 1]], ks[perm[m]]) <= 0) return;
+
+    System.arraycopy(perm, s, tmp, s, e - s);
+    for(int i = s, l = s, r = m; i < e; i++) {
+      perm[i] = r == e || l < m && compare(ks[tmp[l]], ks[tmp[r]]) <= 0 ?
+        tmp[l++] : tmp[r++];
+    }
+  }
+
   @Override
   public void plan(final FElem plan) {
     final FElem e = planElem();
@@ -233,6 +462,13 @@ public final class OrderBy extends GFLWOR.Clause {
    * @author Leo Woerteler
    */
   public static final class Key extends Single {
+    /** Normalized representation of integers. */
+    static final int INTEGER = 1;
+    /** Normalized representation of doubles and floats. */
+    static final int NUMBER = 2;
+    /** Normalized representation of strings. */
+    static final int STRING = 3;
+
     /** Descending order flag. */
     final boolean desc;
     /** Position of empty sort keys. */
@@ -256,6 +492,66 @@ public final class OrderBy extends GFLWOR.Clause {
       coll = cl;
     }
 
+    /**
+     * Returns the kind of normalized representation that can be computed for this key.
+     * @return kind ({@code 0}: none; {@link #INTEGER}, {@link #NUMBER}, {@link #STRING})
+     */
+    int kind() {
+      final Type t = expr.type().type;
+      return t.instanceOf(AtomType.ITR) ? INTEGER : t == AtomType.DBL || t == AtomType.FLT ?
+        NUMBER : t.isStringOrUntyped() ? STRING : 0;
+    }
+
+    /**
+     * Appends a byte-comparable representation of a key. The unsigned byte order of two
+     * representations is identical to the order defined by this key.
+     * @param it key ({@code null} if empty)
+     * @param kind kind of the representation, as returned by {@link #kind}
+     * @param key buffer for the key
+     * @throws QueryException query exception
+     */
+    void normalize(final Item it, final int kind, final ByteList key) throws QueryException {
+      final double d = it != null && kind == NUMBER ? it.dbl(info) : 0;
+      // empty keys and NaN values are ordered before or after all other values
+      if(it == null || Double.isNaN(d)) {
+        add(least ? 0 : 2, key);
+        return;
+      }
+      add(1, key);
+      if(kind == STRING) {
+        // escape 0 and 1 bytes, terminate the string with 0
+        final byte[] str = coll == null ? it.string(info) : coll.key(it.string(info));
+        for(final byte b : str) {
+          if(b == 0 || b == 1) {
+            add(1, key);
+            add(b + 1, key);
+          } else {
+            add(b, key);
+          }
+        }
+        add(0, key);
+      } else {
+        // flip the sign bit, and all other bits of negative doubles
+        final long l;
+        if(kind == INTEGER) {
+          l = it.itr(info) ^ Long.MIN_VALUE;
+        } else {
+          final long b = Double.doubleToLongBits(d == 0 ? 0 : d);
+          l = b < 0 ? ~b : b ^ Long.MIN_VALUE;
+        }
+        for(int i = 56; i >= 0; i -= 8) add((int) (l >>> i), key);
+      }
+    }
+
+    /**
+     * Adds a byte to a normalized key. All bits are inverted for descending keys.
+     * @param b byte
+     * @param key buffer for the key
+     */
+    private void add(final int b, final ByteList key) {
+      key.add(desc ? ~b : b);
+    }
+
     @Override
     public Key copy(final QueryContext ctx, final VarScope scp, final IntObjMap<Var> vs) {
       return new Key(info, expr.copy(ctx, scp, vs), desc, least, coll);
@@ -8,17 +8,24 @@ import org.basex.query.value.node.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class can be used to build new node sequences.
+ * As long as all nodes are {@link DBNode} references to the same database, only their
+ * pre values are stored, and node instances are only created when they are requested.
  * At the same time, it serves as an iterator.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
 public final class NodeSeqBuilder extends AxisIter {
-  /** Node container. */
-  public ANode[] nodes;
+  /** Node container ({@code null} if nodes are stored as pre values). */
+  private ANode[] nodes;
+  /** Pre values ({@code null} if nodes are stored as node instances). */
+  private int[] pres;
+  /** Data reference of pre values. */
+  private Data data;
   /** Number of nodes. */
   private int size;
   /** Current iterator position. */
@@ -32,7 +39,6 @@ public final class NodeSeqBuilder extends AxisIter {
    * Constructor.
    */
   public NodeSeqBuilder() {
-    nodes = new ANode[1];
   }
 
   /**
@@ -45,6 +51,18 @@ public final class NodeSeqBuilder extends AxisIter {
     size = s;
   }
 
+  /**
+   * Lightweight constructor, assigning the specified array of sorted pre values.
+   * @param d data reference
+   * @param p pre values
+   * @param s size
+   */
+  public NodeSeqBuilder(final Data d, final int[] p, final int s) {
+    data = d;
+    pres = p;
+    size = s;
+  }
+
   /**
    * Checks all nodes for potential duplicates and their orderedness.
    * @return self reference
@@ -60,7 +78,7 @@ public final class NodeSeqBuilder extends AxisIter {
    * @return node
    */
   public ANode get(final int i) {
-    return nodes[i];
+    return pres != null ? new DBNode(data, pres[i]) : nodes[i];
   }
 
   /**
@@ -68,7 +86,7 @@ public final class NodeSeqBuilder extends AxisIter {
    * @param p deletion position
    */
   public void delete(final int p) {
-    Array.move(nodes, p + 1, -1, --size - p);
+    Array.move(pres != null ? pres : nodes, p + 1, -1, --size - p);
   }
 
   /**
@@ -76,11 +94,75 @@ public final class NodeSeqBuilder extends AxisIter {
    * @param n node to be added
    */
   public void add(final ANode n) {
-    if(size == nodes.length) nodes = Array.copy(nodes, new ANode[Array.newSize(size)]);
+    if(size == 0 && nodes == null && compact(n)) {
+      data = n.data();
+      if(pres == null) pres = new int[Array.CAPACITY];
+    }
+    if(pres != null) {
+      if(compact(n)) {
+        final int pre = ((DBNode) n).pre;
+        if(size == pres.length) pres = Arrays.copyOf(pres, Array.newSize(size));
+        if(check && !sort && size != 0) sort = pres[size - 1] > pre;
+        pres[size++] = pre;
+        return;
+      }
+      inflate();
+    }
+    if(nodes == null) nodes = new ANode[Array.CAPACITY];
+    else if(size == nodes.length) nodes = Array.copy(nodes, new ANode[Array.newSize(size)]);
     if(check && !sort && size != 0) sort = nodes[size - 1].diff(n) > 0;
     nodes[size++] = n;
   }
 
+  /**
+   * Adds the nodes of the specified builder, which must be sorted and duplicate-free.
+   * @param nb node builder
+   */
+  public void add(final NodeSeqBuilder nb) {
+    final int s = nb.size;
+    if(s == 0) return;
+    if(nb.pres != null && nodes == null && (pres == null || data == nb.data)) {
+      // copy pre values
+      if(pres == null) {
+        data = nb.data;
+        pres = new int[Math.max(Array.CAPACITY, s)];
+      } else if(size + s > pres.length) {
+        pres = Arrays.copyOf(pres, Math.max(Array.newSize(size), size + s));
+      }
+      if(check && !sort && size != 0) sort = pres[size - 1] > nb.pres[0];
+      System.arraycopy(nb.pres, 0, pres, size, s);
+      size += s;
+    } else {
+      for(int n = 0; n < s; n++) add(nb.get(n));
+    }
+  }
+
+  /**
+   * Assigns a node to the specified position.
+   * @param n node
+   * @param p position
+   */
+  public void set(final ANode n, final int p) {
+    if(pres != null) {
+      if(compact(n)) {
+        pres[p] = ((DBNode) n).pre;
+        return;
+      }
+      inflate();
+    }
+    nodes[p] = n;
+  }
+
+  /**
+   * Returns an array with all nodes.
+   * @return nodes
+   */
+  public ANode[] nodes() {
+    final ANode[] tmp = new ANode[size];
+    for(int n = 0; n < size; n++) tmp[n] = get(n);
+    return tmp;
+  }
+
   @Override
   public boolean reset() {
     pos = -1;
@@ -90,12 +172,12 @@ public final class NodeSeqBuilder extends AxisIter {
   @Override
   public ANode next() {
     if(check) sort(sort);
-    return ++pos < size ? nodes[pos] : null;
+    return ++pos < size ? get(pos) : null;
   }
 
   @Override
   public ANode get(final long i) {
-    return i < size ? nodes[(int) i] : null;
+    return i < size ? get((int) i) : null;
   }
 
   @Override
@@ -114,6 +196,14 @@ public final class NodeSeqBuilder extends AxisIter {
   @Override
   public Value value() {
     if(check) sort(sort);
+    if(pres != null) {
+      // return compact sequence if pre values are sorted and duplicate-free
+      int s = 0;
+      while(++s < size && pres[s - 1] < pres[s]);
+      if(s >= size) return DBNodeSeq.get(new IntList(Arrays.copyOf(pres, size)), data,
+          false, false);
+      inflate();
+    }
     return Seq.get(nodes, size, NodeType.NOD);
   }
 
@@ -124,13 +214,31 @@ public final class NodeSeqBuilder extends AxisIter {
    */
   public boolean dbnodes() {
     if(check) sort(sort);
+    if(pres != null) return size > 0;
 
-    final Data data = size > 0 ? nodes[0].data() : null;
-    if(data == null) return false;
-    for(int s = 1; s < size; ++s) if(data != nodes[s].data()) return false;
+    final Data d = size > 0 ? nodes[0].data() : null;
+    if(d == null) return false;
+    for(int s = 1; s < size; ++s) if(d != nodes[s].data()) return false;
     return true;
   }
 
+  /**
+   * Returns the data reference if all nodes are stored as pre values.
+   * @return data reference, or {@code null}
+   */
+  public Data compact() {
+    return pres != null ? data : null;
+  }
+
+  /**
+   * Returns a bitmap with the pre values of all nodes.
+   * Must only be called if {@link #compact()} returns a data reference.
+   * @return bitmap
+   */
+  public Bitmap bitmap() {
+    return Bitmap.get(pres, size);
+  }
+
   /**
    * Checks if the iterator contains a database node with the specified pre value.
    * @param n node to be found
@@ -140,7 +248,14 @@ public final class NodeSeqBuilder extends AxisIter {
   public int indexOf(final ANode n, final boolean db) {
     if(db) return n instanceof DBNode ?
         Math.max(binarySearch((DBNode) n, 0, size), -1) : -1;
-    for(int s = 0; s < size(); ++s) if(nodes[s].is(n)) return s;
+    if(pres != null) {
+      if(n instanceof DBNode && n.data() == data) {
+        final int pre = ((DBNode) n).pre;
+        for(int s = 0; s < size; ++s) if(pres[s] == pre) return s;
+      }
+      return -1;
+    }
+    for(int s = 0; s < size; ++s) if(nodes[s].is(n)) return s;
     return -1;
   }
 
@@ -154,11 +269,11 @@ public final class NodeSeqBuilder extends AxisIter {
    * @return position of the item or {@code -insertPosition - 1} if not found
    */
   public int binarySearch(final DBNode n, final int start, final int length) {
-    if(size == 0 || n.data != nodes[0].data()) return -start - 1;
+    if(size == 0 || n.data != (pres != null ? data : nodes[0].data())) return -start - 1;
     int l = start, r = start + length - 1;
     while(l <= r) {
       final int m = l + r >>> 1;
-      final int npre = ((DBNode) nodes[m]).pre;
+      final int npre = pres != null ? pres[m] : ((DBNode) nodes[m]).pre;
       if(npre == n.pre) return m;
       if(npre < n.pre) l = m + 1;
       else r = m - 1;
@@ -181,7 +296,15 @@ public final class NodeSeqBuilder extends AxisIter {
    */
   private void sort(final boolean force) {
     check = false;
-    if(size > 1) {
+    if(size > 1 && pres != null) {
+      // sort pre values and remove duplicates
+      if(force) Arrays.sort(pres, 0, size);
+      int i = 1;
+      for(int j = 1; j < size; ++j) {
+        if(pres[j] != pres[i - 1]) pres[i++] = pres[j];
+      }
+      size = i;
+    } else if(size > 1) {
       // sort arrays and remove duplicates
       if(force) sort(0, size);
 
@@ -287,9 +410,29 @@ public final class NodeSeqBuilder extends AxisIter {
     nodes[b] = tmp;
   }
 
+  /**
+   * Checks if the specified node can be stored as pre value.
+   * @param n node
+   * @return result of check
+   */
+  private boolean compact(final ANode n) {
+    return n.getClass() == DBNode.class && n.score() == 0 &&
+        (data == null || n.data() == data);
+  }
+
+  /**
+   * Converts the stored pre values to node instances.
+   */
+  private void inflate() {
+    final ANode[] tmp = new ANode[Math.max(Array.CAPACITY, pres.length)];
+    for(int n = 0; n < size; n++) tmp[n] = new DBNode(data, pres[n]);
+    nodes = tmp;
+    pres = null;
+  }
+
   @Override
   public String toString() {
-    return Util.className(this) + Arrays.toString(Arrays.copyOf(nodes, size));
+    return Util.className(this) + Arrays.toString(nodes());
   }
 
   /**
@@ -297,7 +440,9 @@ public final class NodeSeqBuilder extends AxisIter {
    * @return copy
    */
   public NodeSeqBuilder copy() {
-    final NodeSeqBuilder b = new NodeSeqBuilder(nodes.clone(), size);
+    final NodeSeqBuilder b = new NodeSeqBuilder(nodes == null ? null : nodes.clone(), size);
+    if(pres != null) b.pres = pres.clone();
+    b.data = data;
     b.pos = pos;
     b.sort = sort;
     b.check = check;
@@ -0,0 +1,371 @@
+package org.basex.query.iter;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.io.random.*;
+import org.basex.io.serial.*;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+
+/**
+ * This class can be used to build large sequences.
+ * Database nodes of a single database, integers and strings are stored in a compact
+ * primitive representation (pre values, longs and byte slabs). If the specified
+ * main memory budget is exceeded, the cached entries are swapped to a temporary file.
+ * All items can still be randomly accessed via {@link #get(long)}.
+ * At the same time, the class serves as an iterator and as a query result.
+ * Builders with temporary files are registered in the query context, and they will be
+ * closed with the context if they have not been closed before.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class SpillBuilder extends ValueIter implements Result {
+  /** Item encodings. */
+  private enum Mode {
+    /** No items.   */ NONE,
+    /** Nodes.      */ NODES,
+    /** Integers.   */ INTS,
+    /** Strings.    */ STRS,
+    /** Any items.  */ ITEMS
+  }
+
+  /** Query context. */
+  private final QueryContext ctx;
+  /** Maximum number of bytes to be kept in main memory ({@code 0}: no limit). */
+  private long limit;
+  /** Current encoding. */
+  private Mode mode = Mode.NONE;
+  /** Total number of items. */
+  private long size;
+  /** Number of items that have been swapped to disk. */
+  private long swapped;
+  /** Current iterator position. */
+  private long pos = -1;
+
+  /** Number of entries in main memory. */
+  private int mem;
+  /** Estimated number of bytes in main memory. */
+  private long bytes;
+  /** Data reference of nodes. */
+  private Data data;
+  /** Pre values. */
+  private int[] pres;
+  /** Integers. */
+  private long[] ints;
+  /** Byte slab with string entries. */
+  private byte[] slab;
+  /** Offsets of string entries in the byte slab. */
+  private int[] offsets;
+  /** Items that cannot be stored in a compact representation. */
+  private Item[] items;
+
+  /** Temporary file with swapped entries. */
+  private IOFile file;
+  /** Swapped entries. */
+  private DataAccess entries;
+  /** Offsets of swapped string entries. */
+  private DataAccess index;
+
+  /**
+   * Constructor.
+   * @param l maximum number of bytes to be kept in main memory ({@code 0}: no limit)
+   * @param c query context
+   */
+  public SpillBuilder(final long l, final QueryContext c) {
+    limit = l;
+    ctx = c;
+  }
+
+  /**
+   * Adds the items of an iterator.
+   * @param iter iterator
+   * @return self reference
+   * @throws QueryException query exception
+   */
+  public SpillBuilder add(final Iter iter) throws QueryException {
+    for(Item it; (it = iter.next()) != null;) add(it);
+    return this;
+  }
+
+  /**
+   * Adds a single item.
+   * @param it item to be added
+   * @return self reference
+   */
+  public SpillBuilder add(final Item it) {
+    final Mode m = mode(it);
+    if(mode == Mode.NONE) {
+      mode = m;
+      if(m == Mode.NODES) data = ((DBNode) it).data;
+    } else if(mode != Mode.ITEMS && (m != mode ||
+        m == Mode.NODES && ((DBNode) it).data != data)) {
+      items();
+    }
+
+    switch(mode) {
+      case NODES:
+        if(pres == null || mem == pres.length) pres = extend(pres);
+        pres[mem] = ((DBNode) it).pre;
+        bytes += 4;
+        break;
+      case INTS:
+        if(ints == null || mem == ints.length) ints = extend(ints);
+        ints[mem] = ((Int) it).itr();
+        bytes += 8;
+        break;
+      case STRS:
+        final byte[] token = ((Str) it).string();
+        if(offsets == null || mem + 1 == offsets.length) offsets = extend(offsets);
+        final int off = offsets[mem], end = off + token.length;
+        if(slab == null) slab = new byte[Math.max(Array.CAPACITY, end)];
+        else if(end > slab.length) slab = Arrays.copyOf(slab,
+            Math.max(Array.newSize(slab.length), end));
+        System.arraycopy(token, 0, slab, off, token.length);
+        offsets[mem + 1] = end;
+        bytes += token.length + 4;
+        break;
+      default:
+        if(items == null) items = new Item[Array.CAPACITY];
+        else if(mem == items.length) items = extend(items);
+        items[mem] = it;
+        break;
+    }
+    ++mem;
+    ++size;
+    if(limit > 0 && bytes > limit) swap();
+    return this;
+  }
+
+  @Override
+  public Item get(final long i) {
+    if(i >= swapped) {
+      final int m = (int) (i - swapped);
+      switch(mode) {
+        case NODES: return new DBNode(data, pres[m]);
+        case INTS:  return Int.get(ints[m]);
+        case STRS:  return Str.get(Arrays.copyOfRange(slab, offsets[m],
+            offsets[m + 1]));
+        default:    return items[m];
+      }
+    }
+    switch(mode) {
+      case NODES: return new DBNode(data, entries.read4(i << 2));
+      case INTS:  return Int.get((long) entries.read4(i << 3) << 32 |
+          entries.read4() & 0xFFFFFFFFL);
+      default:    return Str.get(entries.readToken(index.read5(i * 5)));
+    }
+  }
+
+  @Override
+  public boolean sameAs(final Result v) {
+    if(!(v instanceof ValueIter) || size != v.size()) return false;
+    final ValueIter vi = (ValueIter) v;
+    for(long i = 0; i < size; ++i) {
+      final Item it1 = get(i), it2 = vi.get(i);
+      if(it1.type != it2.type || !it1.sameAs(it2)) return false;
+    }
+    return true;
+  }
+
+  @Override
+  public void serialize(final Serializer ser) throws IOException {
+    for(long c = 0; c < size && !ser.finished(); ++c) ser.serialize(get(c));
+  }
+
+  @Override
+  public void serialize(final Serializer ser, final int n) throws IOException {
+    ser.serialize(get(n));
+  }
+
+  @Override
+  public ArrayOutput serialize() throws IOException {
+    final ArrayOutput ao = new ArrayOutput();
+    serialize(Serializer.get(ao));
+    return ao;
+  }
+
+  @Override
+  public Item next() {
+    return ++pos < size ? get(pos) : null;
+  }
+
+  @Override
+  public boolean reset() {
+    pos = -1;
+    return true;
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Returns the type of the cached items.
+   * @return type
+   */
+  public Type type() {
+    switch(mode) {
+      case NODES: return NodeType.NOD;
+      case INTS:  return AtomType.ITR;
+      case STRS:  return AtomType.STR;
+      default:    return AtomType.ITEM;
+    }
+  }
+
+  /**
+   * Checks if entries have been swapped to disk.
+   * @return result of check
+   */
+  public boolean swapped() {
+    return file != null;
+  }
+
+  /**
+   * Returns an iterator over the cached items. The builder will be closed as soon as
+   * the last item has been returned.
+   * @param rev reverse order
+   * @return iterator
+   */
+  public Iter iter(final boolean rev) {
+    return new Iter() {
+      long c;
+      @Override
+      public Item next() {
+        if(c < size) return SpillBuilder.this.get(rev ? size - ++c : c++);
+        close();
+        return null;
+      }
+    };
+  }
+
+  @Override
+  public Value value() {
+    if(mode == Mode.ITEMS) return Seq.get(items, mem);
+    return size == 0 ? Empty.SEQ : size == 1 ? get(0) : SpillSeq.get(this);
+  }
+
+  /**
+   * Closes the builder and deletes temporary files.
+   */
+  public void close() {
+    if(file == null) return;
+    entries.close();
+    if(index != null) index.close();
+    file.delete();
+    new IOFile(file.path() + IO.BASEXSUFFIX).delete();
+    file = null;
+    ctx.release(this);
+  }
+
+  @Override
+  public String toString() {
+    try {
+      return serialize().toString();
+    } catch(final IOException ex) {
+      throw Util.notExpected(ex);
+    }
+  }
+
+  /**
+   * Returns the compact encoding for the specified item.
+   * @param it item
+   * @return encoding
+   */
+  private static Mode mode(final Item it) {
+    if(it.getClass() == DBNode.class && it.score() == 0) return Mode.NODES;
+    if(it instanceof Int && it.type == AtomType.ITR) return Mode.INTS;
+    if(it instanceof Str && it.type == AtomType.STR) return Mode.STRS;
+    return Mode.ITEMS;
+  }
+
+  /**
+   * Converts all compactly stored entries to items.
+   * Swapped entries will be loaded into main memory.
+   */
+  private void items() {
+    final Item[] tmp = new Item[Math.max(Array.CAPACITY, Array.newSize((int) size))];
+    for(int i = 0; i < size; i++) tmp[i] = get(i);
+    close();
+    pres = null;
+    ints = null;
+    slab = null;
+    offsets = null;
+    items = tmp;
+    mem = (int) size;
+    swapped = 0;
+    bytes = 0;
+    mode = Mode.ITEMS;
+  }
+
+  /**
+   * Swaps the entries in main memory to disk.
+   */
+  private void swap() {
+    if(mode == Mode.ITEMS) return;
+    try {
+      if(file == null) {
+        file = new IOFile(File.createTempFile("spill", IO.BASEXSUFFIX));
+        entries = new DataAccess(file);
+        if(mode == Mode.STRS) index = new DataAccess(new IOFile(file.path() + IO.BASEXSUFFIX));
+        ctx.register(this);
+      }
+    } catch(final IOException ex) {
+      // keep entries in main memory if no temporary file can be created
+      Util.debug(ex);
+      limit = 0;
+      return;
+    }
+
+    entries.cursor(entries.length());
+    for(int m = 0; m < mem; m++) {
+      switch(mode) {
+        case NODES:
+          entries.write4(pres[m]);
+          break;
+        case INTS:
+          entries.write4((int) (ints[m] >>> 32));
+          entries.write4((int) ints[m]);
+          break;
+        default:
+          index.write5((swapped + m) * 5, entries.length());
+          entries.writeToken(entries.length(), Arrays.copyOfRange(slab,
+              offsets[m], offsets[m + 1]));
+          break;
+      }
+    }
+    swapped += mem;
+    mem = 0;
+    bytes = 0;
+  }
+
+  /**
+   * Doubles the size of an integer array.
+   * @param array array (can be {@code null})
+   * @return resulting array
+   */
+  private static int[] extend(final int[] array) {
+    return array == null ? new int[Array.CAPACITY] :
+      Arrays.copyOf(array, Array.newSize(array.length));
+  }
+
+  /**
+   * Doubles the size of a long array.
+   * @param array array (can be {@code null})
+   * @return resulting array
+   */
+  private static long[] extend(final long[] array) {
+    return array == null ? new long[Array.CAPACITY] :
+      Arrays.copyOf(array, Array.newSize(array.length));
+  }
+}
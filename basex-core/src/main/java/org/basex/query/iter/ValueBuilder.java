@@ -74,12 +74,12 @@ public final class ValueBuilder extends ValueIter implements Result {
 
   @Override
   public boolean sameAs(final Result v) {
-    if(!(v instanceof ValueBuilder)) return false;
+    if(!(v instanceof ValueIter) || size != v.size()) return false;
 
-    final ValueBuilder vb = (ValueBuilder) v;
-    if(size != vb.size) return false;
+    final ValueIter vi = (ValueIter) v;
     for(int i = 0; i < size; ++i) {
-      if(items[i].type != vb.items[i].type || !items[i].sameAs(vb.items[i])) return false;
+      final Item it = vi.get(i);
+      if(items[i].type != it.type || !items[i].sameAs(it)) return false;
     }
     return true;
   }
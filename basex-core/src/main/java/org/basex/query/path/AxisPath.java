@@ -45,7 +45,15 @@ public abstract class AxisPath extends Path {
     // evaluate number of results
     size = size(ctx);
     type = SeqType.get(steps[steps.length - 1].type().type, size);
-    return useIterator() ? new IterPath(info, root, steps, type, size) : this;
+
+    final int p = parallel(ctx);
+    if(p == -1) return useIterator() ? new IterPath(info, root, steps, type, size) : this;
+    // evaluate path in parallel
+    final CachedPath cp = this instanceof CachedPath ? (CachedPath) this :
+      copyType(new CachedPath(info, root, steps));
+    cp.parallel = p;
+    ctx.compInfo(OPTPARALLEL, cp);
+    return cp;
   }
 
   /**
@@ -72,6 +80,23 @@ public abstract class AxisPath extends Path {
     return true;
   }
 
+  /**
+   * Returns the index of the first step that can be evaluated in parallel threads.
+   * This is the first step with predicates, provided that its predicates are not
+   * positional and that all remaining steps can be evaluated in parallel.
+   * @param ctx query context (can be {@code null})
+   * @return index, or {@code -1} if the path will be evaluated sequentially
+   */
+  final int parallel(final QueryContext ctx) {
+    if(ctx == null || ctx.threads() < 2 || root == null) return -1;
+    final int sl = steps.length;
+    int s = 0;
+    while(s < sl && step(s).preds.length == 0) s++;
+    if(s == sl || step(s).has(Flag.FCS)) return -1;
+    for(int i = s; i < sl; i++) if(!steps[i].parallel()) return -1;
+    return s;
+  }
+
   @Override
   protected final Expr compilePath(final QueryContext ctx, final VarScope scp)
       throws QueryException {
@@ -30,7 +30,7 @@ final class AxisStep extends Step {
   @Override
   public NodeIter iter(final QueryContext ctx) throws QueryException {
     // evaluate step
-    final AxisIter ai = axis.iter(checkNode(ctx));
+    final AxisIter ai = iter(checkNode(ctx), ctx);
     final NodeSeqBuilder nc = new NodeSeqBuilder();
     for(ANode n; (n = ai.next()) != null;) {
       if(test.eq(n)) nc.add(n.finish());
@@ -42,12 +42,13 @@ final class AxisStep extends Step {
       ctx.pos = 1;
       int c = 0;
       for(int n = 0; n < nc.size(); ++n) {
-        ctx.value = nc.get(n);
+        final ANode node = nc.get(n);
+        ctx.value = node;
         final Item i = p.test(ctx, info);
         if(i != null) {
           // assign score value
-          nc.get(n).score(i.score());
-          nc.nodes[c++] = nc.get(n);
+          node.score(i.score());
+          nc.set(node, c++);
         }
         ctx.pos++;
       }
@@ -2,15 +2,20 @@ package org.basex.query.path;
 
 import static org.basex.query.util.Err.*;
 
+import java.util.*;
+
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.node.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * Axis path expression.
@@ -19,8 +24,13 @@ import org.basex.util.hash.*;
  * @author Christian Gruen
  */
 final class CachedPath extends AxisPath {
+  /** Minimum number of nodes evaluated by a parallel thread. */
+  private static final int CHUNK = 1 << 10;
+
   /** Flag for result caching. */
   private boolean cache;
+  /** Index of the first step evaluated in parallel ({@code -1}: sequential evaluation). */
+  int parallel = -1;
   /** Cached result. */
   private NodeSeqBuilder citer;
   /** Last visited item. */
@@ -38,6 +48,8 @@ final class CachedPath extends AxisPath {
 
   @Override
   public Expr optimize(final QueryContext ctx, final VarScope scp) throws QueryException {
+    // parallel evaluation will be enabled again when the path is finished
+    parallel = -1;
     final Expr e = super.optimize(ctx, scp);
     if(e != this) return e;
 
@@ -54,32 +66,40 @@ final class CachedPath extends AxisPath {
     final Value r = root != null ? ctx.value(root) : cv;
 
     try {
-      /* cache values if:
+      /* return cached values if:
        * - caching is desirable
-       * - the code is called for the first time
-       * - the value has changed and the underlying node is not the same
+       * - the code has been called before
+       * - the value has not changed, or the underlying node is the same
        */
-      if(!cache || citer == null || lvalue != r && !(r instanceof ANode &&
+      if(cache && citer != null && (lvalue == r || r instanceof ANode &&
           lvalue instanceof ANode && ((ANode) lvalue).is((ANode) r))) {
-        lvalue = r;
-        citer = new NodeSeqBuilder().check();
+        citer.reset();
+        return citer;
+      }
+
+      NodeSeqBuilder nc = parallel != -1 ? parallel(r, ctx) : null;
+      if(nc == null) {
+        nc = new NodeSeqBuilder().check();
         if(r != null) {
           final Iter ir = ctx.iter(r);
           for(Item it; (it = ir.next()) != null;) {
             // ensure that root only returns nodes
             if(root != null && !(it instanceof ANode)) throw PATHNODE.get(info, it.type);
             ctx.value = it;
-            iter(0, citer, ctx);
+            iter(0, steps.length - 1, nc, ctx);
           }
         } else {
           ctx.value = null;
-          iter(0, citer, ctx);
+          iter(0, steps.length - 1, nc, ctx);
         }
-        citer.sort();
-      } else {
-        citer.reset();
       }
-      return citer;
+      nc.sort();
+      // only assign result if caching is desirable (path may be evaluated in parallel)
+      if(cache) {
+        lvalue = r;
+        citer = nc;
+      }
+      return nc;
     } finally {
       ctx.value = cv;
       ctx.size = cs;
@@ -90,20 +110,21 @@ final class CachedPath extends AxisPath {
   /**
    * Recursive step iterator.
    * @param l current step
+   * @param e last step to be evaluated
    * @param nc node cache
    * @param ctx query context
    * @throws QueryException query exception
    */
-  private void iter(final int l, final NodeSeqBuilder nc, final QueryContext ctx)
-      throws QueryException {
+  private void iter(final int l, final int e, final NodeSeqBuilder nc,
+      final QueryContext ctx) throws QueryException {
 
     // cast is safe (steps will always return a {@link NodeIter} instance
     final NodeIter ni = (NodeIter) ctx.iter(steps[l]);
-    final boolean more = l + 1 != steps.length;
+    final boolean more = l != e;
     for(ANode node; (node = ni.next()) != null;) {
       if(more) {
         ctx.value = node;
-        iter(l + 1, nc, ctx);
+        iter(l + 1, e, nc, ctx);
       } else {
         ctx.checkStop();
         nc.add(node);
@@ -111,6 +132,173 @@ final class CachedPath extends AxisPath {
     }
   }
 
+  /**
+   * Evaluates the path in parallel. The preceding steps are evaluated sequentially.
+   * The nodes of the first parallel step are divided into chunks, which are filtered and
+   * evaluated by separate threads. If the first step uses the descendant axis, the
+   * pre values of the descendants of the root nodes are divided into ranges instead.
+   * @param r root value
+   * @param ctx query context
+   * @return node builder, or {@code null} if the path must be evaluated sequentially
+   * @throws QueryException query exception
+   */
+  private NodeSeqBuilder parallel(final Value r, final QueryContext ctx)
+      throws QueryException {
+
+    final int threads = ctx.threads();
+    if(threads < 2) return null;
+
+    // evaluate context nodes of the parallel step
+    final NodeSeqBuilder cn = new NodeSeqBuilder().check();
+    for(final Item it : r) {
+      if(!(it instanceof ANode)) return null;
+      if(parallel == 0) {
+        cn.add((ANode) it);
+      } else {
+        ctx.value = it;
+        iter(0, parallel - 1, cn, ctx);
+      }
+    }
+    cn.sort();
+
+    final Step step = step(parallel);
+    final ArrayList<QueryTask<NodeSeqBuilder>> tasks =
+        new ArrayList<QueryTask<NodeSeqBuilder>>();
+    final Data data = cn.compact();
+    final boolean self = step.axis == Axis.DESCORSELF;
+    if(data != null && (self || step.axis == Axis.DESC) && !step.nameIndex(ctx)) {
+      // divide pre values of descendants into ranges
+      final IntList ranges = new IntList();
+      long total = 0;
+      final int cs = (int) cn.size();
+      for(int c = 0; c < cs; c++) {
+        final DBNode node = (DBNode) cn.get(c);
+        final int pre = node.pre, kind = data.kind(pre);
+        if(kind == Data.ATTR) return null;
+        final int start = self ? pre : pre + 1, end = pre + data.size(pre, kind);
+        ranges.add(start);
+        ranges.add(end);
+        total += end - start;
+      }
+      if(total < CHUNK * 2) return null;
+
+      final int chunk = (int) Math.max(CHUNK, total / (threads * 4));
+      final int rs = ranges.size();
+      for(int i = 0; i < rs; i += 2) {
+        final int end = ranges.get(i + 1);
+        for(int start = ranges.get(i); start < end; start += chunk) {
+          tasks.add(task(data, start, Math.min(end, start + chunk)));
+        }
+      }
+    } else {
+      // divide candidate nodes into chunks
+      final NodeSeqBuilder cand = new NodeSeqBuilder().check();
+      for(ANode n; (n = cn.next()) != null;) {
+        final AxisIter ai = step.iter(n, ctx);
+        for(ANode a; (a = ai.next()) != null;) {
+          if(step.test.eq(a)) cand.add(a.finish());
+        }
+      }
+      cand.sort();
+      final int total = (int) cand.size();
+      if(total < CHUNK * 2) return null;
+
+      final int chunk = Math.max(CHUNK, total / (threads * 4));
+      for(int start = 0; start < total; start += chunk) {
+        tasks.add(task(cand, start, Math.min(total, start + chunk)));
+      }
+    }
+
+    // merge results in document order
+    final NodeSeqBuilder nc = new NodeSeqBuilder().check();
+    for(final NodeSeqBuilder nb : ctx.parallel(tasks)) nc.add(nb);
+    return nc;
+  }
+
+  /**
+   * Returns a task that evaluates the remaining steps for the specified range of
+   * descendants.
+   * @param data data reference
+   * @param start first pre value
+   * @param end pre value after the last node
+   * @return task
+   */
+  private QueryTask<NodeSeqBuilder> task(final Data data, final int start,
+      final int end) {
+
+    return new QueryTask<NodeSeqBuilder>() {
+      @Override
+      public NodeSeqBuilder eval(final QueryContext ctx) throws QueryException {
+        final NodeSeqBuilder nc = new NodeSeqBuilder().check();
+        final DBNode node = new DBNode(data, start);
+        for(int p = start; p < end;) {
+          final int k = data.kind(p);
+          if(k == Data.ATTR) {
+            // skip attributes
+            p++;
+          } else {
+            node.set(p, k);
+            p += data.attSize(p, k);
+            filter(node, nc, ctx);
+          }
+        }
+        return nc.sort();
+      }
+    };
+  }
+
+  /**
+   * Returns a task that evaluates the remaining steps for the specified range of
+   * candidate nodes.
+   * @param cand candidate nodes
+   * @param start index of first node
+   * @param end index after the last node
+   * @return task
+   */
+  private QueryTask<NodeSeqBuilder> task(final NodeSeqBuilder cand, final int start,
+      final int end) {
+
+    return new QueryTask<NodeSeqBuilder>() {
+      @Override
+      public NodeSeqBuilder eval(final QueryContext ctx) throws QueryException {
+        final NodeSeqBuilder nc = new NodeSeqBuilder().check();
+        for(int c = start; c < end; c++) filter(cand.get(c), nc, ctx);
+        return nc.sort();
+      }
+    };
+  }
+
+  /**
+   * Filters a node of the first parallel step and evaluates the remaining steps.
+   * @param node node
+   * @param nc node cache
+   * @param ctx query context
+   * @throws QueryException query exception
+   */
+  private void filter(final ANode node, final NodeSeqBuilder nc, final QueryContext ctx)
+      throws QueryException {
+
+    if(!step(parallel).matches(node, ctx)) return;
+    if(parallel + 1 < steps.length) {
+      ctx.value = node.finish();
+      iter(parallel + 1, steps.length - 1, nc, ctx);
+    } else {
+      nc.add(node.finish());
+    }
+  }
+
+  @Override
+  public void plan(final FElem plan) {
+    final FElem el = planElem();
+    if(parallel != -1) el.add(planAttr(Token.token(QueryText.PARALLEL), Token.TRUE));
+    addPlan(plan, el, root, steps);
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return (!cache || visitor.stateful()) && super.accept(visitor);
+  }
+
   @Override
   public AxisPath copy(final QueryContext ctx, final VarScope scp,
       final IntObjMap<Var> vs) {
@@ -119,6 +307,7 @@ final class CachedPath extends AxisPath {
     final CachedPath ap = copyType(
         new CachedPath(info, root == null ? null : root.copy(ctx, scp, vs), stps));
     ap.cache = cache;
+    ap.parallel = parallel;
     if(citer != null) ap.citer = citer.copy();
     if(lvalue != null) ap.lvalue = lvalue;
     return ap;
@@ -34,7 +34,7 @@ final class IterPosStep extends Step {
       @Override
       public ANode next() throws QueryException {
         if(skip) return null;
-        if(ai == null) ai = axis.iter(checkNode(ctx));
+        if(ai == null) ai = iter(checkNode(ctx), ctx);
 
         ANode lnode = null;
         while(true) {
@@ -470,7 +470,7 @@ public abstract class Path extends ParseExpr {
   }
 
   @Override
-  public final void plan(final FElem plan) {
+  public void plan(final FElem plan) {
     addPlan(plan, planElem(), root, steps);
   }
 
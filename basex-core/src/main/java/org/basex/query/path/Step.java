@@ -10,6 +10,7 @@ import org.basex.index.path.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
+import org.basex.query.iter.*;
 import org.basex.query.path.Test.Mode;
 import org.basex.query.util.*;
 import org.basex.query.value.node.*;
@@ -17,6 +18,7 @@ import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
+import org.basex.util.ft.*;
 import org.basex.util.hash.*;
 
 /**
@@ -110,6 +112,64 @@ public abstract class Step extends Preds {
       (name ? test.mode == Mode.LN : test == Test.NOD);
   }
 
+  /**
+   * Checks if the specified node matches the node test and the predicates of this step.
+   * @param node node to be checked
+   * @param ctx query context
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  final boolean matches(final ANode node, final QueryContext ctx) throws QueryException {
+    return test.eq(node) && preds(node, ctx);
+  }
+
+  /**
+   * Returns an iterator for the axis of this step. Descendant steps with element name
+   * tests are evaluated via the name index, if it is enabled and if the database
+   * contains no namespaces.
+   * @param node context node
+   * @param ctx query context
+   * @return iterator
+   */
+  final AxisIter iter(final ANode node, final QueryContext ctx) {
+    if(nameIndex(ctx) && node instanceof DBNode) {
+      final DBNode dbnode = (DBNode) node;
+      final Data data = dbnode.data;
+      final int pre = dbnode.pre, kind = data.kind(pre);
+      if(data.nspaces.size() == 0 && kind != Data.ATTR) {
+        final int[] pres = data.nameIndex().pres(data.tagindex.id(((NameTest) test).ln));
+        final int end = pre + data.size(pre, kind);
+        final int start = Arrays.binarySearch(pres, axis == Axis.DESCORSELF ? pre : pre + 1);
+        return new AxisIter() {
+          final DBNode nd = dbnode.copy();
+          final double sc = nd.score();
+          int p = start < 0 ? -start - 1 : start;
+
+          @Override
+          public ANode next() {
+            if(p == pres.length) return null;
+            final int pr = pres[p++];
+            if(pr >= end) return null;
+            nd.set(pr, Data.ELEM);
+            if(pr != pre) nd.score(Scoring.step(sc));
+            return nd;
+          }
+        };
+      }
+    }
+    return axis.iter(node);
+  }
+
+  /**
+   * Checks if the name index can be used for evaluating this step.
+   * @param ctx query context
+   * @return result of check
+   */
+  final boolean nameIndex(final QueryContext ctx) {
+    return ctx.nameIndex && (axis == Axis.DESC || axis == Axis.DESCORSELF) &&
+        test.type == NodeType.ELM && (test.mode == Mode.LN || test.mode == Mode.STD);
+  }
+
   /**
    * Returns the path nodes that are the result of this step.
    * @param nodes initial path nodes
@@ -0,0 +1,792 @@
+package org.basex.query.regex;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+import java.util.regex.*;
+
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Automaton-based evaluation of regular expressions.
+ *
+ * A regular expression is compiled to a nondeterministic finite automaton, which is
+ * simulated on UTF-8 encoded tokens by advancing all active threads in parallel. The
+ * time needed for a search is linear in the length of the input, and the results are
+ * the same as the ones of the backtracking Java engine: the leftmost match is returned,
+ * and alternatives and quantifiers are chosen in the order in which they would be tried
+ * by a backtracking engine.
+ *
+ * Repeated searches in the same text may be quadratic if threads with higher priority run
+ * far beyond the end of the match that is returned. This is why the positions of threads
+ * that have not led to a match are remembered, and why a search is aborted if it exceeds
+ * a given number of steps (see {@link Search}).
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class Automaton {
+  /** Maximum number of instructions. */
+  private static final int MAX = 1 << 14;
+  /** Maximum nesting depth of unbounded loops. */
+  private static final int MAXDEPTH = 31;
+
+  /** Instruction: matches a single code point. */
+  private static final int CHAR = 0;
+  /** Instruction: matches a character set. */
+  private static final int SET = 1;
+  /** Instruction: continues with two threads (the first one has higher priority). */
+  private static final int SPLIT = 2;
+  /** Instruction: continues with another instruction. */
+  private static final int JMP = 3;
+  /** Instruction: saves the current position in a capture slot. */
+  private static final int SAVE = 4;
+  /** Instruction: checks a line border. */
+  private static final int BORDER = 5;
+  /** Instruction: reports a match. */
+  private static final int MATCH = 6;
+  /** Instruction: saves the current position at the start of a loop iteration. */
+  private static final int MARK = 7;
+  /** Instruction: leaves a loop if an iteration has not consumed any characters. */
+  private static final int PROGRESS = 8;
+
+  /** Line border: start of input. */
+  static final int START = 0;
+  /** Line border: start of a line. */
+  static final int LINE_START = 1;
+  /** Line border: end of input. */
+  static final int END = 2;
+  /** Line border: end of a line. */
+  static final int LINE_END = 3;
+
+  /** Instructions. */
+  private final int[] ops;
+  /** First arguments. */
+  private final int[] args1;
+  /** Second arguments. */
+  private final int[] args2;
+  /** Character sets. */
+  private final CharSet[] sets;
+  /** Innermost loops of the instructions ({@code -1}: no loop). */
+  private final int[] inner;
+  /** Enclosing loops of the loops ({@code -1}: no loop). */
+  private final int[] outer;
+  /** Nesting depths of the loops. */
+  private final int[] depths;
+  /** Number of capture slots. */
+  private final int slots;
+  /** Number of capture slots and loop positions. */
+  private final int size;
+  /** UTF-8 representation of the first code point of all matches ({@code null} if unknown). */
+  private final byte[] first;
+
+  /**
+   * Constructor.
+   * @param b builder
+   * @param groups number of capturing groups
+   */
+  private Automaton(final Builder b, final int groups) {
+    ops = b.ops.toArray();
+    args1 = b.args1.toArray();
+    args2 = b.args2.toArray();
+    sets = b.sets.toArray(new CharSet[b.sets.size()]);
+    inner = b.inner.toArray();
+    outer = b.outer.toArray();
+    depths = b.depths.toArray();
+    slots = groups + 1 << 1;
+    size = slots + b.loops;
+    first = first();
+  }
+
+  /**
+   * Compiles the specified regular expression to an automaton.
+   * @param regex regular expression
+   * @param flags flags of the Java pattern
+   * @param groups number of capturing groups
+   * @return automaton, or {@code null} if the expression cannot be evaluated by an automaton
+   */
+  static Automaton get(final RegExp regex, final int flags, final int groups) {
+    final Builder b = new Builder(flags);
+    b.emit(SAVE, 0, 0);
+    regex.compile(b);
+    b.emit(SAVE, 1, 0);
+    b.emit(MATCH, 0, 0);
+    return b.full() || b.groups.size() != groups ? null : new Automaton(b, groups);
+  }
+
+  /**
+   * Returns a new state for successive searches in a text.
+   * @param steps maximum number of steps of all searches
+   * @return search state
+   */
+  Search search(final int steps) {
+    return new Search(ops.length, steps);
+  }
+
+  /**
+   * Returns the positions of the next match, starting from the specified position.
+   * Each step of the search, which advances all threads by one character, is counted.
+   * @param text text
+   * @param start start position
+   * @param search state of the searches in the text; the search is aborted if no steps
+   *   are left
+   * @return capture slots with start and end positions of the match and its groups
+   * (unmatched groups are indicated by {@code -1}), or {@code null} if no match was found
+   * or if the search was aborted
+   */
+  int[] find(final byte[] text, final int start, final Search search) {
+    final int tl = text.length, ol = ops.length;
+    Threads curr = new Threads(ol), next = new Threads(ol);
+    search.start();
+    int[] match = null;
+    int mpos = start;
+    for(int pos = start;; search.steps--) {
+      if(search.steps <= 0) return null;
+      if(match == null) {
+        if(curr.size == 0 && first != null) {
+          // skip positions that cannot start a match
+          pos = indexOf(text, first, pos);
+          if(pos == -1) break;
+        }
+        final int[] caps = new int[size];
+        Arrays.fill(caps, -1);
+        search.position(pos);
+        add(curr, 0, caps, text, pos, search);
+      } else if(curr.size == 0) {
+        break;
+      }
+
+      // advance all threads in the order of their priority
+      final int cp = pos < tl ? cp(text, pos) : -1;
+      final int np = pos < tl ? Math.min(tl, pos + cl(text, pos)) : pos;
+      next.clear();
+      search.position(np);
+      for(int t = 0; t < curr.size; t++) {
+        final int pc = curr.pcs[t];
+        final int op = ops[pc];
+        if(op == MATCH) {
+          // cut threads with lower priority
+          match = curr.caps[t];
+          mpos = pos;
+          break;
+        }
+        if(cp != -1 && (op == CHAR ? args1[pc] == cp : sets[args1[pc]].matches(cp)))
+          add(next, pc + 1, curr.caps[t], text, np, search);
+      }
+      if(pos == tl) break;
+      pos = np;
+      final Threads th = curr;
+      curr = next;
+      next = th;
+    }
+    if(match != null) search.discard(mpos);
+    return match;
+  }
+
+  /**
+   * Adds a thread and follows its epsilon transitions.
+   * @param th thread list
+   * @param pc instruction counter
+   * @param caps capture slots
+   * @param text text
+   * @param pos current position
+   * @param search search state
+   */
+  private void add(final Threads th, final int pc, final int[] caps, final byte[] text,
+      final int pos, final Search search) {
+
+    // epsilon transitions are traversed depth-first, using an explicit stack
+    final IntList stack = th.stack;
+    final ArrayList<int[]> cstack = th.cstack;
+    stack.add(pc);
+    cstack.add(caps);
+    while(!stack.isEmpty()) {
+      final int p = stack.pop();
+      int[] c = cstack.remove(cstack.size() - 1);
+      if(!th.visit(p, empty(p, c, pos))) continue;
+
+      switch(ops[p]) {
+        case JMP:
+          stack.add(args1[p]);
+          cstack.add(c);
+          break;
+        case SPLIT:
+          // push thread with lower priority first
+          stack.add(args2[p]);
+          cstack.add(c);
+          stack.add(args1[p]);
+          cstack.add(c);
+          break;
+        case SAVE:
+          c = c.clone();
+          c[args1[p]] = pos;
+          stack.add(p + 1);
+          cstack.add(c);
+          break;
+        case MARK:
+          c = c.clone();
+          c[slots + args1[p]] = pos;
+          stack.add(p + 1);
+          cstack.add(c);
+          break;
+        case PROGRESS:
+          // as in the Java engine, an empty iteration terminates the loop
+          stack.add(c[slots + args1[p]] == pos ? args2[p] : p + 1);
+          cstack.add(c);
+          break;
+        case BORDER:
+          if(border(args1[p], text, pos)) {
+            stack.add(p + 1);
+            cstack.add(c);
+          }
+          break;
+        case MATCH:
+          th.add(p, c);
+          break;
+        default:
+          if(search.dead(p, pos)) break;
+          search.record(p, pos);
+          th.add(p, c);
+      }
+    }
+  }
+
+  /**
+   * Returns the enclosing loops of an instruction whose current iteration has not consumed
+   * any characters yet. The result of a {@link #PROGRESS} instruction that is reached from
+   * the instruction depends on these loops, so the instruction may need to be visited
+   * more than once at the same position.
+   * @param pc instruction counter
+   * @param caps capture slots
+   * @param pos current position
+   * @return loops, indicated by bits at the positions of their nesting depths
+   */
+  private int empty(final int pc, final int[] caps, final int pos) {
+    int e = 0;
+    for(int l = inner[pc]; l != -1; l = outer[l]) {
+      if(caps[slots + l] == pos) e |= 1 << depths[l];
+    }
+    return e;
+  }
+
+  /**
+   * Checks if the specified line border is found at the current position.
+   * The checks are equivalent to the ones of the Java engine.
+   * @param type type of border
+   * @param text text
+   * @param pos current position
+   * @return result of check
+   */
+  private static boolean border(final int type, final byte[] text, final int pos) {
+    final int tl = text.length;
+    final int next = pos < tl ? cp(text, pos) : -1;
+    if(type == START) return pos == 0;
+    if(type == END) {
+      // "$(?!\s)": end of input, or last character is a line terminator other than \s
+      return next == -1 ||
+          (next == 0x85 || next == 0x2028 || next == 0x2029) && pos + cl(text, pos) == tl;
+    }
+
+    int prev = -1;
+    if(pos > 0) {
+      int p = pos - 1;
+      while(p > 0 && (text[p] & 0xC0) == 0x80) p--;
+      prev = cp(text, p);
+    }
+    if(type == LINE_START) {
+      return next != -1 && (prev == -1 || terminator(prev) && !(prev == '\r' && next == '\n'));
+    }
+    // LINE_END
+    return next == -1 || (next == '\n' ? prev != '\r' : terminator(next));
+  }
+
+  /**
+   * Checks if the specified code point is a line terminator.
+   * @param cp code point
+   * @return result of check
+   */
+  private static boolean terminator(final int cp) {
+    return cp == '\n' || cp == '\r' || cp == 0x85 || cp == 0x2028 || cp == 0x2029;
+  }
+
+  /**
+   * Returns the UTF-8 representation of the code point that all matches start with.
+   * @return token or {@code null}
+   */
+  private byte[] first() {
+    int cp = -1;
+    final boolean[] visited = new boolean[ops.length];
+    final IntList stack = new IntList();
+    stack.add(0);
+    while(!stack.isEmpty()) {
+      final int p = stack.pop();
+      if(visited[p]) continue;
+      visited[p] = true;
+      switch(ops[p]) {
+        case SPLIT: stack.add(args2[p]); stack.add(args1[p]); break;
+        case JMP:   stack.add(args1[p]); break;
+        case SAVE:
+        case MARK:  stack.add(p + 1); break;
+        case PROGRESS: stack.add(args2[p]); stack.add(p + 1); break;
+        case CHAR:
+          if(cp != -1 && cp != args1[p]) return null;
+          cp = args1[p];
+          break;
+        default: return null;
+      }
+    }
+    return cp == -1 ? null : new TokenBuilder(4).add(cp).finish();
+  }
+
+  /**
+   * State of successive searches in a text.
+   *
+   * The result of a thread that waits for a character only depends on its instruction and
+   * its position. If a search has returned a match, all threads at positions after the
+   * match have failed, so the same threads can be discarded in subsequent searches.
+   * For each instruction, the positions of the failed threads are stored as a range.
+   */
+  static final class Search {
+    /** Remaining number of steps. */
+    int steps;
+    /** Minimum positions of failed threads. */
+    private final int[] min;
+    /** Maximum positions of failed threads. */
+    private final int[] max;
+    /** Minimum positions of the threads of the current search. */
+    private final int[] first;
+    /** Maximum positions of the threads of the current search. */
+    private final int[] last;
+    /** Searches in which the positions of the instructions were recorded. */
+    private final int[] searches;
+    /** Instructions recorded in the current search. */
+    private final IntList recorded = new IntList();
+    /** Number of the current search. */
+    private int search;
+    /** Current position. */
+    private int pos = -1;
+    /** Previous position. */
+    private int prev = -1;
+
+    /**
+     * Constructor.
+     * @param ol number of instructions
+     * @param s maximum number of steps
+     */
+    Search(final int ol, final int s) {
+      steps = s;
+      min = new int[ol];
+      max = new int[ol];
+      Arrays.fill(max, -1);
+      first = new int[ol];
+      last = new int[ol];
+      searches = new int[ol];
+    }
+
+    /**
+     * Starts a new search.
+     */
+    void start() {
+      search++;
+      recorded.reset();
+    }
+
+    /**
+     * Sets the position of the threads that will be recorded next.
+     * @param p position
+     */
+    void position(final int p) {
+      if(p == pos) return;
+      prev = pos;
+      pos = p;
+    }
+
+    /**
+     * Checks if a thread has failed in a previous search.
+     * @param pc instruction counter
+     * @param p position
+     * @return result of check
+     */
+    boolean dead(final int pc, final int p) {
+      return p >= min[pc] && p <= max[pc];
+    }
+
+    /**
+     * Records the position of a thread. Only contiguous positions are stored.
+     * @param pc instruction counter
+     * @param p position
+     */
+    void record(final int pc, final int p) {
+      if(searches[pc] != search) {
+        searches[pc] = search;
+        recorded.add(pc);
+      } else if(last[pc] == p) {
+        return;
+      } else if(last[pc] == prev) {
+        last[pc] = p;
+        return;
+      }
+      first[pc] = p;
+      last[pc] = p;
+    }
+
+    /**
+     * Remembers the threads of the current search that are located after the match.
+     * @param p position at which the match was found
+     */
+    void discard(final int p) {
+      final int rs = recorded.size();
+      for(int r = 0; r < rs; r++) {
+        final int pc = recorded.get(r), s = Math.max(first[pc], p + 1), e = last[pc];
+        if(s > e) continue;
+        if(s <= max[pc] && e >= min[pc]) {
+          min[pc] = Math.min(min[pc], s);
+          max[pc] = Math.max(max[pc], e);
+        } else if(e > max[pc]) {
+          min[pc] = s;
+          max[pc] = e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Thread list.
+   */
+  private static final class Threads {
+    /** Instruction counters. */
+    final int[] pcs;
+    /** Capture slots. */
+    final int[][] caps;
+    /** Generation of the instructions that have been visited. */
+    final int[] visited;
+    /** Instructions that have been visited with empty loop iterations (see {@link #empty}). */
+    final HashSet<Long> visits = new HashSet<Long>();
+    /** Stack for instruction counters. */
+    final IntList stack = new IntList();
+    /** Stack for capture slots. */
+    final ArrayList<int[]> cstack = new ArrayList<int[]>();
+    /** Number of threads. */
+    int size;
+    /** Current generation. */
+    int gen = 1;
+
+    /**
+     * Constructor.
+     * @param ol number of instructions
+     */
+    Threads(final int ol) {
+      pcs = new int[ol];
+      caps = new int[ol][];
+      visited = new int[ol];
+    }
+
+    /**
+     * Adds a thread.
+     * @param pc instruction counter
+     * @param c capture slots
+     */
+    void add(final int pc, final int[] c) {
+      pcs[size] = pc;
+      caps[size++] = c;
+    }
+
+    /**
+     * Marks an instruction as visited in the current generation.
+     * @param pc instruction counter
+     * @param empty loops with empty iterations
+     * @return {@code true} if the instruction had not been visited yet
+     */
+    boolean visit(final int pc, final int empty) {
+      if(empty != 0) return visits.add((long) pc << 32 | empty);
+      if(visited[pc] == gen) return false;
+      visited[pc] = gen;
+      return true;
+    }
+
+    /**
+     * Removes all threads.
+     */
+    void clear() {
+      size = 0;
+      gen++;
+      if(!visits.isEmpty()) visits.clear();
+    }
+  }
+
+  /**
+   * Set of characters. Membership is checked by the Java engine.
+   */
+  private static final class CharSet {
+    /** Pattern. */
+    private final Pattern pattern;
+    /** Cached results for ASCII characters. */
+    private final boolean[] ascii = new boolean[128];
+
+    /**
+     * Constructor.
+     * @param p pattern matching a single character
+     */
+    CharSet(final Pattern p) {
+      pattern = p;
+      final int al = ascii.length;
+      for(int c = 0; c < al; c++) ascii[c] = p.matcher(String.valueOf((char) c)).matches();
+    }
+
+    /**
+     * Checks if the set contains the specified code point.
+     * @param cp code point
+     * @return result of check
+     */
+    boolean matches(final int cp) {
+      return cp < ascii.length ? ascii[cp] :
+        pattern.matcher(new String(Character.toChars(cp))).matches();
+    }
+  }
+
+  /**
+   * Builder for automata.
+   */
+  static final class Builder {
+    /** Instructions. */
+    final IntList ops = new IntList();
+    /** First arguments. */
+    final IntList args1 = new IntList();
+    /** Second arguments. */
+    final IntList args2 = new IntList();
+    /** Character sets. */
+    final ArrayList<CharSet> sets = new ArrayList<CharSet>();
+    /** Innermost loops of the instructions. */
+    final IntList inner = new IntList();
+    /** Enclosing loops of the loops. */
+    final IntList outer = new IntList();
+    /** Nesting depths of the loops. */
+    final IntList depths = new IntList();
+    /** Numbers of capturing groups. */
+    final IdentityHashMap<Group, Integer> groups = new IdentityHashMap<Group, Integer>();
+    /** Flags of the Java pattern. */
+    private final int flags;
+    /** Number of loops. */
+    int loops;
+    /** Current loop ({@code -1}: no loop). */
+    private int loop = -1;
+    /** Indicates if the expression cannot be compiled. */
+    private boolean unsupported;
+
+    /**
+     * Constructor.
+     * @param f flags of the Java pattern
+     */
+    Builder(final int f) {
+      flags = f;
+    }
+
+    /**
+     * Adds an instruction.
+     * @param op instruction
+     * @param a1 first argument
+     * @param a2 second argument
+     * @return instruction counter
+     */
+    int emit(final int op, final int a1, final int a2) {
+      ops.add(op);
+      args1.add(a1);
+      args2.add(a2);
+      inner.add(loop);
+      return ops.size() - 1;
+    }
+
+    /**
+     * Returns the counter of the next instruction.
+     * @return instruction counter
+     */
+    int pc() {
+      return ops.size();
+    }
+
+    /**
+     * Checks if the automaton has become too large, or if it cannot be compiled.
+     * @return result of check
+     */
+    boolean full() {
+      return unsupported || ops.size() > MAX;
+    }
+
+    /**
+     * Indicates that the expression cannot be evaluated by an automaton.
+     */
+    void unsupported() {
+      unsupported = true;
+    }
+
+    /**
+     * Removes all instructions starting from the specified instruction counter.
+     * @param pc instruction counter
+     */
+    void truncate(final int pc) {
+      ops.size(pc);
+      args1.size(pc);
+      args2.size(pc);
+      inner.size(pc);
+    }
+
+    /**
+     * Adds an instruction for matching a single code point.
+     * @param cp code point
+     * @param re regular expression of the code point
+     */
+    void literal(final int cp, final RegExp re) {
+      if((flags & Pattern.CASE_INSENSITIVE) == 0) emit(CHAR, cp, 0);
+      else set(re);
+    }
+
+    /**
+     * Adds an instruction for matching a single character of the specified expression.
+     * @param re regular expression matching a single character
+     */
+    void set(final RegExp re) {
+      sets.add(new CharSet(Pattern.compile(re.toString(), flags)));
+      emit(SET, sets.size() - 1, 0);
+    }
+
+    /**
+     * Adds an instruction for a line border.
+     * @param start start flag
+     * @param multi multi-line flag
+     */
+    void border(final boolean start, final boolean multi) {
+      emit(BORDER, start ? multi ? LINE_START : START : multi ? LINE_END : END, 0);
+    }
+
+    /**
+     * Adds the instructions for a group.
+     * @param group group
+     * @param encl enclosed expression
+     */
+    void group(final Group group, final RegExp encl) {
+      Integer n = groups.get(group);
+      if(n == null) {
+        n = groups.size() + 1;
+        groups.put(group, n);
+      }
+      emit(SAVE, n << 1, 0);
+      encl.compile(this);
+      emit(SAVE, (n << 1) + 1, 0);
+    }
+
+    /**
+     * Adds the instructions for alternative expressions.
+     * @param res expressions
+     */
+    void alternatives(final RegExp[] res) {
+      final int rl = res.length;
+      final int[] jumps = new int[rl - 1];
+      for(int r = 0; r < rl - 1 && !full(); r++) {
+        final int split = emit(SPLIT, 0, 0);
+        res[r].compile(this);
+        jumps[r] = emit(JMP, 0, 0);
+        args1.set(split, split + 1);
+        args2.set(split, pc());
+      }
+      res[rl - 1].compile(this);
+      if(full()) return;
+      for(final int j : jumps) args1.set(j, pc());
+    }
+
+    /**
+     * Adds the instructions for a quantified expression.
+     * @param re expression
+     * @param min minimum number of occurrences
+     * @param max maximum number of occurrences ({@code -1} for infinity)
+     * @param lazy reluctance flag
+     */
+    void repeat(final RegExp re, final int min, final int max, final boolean lazy) {
+      if(max == 0) {
+        // compile expression to assign group numbers, and discard instructions
+        final int pc = pc();
+        re.compile(this);
+        truncate(pc);
+        return;
+      }
+      // as in the Java engine, an empty iteration of a group terminates the repetition
+      final boolean group = re instanceof Group && (max == -1 || max > 1);
+      final int l = group || max == -1 ? open() : -1, ol = loop;
+      final IntList exits = new IntList();
+      for(int m = 0; m < min && !full(); m++) {
+        if(group && m > 0) exits.add(progress(l, ol));
+        iteration(re, group ? l : -1, ol);
+      }
+      if(max == -1) {
+        if(group && min > 0) exits.add(progress(l, ol));
+        final int split = emit(SPLIT, 0, 0);
+        iteration(re, l, ol);
+        exits.add(progress(l, ol));
+        emit(JMP, split, 0);
+        branch(split, lazy);
+      } else {
+        final IntList splits = new IntList();
+        for(int m = min; m < max && !full(); m++) {
+          if(group && m > 0) exits.add(progress(l, ol));
+          splits.add(emit(SPLIT, 0, 0));
+          iteration(re, group ? l : -1, ol);
+        }
+        for(int s = 0; s < splits.size(); s++) branch(splits.get(s), lazy);
+      }
+      if(!full()) {
+        for(int e = 0; e < exits.size(); e++) args2.set(exits.get(e), pc());
+      }
+    }
+
+    /**
+     * Registers a new loop, which is nested in the current loop.
+     * @return loop id
+     */
+    private int open() {
+      final int l = loops++, depth = loop == -1 ? 0 : depths.get(loop) + 1;
+      if(depth > MAXDEPTH) unsupported();
+      outer.add(loop);
+      depths.add(depth);
+      return l;
+    }
+
+    /**
+     * Adds an instruction that terminates a loop after an empty iteration.
+     * @param l loop id
+     * @param ol id of the enclosing loop
+     * @return instruction counter
+     */
+    private int progress(final int l, final int ol) {
+      loop = l;
+      final int pc = emit(PROGRESS, l, 0);
+      loop = ol;
+      return pc;
+    }
+
+    /**
+     * Adds the instructions for a single iteration of a quantified expression.
+     * @param re expression
+     * @param l loop id ({@code -1} if empty iterations need not be detected)
+     * @param ol id of the enclosing loop
+     */
+    private void iteration(final RegExp re, final int l, final int ol) {
+      if(l != -1) {
+        emit(MARK, l, 0);
+        loop = l;
+      }
+      re.compile(this);
+      loop = ol;
+    }
+
+    /**
+     * Assigns the targets of a split instruction for an optional expression.
+     * @param split instruction counter of the split instruction
+     * @param lazy reluctance flag
+     */
+    private void branch(final int split, final boolean lazy) {
+      if(full()) return;
+      args1.set(split, lazy ? pc() : split + 1);
+      args2.set(split, lazy ? split + 1 : pc());
+    }
+  }
+}
@@ -18,6 +18,12 @@ public class BackRef extends RegExp {
     num = n;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    // back-references cannot be represented by finite automata
+    b.unsupported();
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append('\\').append(num);
@@ -18,6 +18,11 @@ public class Branch extends RegExp {
     pieces = pcs;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    for(final RegExp piece : pieces) piece.compile(b);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     for(final RegExp piece : pieces) piece.toRegEx(sb);
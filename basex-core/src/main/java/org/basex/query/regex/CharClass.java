@@ -22,6 +22,11 @@ public class CharClass extends RegExp {
     subtract = sub;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    b.set(this);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     group.toRegEx(sb.append('['));
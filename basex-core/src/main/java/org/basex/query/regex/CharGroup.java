@@ -1,5 +1,7 @@
 package org.basex.query.regex;
 
+import org.basex.util.*;
+
 /**
  * Character group.
  *
@@ -19,6 +21,12 @@ public class CharGroup extends RegExp {
     subs = sub;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    // only compiled as part of a character class
+    throw Util.notExpected();
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     sb.append(negative ? "^" : "");
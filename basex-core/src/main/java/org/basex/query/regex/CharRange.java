@@ -1,5 +1,7 @@
 package org.basex.query.regex;
 
+import org.basex.util.*;
+
 /**
  * A character range.
  *
@@ -22,6 +24,12 @@ public class CharRange extends RegExp {
     right = b;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    // only compiled as part of a character class
+    throw Util.notExpected();
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append(Escape.escape(left)).append('-').append(Escape.escape(right));
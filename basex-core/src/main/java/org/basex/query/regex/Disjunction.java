@@ -18,6 +18,11 @@ public class Disjunction extends RegExp {
     branches = br;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    b.alternatives(branches);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     branches[0].toRegEx(sb);
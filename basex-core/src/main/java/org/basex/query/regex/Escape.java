@@ -115,6 +115,11 @@ public final class Escape extends RegExp {
     return new RegExp[] { new Escape(e) };
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    b.set(this);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append(img);
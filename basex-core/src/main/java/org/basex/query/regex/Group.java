@@ -22,6 +22,12 @@ public class Group extends RegExp {
     capture = capt;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    if(capture) b.group(this, encl);
+    else encl.compile(b);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return encl.toRegEx(sb.append(capture ? "(" : "(?:")).append(')');
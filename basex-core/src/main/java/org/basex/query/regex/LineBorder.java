@@ -36,6 +36,11 @@ public final class LineBorder extends RegExp {
     return INSTANCES[pos];
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    b.border(start, multi);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append(start ? "^" : multi ? "$" : "(?:$(?!\\s))");
@@ -18,6 +18,11 @@ public class Literal extends RegExp {
     codepoint = cp;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    b.literal(codepoint, this);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append(escape(codepoint));
@@ -22,6 +22,11 @@ public class Piece extends RegExp {
     quant = qu;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    quant.compile(atom, b);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return quant.toRegEx(atom.toRegEx(sb));
@@ -1,5 +1,7 @@
 package org.basex.query.regex;
 
+import org.basex.util.*;
+
 /**
  * A quantifier, like {@code ?}, {@code *} or {@code &#x7b;17,123&#x7d;}.
  *
@@ -25,6 +27,20 @@ public class Quantifier extends RegExp {
     max = mx;
     lazy = lzy;
   }
+  @Override
+  void compile(final Automaton.Builder b) {
+    throw Util.notExpected();
+  }
+
+  /**
+   * Adds the instructions of the quantified expression to an automaton.
+   * @param atom quantified expression
+   * @param b automaton builder
+   */
+  void compile(final RegExp atom, final Automaton.Builder b) {
+    b.repeat(atom, min, max, lazy);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append(string()).append(lazy ? "?" : "");
@@ -16,4 +16,10 @@ public abstract class RegExp {
    * @return the string builder for convenience
    */
   abstract StringBuilder toRegEx(StringBuilder sb);
+
+  /**
+   * Adds the instructions of this expression to an automaton.
+   * @param b automaton builder
+   */
+  abstract void compile(Automaton.Builder b);
 }
@@ -0,0 +1,207 @@
+package org.basex.query.regex;
+
+import static org.basex.util.Token.*;
+
+import java.util.regex.*;
+
+import org.basex.util.*;
+
+/**
+ * Compiled regular expression. If possible, matches are found by an {@link Automaton}
+ * on UTF-8 encoded tokens. Expressions that cannot be represented as automata
+ * (such as back-references) are evaluated by the Java engine.
+ * The Java engine is also used if the searches of the automaton in a text exceed a
+ * number of steps that is linear in the length of the text.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class Regex {
+  /** Number of automaton steps per character of a text. */
+  private static final int STEPS = 8;
+  /** Minimum number of automaton steps for a text. */
+  private static final int MINSTEPS = 1 << 16;
+  /** Java pattern. */
+  public final Pattern pattern;
+  /** Automaton ({@code null} if the Java engine will be used). */
+  private final Automaton automaton;
+  /** Number of capturing groups. */
+  private final int groups;
+
+  /**
+   * Constructor.
+   * @param p Java pattern
+   * @param re regular expression
+   * @param flags flags for evaluating character sets
+   */
+  public Regex(final Pattern p, final RegExp re, final int flags) {
+    pattern = p;
+    groups = p.matcher("").groupCount();
+    automaton = Automaton.get(re, flags, groups);
+  }
+
+  /**
+   * Returns a regular expression that matches the specified string.
+   * @param string string
+   * @return regular expression
+   */
+  public static RegExp literal(final byte[] string) {
+    final int[] cps = cps(string);
+    final RegExp[] lits = new RegExp[cps.length];
+    for(int c = 0; c < cps.length; c++) lits[c] = new Literal(cps[c]);
+    return new Branch(lits);
+  }
+
+  /**
+   * Checks if the expression will be evaluated by an automaton.
+   * @return result of check
+   */
+  public boolean automaton() {
+    return automaton != null;
+  }
+
+  /**
+   * Checks if the expression matches the empty string.
+   * @return result of check
+   */
+  public boolean matchesEmpty() {
+    return matcher(EMPTY).find();
+  }
+
+  /**
+   * Returns the number of capturing groups.
+   * @return number of groups
+   */
+  public int groups() {
+    return groups;
+  }
+
+  /**
+   * Returns a matcher for the specified text.
+   * @param text text
+   * @return matcher
+   */
+  public Matcher matcher(final byte[] text) {
+    return new Matcher(text);
+  }
+
+  /**
+   * Finds successive matches in a text. All positions refer to the UTF-8 representation
+   * of the text.
+   */
+  public final class Matcher {
+    /** Text. */
+    private final byte[] text;
+    /** Java matcher ({@code null} if the automaton is used). */
+    private java.util.regex.Matcher matcher;
+    /** State of the automaton searches ({@code null} if the automaton is not used). */
+    private final Automaton.Search search;
+    /** Byte offsets of the characters of the Java string. */
+    private int[] offsets;
+    /** Capture slots of the current match. */
+    private int[] caps;
+    /** Start position of the next search. */
+    private int next;
+
+    /**
+     * Constructor.
+     * @param t text
+     */
+    Matcher(final byte[] t) {
+      text = t;
+      matcher = automaton == null ? pattern.matcher(string(t)) : null;
+      search = automaton == null ? null : automaton.search((int) Math.min(Integer.MAX_VALUE,
+          (long) Math.max(t.length, MINSTEPS) * STEPS));
+    }
+
+    /**
+     * Finds the next match.
+     * @return {@code true} if a match was found
+     */
+    public boolean find() {
+      if(matcher != null) return matcher.find();
+
+      final int tl = text.length;
+      caps = next > tl ? null : automaton.find(text, next, search);
+      if(caps == null && search.steps <= 0) {
+        // too many steps: continue with the Java engine
+        matcher = pattern.matcher(string(text));
+        return matcher.find(index(next));
+      }
+      if(caps == null) {
+        next = tl + 1;
+        return false;
+      }
+      // continue after an empty match with the next character
+      final int e = caps[1];
+      next = e != caps[0] ? e : e < tl ? e + cl(text, e) : tl + 1;
+      return true;
+    }
+
+    /**
+     * Returns the start position of the specified group of the current match.
+     * @param group group ({@code 0} for the whole match)
+     * @return position, or {@code -1} if the group did not match
+     */
+    public int start(final int group) {
+      return matcher != null ? offset(matcher.start(group)) : caps[group << 1];
+    }
+
+    /**
+     * Returns the end position of the specified group of the current match.
+     * @param group group ({@code 0} for the whole match)
+     * @return position, or {@code -1} if the group did not match
+     */
+    public int end(final int group) {
+      return matcher != null ? offset(matcher.end(group)) : caps[(group << 1) + 1];
+    }
+
+    /**
+     * Returns the specified group of the current match.
+     * @param group group ({@code 0} for the whole match)
+     * @return group, or {@code null} if the group did not match
+     */
+    public byte[] group(final int group) {
+      final int s = start(group);
+      return s == -1 ? null : subtoken(text, s, end(group));
+    }
+
+    /**
+     * Converts a byte offset to a character offset of the Java string.
+     * @param off byte offset
+     * @return character offset
+     */
+    private int index(final int off) {
+      int i = 0;
+      for(int t = 0; t < off; t += cl(text, t)) i += cp(text, t) > 0xFFFF ? 2 : 1;
+      return i;
+    }
+
+    /**
+     * Converts a character offset of the Java string to a byte offset.
+     * @param off character offset
+     * @return byte offset
+     */
+    private int offset(final int off) {
+      if(off == -1) return off;
+      if(offsets == null) {
+        final String str = string(text);
+        final int sl = str.length();
+        offsets = new int[sl + 1];
+        for(int s = 0, b = 0; s < sl; s++) {
+          offsets[s] = b;
+          final char ch = str.charAt(s);
+          // supplementary characters: two chars, four bytes
+          b += ch < 0x80 ? 1 : ch < 0x800 || ch >= 0xD800 && ch <= 0xDFFF ? 2 : 3;
+        }
+        offsets[sl] = text.length;
+      }
+      return offsets[off];
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + pattern + ']';
+  }
+}
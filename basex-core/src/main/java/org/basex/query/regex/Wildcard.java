@@ -32,6 +32,11 @@ public final class Wildcard extends RegExp {
     return dotAll ? ALL : NOLF;
   }
 
+  @Override
+  void compile(final Automaton.Builder b) {
+    b.set(this);
+  }
+
   @Override
   StringBuilder toRegEx(final StringBuilder sb) {
     return sb.append(nl ? "." : "[^\r\n]");
@@ -32,15 +32,15 @@ public class RegExParser implements RegExParserConstants {
   private boolean multiLine;
 
   /**
-   * Compiles this regular expression to a {@link Pattern}.
+   * Compiles this regular expression to a {@link Regex}.
    * @param regex regular expression to parse
    * @param mod modifiers
    * @param ext XQuery 3.0 syntax
    * @param ii input info
-   * @return the pattern
+   * @return the compiled expression
    * @throws QueryException query exception
    */
-  public static Pattern parse(final byte[] regex, final byte[] mod, final boolean ext,
+  public static Regex parse(final byte[] regex, final byte[] mod, final boolean ext,
       final InputInfo ii) throws QueryException {
     // process modifiers
     int m = 0;
@@ -57,12 +57,14 @@ public class RegExParser implements RegExParserConstants {
     }
 
     // no need to change anything
-    if((m & LITERAL) != 0) return Pattern.compile(string(regex), m);
+    if((m & LITERAL) != 0)
+      return new Regex(Pattern.compile(string(regex), m), Regex.literal(regex), m & ~LITERAL);
 
     try {
       final RegExParser parser = new RegExParser(regex, strip, (m & DOTALL) != 0,
           (m & MULTILINE) != 0);
-      return Pattern.compile(parser.parse().toString(), m);
+      final RegExp re = parser.parse();
+      return new Regex(Pattern.compile(re.toString(), m), re, m);
     } catch(final ParseException pe) {
       throw REGPAT.get(ii, pe.getMessage());
     } catch(final TokenMgrError err) {
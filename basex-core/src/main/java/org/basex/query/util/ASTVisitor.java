@@ -86,6 +86,15 @@ public abstract class ASTVisitor {
     return true;
   }
 
+  /**
+   * Notifies the visitor of an expression that keeps state during its evaluation
+   * and must not be evaluated by several threads at the same time.
+   * @return if more expressions should be visited
+   */
+  public boolean stateful() {
+    return true;
+  }
+
   /**
    * Notifies the visitor of an expression entering a focus.
    */
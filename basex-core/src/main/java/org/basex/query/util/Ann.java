@@ -24,6 +24,8 @@ public final class Ann extends ElementList {
   public static final QNm Q_PUBLIC = new QNm(PUBLIC, XQURI);
   /** Annotation "updating". */
   public static final QNm Q_UPDATING = new QNm(UPDATING, XQURI);
+  /** Annotation "memoize". */
+  public static final QNm Q_MEMOIZE = new QNm(MEMOIZE, BASEXURI);
 
   /** Supported REST annotations. */
   private static final byte[][] ANN_REST = tokens("error", "path", "produces", "consumes",
@@ -88,6 +90,16 @@ public final class Ann extends ElementList {
     }
   }
 
+  /**
+   * Returns the value of the specified annotation.
+   * @param e name of the annotation
+   * @return value, or {@code null} if the annotation is not found
+   */
+  public Value value(final QNm e) {
+    for(int i = 0; i < size; ++i) if(names[i].eq(e)) return values[i];
+    return null;
+  }
+
   /**
    * Returns the union of these annotations and the given ones.
    * @param ann other annotations
@@ -163,6 +175,14 @@ public final class Ann extends ElementList {
       } else if(NSGlobal.reserved(name.uri())) {
         // no global namespaces allowed
         throw ANNRES.get(infos[a], '%', name.string());
+      } else if(name.eq(Q_MEMOIZE)) {
+        if(var) throw BASX_ANNOT.get(infos[a], '%', name.string());
+        // optional maximum number of cached results
+        final Value v = values[a];
+        if(v.size() > 1 || v.size() == 1 && !(v.itemAt(0) instanceof Int &&
+            ((Int) v.itemAt(0)).itr() > 0)) {
+          throw BASX_ANNOTARGS.get(infos[a], '%', name.string());
+        }
       } else if(eq(uri, OUTPUTURI)) {
         if(Serializer.OPTIONS.option(string(local)) == null)
           throw BASX_ANNOT.get(infos[a], '%', name.string());
@@ -149,6 +149,16 @@ public final class Collation {
     return coll.compare(string(string), string(compare));
   }
 
+  /**
+   * Returns a byte-comparable key for the specified string. The unsigned byte order
+   * of two keys is identical to the result of {@link #compare}.
+   * @param string string
+   * @return key
+   */
+  public byte[] key(final byte[] string) {
+    return coll.getCollationKey(string(string)).toByteArray();
+  }
+
   /**
    * Checks if a string is contained in another.
    * @param string string
@@ -39,6 +39,8 @@ public enum Err {
   BASX_ANNOT(BASX, 6, "Annotation %% is invalid or not supported."),
   /** BASX0006. */
   BASX_ANNOTARGS(BASX, 6, "Annotation %% has invalid arguments."),
+  /** BASX0007. */
+  BASX_SWAP(BASX, 7, "Temporary data could not be swapped to disk: %"),
 
   // Client module
 
@@ -14,13 +14,13 @@ import org.basex.util.hash.*;
 public final class JDBCConnections {
   /** Last inserted id. */
   private int lastId = -1;
-  /** Map with all open connections and prepared statements with unique ids. */
+  /** Map with all open connections, statements and result sets with unique ids. */
   private final IntObjMap<Object> conns = new IntObjMap<Object>();
 
   /**
-   * Adds a connection or prepared statement to depot.
-   * @param obj connection or prepared statement
-   * @return connection/prepared statement id
+   * Adds a connection, statement or result set to depot.
+   * @param obj connection, statement or result set
+   * @return connection/statement id
    */
   public int add(final Object obj) {
     conns.put(++lastId, obj);
@@ -45,15 +45,16 @@ public final class JDBCConnections {
   }
 
   /**
-   * Closes all opened connections.
+   * Closes all opened connections, statements and result sets.
    */
   public void close() {
-    for(int i = 0; i < conns.size(); i++) {
-      final int key = conns.key(i);
-      final Object obj = conns.get(key);
+    // close entries in reverse order (statements and result sets before their connections)
+    for(int id = lastId; id >= 0; id--) {
+      final Object obj = conns.get(id);
       if(obj == null) continue;
       try {
         if(obj instanceof Connection) ((Connection) obj).close();
+        else if(obj instanceof ResultSet) ((ResultSet) obj).close();
         else ((Statement) obj).close();
       } catch(final SQLException ex) {
         Util.debug(ex);
@@ -9,6 +9,7 @@ import org.basex.io.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.query.*;
+import org.basex.query.value.item.*;
 import org.basex.util.*;
 
 /**
@@ -78,6 +79,15 @@ public abstract class ArchiveIn {
     return ao.toArray();
   }
 
+  /**
+   * Returns the current entry as binary item.
+   * @return item
+   * @throws IOException I/O exception
+   */
+  public B64 binary() throws IOException {
+    return new B64(read());
+  }
+
   /**
    * Closes the stream.
    */
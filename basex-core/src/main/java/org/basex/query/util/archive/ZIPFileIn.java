@@ -0,0 +1,82 @@
+package org.basex.query.util.archive;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.query.func.*;
+import org.basex.query.util.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
+
+/**
+ * ZIP file reader. The entries are retrieved from the central directory of the file,
+ * and only the contents of requested entries will be decompressed.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ZIPFileIn extends ArchiveIn {
+  /** ZIP file. */
+  private final ZipFile zf;
+  /** Entries. */
+  private final Enumeration<? extends ZipEntry> entries;
+  /** Current entry. */
+  private ZipEntry ze;
+  /** Input stream of the current entry (lazily opened). */
+  private InputStream zis;
+
+  /**
+   * Constructor.
+   * @param file ZIP file
+   */
+  public ZIPFileIn(final ZipFile file) {
+    zf = file;
+    entries = file.entries();
+  }
+
+  @Override
+  public boolean more() throws IOException {
+    closeEntry();
+    ze = entries.hasMoreElements() ? entries.nextElement() : null;
+    return ze != null;
+  }
+
+  @Override
+  public ZipEntry entry() {
+    return ze;
+  }
+
+  @Override
+  public int read(final byte[] d) throws IOException {
+    if(zis == null) zis = zf.getInputStream(ze);
+    return zis.read(d);
+  }
+
+  @Override
+  public B64 binary() {
+    return new B64Stream(new IOZipEntry(zf, ze), Err.ARCH_FAIL);
+  }
+
+  @Override
+  public String format() {
+    return FNArchive.ZIP;
+  }
+
+  @Override
+  public void close() {
+    try { closeEntry(); } catch(final IOException ex) { Util.debug(ex); }
+  }
+
+  /**
+   * Closes the input stream of the current entry.
+   * @throws IOException I/O exception
+   */
+  private void closeEntry() throws IOException {
+    if(zis != null) {
+      zis.close();
+      zis = null;
+    }
+  }
+}
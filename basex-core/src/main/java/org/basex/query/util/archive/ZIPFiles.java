@@ -0,0 +1,50 @@
+package org.basex.query.util.archive;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * Opened ZIP files. The central directory of a file is only parsed once, and it is
+ * reused by all functions that access the same archive in a query.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ZIPFiles {
+  /** Opened files, indexed by their path, timestamp and size. */
+  private final HashMap<String, ZipFile> files = new HashMap<String, ZipFile>();
+
+  /**
+   * Returns an opened ZIP file. The file will be reopened if it has been modified.
+   * @param file file reference
+   * @return ZIP file
+   * @throws IOException I/O exception
+   */
+  public synchronized ZipFile get(final IOFile file) throws IOException {
+    final String key = file.path() + '\n' + file.timeStamp() + '\n' + file.length();
+    ZipFile zf = files.get(key);
+    if(zf == null) {
+      zf = new ZipFile(file.file());
+      files.put(key, zf);
+    }
+    return zf;
+  }
+
+  /**
+   * Closes all opened files.
+   */
+  public synchronized void close() {
+    for(final ZipFile zf : files.values()) {
+      try {
+        zf.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+    files.clear();
+  }
+}
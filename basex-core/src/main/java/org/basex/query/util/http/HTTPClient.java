@@ -58,32 +58,26 @@ public final class HTTPClient {
       if(request == null) {
         if(href == null || href.length == 0) throw HC_PARAMS.get(info);
         final HttpURLConnection conn = openConnection(string(href));
-        try {
-          return new HTTPResponse(info, options).getResponse(conn, Bln.FALSE.string(), null);
-        } finally {
-          conn.disconnect();
-        }
+        return new HTTPResponse(info, options).getResponse(conn, Bln.FALSE.string(), null);
       }
 
       final HTTPRequest r = new HTTPRequestParser(info).parse(request, bodies);
       final byte[] dest = href == null ? r.attrs.get(HREF) : href;
       if(dest == null) throw HC_URL.get(info);
 
+      // the connection is not disconnected: as the response streams are closed after
+      // they have been read, the socket can be reused by subsequent requests (keep-alive)
       final HttpURLConnection conn = openConnection(string(dest));
-      try {
-        setConnectionProps(conn, r);
-        setRequestHeaders(conn, r);
+      setConnectionProps(conn, r);
+      setRequestHeaders(conn, r);
 
-        if(r.bodyContent.size() != 0 || !r.parts.isEmpty()) {
-          setContentType(conn, r);
-          setRequestContent(conn.getOutputStream(), r);
-        }
-        final byte[] mt = r.attrs.get(OVERRIDE_MEDIA_TYPE);
-        return new HTTPResponse(info, options).getResponse(conn, r.attrs.get(STATUS_ONLY),
-            mt == null ? null : string(mt));
-      } finally {
-        conn.disconnect();
+      if(r.bodyContent.size() != 0 || !r.parts.isEmpty()) {
+        setContentType(conn, r);
+        setRequestContent(conn.getOutputStream(), r);
       }
+      final byte[] mt = r.attrs.get(OVERRIDE_MEDIA_TYPE);
+      return new HTTPResponse(info, options).getResponse(conn, r.attrs.get(STATUS_ONLY),
+          mt == null ? null : string(mt));
     } catch(final IOException ex) {
       throw HC_ERROR.get(info, ex);
     }
@@ -128,7 +122,7 @@ public final class HTTPClient {
     final byte[] timeout = r.attrs.get(TIMEOUT);
     if(timeout != null) conn.setConnectTimeout(Integer.parseInt(string(timeout)));
     final byte[] redirect = r.attrs.get(FOLLOW_REDIRECT);
-    if(redirect != null) setFollowRedirects(Bln.parse(redirect, info));
+    if(redirect != null) conn.setInstanceFollowRedirects(Bln.parse(redirect, info));
   }
 
   /**
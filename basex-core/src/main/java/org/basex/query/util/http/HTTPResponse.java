@@ -79,9 +79,14 @@ public final class HTTPResponse {
     // construct <http:body/>
     final boolean body = status == null || !Bln.parse(status, info);
     if(is != null) {
-      final HTTPPayload hp = new HTTPPayload(is, body, info, options);
-      response.add(hp.parse(error, type, utype));
-      if(body) vb.add(hp.payloads());
+      try {
+        final HTTPPayload hp = new HTTPPayload(is, body, info, options);
+        response.add(hp.parse(error, type, utype));
+        if(body) vb.add(hp.payloads());
+      } finally {
+        // closing the stream releases the connection for keep-alive requests
+        is.close();
+      }
     }
     return vb;
   }
@@ -31,6 +31,14 @@ public final class B64Stream extends B64 {
     error = err;
   }
 
+  /**
+   * Returns the input reference.
+   * @return input
+   */
+  public IO io() {
+    return input;
+  }
+
   @Override
   public byte[] binary(final InputInfo ii) throws QueryException {
     try {
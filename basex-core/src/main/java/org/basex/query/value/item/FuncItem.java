@@ -45,6 +45,8 @@ public final class FuncItem extends FItem implements Scope {
 
   /** Size of the stack frame needed for this function. */
   private final int stackSize;
+  /** Cache for function results ({@code null} if results are not memoized). */
+  private final Memo memo;
 
   /**
    * Constructor.
@@ -59,7 +61,7 @@ public final class FuncItem extends FItem implements Scope {
    */
   public FuncItem(final StaticContext sctx, final Ann annotations, final QNm n, final Var[] arg,
       final FuncType t, final Expr body, final boolean cst, final int stSize) {
-    this(sctx, annotations, n, arg, t, body, cst, null, 0, 0, stSize);
+    this(sctx, annotations, n, arg, t, body, cst, null, 0, 0, stSize, null);
   }
 
   /**
@@ -75,10 +77,11 @@ public final class FuncItem extends FItem implements Scope {
    * @param ps context position
    * @param sz context size
    * @param stSize stack-frame size
+   * @param mem cache for function results (can be {@code null})
    */
   public FuncItem(final StaticContext sctx, final Ann annotations, final QNm n, final Var[] arg,
       final FuncType t, final Expr body, final boolean cst, final Value vl,
-      final long ps, final long sz, final int stSize) {
+      final long ps, final long sz, final int stSize, final Memo mem) {
 
     super(t, annotations);
     name = n;
@@ -92,6 +95,7 @@ public final class FuncItem extends FItem implements Scope {
     ctxVal = vl;
     pos = ps;
     size = sz;
+    memo = mem;
   }
 
   @Override
@@ -118,6 +122,13 @@ public final class FuncItem extends FItem implements Scope {
   public Value invValue(final QueryContext ctx, final InputInfo ii, final Value... args)
       throws QueryException {
 
+    // memoized function: return cached result
+    final Memo.Key key = memo != null ? memo.key(args, ii) : null;
+    if(key != null) {
+      final Value v = memo.get(key, ctx);
+      if(v != null) return v;
+    }
+
     // bind variables and cache context
     final int fp = ctx.stack.enterFrame(stackSize);
     final Value cv = ctx.value;
@@ -129,7 +140,9 @@ public final class FuncItem extends FItem implements Scope {
       for(int i = 0; i < vars.length; i++) ctx.set(vars[i], args[i], ii);
       final Value v = ctx.value(expr);
       // optionally cast return value to target type
-      return cast != null ? cast.funcConvert(ctx, sc, ii, v, false) : v;
+      final Value res = cast != null ? cast.funcConvert(ctx, sc, ii, v, false) : v;
+      if(key != null) memo.put(key, res);
+      return res;
     } finally {
       ctx.value = cv;
       ctx.pos = ps;
@@ -142,6 +155,9 @@ public final class FuncItem extends FItem implements Scope {
   public Item invItem(final QueryContext ctx, final InputInfo ii, final Value... args)
       throws QueryException {
 
+    // memoized function: return cached result
+    if(memo != null) return invValue(ctx, ii, args).item(ctx, ii);
+
     // bind variables and cache context
     final int fp = ctx.stack.enterFrame(stackSize);
     final Value cv = ctx.value;
@@ -225,7 +241,7 @@ public final class FuncItem extends FItem implements Scope {
   @Override
   public Expr inlineExpr(final Expr[] exprs, final QueryContext ctx, final VarScope scp,
       final InputInfo ii) throws QueryException {
-    if(!inline(exprs, ctx)) return null;
+    if(memo != null || !inline(exprs, ctx)) return null;
     ctx.compInfo(OPTINLINEFN, this);
     // create let bindings for all variables
     final LinkedList<GFLWOR.Clause> cls =
@@ -65,6 +65,18 @@ public final class Int extends ANum {
     return t == AtomType.ITR ? get(v) : new Int(v, t);
   }
 
+  /**
+   * Checks if the value of an integer item can be represented as long value.
+   * This is not the case for unsigned longs that exceed the range of longs.
+   * @param it integer item
+   * @param ii input info
+   * @return result of check
+   * @throws QueryException query exception
+   */
+  public static boolean fits(final Item it, final InputInfo ii) throws QueryException {
+    return it instanceof Int || it.dec(ii).compareTo(ADateDur.BDMAXLONG) <= 0;
+  }
+
   @Override
   public byte[] string() {
     return val == 0 ? Token.ZERO : Token.token(val);
@@ -62,6 +62,14 @@ public final class IntSeq extends NativeSeq {
     }
   }
 
+  /**
+   * Returns the internal values. The returned array must not be modified.
+   * @return values
+   */
+  public long[] values() {
+    return values;
+  }
+
   @Override
   public Value reverse() {
     final int s = values.length;
@@ -96,7 +96,7 @@ public final class ItemSeq extends Seq {
 
   @Override
   public Value reverse() {
-    final int s = item.length;
+    final int s = (int) size;
     final Item[] tmp = new Item[s];
     for(int l = 0, r = s - 1; l < s; l++, r--) tmp[l] = item[r];
     return get(tmp, s, type);
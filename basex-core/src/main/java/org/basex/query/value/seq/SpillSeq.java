@@ -0,0 +1,80 @@
+package org.basex.query.value.seq;
+
+import static org.basex.query.util.Err.*;
+
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.type.*;
+import org.basex.query.value.type.SeqType.Occ;
+import org.basex.util.*;
+
+/**
+ * Sequence, containing at least two items, which are stored in a compact
+ * representation and may have been swapped to disk (see {@link SpillBuilder}).
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class SpillSeq extends Seq {
+  /** Builder with the cached items. */
+  private final SpillBuilder builder;
+  /** Reverse order. */
+  private final boolean reverse;
+
+  /**
+   * Constructor.
+   * @param sb spill builder
+   * @param r reverse order
+   */
+  private SpillSeq(final SpillBuilder sb, final boolean r) {
+    super(sb.size(), sb.type());
+    builder = sb;
+    reverse = r;
+  }
+
+  /**
+   * Creates a sequence from the specified builder.
+   * @param sb spill builder
+   * @return value
+   */
+  public static Value get(final SpillBuilder sb) {
+    return new SpillSeq(sb, false);
+  }
+
+  @Override
+  public Item itemAt(final long pos) {
+    return builder.get(reverse ? size - 1 - pos : pos);
+  }
+
+  @Override
+  public int writeTo(final Item[] arr, final int start) {
+    final int w = (int) Math.min(size, arr.length - start);
+    for(int i = 0; i < w; i++) arr[start + i] = itemAt(i);
+    return w;
+  }
+
+  @Override
+  public boolean homogeneous() {
+    return type != AtomType.ITEM;
+  }
+
+  @Override
+  public SeqType type() {
+    return SeqType.get(type, Occ.ONE_MORE);
+  }
+
+  @Override
+  public Item ebv(final QueryContext ctx, final InputInfo ii) throws QueryException {
+    final Item fst = itemAt(0);
+    if(fst instanceof ANode) return fst;
+    throw CONDTYPE.get(ii, this);
+  }
+
+  @Override
+  public Value reverse() {
+    return new SpillSeq(builder, !reverse);
+  }
+}
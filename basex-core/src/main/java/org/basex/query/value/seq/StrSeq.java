@@ -46,6 +46,14 @@ public final class StrSeq extends NativeSeq {
     return tmp;
   }
 
+  /**
+   * Returns the internal values. The returned array must not be modified.
+   * @return values
+   */
+  public byte[][] values() {
+    return values;
+  }
+
   @Override
   public Value reverse() {
     final int s = values.length;
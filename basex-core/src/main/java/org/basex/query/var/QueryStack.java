@@ -41,6 +41,17 @@ public final class QueryStack {
     return ret;
   }
 
+  /**
+   * Enters a new stack frame, which contains the variable bindings of the current
+   * frame of the specified stack.
+   * @param qs stack to be copied
+   */
+  public void enterFrame(final QueryStack qs) {
+    final int s = qs.sl - qs.fp;
+    enterFrame(s);
+    System.arraycopy(qs.stack, qs.fp, stack, fp, s);
+  }
+
   /**
    * Exits a stack frame and makes all bound variables eligible for garbage collection.
    * @param fpt frame pointer of the underlying stack frame
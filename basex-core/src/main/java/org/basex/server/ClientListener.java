@@ -25,6 +25,9 @@ import org.basex.util.list.*;
  * @author Christian Gruen
  */
 public final class ClientListener extends Thread {
+  /** Error message for cursors that were closed by another command. */
+  private static final String CURSOR_CLOSED =
+      "Cursor of query was closed, as another command was run in the same session.";
   /** Timer for authentication time out. */
   public final Timer auth = new Timer();
   /** Timestamp of last interaction. */
@@ -33,6 +36,8 @@ public final class ClientListener extends Thread {
   /** Active queries. */
   private final HashMap<String, QueryListener> queries =
     new HashMap<String, QueryListener>();
+  /** Query with an open cursor. */
+  private QueryListener cursor;
   /** Performance measurement. */
   private final Performance perf = new Performance();
   /** Database context. */
@@ -83,7 +88,7 @@ public final class ClientListener extends Thread {
         String cmd;
         final ServerCmd sc;
         try {
-          final int b = in.read();
+          final int b = read();
           if(b == -1) {
             // end of stream: exit session
             quit();
@@ -93,6 +98,7 @@ public final class ClientListener extends Thread {
           last = System.currentTimeMillis();
           perf.time();
           sc = ServerCmd.get(b);
+          cursor(sc, CURSOR_CLOSED);
           cmd = null;
           if(sc == ServerCmd.CREATE) {
             create();
@@ -167,6 +173,30 @@ public final class ClientListener extends Thread {
       quit();
     }
     command = null;
+    cursor(null, null);
+  }
+
+  /**
+   * Reads the next command byte. If a cursor is open, and if no command is received within
+   * the timeout, the cursor will be closed, and the locks of its query will be released.
+   * @return command byte, or {@code -1} if the end of the stream has been reached
+   * @throws IOException I/O exception
+   */
+  private int read() throws IOException {
+    final long to = context.globalopts.get(GlobalOptions.TIMEOUT);
+    if(cursor != null && to > 0) {
+      socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, to * 1000L));
+      try {
+        return in.read();
+      } catch(final SocketTimeoutException ex) {
+        final String msg = "Cursor of query was closed after " + to + " seconds of inactivity.";
+        log(msg, false);
+        cursor(null, msg);
+      } finally {
+        socket.setSoTimeout(0);
+      }
+    }
+    return in.read();
   }
 
   /**
@@ -481,6 +511,11 @@ public final class ClientListener extends Thread {
           qp.context(val, typ);
           info.append(val);
           if(!typ.isEmpty()) info.append(" as ").append(typ);
+        } else if(sc == ServerCmd.FETCH) {
+          final int size = Integer.parseInt(in.readString());
+          // close cursor of another query
+          if(cursor != qp) cursor(null, CURSOR_CLOSED);
+          cursor = qp.fetch(Math.max(1, size), out) ? qp : null;
         } else if(sc == ServerCmd.RESULTS) {
           qp.execute(true, out, true, false);
         } else if(sc == ServerCmd.EXEC) {
@@ -494,6 +529,7 @@ public final class ClientListener extends Thread {
         } else if(sc == ServerCmd.UPDATING) {
           out.print(Boolean.toString(qp.updating()));
         } else if(sc == ServerCmd.CLOSE) {
+          if(cursor == qp) cursor(null, null);
           queries.remove(arg);
         } else if(sc == ServerCmd.NEXT) {
           throw new Exception("Protocol for query iteration is out-of-date.");
@@ -523,6 +559,20 @@ public final class ClientListener extends Thread {
     out.flush();
   }
 
+  /**
+   * Closes an open cursor, unless the specified command can be run while it is open.
+   * As a session can only hold the locks of a single process, the cursor is closed
+   * before other queries or commands are run, and the next fetch will report an error.
+   * @param sc server command (if {@code null}, the cursor will always be closed)
+   * @param reason reason that will be reported by the next fetch
+   */
+  private void cursor(final ServerCmd sc, final String reason) {
+    if(cursor == null || sc == ServerCmd.FETCH || sc == ServerCmd.CLOSE ||
+        sc == ServerCmd.INFO || sc == ServerCmd.OPTIONS || sc == ServerCmd.UPDATING) return;
+    cursor.close(reason);
+    cursor = null;
+  }
+
   /**
    * Sends a success flag to the client (0: true, 1: false).
    * @param ok success flag
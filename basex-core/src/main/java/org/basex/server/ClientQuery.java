@@ -2,9 +2,6 @@ package org.basex.server;
 
 import java.io.*;
 
-import org.basex.core.*;
-import org.basex.io.in.*;
-
 /**
  * This class defines all methods for iteratively evaluating queries with the
  * client/server architecture. All sent data is received by the
@@ -52,13 +49,15 @@ public class ClientQuery extends Query {
   @Override
   public void bind(final String n, final Object v, final String t) throws IOException {
     cache = null;
-    cs.exec(ServerCmd.BIND, id + '\0' + n + '\0' + v + '\0' + (t == null ? "" : t), null);
+    pending = false;
+    cs.pipe(ServerCmd.BIND, id + '\0' + n + '\0' + v + '\0' + (t == null ? "" : t));
   }
 
   @Override
   public void context(final Object v, final String t) throws IOException {
     cache = null;
-    cs.exec(ServerCmd.CONTEXT, id + '\0' + v + '\0' + (t == null ? "" : t), null);
+    pending = false;
+    cs.pipe(ServerCmd.CONTEXT, id + '\0' + v + '\0' + (t == null ? "" : t));
   }
 
   @Override
@@ -68,16 +67,25 @@ public class ClientQuery extends Query {
 
   @Override
   public void close() throws IOException {
-    cs.exec(ServerCmd.CLOSE, id, null);
+    cs.pipe(ServerCmd.CLOSE, id);
   }
 
   @Override
   protected void cache() throws IOException {
-    cs.sout.write(ServerCmd.RESULTS.code);
-    cs.send(id);
-    cs.sout.flush();
-    final BufferInput bi = new BufferInput(cs.sin);
-    cache(bi);
-    if(!ClientSession.ok(bi)) throw new BaseXException(bi.readString());
+    final int size = fetch;
+    if(size == 0) {
+      cs.sout.write(ServerCmd.RESULTS.code);
+      cs.send(id);
+    } else {
+      // fetch next items from the server-side cursor
+      cs.sout.write(ServerCmd.FETCH.code);
+      cs.send(id);
+      cs.send(Integer.toString(size));
+    }
+    final String error = cs.sync();
+    pending = false;
+    cache(cs.input);
+    cs.check(error);
+    pending = size != 0 && cache.size() == size;
   }
 }
@@ -9,6 +9,7 @@ import org.basex.core.parse.Commands.*;
 import org.basex.io.in.*;
 import org.basex.io.out.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class offers methods to execute database commands via the
@@ -25,11 +26,16 @@ import org.basex.util.*;
  * <li> {@link #close} closes the session by sending the {@link Cmd#EXIT}
  * command to the server.</li>
  * </ul>
+ * <p>Requests can be pipelined: if {@link #pipeline(boolean)} is enabled, or if variables
+ * are bound to a query, requests are sent without waiting for the response. The responses
+ * are received with the next request that returns a result.</p>
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
 public class ClientSession extends Session {
+  /** Maximum number of pipelined requests whose responses have not been received. */
+  private static final int MAXPENDING = 1 << 10;
   /** Event notifications. */
   private final Map<String, EventNotifier> notifiers =
     Collections.synchronizedMap(new HashMap<String, EventNotifier>());
@@ -37,6 +43,12 @@ public class ClientSession extends Session {
   protected final PrintOutput sout;
   /** Server input. */
   protected final InputStream sin;
+  /** Buffered server input, which is used to read all responses. */
+  final BufferInput input;
+  /** Pipelined requests whose responses have not been received yet (query flags). */
+  private final BoolList pending = new BoolList();
+  /** Pipelining flag. */
+  private boolean pipeline;
 
   /** Socket reference. */
   private final Socket socket;
@@ -109,10 +121,10 @@ public class ClientSession extends Session {
       throw new BaseXException(ex);
     }
     sin = socket.getInputStream();
+    input = new BufferInput(sin);
 
     // receive timestamp
-    final BufferInput bi = new BufferInput(sin);
-    final String ts = bi.readString();
+    final String ts = input.readString();
 
     // send user name and hashed password/timestamp
     sout = PrintOutput.get(socket.getOutputStream());
@@ -121,7 +133,7 @@ public class ClientSession extends Session {
     sout.flush();
 
     // receive success flag
-    if(!ok(bi)) throw new LoginException();
+    if(!ok(input)) throw new LoginException();
   }
 
   @Override
@@ -151,14 +163,31 @@ public class ClientSession extends Session {
 
   @Override
   public synchronized void close() throws IOException {
-    if(esocket != null) esocket.close();
-    socket.close();
+    try {
+      flush();
+    } finally {
+      if(esocket != null) esocket.close();
+      socket.close();
+    }
+  }
+
+  /**
+   * Enables or disables pipelining. If enabled, the {@link #create}, {@link #add},
+   * {@link #replace} and {@link #store} requests will be sent without waiting for the
+   * response of the server. The responses will be received with the next request that
+   * returns a result, or if pipelining is disabled again. The first error will then be
+   * returned as exception.
+   * @param p pipelining flag
+   * @throws IOException I/O exception
+   */
+  public void pipeline(final boolean p) throws IOException {
+    pipeline = p;
+    if(!p) flush();
   }
 
   @Override
   protected void execute(final String cmd, final OutputStream os) throws IOException {
     send(cmd);
-    sout.flush();
     receive(os);
   }
 
@@ -174,16 +203,16 @@ public class ClientSession extends Session {
    * @throws IOException I/O exception
    */
   public void watch(final String name, final EventNotifier notifier) throws IOException {
+    flush();
     sout.write(ServerCmd.WATCH.code);
     if(esocket == null) {
       sout.flush();
-      final BufferInput bi = new BufferInput(sin);
-      final int eport = Integer.parseInt(bi.readString());
+      final int eport = Integer.parseInt(input.readString());
       // initialize event socket
       esocket = new Socket();
       esocket.connect(new InetSocketAddress(ehost, eport), 5000);
       final OutputStream so = esocket.getOutputStream();
-      so.write(bi.readBytes());
+      so.write(input.readBytes());
       so.write(0);
       so.flush();
       final InputStream is = esocket.getInputStream();
@@ -191,7 +220,6 @@ public class ClientSession extends Session {
       listen(is);
     }
     send(name);
-    sout.flush();
     receive(null);
     notifiers.put(name, notifier);
   }
@@ -204,7 +232,6 @@ public class ClientSession extends Session {
   public void unwatch(final String name) throws IOException {
     sout.write(ServerCmd.UNWATCH.code);
     send(name);
-    sout.flush();
     receive(null);
     notifiers.remove(name);
   }
@@ -240,8 +267,8 @@ public class ClientSession extends Session {
     final EncodingOutput eo = new EncodingOutput(sout);
     for(int b; (b = input.read()) != -1;) eo.write(b);
     sout.write(0);
-    sout.flush();
-    receive(null);
+    if(pipeline) pipe(false);
+    else receive(null);
   }
 
   /**
@@ -251,10 +278,87 @@ public class ClientSession extends Session {
    * @throws IOException I/O exception
    */
   private void receive(final OutputStream os) throws IOException {
-    final BufferInput bi = new BufferInput(sin);
-    if(os != null) receive(bi, os);
-    info = bi.readString();
-    if(!ok(bi)) throw new BaseXException(info);
+    final String error = sync();
+    if(os != null) receive(input, os);
+    final String inf = input.readString();
+    final boolean ok = ok(input);
+    if(error != null) throw new BaseXException(error);
+    info = inf;
+    if(!ok) throw new BaseXException(info);
+  }
+
+  /**
+   * Registers a pipelined request. If the maximum number of pending responses
+   * is reached, all responses are received.
+   * @param query query command (the response contains no info string)
+   * @throws IOException I/O exception
+   */
+  private void pipe(final boolean query) throws IOException {
+    pending.add(query);
+    if(pending.size() >= MAXPENDING) flush();
+  }
+
+  /**
+   * Sends a query command without waiting for the response.
+   * @param cmd server command
+   * @param arg argument
+   * @throws IOException I/O exception
+   */
+  void pipe(final ServerCmd cmd, final String arg) throws IOException {
+    sout.write(cmd.code);
+    send(arg);
+    pipe(true);
+  }
+
+  /**
+   * Flushes the output and receives the responses of all pipelined requests.
+   * @return first error message, or {@code null}
+   * @throws IOException I/O exception
+   */
+  String sync() throws IOException {
+    sout.flush();
+    String error = null;
+    final int ps = pending.size();
+    for(int p = 0; p < ps; p++) {
+      final String msg;
+      if(pending.get(p)) {
+        // query command: skip result, read error message
+        receive(input, new ArrayOutput());
+        msg = ok(input) ? null : input.readString();
+      } else {
+        final String inf = input.readString();
+        if(ok(input)) {
+          info = inf;
+          msg = null;
+        } else {
+          msg = inf;
+        }
+      }
+      if(error == null) error = msg;
+    }
+    pending.reset();
+    return error;
+  }
+
+  /**
+   * Receives the responses of all pipelined requests and throws the first error.
+   * @throws IOException I/O exception
+   */
+  private void flush() throws IOException {
+    final String error = sync();
+    if(error != null) throw new BaseXException(error);
+  }
+
+  /**
+   * Reads the success flag of a query command and throws an exception
+   * if the command or a pipelined request failed.
+   * @param error error message of a pipelined request (may be {@code null})
+   * @throws IOException I/O exception
+   */
+  void check(final String error) throws IOException {
+    final String msg = ok(input) ? null : input.readString();
+    if(error != null) throw new BaseXException(error);
+    if(msg != null) throw new BaseXException(msg);
   }
 
   /**
@@ -316,10 +420,9 @@ public class ClientSession extends Session {
     final OutputStream o = os == null ? new ArrayOutput() : os;
     sout.write(cmd.code);
     send(arg);
-    sout.flush();
-    final BufferInput bi = new BufferInput(sin);
-    receive(bi, o);
-    if(!ok(bi)) throw new BaseXException(bi.readString());
+    final String error = sync();
+    receive(input, o);
+    check(error);
     return o.toString();
   }
 
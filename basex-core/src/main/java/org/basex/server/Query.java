@@ -27,6 +27,10 @@ public abstract class Query {
   private ByteList types;
   /** Cache pointer. */
   private int pos;
+  /** Number of items to be fetched at a time ({@code 0}: all items). */
+  int fetch;
+  /** Indicates if more items can be fetched. */
+  boolean pending;
 
   /**
    * Binds a value to an external variable.
@@ -71,13 +75,22 @@ public abstract class Query {
    * @throws IOException I/O exception
    */
   public boolean more() throws IOException {
-    if(cache == null) cache();
+    if(cache == null || pos == cache.size() && pending) cache();
     if(pos < cache.size()) return true;
     cache = null;
     types = null;
     return false;
   }
 
+  /**
+   * Sets the number of items that will be fetched at a time. By default, all items
+   * are fetched and cached by the first call of {@link #more()}.
+   * @param size number of items ({@code 0}: fetch all items)
+   */
+  public final void fetchSize(final int size) {
+    fetch = Math.max(0, size);
+  }
+
   /**
    * Caches the query result.
    * @throws IOException I/O exception
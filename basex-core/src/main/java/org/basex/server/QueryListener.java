@@ -39,6 +39,12 @@ final class QueryListener extends Proc {
   private boolean parsed;
   /** Query info. */
   private String info = "";
+  /** Result iterator of an open cursor. */
+  private Iter cursor;
+  /** Number of items that have been returned by the cursor. */
+  private int items;
+  /** Reason why an open cursor was closed ({@code null} if it was not closed). */
+  private String closed;
 
   /**
    * Constructor.
@@ -58,6 +64,7 @@ final class QueryListener extends Proc {
    * @throws IOException query exception
    */
   void bind(final String n, final Object v, final String t) throws IOException {
+    reset();
     try {
       init().bind(n, v, t);
     } catch(final QueryException ex) {
@@ -72,6 +79,7 @@ final class QueryListener extends Proc {
    * @throws IOException query exception
    */
   void context(final Object v, final String t) throws IOException {
+    reset();
     try {
       init().context(v, t);
     } catch(final QueryException ex) {
@@ -168,16 +176,105 @@ final class QueryListener extends Proc {
         throw new BaseXException(TIMEOUT_EXCEEDED);
       }
     } finally {
-      // close processor and unregisters the process
-      if(qp != null) {
-        qp.close();
-        if(parsed) {
-          ctx.unregister(qp);
-          parsed = false;
+      close();
+    }
+  }
+
+  /**
+   * Returns the next items of the query result. When called for the first time,
+   * a cursor is opened: the query is registered and evaluated lazily, and the process
+   * keeps its locks until all items have been returned or the cursor is closed.
+   * @param size maximum number of items to be returned
+   * @param out output stream
+   * @return {@code true} if the cursor is still open
+   * @throws IOException I/O Exception
+   */
+  boolean fetch(final int size, final OutputStream out) throws IOException {
+    boolean open = false;
+    try {
+      try {
+        if(cursor == null) {
+          // cursor was closed before all items have been returned
+          if(items != 0) {
+            final String reason = closed;
+            reset();
+            throw new BaseXException(reason != null ? reason : "Cursor of query was closed.");
+          }
+          // parses the query and registers the process
+          ctx.register(parse());
+          qp.compile();
+          qi.cmpl = perf.time();
+          cursor = qp.iter();
+          qi.evlt = perf.time();
+          parameters();
         }
-        qp = null;
+
+        // iterate through the next results
+        final PrintOutput po = PrintOutput.get(new EncodingOutput(out));
+        final Serializer ser = Serializer.get(po, parameters);
+        int c = 0;
+        for(Item it; c < size && (it = cursor.next()) != null; c++) {
+          po.write(it.typeId().asByte());
+          ser.reset();
+          ser.serialize(it);
+          po.flush();
+          out.write(0);
+        }
+        ser.close();
+        items += c;
+        open = c == size;
+
+        if(!open) {
+          // generate query info
+          qi.srlz = perf.time();
+          info = qi.toString(qp, po, items, ctx.options.get(MainOptions.QUERYINFO));
+          items = 0;
+        }
+      } catch(final QueryException ex) {
+        throw new BaseXException(ex);
+      } catch(final StackOverflowError ex) {
+        Util.debug(ex);
+        throw new BaseXException(BASX_STACKOVERFLOW.desc);
+      } catch(final ProcException ex) {
+        throw new BaseXException(TIMEOUT_EXCEEDED);
+      }
+    } finally {
+      if(!open) close();
+    }
+    return open;
+  }
+
+  /**
+   * Closes an open cursor before all items have been returned. The specified reason
+   * will be reported by the next call of {@link #fetch}.
+   * @param reason reason
+   */
+  void close(final String reason) {
+    if(cursor != null) closed = reason;
+    close();
+  }
+
+  /**
+   * Resets the state of a cursor that has been closed.
+   */
+  private void reset() {
+    items = 0;
+    closed = null;
+  }
+
+  /**
+   * Closes the query processor and an open cursor, and unregisters the process.
+   */
+  void close() {
+    if(qp != null) {
+      qp.close();
+      if(parsed) {
+        if(qp.registered()) ctx.unregister(qp);
+        parsed = false;
       }
+      qp = null;
     }
+    cursor = null;
   }
 
   /**
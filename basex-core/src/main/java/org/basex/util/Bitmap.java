@@ -0,0 +1,379 @@
+package org.basex.util;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+
+/**
+ * Compressed bitmap for sets of non-negative integers, such as pre values.
+ * The implementation is inspired by Roaring bitmaps: integers are grouped in chunks
+ * with the same 16 high bits. Sparse chunks are stored as sorted arrays of their low
+ * bits, and dense chunks are represented as fixed-size bit arrays.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class Bitmap {
+  /** Maximum number of entries in a sparse chunk. */
+  private static final int SPARSE = 4096;
+  /** Number of words in a dense chunk. */
+  private static final int WORDS = 1 << 10;
+
+  /** High bits of the chunks (sorted). */
+  private char[] keys = new char[Array.CAPACITY];
+  /** Chunks: sorted low bits ({@code char[]}) or bit arrays ({@code long[]}). */
+  private Object[] chunks = new Object[Array.CAPACITY];
+  /** Number of entries in each chunk. */
+  private int[] cards = new int[Array.CAPACITY];
+  /** Number of chunks. */
+  private int size;
+
+  /**
+   * Default constructor.
+   */
+  public Bitmap() {
+  }
+
+  /**
+   * Constructor, reading the bitmap from the specified input.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  public Bitmap(final DataInput in) throws IOException {
+    final int s = in.readNum();
+    for(int i = 0; i < s; i++) {
+      final char key = (char) in.readNum();
+      final int card = in.readNum();
+      if(in.readBool()) {
+        append(key, in.readLongs(in.readNum()), card);
+      } else {
+        final char[] lows = new char[card];
+        for(int l = 0; l < card; l++) lows[l] = (char) ((l == 0 ? 0 : lows[l - 1]) +
+            in.readNum());
+        append(key, lows, card);
+      }
+    }
+  }
+
+  /**
+   * Writes the bitmap to the specified output.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  public void write(final DataOutput out) throws IOException {
+    out.writeNum(size);
+    for(int i = 0; i < size; i++) {
+      out.writeNum(keys[i]);
+      final int card = cards[i];
+      out.writeNum(card);
+      final Object ch = chunks[i];
+      final boolean dense = ch instanceof long[];
+      out.writeBool(dense);
+      if(dense) {
+        out.writeLongs((long[]) ch);
+      } else {
+        final char[] lows = (char[]) ch;
+        for(int l = 0; l < card; l++) out.writeNum(lows[l] - (l == 0 ? 0 : lows[l - 1]));
+      }
+    }
+  }
+
+  /**
+   * Creates a bitmap from the specified integers.
+   * @param values integers
+   * @param s number of integers to be added
+   * @return bitmap
+   */
+  public static Bitmap get(final int[] values, final int s) {
+    final Bitmap bm = new Bitmap();
+    for(int v = 0; v < s; v++) bm.add(values[v]);
+    return bm;
+  }
+
+  /**
+   * Adds an integer.
+   * @param v integer (must be non-negative)
+   */
+  public void add(final int v) {
+    final char key = (char) (v >>> 16), low = (char) v;
+    // shortcut for ascending values
+    int i = size != 0 && keys[size - 1] == key ? size - 1 : index(key);
+    if(i < 0) {
+      i = -i - 1;
+      if(size == keys.length) {
+        final int ns = Array.newSize(size);
+        keys = Arrays.copyOf(keys, ns);
+        chunks = Arrays.copyOf(chunks, ns);
+        cards = Arrays.copyOf(cards, ns);
+      }
+      Array.move(keys, i, 1, size - i);
+      Array.move(chunks, i, 1, size - i);
+      Array.move(cards, i, 1, size - i);
+      keys[i] = key;
+      chunks[i] = new char[Array.CAPACITY];
+      cards[i] = 0;
+      size++;
+    }
+
+    final int card = cards[i];
+    if(chunks[i] instanceof long[]) {
+      final long[] words = (long[]) chunks[i];
+      final long bit = 1L << low, w = words[low >>> 6];
+      if((w & bit) == 0) {
+        words[low >>> 6] = w | bit;
+        cards[i]++;
+      }
+    } else {
+      char[] arr = (char[]) chunks[i];
+      // shortcut for ascending values
+      int p = card == 0 || arr[card - 1] < low ? -card - 1 :
+        Arrays.binarySearch(arr, 0, card, low);
+      if(p >= 0) return;
+      p = -p - 1;
+      if(card == SPARSE) {
+        final long[] words = bits(arr, card);
+        words[low >>> 6] |= 1L << low;
+        chunks[i] = words;
+      } else {
+        if(card == arr.length) {
+          arr = Arrays.copyOf(arr, Math.min(SPARSE, Array.newSize(card)));
+          chunks[i] = arr;
+        }
+        System.arraycopy(arr, p, arr, p + 1, card - p);
+        arr[p] = low;
+      }
+      cards[i]++;
+    }
+  }
+
+  /**
+   * Checks if the specified integer is contained in the bitmap.
+   * @param v integer
+   * @return result of check
+   */
+  public boolean contains(final int v) {
+    final int i = index((char) (v >>> 16));
+    if(i < 0) return false;
+    final char low = (char) v;
+    final Object c = chunks[i];
+    return c instanceof long[] ? (((long[]) c)[low >>> 6] & 1L << low) != 0 :
+      Arrays.binarySearch((char[]) c, 0, cards[i], low) >= 0;
+  }
+
+  /**
+   * Returns the number of integers in the bitmap.
+   * @return cardinality
+   */
+  public int cardinality() {
+    int c = 0;
+    for(int i = 0; i < size; i++) c += cards[i];
+    return c;
+  }
+
+  /**
+   * Returns the union of this and the specified bitmap.
+   * @param bm bitmap
+   * @return new bitmap
+   */
+  public Bitmap or(final Bitmap bm) {
+    final Bitmap res = new Bitmap();
+    int i = 0, j = 0;
+    while(i < size || j < bm.size) {
+      final int d = i == size ? 1 : j == bm.size ? -1 : keys[i] - bm.keys[j];
+      if(d < 0) {
+        res.append(keys[i], copy(chunks[i], cards[i]), cards[i]);
+        i++;
+      } else if(d > 0) {
+        res.append(bm.keys[j], copy(bm.chunks[j], bm.cards[j]), bm.cards[j]);
+        j++;
+      } else {
+        final long[] a = bits(chunks[i], cards[i]), b = bits(bm.chunks[j], bm.cards[j]);
+        for(int w = 0; w < WORDS; w++) a[w] |= b[w];
+        res.append(keys[i], a);
+        i++;
+        j++;
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Returns the intersection of this and the specified bitmap.
+   * @param bm bitmap
+   * @return new bitmap
+   */
+  public Bitmap and(final Bitmap bm) {
+    final Bitmap res = new Bitmap();
+    for(int i = 0, j = 0; i < size && j < bm.size;) {
+      final int d = keys[i] - bm.keys[j];
+      if(d < 0) {
+        i++;
+      } else if(d > 0) {
+        j++;
+      } else {
+        final Object a = chunks[i], b = bm.chunks[j];
+        if(a instanceof char[] && b instanceof char[]) {
+          // intersect sorted arrays
+          final char[] x = (char[]) a, y = (char[]) b;
+          final int xs = cards[i], ys = bm.cards[j];
+          final char[] arr = new char[Math.max(1, Math.min(xs, ys))];
+          int c = 0;
+          for(int p = 0, q = 0; p < xs && q < ys;) {
+            if(x[p] < y[q]) p++;
+            else if(x[p] > y[q]) q++;
+            else { arr[c++] = x[p++]; q++; }
+          }
+          res.append(keys[i], arr, c);
+        } else {
+          final long[] x = bits(a, cards[i]), y = bits(b, bm.cards[j]);
+          for(int w = 0; w < WORDS; w++) x[w] &= y[w];
+          res.append(keys[i], x);
+        }
+        i++;
+        j++;
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Returns the difference of this and the specified bitmap.
+   * @param bm bitmap
+   * @return new bitmap
+   */
+  public Bitmap andNot(final Bitmap bm) {
+    final Bitmap res = new Bitmap();
+    for(int i = 0, j = 0; i < size;) {
+      final int d = j == bm.size ? -1 : keys[i] - bm.keys[j];
+      if(d < 0) {
+        res.append(keys[i], copy(chunks[i], cards[i]), cards[i]);
+        i++;
+      } else if(d > 0) {
+        j++;
+      } else {
+        final Object b = bm.chunks[j];
+        if(chunks[i] instanceof char[]) {
+          // filter sorted array
+          final char[] x = (char[]) chunks[i], arr = new char[cards[i]];
+          int c = 0;
+          for(int p = 0; p < cards[i]; p++) {
+            final char low = x[p];
+            if(!(b instanceof long[] ? (((long[]) b)[low >>> 6] & 1L << low) != 0 :
+              Arrays.binarySearch((char[]) b, 0, bm.cards[j], low) >= 0)) arr[c++] = low;
+          }
+          res.append(keys[i], arr, c);
+        } else {
+          final long[] x = bits(chunks[i], cards[i]), y = bits(b, bm.cards[j]);
+          for(int w = 0; w < WORDS; w++) x[w] &= ~y[w];
+          res.append(keys[i], x);
+        }
+        i++;
+        j++;
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Returns all integers in ascending order.
+   * @return integers
+   */
+  public int[] toArray() {
+    final int[] arr = new int[cardinality()];
+    int c = 0;
+    for(int i = 0; i < size; i++) {
+      final int high = keys[i] << 16;
+      final Object ch = chunks[i];
+      if(ch instanceof long[]) {
+        final long[] words = (long[]) ch;
+        for(int w = 0; w < WORDS; w++) {
+          for(long word = words[w]; word != 0; word &= word - 1) {
+            arr[c++] = high | w << 6 | Long.numberOfTrailingZeros(word);
+          }
+        }
+      } else {
+        final char[] lows = (char[]) ch;
+        for(int l = 0; l < cards[i]; l++) arr[c++] = high | lows[l];
+      }
+    }
+    return arr;
+  }
+
+  /**
+   * Appends a dense chunk with a key that is larger than all existing keys.
+   * The chunk is converted to a sparse chunk if it contains only few entries.
+   * @param key key
+   * @param words bit array
+   */
+  private void append(final char key, final long[] words) {
+    int card = 0;
+    for(final long w : words) card += Long.bitCount(w);
+    if(card > SPARSE) {
+      append(key, words, card);
+    } else {
+      final char[] arr = new char[card];
+      int c = 0;
+      for(int w = 0; w < WORDS; w++) {
+        for(long word = words[w]; word != 0; word &= word - 1) {
+          arr[c++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+        }
+      }
+      append(key, arr, card);
+    }
+  }
+
+  /**
+   * Appends a chunk with a key that is larger than all existing keys.
+   * @param key key
+   * @param chunk chunk
+   * @param card number of entries (empty chunks will be ignored)
+   */
+  private void append(final char key, final Object chunk, final int card) {
+    if(card == 0) return;
+    if(size == keys.length) {
+      final int ns = Array.newSize(size);
+      keys = Arrays.copyOf(keys, ns);
+      chunks = Arrays.copyOf(chunks, ns);
+      cards = Arrays.copyOf(cards, ns);
+    }
+    keys[size] = key;
+    chunks[size] = chunk;
+    cards[size++] = card;
+  }
+
+  /**
+   * Returns the index of the chunk with the specified key.
+   * @param key key
+   * @return index, or {@code -insertPosition - 1}
+   */
+  private int index(final char key) {
+    return Arrays.binarySearch(keys, 0, size, key);
+  }
+
+  /**
+   * Returns a copy of the specified chunk.
+   * @param chunk chunk
+   * @param card number of entries
+   * @return copy
+   */
+  private static Object copy(final Object chunk, final int card) {
+    return chunk instanceof long[] ? ((long[]) chunk).clone() :
+      Arrays.copyOf((char[]) chunk, card);
+  }
+
+  /**
+   * Returns a new bit array for the specified chunk.
+   * @param chunk chunk
+   * @param card number of entries
+   * @return bit array
+   */
+  private static long[] bits(final Object chunk, final int card) {
+    if(chunk instanceof long[]) return ((long[]) chunk).clone();
+    final long[] words = new long[WORDS];
+    final char[] lows = (char[]) chunk;
+    for(int l = 0; l < card; l++) words[lows[l] >>> 6] |= 1L << lows[l];
+    return words;
+  }
+}
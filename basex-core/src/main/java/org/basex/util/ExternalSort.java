@@ -0,0 +1,343 @@
+package org.basex.util;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+
+/**
+ * Sorts entries, consisting of byte-comparable keys and integer ids. Entries with
+ * equal keys are returned in the order of their ids. If the specified main memory budget
+ * is exceeded, the cached entries are sorted and written to a temporary file as a run.
+ * All runs are merged when the sorted ids are requested. As only a limited number of runs
+ * is opened at the same time, several merge passes may be required.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSort {
+  /** Maximum number of runs that are merged at the same time. */
+  private static final int FANIN = 64;
+
+  /** Maximum number of bytes to be kept in main memory ({@code 0}: no limit). */
+  private long limit;
+
+  /** Byte slab with the keys of the current run. */
+  private byte[] slab = new byte[Array.CAPACITY];
+  /** Offsets of the keys in the byte slab. */
+  private int[] offsets = new int[Array.CAPACITY + 1];
+  /** Ids of the current run. */
+  private int[] ids = new int[Array.CAPACITY];
+  /** Number of entries in the current run. */
+  private int size;
+
+  /** Temporary files with sorted runs. */
+  private final ArrayList<IOFile> runs = new ArrayList<IOFile>();
+  /** Sorted order of the current run ({@code null} if the ids have not been requested). */
+  private int[] order;
+  /** Heap with the cursors of all runs ({@code null} if no run has been swapped). */
+  private MinHeap<Cursor, Cursor> heap;
+  /** Current position in the sorted order of the current run. */
+  private int pos;
+
+  /**
+   * Constructor.
+   * @param l maximum number of bytes to be kept in main memory ({@code 0}: no limit)
+   */
+  public ExternalSort(final long l) {
+    limit = l;
+  }
+
+  /**
+   * Adds an entry.
+   * @param key byte-comparable key
+   * @param id id
+   * @throws IOException I/O exception
+   */
+  public void add(final byte[] key, final int id) throws IOException {
+    final int off = offsets[size], end = off + key.length;
+    if(end > slab.length) slab = Arrays.copyOf(slab, Math.max(Array.newSize(slab.length), end));
+    System.arraycopy(key, 0, slab, off, key.length);
+    if(size + 1 == ids.length) {
+      ids = Arrays.copyOf(ids, Array.newSize(ids.length));
+      offsets = Arrays.copyOf(offsets, ids.length + 1);
+    }
+    ids[size++] = id;
+    offsets[size] = end;
+    if(limit > 0 && end + ((long) size << 3) > limit) swap();
+  }
+
+  /**
+   * Returns the number of runs that have been written to disk.
+   * @return number of runs
+   */
+  public int runs() {
+    return runs.size();
+  }
+
+  /**
+   * Checks if entries have been written to disk.
+   * @return result of check
+   */
+  public boolean swapped() {
+    return !runs.isEmpty();
+  }
+
+  /**
+   * Returns the next id in the sorted order.
+   * @return id, or {@code -1} if all ids have been returned
+   * @throws IOException I/O exception
+   */
+  public int next() throws IOException {
+    if(order == null) {
+      order = sort();
+      if(!runs.isEmpty()) {
+        // reduce the number of runs, leaving one slot for the run in main memory
+        while(runs.size() >= FANIN) merge();
+        heap = new MinHeap<Cursor, Cursor>(runs.size() + 1, null);
+        for(final IOFile run : runs) add(new FileCursor(run), heap);
+        add(new MemCursor(), heap);
+      }
+    }
+    if(heap == null) return order != null && pos < size ? ids[order[pos++]] : -1;
+    if(heap.isEmpty()) return -1;
+
+    final Cursor c = heap.removeMin();
+    final int id = c.id;
+    add(c, heap);
+    return id;
+  }
+
+  /**
+   * Deletes all temporary files and releases the main memory structures.
+   * No more entries can be added or requested after this call.
+   */
+  public void close() {
+    if(heap != null) {
+      while(!heap.isEmpty()) heap.removeMin().close();
+    }
+    for(final IOFile run : runs) run.delete();
+    runs.clear();
+    slab = null;
+    offsets = null;
+    ids = null;
+    order = null;
+    size = 0;
+  }
+
+  /**
+   * Merges the first runs into a new run.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final List<IOFile> first = runs.subList(0, FANIN);
+    final IOFile[] merge = first.toArray(new IOFile[FANIN]);
+    first.clear();
+
+    final MinHeap<Cursor, Cursor> hp = new MinHeap<Cursor, Cursor>(FANIN, null);
+    try {
+      final IOFile file = new IOFile(File.createTempFile("sort", IO.BASEXSUFFIX));
+      runs.add(file);
+      for(final IOFile run : merge) add(new FileCursor(run), hp);
+      final DataOutput out = new DataOutput(file);
+      try {
+        while(!hp.isEmpty()) {
+          final Cursor c = hp.removeMin();
+          out.writeNum(c.id);
+          out.writeToken(c.key);
+          add(c, hp);
+        }
+        out.writeNum(-1);
+      } finally {
+        out.close();
+      }
+    } finally {
+      while(!hp.isEmpty()) hp.removeMin().close();
+      for(final IOFile run : merge) run.delete();
+    }
+  }
+
+  /**
+   * Advances a cursor and adds it to a heap if it is not exhausted.
+   * @param c cursor
+   * @param hp heap
+   * @throws IOException I/O exception
+   */
+  private static void add(final Cursor c, final MinHeap<Cursor, Cursor> hp)
+      throws IOException {
+    if(c.next()) hp.insert(c, c);
+    else c.close();
+  }
+
+  /**
+   * Sorts the current run and writes it to a temporary file.
+   * @throws IOException I/O exception
+   */
+  private void swap() throws IOException {
+    final IOFile file;
+    try {
+      file = new IOFile(File.createTempFile("sort", IO.BASEXSUFFIX));
+    } catch(final IOException ex) {
+      // keep entries in main memory if no temporary file can be created
+      Util.debug(ex);
+      limit = 0;
+      return;
+    }
+    runs.add(file);
+
+    final DataOutput out = new DataOutput(file);
+    try {
+      for(final int o : sort()) {
+        out.writeNum(ids[o]);
+        out.writeToken(Arrays.copyOfRange(slab, offsets[o], offsets[o + 1]));
+      }
+      out.writeNum(-1);
+    } finally {
+      out.close();
+    }
+    size = 0;
+  }
+
+  /**
+   * Returns the sorted order of the entries of the current run.
+   * @return order
+   */
+  private int[] sort() {
+    final int[] ord = new int[size];
+    for(int o = 0; o < size; o++) ord[o] = o;
+    sort(ord, new int[size], 0, size);
+    return ord;
+  }
+
+  /**
+   * Sorts the specified range with a merge sort.
+   * @param ord order
+   * @param tmp temporary array
+   * @param s start position
+   * @param e end position
+   */
+  private void sort(final int[] ord, final int[] tmp, final int s, final int e) {
+    if(e - s < 8) {
+      // insertion sort for small ranges
+      for(int i = s + 1; i < e; i++) {
+        final int o = ord[i];
+        int j = i;
+        for(; j > s && compare(ord[j - 1], o) > 0; j--) ord[j] = ord[j - 1];
+        ord[j] = o;
+      }
+      return;
+    }
+    final int m = s + e >>> 1;
+    sort(ord, tmp, s, m);
+    sort(ord, tmp, m, e);
+    if(compare(ord[m - 1], ord[m]) <= 0) return;
+
+    System.arraycopy(ord, s, tmp, s, e - s);
+    for(int i = s, l = s, r = m; i < e; i++) {
+      ord[i] = r == e || l < m && compare(tmp[l], tmp[r]) <= 0 ? tmp[l++] : tmp[r++];
+    }
+  }
+
+  /**
+   * Compares two entries of the current run.
+   * @param a first entry
+   * @param b second entry
+   * @return result of comparison
+   */
+  private int compare(final int a, final int b) {
+    final int c = diff(slab, offsets[a], offsets[a + 1], slab, offsets[b], offsets[b + 1]);
+    return c != 0 ? c : ids[a] - ids[b];
+  }
+
+  /**
+   * Compares two byte ranges.
+   * @param a first array
+   * @param as start of first range
+   * @param ae end of first range
+   * @param b second array
+   * @param bs start of second range
+   * @param be end of second range
+   * @return result of comparison
+   */
+  private static int diff(final byte[] a, final int as, final int ae, final byte[] b,
+      final int bs, final int be) {
+    final int l = Math.min(ae - as, be - bs);
+    for(int i = 0; i < l; i++) {
+      final int c = (a[as + i] & 0xFF) - (b[bs + i] & 0xFF);
+      if(c != 0) return c;
+    }
+    return ae - as - (be - bs);
+  }
+
+  /** Cursor on a sorted run. */
+  private abstract static class Cursor implements Comparable<Cursor> {
+    /** Current key. */
+    byte[] key;
+    /** Current id. */
+    int id;
+
+    /**
+     * Advances the cursor.
+     * @return {@code true} if an entry was found
+     * @throws IOException I/O exception
+     */
+    abstract boolean next() throws IOException;
+
+    /**
+     * Closes the cursor.
+     */
+    void close() { }
+
+    @Override
+    public int compareTo(final Cursor c) {
+      final int d = diff(key, 0, key.length, c.key, 0, c.key.length);
+      return d != 0 ? d : id - c.id;
+    }
+  }
+
+  /** Cursor on a run in a temporary file. */
+  private static final class FileCursor extends Cursor {
+    /** Input stream. */
+    private final DataInput in;
+
+    /**
+     * Constructor.
+     * @param file file
+     * @throws IOException I/O exception
+     */
+    FileCursor(final IOFile file) throws IOException {
+      in = new DataInput(file);
+    }
+
+    @Override
+    boolean next() throws IOException {
+      id = in.readNum();
+      if(id == -1) return false;
+      key = in.readToken();
+      return true;
+    }
+
+    @Override
+    void close() {
+      try {
+        in.close();
+      } catch(final IOException ex) {
+        Util.debug(ex);
+      }
+    }
+  }
+
+  /** Cursor on the current run in main memory. */
+  private final class MemCursor extends Cursor {
+    @Override
+    boolean next() {
+      if(pos == size) return false;
+      final int o = order[pos++];
+      id = ids[o];
+      key = Arrays.copyOfRange(slab, offsets[o], offsets[o + 1]);
+      return true;
+    }
+  }
+}
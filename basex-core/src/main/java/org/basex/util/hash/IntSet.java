@@ -92,7 +92,7 @@ public class IntSet extends ASet {
     for(int p = 0, i = bucket[b]; i != 0; p = i, i = next[i]) {
       if(key != keys[i]) continue;
       if(p == 0) bucket[b] = next[i];
-      else next[p] = next[next[i]];
+      else next[p] = next[i];
       keys[i] = 0;
       return i;
     }
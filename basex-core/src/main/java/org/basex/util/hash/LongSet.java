@@ -0,0 +1,118 @@
+package org.basex.util.hash;
+
+import java.util.*;
+
+import org.basex.util.*;
+
+/**
+ * This is an efficient and memory-saving hash set for storing primitive longs.
+ * It is related to the {@link IntSet} class.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class LongSet extends ASet {
+  /** Hashed keys. */
+  private long[] keys;
+
+  /**
+   * Default constructor.
+   */
+  public LongSet() {
+    this(Array.CAPACITY);
+  }
+
+  /**
+   * Default constructor.
+   * @param capacity initial array capacity
+   */
+  public LongSet(final int capacity) {
+    super(capacity);
+    keys = new long[bucket.length];
+  }
+
+  /**
+   * Stores the specified key if it has not been stored before.
+   * @param key key to be added
+   * @return {@code true} if the key did not exist yet and was stored
+   */
+  public boolean add(final long key) {
+    return index(key) > 0;
+  }
+
+  /**
+   * Stores the specified key and returns its id.
+   * @param key key to be added
+   * @return unique id of stored key (larger than zero)
+   */
+  public int put(final long key) {
+    return Math.abs(index(key));
+  }
+
+  /**
+   * Stores the specified key and returns its id, or returns the negative id if the
+   * key has already been stored.
+   * @param key key to be found
+   * @return id, or negative id if key has already been stored
+   */
+  private int index(final long key) {
+    checkSize();
+    final int b = hash(key) & bucket.length - 1;
+    for(int r = bucket[b]; r != 0; r = next[r]) if(key == keys[r]) return -r;
+    next[size] = bucket[b];
+    keys[size] = key;
+    bucket[b] = size;
+    return size++;
+  }
+
+  /**
+   * Checks if the set contains the specified key.
+   * @param key key to be looked up
+   * @return result of check
+   */
+  public boolean contains(final long key) {
+    final int p = hash(key) & bucket.length - 1;
+    for(int id = bucket[p]; id != 0; id = next[id]) if(key == keys[id]) return true;
+    return false;
+  }
+
+  /**
+   * Returns the key with the specified id.
+   * All ids starts with {@code 1} instead of {@code 0}.
+   * @param id id of the key to return
+   * @return key
+   */
+  public long key(final int id) {
+    return keys[id];
+  }
+
+  /**
+   * Returns the hash value of a key. Upper and lower bits are folded into the
+   * bucket range, as consecutive keys would otherwise only differ in the upper bits
+   * (e.g., for the bit representation of doubles).
+   * @param key key
+   * @return hash value
+   */
+  private static int hash(final long key) {
+    final int h = (int) (key ^ key >>> 32);
+    return h ^ h >>> 16;
+  }
+
+  @Override
+  protected int hash(final int id) {
+    return hash(keys[id]);
+  }
+
+  @Override
+  protected void rehash(final int newSize) {
+    keys = Arrays.copyOf(keys, newSize);
+  }
+
+  /**
+   * Returns an array with all elements, in the order of insertion.
+   * @return array
+   */
+  public long[] toArray() {
+    return Arrays.copyOfRange(keys, 1, size);
+  }
+}
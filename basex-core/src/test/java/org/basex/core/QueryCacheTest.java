@@ -0,0 +1,170 @@
+package org.basex.core;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.regex.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the query result cache.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /** Query on the test database. */
+  private static final String QUERY = "string-join(db:open('" + NAME + "')//text(), ' ')";
+
+  /**
+   * Enables the cache and creates the test database.
+   * @throws BaseXException database exception
+   */
+  @Before
+  public void init() throws BaseXException {
+    context.globalopts.set(GlobalOptions.QUERYCACHE, 1);
+    new CreateDB(NAME, "<a><b>1</b></a>").execute(context);
+    new Close().execute(context);
+  }
+
+  /**
+   * Disables the cache and drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    context.globalopts.set(GlobalOptions.QUERYCACHE, 0);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Reuses and invalidates cached results.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void cache() throws BaseXException {
+    final long hits = hits();
+    assertEquals("1", new XQuery(QUERY).execute(context));
+    assertEquals("1", new XQuery(QUERY).execute(context));
+    assertEquals(hits + 1, hits());
+
+    // bound variables are part of the key
+    assertEquals("1 x", new XQuery(QUERY + " || ' ' || $x").bind("x", "x").execute(context));
+    assertEquals("1 y", new XQuery(QUERY + " || ' ' || $x").bind("x", "y").execute(context));
+    assertEquals(hits + 1, hits());
+
+    // updates invalidate all results depending on the database
+    new XQuery("insert node <b>2</b> into db:open('" + NAME + "')/a").execute(context);
+    assertEquals("1 2", new XQuery(QUERY).execute(context));
+    assertEquals(hits + 1, hits());
+    assertEquals("1 2", new XQuery(QUERY).execute(context));
+    assertEquals(hits + 2, hits());
+
+    new Open(NAME).execute(context);
+    new Add("c.xml", "<a><b>3</b></a>").execute(context);
+    new Close().execute(context);
+    assertEquals("1 2 3", new XQuery(QUERY).execute(context));
+    assertEquals(hits + 2, hits());
+  }
+
+  /**
+   * Skips non-deterministic queries and results exceeding the cache size.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void skip() throws BaseXException {
+    final long hits = hits();
+    for(final String query : new String[] {
+      "random:double()", "current-dateTime()", "doc('src/test/resources/input.xml')",
+      "(1 to 1000) ! 'abc'", "insert node <b/> into db:open('" + NAME + "')/a"
+    }) {
+      new XQuery(query).execute(context);
+      new XQuery(query).execute(context);
+    }
+    assertEquals(hits, hits());
+  }
+
+  /**
+   * Skips queries whose results depend on files.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void files() throws IOException {
+    final IOFile file = new IOFile(sandbox(), "cache.txt");
+    final String path = file.path();
+    final long hits = hits();
+    assertEquals("false", new XQuery("doc-available('" + path + "')").execute(context));
+    file.write(Token.token("<a/>"));
+    assertEquals("true", new XQuery("doc-available('" + path + "')").execute(context));
+
+    final String query = "declare base-uri '" + sandbox().url() + "/'; unparsed-text('" +
+        path + "')";
+    assertEquals("&lt;a/&gt;", new XQuery(query).execute(context));
+    file.write(Token.token("<b/>"));
+    assertEquals("&lt;b/&gt;", new XQuery(query).execute(context));
+    assertEquals(hits, hits());
+    file.delete();
+  }
+
+  /**
+   * Includes imported library modules in the key.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void modules() throws IOException {
+    final IOFile file = new IOFile(sandbox(), "cache.xqm");
+    final String query = "import module namespace m='m' at '" + file.path() + "'; m:f()";
+    final long hits = hits();
+    file.write(Token.token("module namespace m='m'; declare function m:f() { 1 };"));
+    assertEquals("1", new XQuery(query).execute(context));
+    assertEquals("1", new XQuery(query).execute(context));
+    assertEquals(hits + 1, hits());
+
+    file.write(Token.token("module namespace m='m'; declare function m:f() { 2 };"));
+    assertTrue(file.file().setLastModified(file.timeStamp() + 2000));
+    assertEquals("2", new XQuery(query).execute(context));
+    assertEquals(hits + 1, hits());
+    file.delete();
+  }
+
+  /**
+   * Caches queries with an HTTP context, unless they invoke Java functions.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void http() throws BaseXException {
+    final Object http = new Object();
+    final long hits = hits();
+    final XQuery xq1 = new XQuery(QUERY), xq2 = new XQuery(QUERY);
+    xq1.http(http);
+    xq2.http(http);
+    assertEquals("1", xq1.execute(context));
+    assertEquals("1", xq2.execute(context));
+    assertEquals(hits + 1, hits());
+
+    // functions of Java modules may access the HTTP context
+    final String query = "import module namespace qm='java:org.basex.query.func.QueryModuleTest';" +
+        "qm:fast(1)";
+    final XQuery xq3 = new XQuery(query), xq4 = new XQuery(query);
+    xq3.http(http);
+    xq4.http(http);
+    assertEquals(xq3.execute(context), xq4.execute(context));
+    assertEquals(hits + 1, hits());
+  }
+
+  /**
+   * Returns the number of cache hits.
+   * @return number of hits
+   * @throws BaseXException database exception
+   */
+  private static long hits() throws BaseXException {
+    final Matcher m = Pattern.compile("Hits: (\\d+)").matcher(new ShowCache().execute(context));
+    assertTrue(m.find());
+    return Long.parseLong(m.group(1));
+  }
+}
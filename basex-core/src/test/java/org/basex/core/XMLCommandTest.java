@@ -125,6 +125,8 @@ public class XMLCommandTest extends SandboxTest {
 
     ok("<show-backups/>");
 
+    ok("<show-cache/>");
+
     ok("<show-events/>");
 
     ok("<show-sessions/>");
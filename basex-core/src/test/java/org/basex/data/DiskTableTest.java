@@ -327,6 +327,60 @@ public final class DiskTableTest extends SandboxTest {
     assertEntrysEqual(nodes, 2 * nodes, size - nodes);
   }
 
+  /**
+   * Inserts and deletes entries in batch mode.
+   */
+  @Test
+  public void batch() {
+    tda.startBatch();
+    tda.insert(size, getTestEntries(3));
+    tda.delete(2 * nodes - 10, 20);
+    tda.insert(nodes, getTestEntries(nodes));
+    tda.insert(2 * nodes, getTestEntries(1));
+    tda.delete(nodes - 2, 2);
+    tda.insert(4, getTestEntries(1));
+    assertBatch();
+    tda.finishBatch();
+    assertBatch();
+    closeAndReload();
+    assertBatch();
+  }
+
+  /**
+   * Asserts the entries after the updates of the {@link #batch} test.
+   */
+  private void assertBatch() {
+    assertEquals(size + nodes - 17, tdaSize());
+    assertEntrysEqual(0, 0, 4);
+    assertAreInserted(4, 1);
+    assertEntrysEqual(4, 5, nodes - 6);
+    assertAreInserted(nodes - 1, nodes + 1);
+    assertEntrysEqual(nodes, 2 * nodes, nodes - 10);
+    assertEntrysEqual(2 * nodes + 10, 3 * nodes - 10, size - 2 * nodes - 10);
+    assertAreInserted(size + nodes - 20, 3);
+  }
+
+  /**
+   * Inserts entries in batch mode, followed by an unordered update.
+   */
+  @Test
+  public void batchUnordered() {
+    tda.startBatch();
+    tda.insert(nodes, getTestEntries(1));
+    tda.insert(nodes + 1, getTestEntries(nodes));
+    // not in descending order: pending changes will be applied first
+    tda.delete(size + nodes, 1);
+    tda.finishBatch();
+    assertEquals(size + nodes, tdaSize());
+    assertEntrysEqual(0, 0, nodes);
+    assertAreInserted(nodes, nodes + 1);
+    assertEntrysEqual(nodes, 2 * nodes + 1, size - nodes - 1);
+    closeAndReload();
+    assertEquals(size + nodes, tdaSize());
+    assertAreInserted(nodes, nodes + 1);
+    assertEntrysEqual(nodes, 2 * nodes + 1, size - nodes - 1);
+  }
+
   /**
    * Asserts that the chosen entries are inserted by a test case.
    * @param startNum first entry
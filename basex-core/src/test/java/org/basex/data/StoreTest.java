@@ -115,6 +115,85 @@ public final class StoreTest extends SandboxTest {
     assertEquals(input, run(new XQuery(query)));
   }
 
+  /**
+   * Tests the ID -> PRE mapping after updates and after reopening the database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void idPre() throws BaseXException {
+    final String query = "every $n in db:open('" + NAME + "')//node() satisfies " +
+        "db:open-id('" + NAME + "', db:node-id($n)) is $n";
+    for(final boolean updindex : new boolean[] { false, true }) {
+      run(new Set(MainOptions.UPDINDEX, updindex));
+      run(new CreateDB(NAME, "<X><A>a</A><A>b</A></X>"));
+      run(new XQuery("for $i in 1 to 10 return insert node <B>{ $i }</B> into /X/A[1]"));
+      run(new XQuery("delete node //B[. = (3, 7)]"));
+      run(new XQuery("insert node <C/> before /X/A[1]"));
+      assertEquals("true", run(new XQuery(query)));
+      run(new Close());
+      assertEquals("true", run(new XQuery(query)));
+    }
+  }
+
+  /**
+   * Tests the incremental value indexes after a bulk of structural updates.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void updIndexBulk() throws BaseXException {
+    run(new Set(MainOptions.TEXTINDEX, true));
+    run(new Set(MainOptions.ATTRINDEX, true));
+    run(new Set(MainOptions.UPDINDEX, true));
+    final StringBuilder sb = new StringBuilder("<X>");
+    for(int i = 1; i <= 100; i++) sb.append("<A a='" + i % 7 + "'>" + i + "</A>");
+    run(new CreateDB(NAME, sb.append("</X>").toString()));
+    run(new XQuery("for $a in //A return insert node <B b='{ $a }'>{ $a mod 10 }</B> into $a"));
+    run(new XQuery("for $a in //A[. mod 3 = 0] return delete node $a"));
+    run(new XQuery("for $b in //B[@b mod 4 = 0] return replace node $b with <C>{ $b/@b }x</C>"));
+    run(new XQuery("delete node //A[@a = 2]/@a"));
+
+    final String query = "string-join((" +
+        "for $e in index:texts('" + NAME + "') return $e || $e/@count, " +
+        "for $e in index:attributes('" + NAME + "') return $e || $e/@count), ' ')";
+    final String indexed = run(new XQuery(query));
+    assertEquals("true", run(new XQuery("every $t in //text() satisfies " +
+        "db:text('" + NAME + "', $t) = $t")));
+    run(new OptimizeAll());
+    assertEquals(run(new XQuery(query)), indexed);
+  }
+
+  /**
+   * Tests the batched table rewrite after a bulk of structural updates. The results are
+   * compared with the ones of a main-memory database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void tableBulk() throws BaseXException {
+    final StringBuilder sb = new StringBuilder("<X>");
+    for(int i = 1; i <= 2000; i++) sb.append("<A a='" + i + "'>" + i + "</A>");
+    final String doc = sb.append("</X>").toString();
+    final String query = "(/, string-join(//node()/name(..), ' '))";
+
+    final String[] results = new String[2];
+    for(final boolean mainmem : new boolean[] { true, false }) {
+      run(new Set(MainOptions.MAINMEM, mainmem));
+      run(new CreateDB(NAME, doc));
+      run(new XQuery("for $a in //A return insert node <B>{ $a/@a }<C/></B> into $a"));
+      run(new XQuery("for $a in //A[@a mod 3 = 0] return delete node $a"));
+      run(new XQuery("for $b in //B[@a mod 4 = 0] return replace node $b with <D/>"));
+      run(new XQuery("for $a in //A[@a mod 5 = 0] return " +
+          "(insert node <E/> before $a, delete node $a/text())"));
+      run(new XQuery("delete node //A[@a > 100 and @a < 900]"));
+      run(new XQuery("for $a in //A[@a mod 7 = 0] return " +
+          "insert node (1 to 100) ! <F>{ . }</F> after $a"));
+      results[mainmem ? 0 : 1] = run(new XQuery(query));
+    }
+    run(new Set(MainOptions.MAINMEM, false));
+    assertEquals(results[0], results[1]);
+    run(new Close());
+    assertEquals(results[0], run(new XQuery("db:open('" + NAME + "')!" + query)));
+  }
+
   /**
    * Tests if the size of the text store has not changed.
    * @param old old size
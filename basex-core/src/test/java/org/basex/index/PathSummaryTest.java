@@ -0,0 +1,131 @@
+package org.basex.index;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.data.*;
+import org.basex.index.path.*;
+import org.junit.*;
+
+/**
+ * This class tests the incremental maintenance of the path summary and the statistics.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class PathSummaryTest extends SandboxTest {
+  /** Test document. */
+  private static final String DOC = "<r><a x='1'><b>1</b><b>9</b></a><a x='3'><c>x</c></a>" +
+      "<?p v?><!--c--></r>";
+  /** Update queries. */
+  private static final String[] UPDATES = {
+    "insert node <a x='5'><b>5</b><d>z</d><d/></a> into /r",
+    "delete node /r/a[2]",
+    "rename node (//d)[1] as 'e'",
+    "replace value of node //b[. = '5'] with '7'",
+    "replace node //b[. = '7'] with <c>y</c>",
+    "insert node attribute y { 'u' } into /r/a[1]",
+    "delete node //processing-instruction()",
+    "insert node <f><g/></f> into /r",
+    "delete node //f",
+    "rename node //@y as 'z'",
+  };
+
+  /**
+   * Finishes the test.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void finish() throws BaseXException {
+    new Set(MainOptions.MAINMEM, false).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Updates a database on disk.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void disk() throws BaseXException {
+    update(false);
+  }
+
+  /**
+   * Updates a main-memory database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void mainmem() throws BaseXException {
+    update(true);
+  }
+
+  /**
+   * Rebuilds statistics that are not exact anymore after deletions.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void optimize() throws BaseXException {
+    new CreateDB(NAME, "<r><c>3</c><c>9</c><c>5</c></r>").execute(context);
+    new XQuery("delete node //c[. = 9]").execute(context);
+    assertTrue(context.data().meta.uptodate);
+    assertTrue(new InfoIndex().execute(context).contains("numeric(3 - 9)"));
+    new Optimize().execute(context);
+    final String info = new InfoIndex().execute(context);
+    assertTrue(info, info.contains("numeric(3 - 5)"));
+    assertFalse(info, info.contains("numeric(3 - 9)"));
+  }
+
+  /**
+   * Performs updates and compares the structures with rebuilt ones.
+   * @param mainmem main-memory flag
+   * @throws BaseXException database exception
+   */
+  private static void update(final boolean mainmem) throws BaseXException {
+    new Set(MainOptions.MAINMEM, mainmem).execute(context);
+    new CreateDB(NAME, DOC).execute(context);
+    for(final String query : UPDATES) {
+      new XQuery(query).execute(context);
+      final Data data = context.data();
+      assertTrue(query, data.meta.uptodate);
+
+      final String paths = paths(data);
+      final String tags = new XQuery("string-join(" +
+          "for $n in index:element-names('" + NAME + "') return $n || $n/@count, ' ')").
+          execute(context);
+
+      // rebuild structures and compare them with the maintained versions
+      new Optimize().execute(context);
+      assertEquals(query, paths(data), paths);
+      assertEquals(query, new XQuery("string-join(" +
+          "for $n in index:element-names('" + NAME + "') return $n || $n/@count, ' ')").
+          execute(context), tags);
+    }
+    assertEquals("2", new XQuery("count(//b)").execute(context));
+    assertEquals("1 9", new XQuery("distinct-values(//b)").execute(context));
+  }
+
+  /**
+   * Returns a string representation of the path summary with ordered children.
+   * @param data data reference
+   * @return string
+   */
+  private static String paths(final Data data) {
+    return paths(data.paths.root().get(0));
+  }
+
+  /**
+   * Returns a string representation of the specified node with ordered children.
+   * @param node path node
+   * @return string
+   */
+  private static String paths(final PathNode node) {
+    final TreeSet<String> ch = new TreeSet<String>();
+    for(final PathNode c : node.ch) ch.add(paths(c));
+    return node.kind + "/" + node.name + ": " + node.stats + ch;
+  }
+}
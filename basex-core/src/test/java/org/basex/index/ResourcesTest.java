@@ -0,0 +1,176 @@
+package org.basex.index;
+
+import static org.basex.util.Token.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.List;
+import org.basex.data.*;
+import org.basex.index.resource.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.*;
+
+/**
+ * This class tests the retrieval of resource information.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ResourcesTest extends SandboxTest {
+  /**
+   * Drops the test database.
+   * @throws BaseXException database exception
+   */
+  @After
+  public void finish() throws BaseXException {
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Lists the resources of a database.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void list() throws BaseXException {
+    new CreateDB(NAME).execute(context);
+    new Add("b/x.xml", "<x/>").execute(context);
+    new Add("a.xml", "<a><b/></a>").execute(context);
+    new XQuery("db:store('" + NAME + "', 'b/y.bin', 'abc')").execute(context);
+
+    List list = new List(NAME);
+    list.execute(context);
+    final ArrayList<ResourceInfo> res = list.resources();
+    assertEquals(3, res.size());
+    assertEquals("a.xml", string(res.get(0).path));
+    assertFalse(res.get(0).raw);
+    assertEquals(MimeTypes.APP_XML, res.get(0).type);
+    assertEquals(3, res.get(0).size);
+    assertEquals("b/x.xml", string(res.get(1).path));
+    assertEquals("b/y.bin", string(res.get(2).path));
+    assertTrue(res.get(2).raw);
+    assertEquals(3, res.get(2).size);
+
+    list = new List(NAME, "b");
+    list.execute(context);
+    assertEquals(2, list.resources().size());
+    list = new List(NAME, "c");
+    list.execute(context);
+    assertEquals(0, list.resources().size());
+    list = new List();
+    list.execute(context);
+    assertNull(list.resources());
+
+    // resources are sorted by their lower-case paths
+    new XQuery("db:store('" + NAME + "', 'B.bin', 'abc')").execute(context);
+    list = new List(NAME);
+    list.execute(context);
+    assertEquals("B.bin", string(list.resources().get(1).path));
+  }
+
+  /**
+   * Looks up single resources.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void info() throws BaseXException {
+    new CreateDB(NAME).execute(context);
+    new Add("a/x.xml", "<x/>").execute(context);
+    new XQuery("db:store('" + NAME + "', 'b/y.bin', 'abc')").execute(context);
+
+    final Resources res = context.data().resources;
+    assertFalse(res.info("a/x.xml").raw);
+    assertEquals("b/y.bin", string(res.info("/b//y.bin").path));
+    assertEquals(3, res.info("b/y.bin").size);
+    assertNull(res.info("a"));
+    assertNull(res.info("b"));
+    assertNull(res.info(""));
+    assertNull(res.info("c.xml"));
+    assertTrue(res.isDir(token("a")));
+    assertTrue(res.isDir(token("b")));
+  }
+
+  /**
+   * Looks up documents after updates and after reopening the database.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void paths() throws IOException {
+    new CreateDB(NAME).execute(context);
+    for(int i = 0; i < 50; i++) new Add("d" + i % 3 + "/x" + i + ".xml", "<x/>").execute(context);
+    final String query = "count(db:open('" + NAME + "', 'd1')) || ' ' || " +
+        "count(db:open('" + NAME + "', 'd1/x4.xml')) || ' ' || " +
+        "db:exists('" + NAME + "', 'd2/x5.xml') || ' ' || " +
+        "count(db:list('" + NAME + "', 'd0/'))";
+    assertEquals("17 1 true 17", new XQuery(query).execute(context));
+
+    new XQuery("for $i in 0 to 9 " +
+        "return db:delete('" + NAME + "', 'd1/x' || $i * 3 + 1 || '.xml'), " +
+        "db:rename('" + NAME + "', 'd2/x5.xml', 'd1/y.xml')").execute(context);
+    final String result = new XQuery(query).execute(context);
+    assertEquals("8 0 false 17", result);
+    assertEquals("d1/y.xml", new XQuery("db:list('" + NAME + "', 'd1')[last()]").execute(context));
+
+    // paths are stored when the database is closed
+    final IOFile file = MetaData.file(context.globalopts.dbpath(NAME), DataText.DATAPTH);
+    assertFalse(file.exists());
+    new Close().execute(context);
+    assertTrue(file.exists());
+    assertEquals(result, new XQuery(query).execute(context));
+    new Open(NAME).execute(context);
+    new Add("D1/z.xml", "<x/>").execute(context);
+    new Close().execute(context);
+    final String count = "count(db:open('" + NAME + "', 'd1'))";
+    assertEquals(Prop.CASE ? "8" : "9", new XQuery(count).execute(context));
+
+    // outdated paths are ignored
+    final byte[] stored = file.read();
+    new XQuery("db:rename('" + NAME + "', 'd1/y.xml', 'd0/y.xml')").execute(context);
+    file.write(stored);
+    assertEquals(Prop.CASE ? "7" : "8", new XQuery(count).execute(context));
+  }
+
+  /**
+   * Tests the modification times of documents.
+   * @throws BaseXException database exception
+   */
+  @Test
+  public void times() throws BaseXException {
+    new CreateDB(NAME).execute(context);
+    new Add("a.xml", "<a>x</a>").execute(context);
+    new Add("b.xml", "<b/>").execute(context);
+    final long a = time("a.xml"), b = time("b.xml");
+    assertTrue(a < b);
+
+    // only the updated document is changed
+    new XQuery("insert node <c/> into /b").execute(context);
+    final long b2 = time("b.xml");
+    assertEquals(a, time("a.xml"));
+    assertTrue(b < b2);
+    new XQuery("replace value of node /a/text() with 'y'").execute(context);
+    final long a2 = time("a.xml");
+    assertTrue(b2 < a2);
+    assertEquals(b2, time("b.xml"));
+
+    // stored times
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    assertEquals(a2, time("a.xml"));
+    assertEquals(b2, time("b.xml"));
+  }
+
+  /**
+   * Returns the modification time of the specified document.
+   * @param path path
+   * @return time
+   */
+  private static long time(final String path) {
+    final Resources res = context.data().resources;
+    return res.time(res.doc(path));
+  }
+}
@@ -0,0 +1,103 @@
+package org.basex.query;
+
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.data.*;
+import org.junit.*;
+
+/**
+ * This class tests the evaluation of descendant steps with the element name index.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class NameIndexTest extends AdvancedQueryTest {
+  /**
+   * Enables the name index.
+   * @throws Exception exception
+   */
+  @BeforeClass
+  public static void start() throws Exception {
+    new Set(MainOptions.NAMEINDEX, true).execute(context);
+  }
+
+  /**
+   * Creates a test database.
+   * @throws Exception exception
+   */
+  @Before
+  public void create() throws Exception {
+    new CreateDB(NAME, "<a><b id='1'><c>x</c><b id='2'><c>y</c></b></b><c>z</c>" +
+        "<d><b id='3'/></d></a>").execute(context);
+  }
+
+  /**
+   * Drops the test database and disables the name index.
+   * @throws Exception exception
+   */
+  @AfterClass
+  public static void stop() throws Exception {
+    new DropDB(NAME).execute(context);
+    new Set(MainOptions.NAMEINDEX, false).execute(context);
+  }
+
+  /** Descendant steps. */
+  @Test
+  public void descendant() {
+    query("//b/@id/string()", "1 2 3");
+    query("//c/text()", "xyz");
+    query("count(//e)", "0");
+    query("//b[c = 'y']/@id/string()", "2");
+    query("/a/b/descendant::c/text()", "xy");
+    query("//b[@id = '2']/descendant-or-self::b/@id/string()", "2");
+    query("//d/descendant-or-self::b/@id/string()", "3");
+    query("//*:c/text()", "xyz");
+    query("//b/(descendant::c)[last()]/text()", "y");
+    query("(//b)[2]/@id/string()", "2");
+  }
+
+  /** Descendant steps after updates. */
+  @Test
+  public void update() {
+    query("insert node <b id='4'><c>u</c></b> into //d");
+    query("//b/@id/string()", "1 2 3 4");
+    query("delete node //b[@id = '2']");
+    query("//b/@id/string()", "1 3 4");
+    query("//c/text()", "xzu");
+    query("rename node //b[@id = '3'] as 'c'");
+    query("count(//b)", "2");
+    query("//c/(@id, text())/string()", "x z 3 u");
+    query("replace node //c[. = 'z'] with <b id='5'/>");
+    query("//b/@id/string()", "1 5 4");
+  }
+
+  /**
+   * Stored index.
+   * @throws Exception exception
+   */
+  @Test
+  public void store() throws Exception {
+    query("//b/@id/string()", "1 2 3");
+    new Close().execute(context);
+    assertTrue(new MetaData(NAME, context).dbfile(DataText.DATANAM).exists());
+    new Open(NAME).execute(context);
+    query("//b/@id/string()", "1 2 3");
+
+    // stored index is outdated after updates that did not access it
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    query("insert node <b id='4'/> into /a");
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    query("//b/@id/string()", "1 2 3 4");
+
+    // stored index includes updates
+    query("delete node /a/b[@id = '1']");
+    new Close().execute(context);
+    new Open(NAME).execute(context);
+    query("//b/@id/string()", "3 4");
+  }
+}
@@ -0,0 +1,144 @@
+package org.basex.query;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.query.iter.*;
+import org.junit.*;
+
+/**
+ * This class tests large sequences that are swapped to disk.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class SpillTest extends AdvancedQueryTest {
+  /**
+   * Creates a test database and assigns a small memory budget.
+   * @throws Exception exception
+   */
+  @BeforeClass
+  public static void start() throws Exception {
+    new Set(MainOptions.SPILLSIZE, 16).execute(context);
+    new CreateDB(NAME, "<a>" + "<b>1</b><b>2</b><b>3</b><b>4</b><b>5</b>" + "</a>").
+      execute(context);
+  }
+
+  /**
+   * Drops the test database and resets the memory budget.
+   * @throws Exception exception
+   */
+  @AfterClass
+  public static void stop() throws Exception {
+    new DropDB(NAME).execute(context);
+    new Set(MainOptions.SPILLSIZE, 0).execute(context);
+  }
+
+  /** Swapped integers. */
+  @Test
+  public void integers() {
+    query(REVERSE.args("(1 to 100)[. > 95]"), "100 99 98 97 96");
+    query(COUNT.args(REVERSE.args("(1 to 100000)[. mod 2 = 0]")), "50000");
+    query(REVERSE.args("(1 to 100)[. > 90]") + "[3]", "98");
+  }
+
+  /** Swapped strings. */
+  @Test
+  public void strings() {
+    query(REVERSE.args("(1 to 10)[. > 7] ! string()"), "10 9 8");
+    query(REVERSE.args("(1 to 1000)[. > 7] ! string()") + "[last()]", "8");
+  }
+
+  /** Swapped database nodes. */
+  @Test
+  public void nodes() {
+    query(REVERSE.args(" //b[. > 2]/text()"), "543");
+    query(_PROF_TIME.args(" //b[. > 3] ! .", true) + "/text()", "45");
+  }
+
+  /** Sorted runs that are swapped to disk. */
+  @Test
+  public void orderBy() {
+    query("for $i in 1 to 10 order by $i mod 3, $i descending return $i",
+        "9 6 3 10 7 4 1 8 5 2");
+    query("(for $i in 1 to 1000 order by string($i) return $i)[position() < 5]",
+        "1 10 100 1000");
+    query(DEEP_EQUAL.args(" for $i in 1 to 1000 order by -$i return $i",
+        REVERSE.args(" 1 to 1000")), "true");
+  }
+
+  /** Tuples that are cached in spillable columns. */
+  @Test
+  public void orderByTuples() {
+    query(DEEP_EQUAL.args(" for $i in 1 to 100 let $s := string($i) order by -$i " +
+        "return $s || $i", " for $i in 1 to 100 return string(101 - $i) || 101 - $i"), "true");
+    query(COUNT.args(" for $n in //b order by -$n return $n"), "5");
+    query("for $n in //b let $i := number($n) order by -$i return $n/text()", "54321");
+    // switch to tuples if a value is no single item
+    query(INDEX_OF.args(" for $i in 1 to 100 let $s := if($i = 3) then (1, 2) else 3 " +
+        "order by $i mod 5, $i return count($s)", " 2"), "61");
+  }
+
+  /**
+   * Query results that are swapped to disk.
+   * @throws Exception exception
+   */
+  @Test
+  public void result() throws Exception {
+    final int files = files();
+    final QueryProcessor qp = new QueryProcessor("(1 to 1000)[. > 2] ! string()", context);
+    try {
+      final Result res = qp.execute();
+      assertTrue(res instanceof SpillBuilder);
+      assertEquals(998, res.size());
+      assertTrue(res.serialize().toString().endsWith("999 1000"));
+      assertTrue(files() > files);
+    } finally {
+      qp.close();
+    }
+    // temporary files are deleted when the processor is closed
+    assertEquals(files, files());
+  }
+
+  /**
+   * Temporary files of consumed sequences.
+   * @throws Exception exception
+   */
+  @Test
+  public void release() throws Exception {
+    final int files = files();
+    final QueryProcessor qp = new QueryProcessor("for $i in 1 to 100 return " +
+        COUNT.args(REVERSE.args("(1 to 1000)[. > $i]")), context);
+    try {
+      assertEquals(100, qp.value().size());
+      // temporary files are deleted as soon as the sequences have been consumed
+      assertEquals(files, files());
+    } finally {
+      qp.close();
+    }
+  }
+
+  /** Mixed items. */
+  @Test
+  public void mixed() {
+    query(REVERSE.args("(1 to 5) ! (if(. = 3) then 'x' else .)"), "5 4 x 2 1");
+    query(REVERSE.args("(//b[. > 3] ! ., 1)"), "1<b>5</b><b>4</b>");
+  }
+
+  /**
+   * Returns the number of temporary files of spilled sequences.
+   * @return number of files
+   */
+  private static int files() {
+    int c = 0;
+    for(final IOFile f : new IOFile(System.getProperty("java.io.tmpdir")).children()) {
+      if(f.name().startsWith("spill")) c++;
+    }
+    return c;
+  }
+}
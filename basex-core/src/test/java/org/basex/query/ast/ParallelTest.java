@@ -0,0 +1,105 @@
+package org.basex.query.ast;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.cmd.Set;
+import org.basex.query.util.*;
+import org.junit.*;
+
+/**
+ * Tests for the parallel evaluation of path expressions and for clauses.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelTest extends QueryPlanTest {
+  /**
+   * Creates a test database and enables parallel evaluation.
+   * @throws Exception exception
+   */
+  @BeforeClass
+  public static void start() throws Exception {
+    new XQuery(_DB_CREATE.args(NAME, " <a>{ for $i in 1 to 10000 return " +
+        "<b id='{ $i }'><c>{ $i mod 10 }</c></b> }</a>", "a.xml")).execute(context);
+    new Open(NAME).execute(context);
+    new Set(MainOptions.THREADS, 4).execute(context);
+  }
+
+  /**
+   * Drops the test database and disables parallel evaluation.
+   * @throws Exception exception
+   */
+  @AfterClass
+  public static void stop() throws Exception {
+    new Set(MainOptions.THREADS, 1).execute(context);
+    new DropDB(NAME).execute(context);
+  }
+
+  /** Paths with predicates. */
+  @Test
+  public void preds() {
+    check("count(//b[c = 3])", "1000", "exists(//CachedPath[@parallel = 'true'])");
+    check("sum(//b[c = 3]/@id)", "4.998E6", "exists(//CachedPath[@parallel = 'true'])");
+    check("for $i in (3, 5) return count(//b[c = $i])", "1000 1000");
+    check("count(//b[c = 3][@id > 5000])", "500");
+    check("(//b[c = 3])[last()]/@id/string()", "9993",
+        "exists(//CachedPath[@parallel = 'true'])");
+  }
+
+  /** Descendant steps. */
+  @Test
+  public void descendant() {
+    check("count(//node()[. = '3'])", "3000", "exists(//CachedPath[@parallel = 'true'])");
+    check("count(//b//text()[. = '3'])", "1000");
+    check("count(descendant-or-self::node()[self::c])", "10000");
+  }
+
+  /** Paths that are evaluated sequentially. */
+  @Test
+  public void sequential() {
+    check("count(//b[1])", "1", "empty(//*[@parallel])");
+    check("count(//b[random:double() < 2])", "10000", "exists(//IterPath/DBNode)");
+    check("count(//b[c = " + _DB_TEXT.args(NAME, "3") + "])", "1000",
+        "exists(//IterPath/DBNode)");
+    check("(# db:threads 1 #) { count(//b[c = 3]) }", "1000", "exists(//IterPath/DBNode)");
+  }
+
+  /** Errors raised by parallel threads. */
+  @Test
+  public void error() {
+    error("//b[c = 3][xs:integer(@id || 'x')]", Err.FUNCAST);
+    error("(# basex:parallel #) { for $i in 1 to 100 return xs:integer($i || 'x') }",
+        Err.FUNCAST);
+    error("(# basex:parallel 0 #) { 1 }", Err.BASX_VALUE);
+  }
+
+  /** For clauses that are evaluated in parallel threads. */
+  @Test
+  public void forkJoin() {
+    check("(# basex:parallel 3 #) { for $i in 1 to 10 return $i * 2 }",
+        "2 4 6 8 10 12 14 16 18 20", "exists(//GFLWOR[@parallel = 'true'])");
+    check("sum((# basex:parallel #) { let $a := 3 for $i at $p in 1 to 100 " +
+        "let $b := $i * $a where $b mod 2 = 0 for $j in 1 to 2 return $p + $j })",
+        "5250", "exists(//GFLWOR[@parallel = 'true'])");
+    check("count(((# basex:parallel #) { for $i in 1 to 1000 return <a/> }) | ())",
+        "1000");
+    check("(# basex:parallel #) { for $i in 1 to 3 " +
+        "return count(" + _DB_OPEN.args(NAME) + "//b[c = $i]) }", "1000 1000 1000");
+    check("(# basex:parallel #) { for $i in 1 to 3 order by -$i return $i }",
+        "3 2 1", "empty(//GFLWOR[@parallel])");
+    check("for $i in 1 to 3 return $i", "1 2 3", "empty(//GFLWOR[@parallel])");
+  }
+
+  /** For clauses with context-dependent expressions. */
+  @Test
+  public void forkJoinContext() {
+    check("(# basex:parallel 4 #) { for $i in 1 to 10 return count(./a/b[@id = $i]) }",
+        "1 1 1 1 1 1 1 1 1 1", "exists(//GFLWOR[@parallel = 'true'])");
+    check("(# basex:parallel #) { for $i in 1 to 3 return .//b[@id = $i]/c/text() }",
+        "123", "exists(//GFLWOR[@parallel = 'true'])");
+    check("(1 to 3) ! ((# basex:parallel #) { for $i in 1 to 2 return . * $i })",
+        "1 2 2 4 3 6", "exists(//GFLWOR[@parallel = 'true'])");
+  }
+}
@@ -59,6 +59,45 @@ public final class AnnotationsTest extends AdvancedQueryTest {
     error("declare %output:method function local:x() { 1 }; 1", Err.BASX_ANNOTARGS);
   }
 
+  /** Memoization of function results. */
+  @Test
+  public void memoize() {
+    // would not terminate without memoization
+    query("declare %basex:memoize function local:fib($n) { if($n < 2) then $n " +
+        "else local:fib($n - 1) + local:fib($n - 2) }; local:fib(90)", "2880067194370816120");
+    query("declare %basex:memoize(2) function local:f($n) { $n * 2 }; " +
+        "(1, 2, 3, 1, 3) ! local:f(.)", "2 4 6 2 6");
+    query("let $f := %basex:memoize function($n) { $n * 2 } return ($f(1), $f(1), $f(2))",
+        "2 2 4");
+    // results of closures are cached separately
+    query("for $i in 1 to 2 let $f := %basex:memoize function($n) { $n * $i } " +
+        "return ($f(1), $f(1))", "1 1 2 2");
+    // arguments of different types are distinguished
+    query("declare %basex:memoize function local:f($n) { $n }; " +
+        "(local:f(1), local:f(1.0), local:f(1e0)) ! (. instance of xs:integer)",
+        "true false false");
+    // values with different timezones are distinguished
+    query("declare %basex:memoize function local:f($d) { string($d) }; " +
+        "local:f(xs:dateTime('2000-01-01T00:00:00Z')), " +
+        "local:f(xs:dateTime('2000-01-01T01:00:00+01:00')), " +
+        "local:f(xs:dateTime('2000-01-01T00:00:00'))",
+        "2000-01-01T00:00:00Z 2000-01-01T01:00:00+01:00 2000-01-01T00:00:00");
+    query("declare %basex:memoize function local:f($d) { timezone-from-date($d) }; " +
+        "local:f(xs:date('2000-01-01Z')), local:f(xs:date('2000-01-01'))", "PT0S");
+    // QNames with different prefixes are distinguished
+    query("declare %basex:memoize function local:f($q) { string($q) }; " +
+        "local:f(QName('U', 'a:b')), local:f(QName('U', 'c:b'))", "a:b c:b");
+    // results of functions that create nodes are not cached
+    query("declare %basex:memoize function local:f($n) { <a>{ $n }</a> }; " +
+        "local:f(1) is local:f(1)", "false");
+
+    error("declare %basex:memoize('x') function local:f($n) { $n }; local:f(1)",
+        Err.BASX_ANNOTARGS);
+    error("declare %basex:memoize(0) function local:f($n) { $n }; local:f(1)",
+        Err.BASX_ANNOTARGS);
+    error("declare %basex:memoize variable $x := 1; $x", Err.BASX_ANNOT);
+  }
+
   /**  Test for empty-sequence() as function item. */
   @Test
   public void emptyFunTest() {
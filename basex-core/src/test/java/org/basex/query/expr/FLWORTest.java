@@ -28,6 +28,53 @@ public final class FLWORTest extends AdvancedQueryTest {
     query("let $i := 1 group by $i, $i return $i", "1");
   }
 
+  /** Tests ordering by keys of the same primitive type. */
+  @Test
+  public void orderPrimitiveTest() {
+    query("for $i in (3, 1, (), 2) order by $i return $i", "1 2 3");
+    query("for $i in (3, (), 1) order by $i empty greatest return $i", "1 3");
+    query("for $i in (3, -1, 0, -0e0, xs:double('NaN'), -1e300, 1e0 div 0) " +
+        "order by $i descending empty greatest return $i", "NaN INF 3 0 -0 -1 -1.0E300");
+    query("for $s in ('b', 'a', 'ab', '', 'B') order by $s return '[' || $s || ']'",
+        "[] [B] [a] [ab] [b]");
+    query("for $s in ('b', 'a', 'ab', '', 'B') order by $s descending " +
+        "return '[' || $s || ']'", "[b] [ab] [a] [B] []");
+    query("for $s in ('b', 'a', 'B', 'A') order by $s collation " +
+        "'http://basex.org/collation?lang=en;strength=secondary' return $s", "a A b B");
+    query("for $i in 1 to 10 order by $i mod 3 descending, $i * -1 return $i",
+        "8 5 2 10 7 4 1 9 6 3");
+    query("for $i in (<a>2</a>, <a>10</a>, <a>1</a>) order by $i return $i/string()",
+        "1 10 2");
+  }
+
+  /** Tests the limited sorting of tuples. */
+  @Test
+  public void orderTopKTest() {
+    query("subsequence(for $i in 1 to 20 order by $i mod 3, -$i return $i, 1, 5)",
+        "18 15 12 9 6");
+    query("subsequence(for $i in 1 to 20 order by $i mod 3, -$i return $i, 3, 4)",
+        "12 9 6 3");
+    query("subsequence(for $i in 1 to 20 order by xs:decimal($i) descending return $i, 0, 3)",
+        "20 19");
+    query("subsequence(for $i in 1 to 5 order by $i mod 2 return ($i, $i), 1, 3)", "2 2 4");
+    query("subsequence(for $i in 1 to 5 order by $i mod 2 return $i, 2)", "4 1 3 5");
+  }
+
+  /** Tests grouping by keys of the same primitive type. */
+  @Test
+  public void groupPrimitiveTest() {
+    query("for $i in 1 to 10 group by $k := $i mod 3 order by $k return count($i)", "3 4 3");
+    query("for $i in (1, 0e0, -0e0, xs:double('NaN'), 0e0 div 0) " +
+        "group by $k := xs:double($i) return count($i)", "1 2 2");
+    query("for $i in (1, 1.0, 1e0, '1') group by $k := $i return count($i)", "3 1");
+    query("for $i in (1, 2, 1, ()) group by $k := $i return count($i)", "2 1");
+    query("for $i in 1 to 4 group by $k := $i[. > 2] return count($i)", "2 1 1");
+    // unsigned longs exceeding the range of longs
+    query("let $s as xs:integer+ := (xs:unsignedLong('18446744073709551615'), -1, " +
+        "xs:unsignedLong('18446744073709551615'), xs:unsignedLong('1'), 1) " +
+        "for $i in $s group by $k := $i return count($i)", "2 1 2");
+  }
+
   /**
    * Runs an updating query and matches the result of the second query
    * against the expected output.
@@ -0,0 +1,180 @@
+package org.basex.query.expr;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.query.*;
+import org.basex.query.iter.*;
+import org.basex.query.value.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.junit.*;
+
+/**
+ * Tests for node sequences that are stored as pre values.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class NodeSeqTest extends AdvancedQueryTest {
+  /** Second database. */
+  private static final String NAME2 = NAME + '2';
+
+  /**
+   * Creates the test databases.
+   * @throws BaseXException database exception
+   */
+  @BeforeClass
+  public static void start() throws BaseXException {
+    new CreateDB(NAME2, "<a><b>1</b><b>2</b></a>").execute(context);
+    new CreateDB(NAME, "<a>" + new String(new char[100]).replace("\0", "<b/>") + "</a>").
+      execute(context);
+    query("for $b at $p in //b return insert node text { $p } into $b");
+  }
+
+  /**
+   * Drops the test databases.
+   * @throws BaseXException database exception
+   */
+  @AfterClass
+  public static void stop() throws BaseXException {
+    new DropDB(NAME).execute(context);
+    new DropDB(NAME2).execute(context);
+  }
+
+  /** Adds database nodes and fragments to a builder. */
+  @Test
+  public void builder() {
+    final Data data = context.data();
+    final NodeSeqBuilder nb = new NodeSeqBuilder().check();
+    for(int p = 5; p > 1; p--) nb.add(new DBNode(data, p));
+    nb.add(new DBNode(data, 3));
+    assertEquals(data, nb.compact());
+
+    // sorted and duplicate-free pre values
+    Value v = nb.value();
+    assertTrue(v instanceof DBNodeSeq);
+    assertEquals(4, v.size());
+    assertEquals(2, ((DBNode) v.itemAt(0)).pre);
+    assertEquals(5, ((DBNode) v.itemAt(3)).pre);
+
+    // switch to node instances
+    final FElem elem = new FElem("x");
+    nb.check();
+    nb.add(elem);
+    nb.add(new DBNode(data, 3));
+    assertNull(nb.compact());
+    v = nb.value();
+    assertFalse(v instanceof DBNodeSeq);
+    assertEquals(5, v.size());
+    assertTrue(nb.indexOf(elem, false) >= 0);
+    assertEquals(-1, nb.indexOf(new DBNode(data, 6), false));
+  }
+
+  /** Adds nodes of different builders. */
+  @Test
+  public void builders() {
+    final Data data = context.data();
+    final NodeSeqBuilder nb1 = new NodeSeqBuilder(), nb2 = new NodeSeqBuilder();
+    nb1.add(new DBNode(data, 2));
+    nb2.add(new DBNode(data, 4));
+    nb1.add(nb2);
+    assertEquals(data, nb1.compact());
+    assertEquals(2, nb1.size());
+
+    // builder with node instances
+    final NodeSeqBuilder nb3 = new NodeSeqBuilder();
+    nb3.add(new FElem("x"));
+    nb1.add(nb3);
+    assertNull(nb1.compact());
+    assertEquals(3, nb1.size());
+    assertEquals(4, ((DBNode) nb1.get(1)).pre);
+  }
+
+  /** Paths and set operations on database nodes. */
+  @Test
+  public void paths() {
+    query(COUNT.args(" //b | //b"), "100");
+    query(COUNT.args(" //b/.."), "1");
+    query("(//b[. = 3], //b[. = 1], //b[. = 3])/text()", "13");
+    query("(//b[. = 3], //b[. = 1], //b[. = 3]) ! text()", "313");
+    query("(//b[. = (3, 1)] | //b[. = 1])/text()", "13");
+    query(COUNT.args(" //b except //b[. > 10]"), "10");
+    query(COUNT.args(" //b intersect //b[. > 10]"), "90");
+  }
+
+  /** Mixed database nodes and fragments. */
+  @Test
+  public void mixed() {
+    query(COUNT.args(" (//b, <b/>) | //b"), "101");
+    query(COUNT.args(" (//b[. > 98], <b/>, //b[. > 98]) | ()"), "3");
+    query(COUNT.args(" (//b, <b/>) except //b[. > 50]"), "51");
+    query(COUNT.args(" (<b/>, //b) intersect //b[. > 50]"), "50");
+    query("let $x := <b>x</b> return (//b[. > 98], $x, $x) ! text()", "99100xx");
+    query("let $x := <b>x</b> return " + COUNT.args(" (//b[. > 98] | $x) except $x"), "2");
+  }
+
+  /** Nodes of different databases. */
+  @Test
+  public void databases() {
+    query(COUNT.args(" " + _DB_OPEN.args(NAME) + "//b | " + _DB_OPEN.args(NAME2) + "//b"),
+        "102");
+    query(COUNT.args(" (" + _DB_OPEN.args(NAME2) + "//b | " + _DB_OPEN.args(NAME) +
+        "//b[. < 3]) except " + _DB_OPEN.args(NAME2) + "//b"), "2");
+  }
+
+  /** Filters on database nodes. */
+  @Test
+  public void filters() {
+    query("(//b)[. mod 2 = 0][3]/text()", "6");
+    query("(//b)[last()]/text()", "100");
+    query("(//b)[position() = 10 to 12]/text()", "101112");
+    query("(//b)[. > 97][2]/text()", "99");
+    query(COUNT.args(" (//b)[. > 1000]"), "0");
+    query("(//b[. < 3], <b>3</b>)[. > 1] ! text()", "23");
+  }
+
+  /**
+   * Filters on document nodes.
+   * @throws Exception exception
+   */
+  @Test
+  public void documents() throws Exception {
+    final String name = NAME + '3';
+    new CreateDB(name).execute(context);
+    try {
+      for(int d = 0; d < 3; d++) new Add(d + ".xml", "<d/>").execute(context);
+      Value v = value(_DB_OPEN.args(name) + "[position() <= last()]");
+      assertTrue(v instanceof DBNodeSeq);
+      assertEquals(NodeType.DOC, v.type);
+      assertTrue(((DBNodeSeq) v).complete);
+
+      v = value(_DB_OPEN.args(name) + "[position() < last()]");
+      assertTrue(v instanceof DBNodeSeq);
+      assertEquals(NodeType.DOC, v.type);
+      assertFalse(((DBNodeSeq) v).complete);
+    } finally {
+      new DropDB(name).execute(context);
+      new Open(NAME).execute(context);
+    }
+  }
+
+  /**
+   * Returns the value of the specified query.
+   * @param query query
+   * @return value
+   * @throws QueryException query exception
+   */
+  private static Value value(final String query) throws QueryException {
+    final QueryProcessor qp = new QueryProcessor(query, context);
+    try {
+      return qp.value();
+    } finally {
+      qp.close();
+    }
+  }
+}
@@ -1,10 +1,13 @@
 package org.basex.query.func;
 
 import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
 
 import org.basex.io.*;
 import org.basex.query.util.*;
 import org.basex.query.*;
+import org.basex.query.value.item.*;
+import org.basex.util.*;
 import org.junit.*;
 
 /**
@@ -98,6 +101,31 @@ public final class FNArchiveTest extends AdvancedQueryTest {
         "[not(@size)][not(@last-modified)][not(@compressed-size)][not(text())]"), "1");
   }
 
+  /** Test method. */
+  @Test
+  public void paths() {
+    // archives specified as file paths
+    query(COUNT.args(_ARCHIVE_ENTRIES.args(ZIP)), "5");
+    query(COUNT.args(_ARCHIVE_ENTRIES.args(GZIP)), "1");
+    query(_ARCHIVE_OPTIONS.args(ZIP) + "//@value/data()", "zip deflate");
+    query(_ARCHIVE_OPTIONS.args(GZIP) + "//@value/data()", "gzip deflate");
+    query(PARSE_XML.args(_ARCHIVE_EXTRACT_TEXT.args(ZIP, "test/input.xml")) +
+        "//title/text()", "XML");
+    query(COUNT.args(_ARCHIVE_DELETE.args(ZIP, "infos/stopWords") + " ! " +
+        _ARCHIVE_ENTRIES.args(" .")), "4");
+
+    // binary entries are identical to the extracted entries of the materialized archive
+    query("let $a := " + _FILE_READ_BINARY.args(ZIP) +
+        "let $b := " + _ARCHIVE_EXTRACT_BINARY.args(ZIP) +
+        "let $c := " + _ARCHIVE_EXTRACT_BINARY.args(" xs:base64Binary($a)") +
+        "return count($b) = count($c) and (every $i in 1 to count($b) satisfies " +
+        "$b[$i] = $c[$i])", "true");
+    query("for $e in " + _ARCHIVE_ENTRIES.args(ZIP) + " return " +
+        STRING_LENGTH.args(_CONVERT_BINARY_TO_STRING.args(
+        _ARCHIVE_EXTRACT_BINARY.args(ZIP, " $e"))) + " > 0", "true true true true true");
+    error(_ARCHIVE_ENTRIES.args("unknown.zip"), Err.WHICHRES);
+  }
+
   /** Test method. */
   @Test
   public void options() {
@@ -154,6 +182,24 @@ public final class FNArchiveTest extends AdvancedQueryTest {
           "return $d//title/text()", "XML");
   }
 
+  /**
+   * Test method for the archive:extract-binary() function: reads the contents of an
+   * extracted entry after the query has been closed.
+   * @throws QueryException query exception
+   */
+  @Test
+  public void extractBinaryClosed() throws QueryException {
+    final QueryProcessor qp = new QueryProcessor(
+        _ARCHIVE_EXTRACT_BINARY.args(_FILE_READ_BINARY.args(ZIP), "test/input.xml"), context);
+    final Item it;
+    try {
+      it = (Item) qp.value();
+    } finally {
+      qp.close();
+    }
+    assertTrue(Token.contains(((Bin) it).binary(null), Token.token("<title>XML</title>")));
+  }
+
   /** Test method. */
   @Test
   public void update() {
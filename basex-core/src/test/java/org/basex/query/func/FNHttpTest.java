@@ -0,0 +1,107 @@
+package org.basex.query.func;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.query.*;
+import org.basex.util.*;
+import org.junit.*;
+
+import com.sun.net.httpserver.*;
+
+/**
+ * This class tests the functions of the HTTP Module against a local stub server.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class FNHttpTest extends AdvancedQueryTest {
+  /** Client ports of the requests received by the stub server. */
+  private static final Set<Integer> PORTS = Collections.synchronizedSet(new HashSet<Integer>());
+  /** Number of requests that are currently processed by the stub server. */
+  private static final AtomicInteger RUNNING = new AtomicInteger();
+  /** Maximum number of concurrently processed requests. */
+  private static final AtomicInteger MAX = new AtomicInteger();
+  /** Stub server. */
+  private static HttpServer server;
+  /** Server URL. */
+  private static String url;
+
+  /**
+   * Starts the stub server, which returns the last path segment of a request as text.
+   * @throws IOException I/O exception
+   */
+  @BeforeClass
+  public static void start() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange ex) throws IOException {
+        PORTS.add(ex.getRemoteAddress().getPort());
+        final int r = RUNNING.incrementAndGet();
+        for(int m; (m = MAX.get()) < r && !MAX.compareAndSet(m, r););
+        try {
+          final String path = ex.getRequestURI().getPath();
+          if(path.startsWith("/sleep/")) Performance.sleep(100);
+          final byte[] body = Token.token(path.replaceAll(".*/", ""));
+          ex.getResponseHeaders().set("Content-Type", "text/plain");
+          ex.sendResponseHeaders(200, body.length);
+          final OutputStream os = ex.getResponseBody();
+          os.write(body);
+          os.close();
+        } finally {
+          RUNNING.decrementAndGet();
+        }
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    url = "http://localhost:" + server.getAddress().getPort() + '/';
+  }
+
+  /** Stops the stub server. */
+  @AfterClass
+  public static void stop() {
+    server.stop(0);
+  }
+
+  /** Resets the statistics. */
+  @Before
+  public void reset() {
+    PORTS.clear();
+    MAX.set(0);
+  }
+
+  /** Test method. */
+  @Test
+  public void sendRequest() {
+    query("for $i in 1 to 5 return " +
+        _HTTP_SEND_REQUEST.args("<http:request method='get'/>", " '" + url + "' || $i") +
+        "[2]", "1 2 3 4 5");
+    query(_HTTP_SEND_REQUEST.args("<http:request method='get' status-only='true' href='" +
+        url + "x'/>") + "/@status/string()", "200");
+    // all requests are sent over the same persistent connection
+    assertEquals(1, PORTS.size());
+  }
+
+  /** Test method. */
+  @Test
+  public void sendRequests() {
+    final String reqs = " for $i in 1 to 8 return " +
+        "<http:request method='get' href='{ \"" + url + "sleep/\" || $i }'/>";
+    query(_HTTP_SEND_REQUESTS.args(reqs, 4) + "[not(. instance of node())]",
+        "1 2 3 4 5 6 7 8");
+    assertTrue(MAX.get() > 1 && MAX.get() <= 4);
+
+    MAX.set(0);
+    query("count(" + _HTTP_SEND_REQUESTS.args(reqs, 1) + "[. instance of element()])", "8");
+    assertEquals(1, MAX.get());
+    query(_HTTP_SEND_REQUESTS.args(" ()"), "");
+  }
+}
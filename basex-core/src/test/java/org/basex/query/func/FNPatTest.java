@@ -19,4 +19,31 @@ public final class FNPatTest extends AdvancedQueryTest {
     query("replace(' aaa AAA 123','(\\s+\\P{Ll}{3,280}?)','$1@')", " aaa AAA@ 123@");
     error("replace('asdf','a{12,3}','')", Err.REGPAT);
   }
+
+  /** Tests for the evaluation of regular expressions with automata. */
+  @Test
+  public void automaton() {
+    // patterns that cause exponential backtracking
+    query("matches(string-join((1 to 10000) ! 'x'), '(x+x+)+y')", "false");
+    query("matches(string-join((1 to 10000) ! 'a'), '^(a|aa)*$')", "true");
+    // repeated searches with threads that run beyond the returned matches
+    query("string-length(replace(string-join((1 to 100000) ! 'a'), '(a|b)*c|a', 'x'))",
+        "100000");
+    // empty iterations of quantified groups
+    query("replace('_B^2b', '(\\d??\\^?){0,}', '-', 'sm')", "-_-B--2-b-");
+    query("replace('1bb^2bc', '((\\^*\\d??)+?b*){1,2}b', '-')", "-c");
+    // multi-byte characters
+    query("tokenize('a\u00e4b\u00e4c', '\u00e4')", "a b c");
+    query("replace('\u00e4bc\u00e4bc', '(\u00e4)(b)?', '[$2$1$12]')",
+        "[b\u00e4\u00e42]c[b\u00e4\u00e42]c");
+    query("analyze-string('x\u00e4y', '\u00e4(y)')//*:group/string()", "y");
+    // modifiers and line borders
+    query("replace('aB&#10;Ab', '^a', 'x', 'im') = 'xB&#10;xb'", "true");
+    query("replace('a.b', '.', 'x', 'q')", "axb");
+    query("replace('abc', 'x*', '-')", "-a-b-c-");
+    // back-references (evaluated by the Java engine)
+    query("matches('abab', '^(ab)\\1$')", "true");
+    query("replace('xyzx', '(x)(.*)\\1', '$2')", "yz");
+    error("replace('a', '(a)', '$2')", Err.REGROUP);
+  }
 }
@@ -0,0 +1,56 @@
+package org.basex.query.func;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.query.*;
+import org.junit.*;
+
+/**
+ * This class tests the sequence functions.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class FNSeqTest extends AdvancedQueryTest {
+  /** Test method. */
+  @Test
+  public void distinctValues() {
+    // integers
+    query(DISTINCT_VALUES.args("(1, 2, 1, 3, 2)"), "1 2 3");
+    query(DISTINCT_VALUES.args("(1 to 1000) ! (. mod 7)"), "1 2 3 4 5 6 0");
+    query("let $s := (1 to 1000) ! (. mod 7) return " + DISTINCT_VALUES.args("$s"),
+        "1 2 3 4 5 6 0");
+    query(DISTINCT_VALUES.args("(xs:byte(1), xs:byte(1))") + " instance of xs:byte", "true");
+    query(DISTINCT_VALUES.args("(1, 1.0, 1e0)"), "1");
+    // unsigned longs exceeding the range of longs
+    query("let $s as xs:integer+ := (xs:unsignedLong('18446744073709551615'), -1, " +
+        "xs:unsignedLong('18446744073709551615'), xs:unsignedLong('1'), 1) return " +
+        DISTINCT_VALUES.args("$s"), "18446744073709551615 -1 1");
+    // doubles
+    query(DISTINCT_VALUES.args("(1e0, 2e0, 1e0)"), "1 2");
+    query("count(" + DISTINCT_VALUES.args("(xs:double('NaN'), 0e0 div 0, 0e0, -0e0)") + ')',
+        "2");
+    query("let $s := (1 to 1000) ! xs:double(. mod 5) return count(" +
+        DISTINCT_VALUES.args("$s") + ')', "5");
+    // strings
+    query(DISTINCT_VALUES.args("('a', 'b', 'a', 'c')"), "a b c");
+    query("let $s := (1 to 1000) ! string(. mod 3) return " + DISTINCT_VALUES.args("$s"),
+        "1 2 0");
+    query(DISTINCT_VALUES.args("('a', 'A')"), "a A");
+    query(DISTINCT_VALUES.args("('a', xs:untypedAtomic('a'), 1, '1')"), "a 1 1");
+  }
+
+  /** Test method. */
+  @Test
+  public void indexOf() {
+    query(INDEX_OF.args("(1, 2, 1, 3)", 1), "1 3");
+    query(INDEX_OF.args("(1, 2, 1, 3)", " 1.0"), "1 3");
+    query("let $s := (1 to 1000) ! (. mod 500) return " + INDEX_OF.args("$s", 499),
+        "499 999");
+    query(INDEX_OF.args("(1e0, 0e0, -0e0)", " 0e0"), "2 3");
+    query(INDEX_OF.args("(xs:double('NaN'), 1e0)", "xs:double('NaN')"), "");
+    query(INDEX_OF.args("('a', 'b', 'a')", " 'a'"), "1 3");
+    query(INDEX_OF.args("('a', 'b', 'a')", "xs:untypedAtomic('b')"), "2");
+    query(INDEX_OF.args("('a', 'b', 'a')", 1), "");
+  }
+}
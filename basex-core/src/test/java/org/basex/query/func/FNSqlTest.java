@@ -1,53 +1,144 @@
 package org.basex.query.func;
 
+import static org.basex.query.func.Function.*;
+
 import org.basex.query.*;
+import org.basex.query.util.*;
 import org.junit.*;
 
 /**
  * This class tests the functions of the SQL Module.
- * Due to the lack of a default JDBC driver, this class contains only tests signatures.
+ * The tests are run on an in-memory Derby database.
  *
  * @author BaseX Team 2005-13, BSD License
  * @author Christian Gruen
  */
 public final class FNSqlTest extends AdvancedQueryTest {
+  /** JDBC driver. */
+  private static final String DRIVER = "org.apache.derby.jdbc.EmbeddedDriver";
+  /** Database URL. */
+  private static final String URL = "jdbc:derby:memory:sqltest";
+  /** Connection. */
+  private static final String CONN = "let $c := " + _SQL_CONNECT.args(URL) + ' ';
+  /** Names of the stored persons, ordered by id. */
+  private static final String NAMES = "'SELECT name FROM person ORDER BY id'";
+
+  /** Creates the test database. */
+  @BeforeClass
+  public static void start() {
+    query(_SQL_INIT.args(DRIVER));
+    query("let $c := " + _SQL_CONNECT.args(URL + ";create=true") + " return (" +
+      _SQL_EXECUTE.args(" $c", "CREATE TABLE person (id INT, name VARCHAR(32))") + ", " +
+      _SQL_EXECUTE.args(" $c", "INSERT INTO person VALUES (1, 'A'), (2, 'B'), (3, 'C')") +
+      ')');
+  }
+
+  /** Drops the test database. */
+  @AfterClass
+  public static void stop() {
+    query(CONN + "return " + _SQL_EXECUTE.args(" $c", "DROP TABLE person"));
+  }
+
   /** Test method. */
   @Test
   public void init() {
+    query(_SQL_INIT.args(DRIVER), "");
+    error(_SQL_INIT.args("unknown.Driver"), Err.BXSQ_DRIVER);
   }
 
   /** Test method. */
   @Test
   public void connect() {
+    query(_SQL_CONNECT.args(URL) + " instance of xs:integer", "true");
+    error(_SQL_CONNECT.args("jdbc:derby:memory:unknown"), Err.BXSQ_ERROR);
   }
 
   /** Test method. */
   @Test
   public void prepare() {
+    query(CONN + "return " + _SQL_PREPARE.args(" $c", "SELECT * FROM person") +
+      " instance of xs:integer", "true");
+    error(_SQL_PREPARE.args(" 99", "SELECT * FROM person"), Err.BXSQ_CONN);
+    error(CONN + "return " + _SQL_PREPARE.args(" $c", "SELECT * FROM unknown"),
+      Err.BXSQ_ERROR);
   }
 
   /** Test method. */
   @Test
   public void execute() {
+    query(CONN + "return " + _SQL_EXECUTE.args(" $c", " " + NAMES) + "/sql:column/text()",
+      "ABC");
+    query(CONN + "return " + COUNT.args(_SQL_EXECUTE.args(" $c", " " + NAMES,
+      " <sql:options><sql:fetch-size>1</sql:fetch-size></sql:options>")), "3");
+    // rows of a partially consumed cursor
+    query(CONN + "return " + HEAD.args(_SQL_EXECUTE.args(" $c", " " + NAMES)) + "/string()",
+      "A");
+    // nested cursors on the same connection
+    query(CONN + "for $r in " + _SQL_EXECUTE.args(" $c", " " + NAMES) + " return " +
+      COUNT.args(_SQL_EXECUTE.args(" $c", " " + NAMES)), "3 3 3");
+    // updating statement
+    query(CONN + "return " + _SQL_EXECUTE.args(" $c", "UPDATE person SET id = id"), "");
+
+    error(_SQL_EXECUTE.args(" 99", " " + NAMES), Err.BXSQ_CONN);
+    error(CONN + "return " + _SQL_EXECUTE.args(" $c", "SELECT * FROM unknown"),
+      Err.BXSQ_ERROR);
   }
 
   /** Test method. */
   @Test
   public void executePrepared() {
+    final String prep = "let $p := " + _SQL_PREPARE.args(" $c",
+      "SELECT name FROM person WHERE id >= ? ORDER BY id") + ' ';
+    final String params = " <sql:parameters><sql:parameter type='int'>2</sql:parameter>" +
+      "</sql:parameters>";
+    query(CONN + prep + "return " + _SQL_EXECUTE_PREPARED.args(" $p", params) +
+      "/sql:column/text()", "BC");
+    // prepared statement is executed again while the first result is being consumed
+    query(CONN + prep + "for $r in " + _SQL_EXECUTE_PREPARED.args(" $p", params) +
+      " return ($r/sql:column/text(), " + COUNT.args(_SQL_EXECUTE_PREPARED.args(" $p",
+      params)) + ')', "B2C2");
+
+    error(_SQL_EXECUTE_PREPARED.args(" 99"), Err.BXSQ_STATE);
+    error(CONN + prep + "return " + _SQL_EXECUTE_PREPARED.args(" $p"), Err.BXSQ_PARAMS);
+    error(CONN + prep + "return " + _SQL_EXECUTE_PREPARED.args(" $p",
+      " <sql:parameters><sql:parameter>2</sql:parameter></sql:parameters>"), Err.BXSQ_TYPE);
+    error(CONN + prep + "return " + _SQL_EXECUTE_PREPARED.args(" $p",
+      " <sql:parameters><sql:parameter type='int'>X</sql:parameter></sql:parameters>"),
+      Err.BXSQ_FORMAT);
   }
 
   /** Test method. */
   @Test
   public void close() {
+    query(CONN + "return " + _SQL_CLOSE.args(" $c"), "");
+    error(CONN + "return (" + _SQL_CLOSE.args(" $c") + ", " +
+      _SQL_EXECUTE.args(" $c", " " + NAMES) + ')', Err.BXSQ_CONN);
+    // connection is closed after a cursor has been consumed
+    query(CONN + "return (" + COUNT.args(_SQL_EXECUTE.args(" $c", " " + NAMES)) + ", " +
+      _SQL_CLOSE.args(" $c") + ')', "3");
   }
 
   /** Test method. */
   @Test
   public void commit() {
+    final String conn = "let $c := " + _SQL_CONNECT.args(URL, "", "",
+      " <sql:options><sql:autocommit>false</sql:autocommit></sql:options>") + ' ';
+    query(conn + "return (" +
+      _SQL_EXECUTE.args(" $c", "INSERT INTO person VALUES (4, 'D')") + ", " +
+      _SQL_COMMIT.args(" $c") + ')', "");
+    query(CONN + "return " + COUNT.args(_SQL_EXECUTE.args(" $c", " " + NAMES)), "4");
+    query(CONN + "return " + _SQL_EXECUTE.args(" $c", "DELETE FROM person WHERE id = 4"), "");
   }
 
   /** Test method. */
   @Test
   public void rollback() {
+    final String conn = "let $c := " + _SQL_CONNECT.args(URL, "", "",
+      " <sql:options><sql:autocommit>false</sql:autocommit></sql:options>") + ' ';
+    query(conn + "return (" +
+      _SQL_EXECUTE.args(" $c", "INSERT INTO person VALUES (4, 'D')") + ", " +
+      _SQL_ROLLBACK.args(" $c") + ", " + COUNT.args(_SQL_EXECUTE.args(" $c", " " + NAMES)) +
+      ')', "3");
+    query(CONN + "return " + COUNT.args(_SQL_EXECUTE.args(" $c", " " + NAMES)), "3");
   }
 }
@@ -2,8 +2,11 @@ package org.basex.query.func;
 
 import static org.basex.query.func.Function.*;
 
+import org.basex.core.cmd.*;
+import org.basex.io.*;
 import org.basex.query.util.*;
 import org.basex.query.*;
+import org.basex.util.*;
 import org.junit.*;
 
 /**
@@ -83,6 +86,76 @@ public final class FNValidateTest extends AdvancedQueryTest {
     error(_VALIDATE_XSD_INFO.args(FILE, "unknown.xsd"), Err.WHICHRES);
   }
 
+  /**
+   * Test method.
+   * @throws Exception exception
+   */
+  @Test
+  public void xsdCache() throws Exception {
+    final IOFile xsd = new IOFile(sandbox(), "cache.xsd");
+    final String schema = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>" +
+        "<xs:element name='%'/></xs:schema>";
+    xsd.write(Token.token(schema.replace("%", "root")));
+    new CreateDB(NAME, "<root/>").execute(context);
+
+    // database nodes, validated against the same schema
+    query("for $i in 1 to 3 return " + _VALIDATE_XSD_INFO.args(_DB_OPEN.args(NAME),
+        xsd.path()), "");
+    query(_VALIDATE_XSD_INFO.args(_DB_OPEN.args(NAME) + "/root", xsd.path()), "");
+
+    // modified schema file
+    xsd.write(Token.token(schema.replace("%", "unknown")));
+    xsd.file().setLastModified(xsd.timeStamp() + 1000);
+    error(_VALIDATE_XSD.args(_DB_OPEN.args(NAME), xsd.path()), Err.BXVA_FAIL);
+    new DropDB(NAME).execute(context);
+  }
+
+  /**
+   * Test method.
+   * @throws Exception exception
+   */
+  @Test
+  public void xsdCacheInclude() throws Exception {
+    final IOFile dir = new IOFile(sandbox(), "xsd");
+    dir.md();
+    final IOFile xsd = new IOFile(dir, "main.xsd"), inc = new IOFile(dir, "inc.xsd");
+    final String schema = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>%" +
+        "</xs:schema>";
+    xsd.write(Token.token(schema.replace("%", "<xs:include schemaLocation='inc.xsd'/>")));
+    try {
+      // modified included schema
+      inc.write(Token.token(schema.replace("%", "<xs:element name='root'/>")));
+      query(_VALIDATE_XSD_INFO.args("<root/>", xsd.path()), "");
+      inc.write(Token.token(schema.replace("%", "<xs:element name='unknown'/>")));
+      inc.file().setLastModified(inc.timeStamp() + 2000);
+      error(_VALIDATE_XSD.args("<root/>", xsd.path()), Err.BXVA_FAIL);
+
+      // modified schema, declared in the document
+      final String doc = "<root xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance' " +
+          "xsi:noNamespaceSchemaLocation='" + inc.url() + "'/>";
+      error(_VALIDATE_XSD.args(doc), Err.BXVA_FAIL);
+      inc.write(Token.token(schema.replace("%", "<xs:element name='root'/>")));
+      inc.file().setLastModified(inc.timeStamp() + 2000);
+      query(_VALIDATE_XSD_INFO.args(doc), "");
+    } finally {
+      dir.delete();
+    }
+  }
+
+  /** Test method. */
+  @Test
+  public void xsdInfoPositions() {
+    // positions refer to the serialized node
+    final String schema = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>" +
+        "<xs:element name='root'><xs:complexType><xs:sequence>" +
+        "<xs:element name='a' type='xs:integer'/>" +
+        "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+    query("for $e in " + _VALIDATE_XSD_INFO.args("<root><a>x</a><b/></root>", schema) +
+        " return substring-before(substring-after($e, ':'), ': ')", "2:11 2:11 3:7");
+    query(STARTS_WITH.args(_VALIDATE_XSD_INFO.args("<root><a v='x'/></root>", schema) +
+        "[1]", "Error:2:13:"), "true");
+  }
+
   /** Test method. */
   @Test
   public void dtd() {
@@ -1,9 +1,12 @@
 package org.basex.query.func;
 
 import static org.basex.query.func.Function.*;
+import static org.basex.util.Token.*;
 import static org.junit.Assert.*;
 
+import org.basex.io.*;
 import org.basex.query.*;
+import org.basex.query.util.*;
 import org.junit.*;
 
 /**
@@ -41,6 +44,58 @@ public final class FNXsltTest extends AdvancedQueryTest {
     query(_XSLT_TRANSFORM.args(doc, style, param), "<X>1</X>");
   }
 
+  /** Test method. */
+  @Test
+  public void transformNodes() {
+    final String doc = "<a xmlns:p='p' p:x='1'><!--c--><b>X</b><p:c/></a>";
+    final String style = wrap("<xsl:template match='/'><xsl:copy-of select='.'/></xsl:template>");
+    query(_XSLT_TRANSFORM.args(doc, style), doc.replace('\'', '"'));
+    query("namespace-uri(" + _XSLT_TRANSFORM.args(doc, style) + "/*/*[last()])", "p");
+
+    // compiled style sheet is reused for different inputs and parameters
+    final String count = wrap("<xsl:param name='t'/><xsl:template match='/'>" +
+      "<X t='{{$t}}'><xsl:value-of select='count(//b)'/></X></xsl:template>");
+    query("for $i in 1 to 3 return " + _XSLT_TRANSFORM.args(
+      "<a>{ for $j in 1 to $i return <b/> }</a>", count,
+      "<xslt:parameters><xslt:t>{ $i }</xslt:t></xslt:parameters>"),
+      "<X t=\"1\">1</X><X t=\"2\">2</X><X t=\"3\">3</X>");
+    error(_XSLT_TRANSFORM.args(doc, wrap("<xsl:template match='/'>" +
+      "<xsl:value-of select='('/></xsl:template>")), Err.BXSL_ERROR);
+  }
+
+  /** Test method. */
+  @Test
+  public void transformOutputText() {
+    // result of text method must be parsed as XML
+    final String doc = "<a/>";
+    error(_XSLT_TRANSFORM.args(doc, wrap("<xsl:output method='text'/>" +
+      "<xsl:template match='/'>1</xsl:template>")), Err.IOERR);
+    query(_XSLT_TRANSFORM.args(doc, wrap("<xsl:output method='text'/>" +
+      "<xsl:template match='/'>&lt;X/&gt;</xsl:template>")), "<X/>");
+  }
+
+  /**
+   * Test method.
+   * @throws Exception exception
+   */
+  @Test
+  public void transformInclude() throws Exception {
+    // cached style sheet is compiled again if an included file is modified
+    final IOFile dir = new IOFile(sandbox(), "xslt");
+    dir.md();
+    final IOFile main = new IOFile(dir, "main.xsl"), inc = new IOFile(dir, "inc.xsl");
+    main.write(token(wrap("<xsl:include href='inc.xsl'/>")));
+    try {
+      inc.write(token(wrap("<xsl:template match='/'><X/></xsl:template>")));
+      query(_XSLT_TRANSFORM.args("<a/>", main.path()), "<X/>");
+      inc.write(token(wrap("<xsl:template match='/'><Y/></xsl:template>")));
+      inc.file().setLastModified(inc.timeStamp() + 2000);
+      query(_XSLT_TRANSFORM.args("<a/>", main.path()), "<Y/>");
+    } finally {
+      dir.delete();
+    }
+  }
+
   /** Test method. */
   @Test
   public void transformText() {
@@ -1,10 +1,14 @@
 package org.basex.server;
 
+import static org.basex.query.func.Function.*;
 import static org.junit.Assert.*;
 
 import java.io.*;
 
 import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.in.*;
 import org.basex.util.*;
 import org.junit.*;
 
@@ -46,4 +50,115 @@ public class ClientSessionTest extends SessionTest {
       fail(Util.message(ex));
     }
   }
+
+  /**
+   * Runs a command while the results of a query are fetched.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void queryFetchCommand() throws IOException {
+    session.execute(new CreateDB(NAME, "<a><b/><b/><b/></a>"));
+    final Query query = session.query("//b");
+    query.fetchSize(2);
+    assertTrue(query.more());
+    // the open cursor will be closed before the update is performed
+    session.execute(new XQuery("insert node <b/> into /a"));
+    query.next();
+    query.next();
+    try {
+      query.next();
+      fail("Cursor was not closed.");
+    } catch(final BaseXException ex) {
+      assertTrue(ex.getMessage().contains("another command"));
+    }
+    query.close();
+  }
+
+  /**
+   * Closes an open cursor if no command is received within the timeout.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void queryFetchTimeout() throws IOException {
+    final GlobalOptions gopts = server.context.globalopts;
+    final int timeout = gopts.get(GlobalOptions.TIMEOUT);
+    gopts.set(GlobalOptions.TIMEOUT, 1);
+    try {
+      session.execute(new CreateDB(NAME, "<a><b/><b/><b/></a>"));
+      final Query query = session.query("//b");
+      query.fetchSize(1);
+      assertTrue(query.more());
+      Performance.sleep(2000);
+
+      // locks must have been released
+      final Session session2 = createClient();
+      try {
+        session2.execute(new XQuery("insert node <b/> into " + _DB_OPEN.args(NAME) + "/a"));
+      } finally {
+        session2.close();
+      }
+      query.next();
+      try {
+        query.next();
+        fail("Cursor was not closed.");
+      } catch(final BaseXException ex) {
+        assertTrue(ex.getMessage().contains("inactivity"));
+      }
+      query.close();
+    } finally {
+      gopts.set(GlobalOptions.TIMEOUT, timeout);
+    }
+  }
+
+  /**
+   * Adds documents with pipelined requests.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void pipeline() throws IOException {
+    session.execute(new CreateDB(NAME));
+    ((ClientSession) session).pipeline(true);
+    for(int d = 0; d < 100; d++) {
+      session.add("doc" + d + ".xml", new ArrayInput("<a>" + d + "</a>"));
+    }
+    ((ClientSession) session).pipeline(false);
+    assertEqual("100", session.query("count(" + _DB_OPEN.args(NAME) + ")").execute());
+  }
+
+  /**
+   * Returns the first error of pipelined requests.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void pipelineError() throws IOException {
+    session.execute(new CreateDB(NAME));
+    ((ClientSession) session).pipeline(true);
+    session.add("a.xml", new ArrayInput("<a/>"));
+    session.add("b.xml", new ArrayInput("<b"));
+    session.add("c.xml", new ArrayInput("<c/>"));
+    try {
+      ((ClientSession) session).pipeline(false);
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      // expected
+    }
+    assertEqual("2", session.query("count(" + _DB_OPEN.args(NAME) + ")").execute());
+  }
+
+  /**
+   * Returns the error of a pipelined binding.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void pipelineBind() throws IOException {
+    final Query query = session.query("declare variable $a external; $a");
+    query.bind("$a", "X", "xs:integer");
+    try {
+      query.execute();
+      fail("Error expected.");
+    } catch(final BaseXException ex) {
+      // expected
+    }
+    assertEqual("1", session.query("1").execute());
+  }
 }
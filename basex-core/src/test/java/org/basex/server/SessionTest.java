@@ -304,6 +304,36 @@ public abstract class SessionTest extends SandboxTest {
     query.close();
   }
 
+  /** Runs a query and retrieves the results in chunks.
+   * @throws IOException I/O exception */
+  @Test
+  public void queryFetch() throws IOException {
+    for(final int size : new int[] { 1, 2, 4, 6, 7 }) {
+      final Query query = session.query("1 to 6");
+      query.fetchSize(size);
+      int c = 0;
+      while(query.more()) assertEqual(++c, query.next());
+      assertEquals(6, c);
+      // query can be evaluated again
+      assertEqual(1, query.next());
+      query.close();
+    }
+  }
+
+  /** Closes a query before all results have been fetched.
+   * @throws IOException I/O exception */
+  @Test
+  public void queryFetchClose() throws IOException {
+    session.execute(new CreateDB(NAME, "<a><b/><b/><b/></a>"));
+    final Query query = session.query("//b");
+    query.fetchSize(1);
+    assertEqual("<b/>", query.next());
+    query.close();
+    // locks must have been released
+    session.execute(new XQuery("insert node <b/> into /a"));
+    assertEqual("4", session.query("count(//b)").execute());
+  }
+
   /** Queries binary content.
    * @throws IOException I/O exception */
   @Test
@@ -0,0 +1,126 @@
+package org.basex.util;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.junit.*;
+
+/**
+ * Tests for {@link Bitmap}.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class BitmapTest {
+  /** Random number generator. */
+  private static final Random RND = new Random(0);
+
+  /** Test method for {@link Bitmap#add(int)} and {@link Bitmap#contains(int)}. */
+  @Test
+  public void add() {
+    final Bitmap bm = new Bitmap();
+    bm.add(70000);
+    bm.add(3);
+    bm.add(3);
+    bm.add(65535);
+    assertEquals(3, bm.cardinality());
+    assertTrue(bm.contains(3));
+    assertTrue(bm.contains(65535));
+    assertTrue(bm.contains(70000));
+    assertFalse(bm.contains(4));
+    assertArrayEquals(new int[] { 3, 65535, 70000 }, bm.toArray());
+  }
+
+  /** Sparse and dense chunks. */
+  @Test
+  public void dense() {
+    final Bitmap bm = new Bitmap();
+    for(int i = 10000; i >= 0; i--) bm.add(i * 2);
+    assertEquals(10001, bm.cardinality());
+    assertTrue(bm.contains(20000));
+    assertFalse(bm.contains(19999));
+    final int[] arr = bm.toArray();
+    for(int i = 0; i < arr.length; i++) assertEquals(i * 2, arr[i]);
+  }
+
+  /**
+   * Test method for {@link Bitmap#write} and {@link Bitmap#Bitmap(DataInput)}.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void write() throws IOException {
+    final Bitmap bm = new Bitmap();
+    for(int i = 0; i < 10000; i++) bm.add(i * 2);
+    for(int i = 0; i < 100; i++) bm.add(100000 + i * 7);
+    final ArrayOutput ao = new ArrayOutput();
+    final DataOutput out = new DataOutput(ao);
+    bm.write(out);
+    out.close();
+    final Bitmap read = new Bitmap(new DataInput(new IOContent(ao.toArray())));
+    assertArrayEquals(bm.toArray(), read.toArray());
+    read.add(1);
+    assertEquals(10101, read.cardinality());
+  }
+
+  /** Test method for the set operations. */
+  @Test
+  public void sets() {
+    for(final int max : new int[] { 100, 10000, 1000000 }) {
+      final int[] a = random(max), b = random(max);
+      final Bitmap x = Bitmap.get(a, a.length), y = Bitmap.get(b, b.length);
+      final TreeSet<Integer> sa = set(a), sb = set(b);
+
+      final TreeSet<Integer> or = new TreeSet<Integer>(sa);
+      or.addAll(sb);
+      assertArrayEquals(array(or), x.or(y).toArray());
+
+      final TreeSet<Integer> and = new TreeSet<Integer>(sa);
+      and.retainAll(sb);
+      assertArrayEquals(array(and), x.and(y).toArray());
+
+      final TreeSet<Integer> not = new TreeSet<Integer>(sa);
+      not.removeAll(sb);
+      assertArrayEquals(array(not), x.andNot(y).toArray());
+    }
+  }
+
+  /**
+   * Returns random integers.
+   * @param max maximum value
+   * @return integers
+   */
+  private static int[] random(final int max) {
+    final int[] arr = new int[Math.min(max, 50000)];
+    for(int i = 0; i < arr.length; i++) arr[i] = RND.nextInt(max);
+    return arr;
+  }
+
+  /**
+   * Returns a sorted set with the specified integers.
+   * @param arr integers
+   * @return set
+   */
+  private static TreeSet<Integer> set(final int[] arr) {
+    final TreeSet<Integer> set = new TreeSet<Integer>();
+    for(final int i : arr) set.add(i);
+    return set;
+  }
+
+  /**
+   * Returns an array with the integers of the specified set.
+   * @param set set
+   * @return array
+   */
+  private static int[] array(final TreeSet<Integer> set) {
+    final int[] arr = new int[set.size()];
+    int c = 0;
+    for(final int i : set) arr[c++] = i;
+    return arr;
+  }
+}
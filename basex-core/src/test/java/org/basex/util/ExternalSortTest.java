@@ -0,0 +1,78 @@
+package org.basex.util;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+/**
+ * Tests for the {@link ExternalSort} implementation.
+ *
+ * @author BaseX Team 2005-13, BSD License
+ * @author Christian Gruen
+ */
+public final class ExternalSortTest {
+  /**
+   * Sorts entries in main memory.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void memory() throws IOException {
+    sort(0);
+  }
+
+  /**
+   * Sorts entries in runs that are swapped to disk.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void swapped() throws IOException {
+    sort(1024);
+  }
+
+  /**
+   * Sorts entries in more runs than can be merged at the same time.
+   * @throws IOException I/O exception
+   */
+  @Test
+  public void passes() throws IOException {
+    sort(128);
+  }
+
+  /**
+   * Sorts shuffled entries with duplicate keys and compares the result.
+   * @param limit main memory budget
+   * @throws IOException I/O exception
+   */
+  private static void sort(final long limit) throws IOException {
+    final int size = 10000;
+    final Integer[] keys = new Integer[size];
+    for(int i = 0; i < size; i++) keys[i] = i / 3;
+    Collections.shuffle(Arrays.asList(keys), new Random(0));
+
+    final ExternalSort es = new ExternalSort(limit);
+    try {
+      for(int i = 0; i < size; i++) es.add(Token.token(1000000 + keys[i]), i);
+      assertEquals(limit == 0, es.runs() == 0);
+      final int runs = es.runs();
+
+      int prev = -1, last = -1;
+      for(int i = 0; i < size; i++) {
+        final int id = es.next();
+        final int key = keys[id];
+        // equal keys must be returned in the order of their ids
+        assertTrue(key > prev || key == prev && id > last);
+        prev = key;
+        last = id;
+      }
+      assertEquals(-1, es.next());
+      // runs are merged in several passes
+      if(runs > 64) assertTrue(es.runs() < 64);
+    } finally {
+      es.close();
+    }
+    assertEquals(0, es.runs());
+  }
+}